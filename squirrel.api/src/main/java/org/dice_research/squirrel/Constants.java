@@ -29,6 +29,28 @@ public class Constants {
     public static final String URI_HTTP_MIME_TYPE_KEY = "http-mime-type";
     public static final String URI_HTTP_CHARSET_KEY = "http-charset";
     public static final String URI_HTTP_STATUS_CODE = "http-status";
+    /**
+     * Set to {@code true} if a conditional request has been answered with
+     * {@code 304 Not Modified}, i.e., the content hasn't changed since the last
+     * crawl and does not have to be analyzed again.
+     */
+    public static final String URI_HTTP_NOT_MODIFIED = "http-not-modified";
+
+    /**
+     * The {@code ETag} and {@code Last-Modified} validators of the last
+     * successful crawl. They are kept by the known URI filter and used to send
+     * a conditional request when the URI is recrawled.
+     */
+    public static final String URI_HTTP_ETAG_KEY = "http-etag";
+    public static final String URI_HTTP_LAST_MODIFIED_KEY = "http-last-modified";
+
+    /**
+     * The absolute path of the file for which the sniffed content type has been
+     * determined.
+     */
+    public static final String URI_SNIFFED_FILE_KEY = "sniffed-file";
+    public static final String URI_SNIFFED_MIME_TYPE_KEY = "sniffed-mime-type";
+    public static final String URI_SNIFFED_RDF_LANG_KEY = "sniffed-rdf-lang";
 
     public static final String URI_HTTP_ACCEPT_HEADER = "http-" + HttpHeaders.ACCEPT;
     public static final String URI_HTTP_ACCEPT_CHARSET_HEADER = "http-" + HttpHeaders.ACCEPT_CHARSET;
@@ -75,6 +97,26 @@ public class Constants {
 
     public static final boolean DEFAULT_DEDUPLICATION_ACTIVE = false;
 
+    /**
+     * Number of permutations of the MinHash signatures computed by the workers.
+     */
+    public static final String MINHASH_PERMUTATIONS_KEY = "MINHASH_PERMUTATIONS";
+    public static final int DEFAULT_MINHASH_PERMUTATIONS = 128;
+
+    /**
+     * Number of bands of the locality-sensitive hashing index of the
+     * deduplicator. It should be a divisor of the number of permutations.
+     */
+    public static final String LSH_BANDS_KEY = "LSH_BANDS";
+    public static final int DEFAULT_LSH_BANDS = 32;
+
+    /**
+     * Minimum estimated Jaccard similarity of two graphs to be seen as
+     * duplicates.
+     */
+    public static final String DEDUPLICATION_SIMILARITY_THRESHOLD_KEY = "DEDUPLICATION_SIMILARITY_THRESHOLD";
+    public static final double DEFAULT_DEDUPLICATION_SIMILARITY_THRESHOLD = 0.9;
+
     public static final String DEDUPLICATOR_QUEUE_NAME = "squirrel.deduplicator";
     public static final String FRONTIER_QUEUE_NAME = "squirrel.frontier";
 
@@ -10,13 +10,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SimpleUriCollector implements UriCollector {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SimpleUriCollector.class);
     private long total_uris = 0;
 
-    protected Map<String, Map<String, byte[]>> urisOfUris = new HashMap<String, Map<String, byte[]>>();
+    protected Map<String, Map<String, byte[]>> urisOfUris = new ConcurrentHashMap<String, Map<String, byte[]>>();
     protected Serializer serializer;
 
     public SimpleUriCollector(Serializer serializer) {
@@ -2,6 +2,8 @@ package org.dice_research.squirrel.data.uri;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -13,6 +15,20 @@ import org.dice_research.squirrel.Constants;
  * Created by ivan on 29.02.16.
  */
 public class UriUtils {
+
+    /**
+     * The hash algorithm used by {@link #generateUriHash(URI)}.
+     */
+    private static final String URI_HASH_ALGORITHM = "MD5";
+
+    private static final ThreadLocal<MessageDigest> URI_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(URI_HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The hash algorithm " + URI_HASH_ALGORITHM + " is not available.", e);
+        }
+    });
+
     public static List<CrawleableUri> createCrawleableUriList(String[] seedUris) {
         return createCrawleableUriList(Arrays.asList(seedUris));
     }
@@ -110,6 +126,22 @@ public class UriUtils {
         return false;
     }
 
+    /**
+     * Generates a stable 128 bit hash of the given URI, i.e., the MD5 digest of
+     * its UTF-8 encoded String representation. In contrast to
+     * {@link URI#hashCode()}, the hash does not depend on the JVM and collisions
+     * are unlikely enough to use it as identifier of a URI inside a database.
+     * 
+     * @param uri
+     *            the URI that should be hashed
+     * @return the 16 bytes of the hash
+     */
+    public static byte[] generateUriHash(URI uri) {
+        MessageDigest digest = URI_DIGEST.get();
+        digest.reset();
+        return digest.digest(uri.toString().getBytes(Constants.DEFAULT_CHARSET));
+    }
+
     public static String getDomainName(String url) throws URISyntaxException {
         URI uri = new URI(url);
         String domain = uri.getHost();
@@ -3,6 +3,7 @@ package org.dice_research.squirrel.data.uri.filter;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 
@@ -25,7 +26,17 @@ public abstract class AbstractKnownUriFilterDecorator implements KnownUriFilterD
 
     @Override
     public void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp) {
-        decorated.add(uri, nextCrawlTimestamp);
+        decorated.add(uri, lastCrawlTimestamp, nextCrawlTimestamp);
+    }
+
+    @Override
+    public void addAll(List<CrawleableUri> uris, long lastCrawlTimestamps[], long nextCrawlTimestamps[]) {
+        decorated.addAll(uris, lastCrawlTimestamps, nextCrawlTimestamps);
+    }
+
+    @Override
+    public void forEachKnownUri(Consumer<String> consumer) {
+        decorated.forEachKnownUri(consumer);
     }
 
     @Override
@@ -33,6 +44,11 @@ public abstract class AbstractKnownUriFilterDecorator implements KnownUriFilterD
         return decorated.getOutdatedUris();
     }
 
+    @Override
+    public List<CrawleableUri> getOutdatedUris(int maxUris) {
+        return decorated.getOutdatedUris(maxUris);
+    }
+
     @Override
     public long count() {
         return decorated.count();
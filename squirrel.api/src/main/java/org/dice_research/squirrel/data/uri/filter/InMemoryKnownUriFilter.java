@@ -3,11 +3,16 @@ package org.dice_research.squirrel.data.uri.filter;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 
 /**
  * A simple in-memory implementation of the {@link KnownUriFilter} interface.
+ * The URIs are additionally indexed by the time at which they are due for
+ * recrawling, so {@link #getOutdatedUris(int)} only touches the outdated URIs.
  *
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  */
@@ -22,6 +27,11 @@ public class InMemoryKnownUriFilter implements KnownUriFilter {
      */
     private boolean frontierDoesRecrawling;
     protected long defaultRecrawlTime;
+    /**
+     * Index of the URIs ordered by the time at which they are due for recrawling.
+     * Entries of URIs that have been added again are outdated and skipped.
+     */
+    private PriorityQueue<RecrawlEntry> recrawlIndex = new PriorityQueue<>();
 
     /**
      * Constructor.
@@ -50,6 +60,7 @@ public class InMemoryKnownUriFilter implements KnownUriFilter {
     public InMemoryKnownUriFilter(Hashtable<CrawleableUri, UriInfo> uris, boolean frontierDoesRecrawling) {
         this.uris = uris;
         this.frontierDoesRecrawling = frontierDoesRecrawling;
+        rebuildRecrawlIndex();
     }
 
     @Override
@@ -58,9 +69,14 @@ public class InMemoryKnownUriFilter implements KnownUriFilter {
     }
 
     @Override
-    public void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp) {
+    public synchronized void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp) {
         UriInfo uriInfo = new UriInfo(lastCrawlTimestamp, nextCrawlTimestamp, false);
         uris.put(uri, uriInfo);
+        recrawlIndex.add(new RecrawlEntry(uri, uriInfo, nextCrawlTimestamp));
+        // remove outdated entries if the index grows too much
+        if (recrawlIndex.size() > (2 * uris.size() + 1000)) {
+            rebuildRecrawlIndex();
+        }
     }
 
     @Override
@@ -77,26 +93,53 @@ public class InMemoryKnownUriFilter implements KnownUriFilter {
 
     @Override
     public List<CrawleableUri> getOutdatedUris() {
+        return getOutdatedUris(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<CrawleableUri> getOutdatedUris(int maxUris) {
         // get all uris with the following property:
         // (nextCrawlTimestamp has passed) AND (crawlingInProcess==false OR lastCrawlTimestamp is 3 times older than generalRecrawlTime)
-
+        // The due time of an entry is the point in time at which both conditions are fulfilled.
+        long now = System.currentTimeMillis();
         List<CrawleableUri> urisToRecrawl = new ArrayList<>();
-
-        for (CrawleableUri uri : uris.keySet()) {
-            if (uris.get(uri).nextCrawlTimestamp < System.currentTimeMillis() &&
-                (!uris.get(uri).crawlingInProcess || uris.get(uri).lastCrawlTimestamp < System.currentTimeMillis() - defaultRecrawlTime * 3)) {
-                urisToRecrawl.add(uri);
-                uris.get(uri).crawlingInProcess = true;
+        List<RecrawlEntry> inProcessEntries = new ArrayList<>();
+        RecrawlEntry entry;
+        while ((urisToRecrawl.size() < maxUris) && !recrawlIndex.isEmpty() && (recrawlIndex.peek().dueTime < now)) {
+            entry = recrawlIndex.poll();
+            if (!entry.isValid()) {
+                continue;
             }
+            urisToRecrawl.add(entry.uri);
+            entry.info.crawlingInProcess = true;
+            inProcessEntries.add(entry);
+        }
+        // URIs in process are due again if their last crawl is too long ago
+        for (RecrawlEntry e : inProcessEntries) {
+            recrawlIndex.add(new RecrawlEntry(e.uri, e.info, e.info.getDueTime()));
         }
         return urisToRecrawl;
     }
 
+    private void rebuildRecrawlIndex() {
+        recrawlIndex = new PriorityQueue<>();
+        for (Entry<CrawleableUri, UriInfo> e : uris.entrySet()) {
+            recrawlIndex.add(new RecrawlEntry(e.getKey(), e.getValue(), e.getValue().getDueTime()));
+        }
+    }
+
     @Override
     public long count() {
         return uris.size();
     }
 
+    @Override
+    public void forEachKnownUri(Consumer<String> consumer) {
+        for (CrawleableUri uri : uris.keySet()) {
+            consumer.accept(uri.getUri().toString());
+        }
+    }
+
 
     private class UriInfo {
         long lastCrawlTimestamp;
@@ -108,5 +151,38 @@ public class InMemoryKnownUriFilter implements KnownUriFilter {
             this.nextCrawlTimestamp = nextCrawlTimestamp;
             this.crawlingInProcess = crawlingInProcess;
         }
+
+        long getDueTime() {
+            if (crawlingInProcess) {
+                return Math.max(nextCrawlTimestamp, lastCrawlTimestamp + (defaultRecrawlTime * 3));
+            } else {
+                return nextCrawlTimestamp;
+            }
+        }
+    }
+
+    private class RecrawlEntry implements Comparable<RecrawlEntry> {
+        final CrawleableUri uri;
+        final UriInfo info;
+        final long dueTime;
+
+        RecrawlEntry(CrawleableUri uri, UriInfo info, long dueTime) {
+            this.uri = uri;
+            this.info = info;
+            this.dueTime = dueTime;
+        }
+
+        /**
+         * @return true if the URI hasn't been added again and its state hasn't
+         *         changed since this entry has been created
+         */
+        boolean isValid() {
+            return (uris.get(uri) == info) && (info.getDueTime() == dueTime);
+        }
+
+        @Override
+        public int compareTo(RecrawlEntry o) {
+            return Long.compare(dueTime, o.dueTime);
+        }
     }
 }
\ No newline at end of file
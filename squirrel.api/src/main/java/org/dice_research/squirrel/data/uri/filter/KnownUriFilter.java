@@ -1,6 +1,7 @@
 package org.dice_research.squirrel.data.uri.filter;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 
@@ -29,6 +30,36 @@ public interface KnownUriFilter extends UriFilter {
      */
     void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp);
 
+    /**
+     * Adds the given URIs to the list of already known URIs. The i-th URI is
+     * added with the i-th values of the two timestamp arrays. The default
+     * implementation calls {@link #add(CrawleableUri, long, long)} for every
+     * single URI. Implementations should override this method if they can add
+     * several URIs more efficiently.
+     *
+     * @param uris the URIs that should be added to the list.
+     * @param lastCrawlTimestamps the times at which the given URIs have been crawled.
+     * @param nextCrawlTimestamps the times at which the given URIs should be crawled next.
+     */
+    public default void addAll(List<CrawleableUri> uris, long lastCrawlTimestamps[], long nextCrawlTimestamps[]) {
+        for (int i = 0; i < uris.size(); ++i) {
+            add(uris.get(i), lastCrawlTimestamps[i], nextCrawlTimestamps[i]);
+        }
+    }
+
+    /**
+     * Passes the String representation of every known URI to the given consumer.
+     * This can be used to build additional index structures on top of this
+     * filter. The default implementation throws an
+     * {@link UnsupportedOperationException}.
+     *
+     * @param consumer the consumer that receives the known URIs.
+     * @throws UnsupportedOperationException if this filter can not enumerate the URIs it knows.
+     */
+    public default void forEachKnownUri(Consumer<String> consumer) {
+        throw new UnsupportedOperationException(getClass().getName() + " can not enumerate the URIs it knows.");
+    }
+
     /**
      * Returns all {@link CrawleableUri}s which have to be recrawled. This means their time to next crawl has passed.
      *
@@ -36,6 +67,21 @@ public interface KnownUriFilter extends UriFilter {
      */
     public List<CrawleableUri> getOutdatedUris();
 
+    /**
+     * Returns at most the given number of {@link CrawleableUri}s which have to be
+     * recrawled, starting with the URIs that are due for the longest time. The
+     * returned URIs are marked as being in process, i.e., repeated calls return
+     * the next URIs. The default implementation ignores the limit and calls
+     * {@link #getOutdatedUris()}. Implementations should override this method if
+     * they can access the URIs ordered by the time of their next crawl.
+     *
+     * @param maxUris the maximum number of URIs that should be returned
+     * @return The outdated {@link CrawleableUri}s.
+     */
+    public default List<CrawleableUri> getOutdatedUris(int maxUris) {
+        return getOutdatedUris();
+    }
+
     /**
      * count the numbers of known URIs
      * @return the number of lines in that database
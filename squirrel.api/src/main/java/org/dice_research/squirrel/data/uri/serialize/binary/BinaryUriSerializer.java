@@ -0,0 +1,446 @@
+package org.dice_research.squirrel.data.uri.serialize.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.rabbit.msgs.CrawlingResult;
+import org.dice_research.squirrel.rabbit.msgs.UriSet;
+import org.dice_research.squirrel.rabbit.msgs.UriSetRequest;
+import org.xerial.snappy.Snappy;
+
+/**
+ * <p>
+ * A {@link Serializer} with a compact, versioned binary format for
+ * {@link CrawleableUri} instances and the messages exchanged between frontier
+ * and workers ({@link UriSet}, {@link CrawlingResult} and
+ * {@link UriSetRequest}). In contrast to the Java-based serializers, it does not
+ * write class descriptions and encodes the URI, its IP address, its type and
+ * the values of its data map with their own type tags. Objects of other
+ * classes and data values of other types are encoded with the standard Java
+ * serialization.
+ * </p>
+ *
+ * <p>
+ * Format (version 1): a header comprising the two magic bytes {@code 'S' 'Q'},
+ * the format version and the compression of the body followed by the (possibly
+ * compressed) body. The body starts with a tag defining the type of the
+ * serialized object. Integers are written as variable-length integers and
+ * strings as their length followed by their UTF-8 bytes.
+ * </p>
+ *
+ * <p>
+ * Data that does not start with the header is handed to the
+ * {@link GzipJavaUriSerializer} or the {@link SnappyJavaUriSerializer}. Hence,
+ * this serializer can still read data, e.g., queue entries, that has been
+ * written by these serializers.
+ * </p>
+ */
+public class BinaryUriSerializer implements Serializer {
+
+    /**
+     * The compression that is applied to the body of a serialized object.
+     */
+    public static enum Compression {
+        NONE, SNAPPY
+    }
+
+    protected static final byte MAGIC_BYTE_1 = 'S';
+    protected static final byte MAGIC_BYTE_2 = 'Q';
+    protected static final byte FORMAT_VERSION = 1;
+    protected static final int HEADER_LENGTH = 4;
+
+    protected static final byte GZIP_MAGIC_BYTE_1 = (byte) 0x1f;
+    protected static final byte GZIP_MAGIC_BYTE_2 = (byte) 0x8b;
+
+    // object tags
+    protected static final byte TAG_NULL = 0;
+    protected static final byte TAG_CRAWLEABLE_URI = 1;
+    protected static final byte TAG_URI_SET = 2;
+    protected static final byte TAG_CRAWLING_RESULT = 3;
+    protected static final byte TAG_URI_SET_REQUEST = 4;
+    protected static final byte TAG_JAVA_OBJECT = 5;
+
+    // value tags of the data map
+    protected static final byte VALUE_NULL = 0;
+    protected static final byte VALUE_STRING = 1;
+    protected static final byte VALUE_LONG = 2;
+    protected static final byte VALUE_INTEGER = 3;
+    protected static final byte VALUE_BOOLEAN = 4;
+    protected static final byte VALUE_DOUBLE = 5;
+    protected static final byte VALUE_BYTES = 6;
+    protected static final byte VALUE_LIST = 7;
+    protected static final byte VALUE_URI = 8;
+    protected static final byte VALUE_JAVA_OBJECT = 9;
+
+    protected final Compression compression;
+    protected final Serializer gzipSerializer = new GzipJavaUriSerializer();
+    protected final Serializer snappySerializer = new SnappyJavaUriSerializer();
+
+    /**
+     * Constructor creating a serializer that does not compress the serialized
+     * data.
+     */
+    public BinaryUriSerializer() {
+        this(Compression.NONE);
+    }
+
+    public BinaryUriSerializer(Compression compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public <T> byte[] serialize(T object) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        writeObject(out, object);
+        out.flush();
+        byte body[] = baos.toByteArray();
+        if (compression == Compression.SNAPPY) {
+            body = Snappy.compress(body);
+        }
+        byte result[] = new byte[HEADER_LENGTH + body.length];
+        result[0] = MAGIC_BYTE_1;
+        result[1] = MAGIC_BYTE_2;
+        result[2] = FORMAT_VERSION;
+        result[3] = (byte) compression.ordinal();
+        System.arraycopy(body, 0, result, HEADER_LENGTH, body.length);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T deserialize(byte[] data) throws IOException {
+        if ((data.length < HEADER_LENGTH) || (data[0] != MAGIC_BYTE_1) || (data[1] != MAGIC_BYTE_2)) {
+            // This might be data of one of the older serializers
+            if ((data.length > 1) && (data[0] == GZIP_MAGIC_BYTE_1) && (data[1] == GZIP_MAGIC_BYTE_2)) {
+                return gzipSerializer.deserialize(data);
+            } else {
+                return snappySerializer.deserialize(data);
+            }
+        }
+        if (data[2] != FORMAT_VERSION) {
+            throw new IOException("Unsupported format version " + data[2] + ".");
+        }
+        byte body[];
+        int offset;
+        if (data[3] == Compression.NONE.ordinal()) {
+            body = data;
+            offset = HEADER_LENGTH;
+        } else if (data[3] == Compression.SNAPPY.ordinal()) {
+            body = new byte[Snappy.uncompressedLength(data, HEADER_LENGTH, data.length - HEADER_LENGTH)];
+            Snappy.uncompress(data, HEADER_LENGTH, data.length - HEADER_LENGTH, body, 0);
+            offset = 0;
+        } else {
+            throw new IOException("Unsupported compression " + data[3] + ".");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body, offset, body.length - offset));
+        try {
+            return (T) readObject(in);
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of the serialized data.", e);
+        }
+    }
+
+    protected void writeObject(DataOutputStream out, Object object) throws IOException {
+        if (object == null) {
+            out.writeByte(TAG_NULL);
+        } else if (object.getClass().equals(CrawleableUri.class)) {
+            out.writeByte(TAG_CRAWLEABLE_URI);
+            writeUri(out, (CrawleableUri) object);
+        } else if (object.getClass().equals(UriSet.class)) {
+            out.writeByte(TAG_URI_SET);
+            writeUriList(out, ((UriSet) object).uris);
+        } else if (object.getClass().equals(CrawlingResult.class)) {
+            CrawlingResult result = (CrawlingResult) object;
+            out.writeByte(TAG_CRAWLING_RESULT);
+            writeString(out, result.idOfWorker);
+            writeUriList(out, result.uris);
+        } else if (object.getClass().equals(UriSetRequest.class)) {
+            UriSetRequest request = (UriSetRequest) object;
+            out.writeByte(TAG_URI_SET_REQUEST);
+            writeString(out, request.getWorkerId());
+            out.writeBoolean(request.workerSendsAliveMessages());
+        } else {
+            out.writeByte(TAG_JAVA_OBJECT);
+            writeJavaObject(out, object);
+        }
+    }
+
+    protected Object readObject(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+        case TAG_NULL:
+            return null;
+        case TAG_CRAWLEABLE_URI:
+            return readUri(in);
+        case TAG_URI_SET:
+            return new UriSet(readUriList(in));
+        case TAG_CRAWLING_RESULT: {
+            String idOfWorker = readString(in);
+            return new CrawlingResult(readUriList(in), idOfWorker);
+        }
+        case TAG_URI_SET_REQUEST: {
+            String workerId = readString(in);
+            return new UriSetRequest(workerId, in.readBoolean());
+        }
+        case TAG_JAVA_OBJECT:
+            return readJavaObject(in);
+        default:
+            throw new IOException("Unknown object tag " + tag + ".");
+        }
+    }
+
+    protected void writeUriList(DataOutputStream out, List<CrawleableUri> uris) throws IOException {
+        if (uris == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        // the length is shifted by one to be able to express null
+        writeVarLong(out, uris.size() + 1);
+        for (CrawleableUri uri : uris) {
+            if (uri == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                writeUri(out, uri);
+            }
+        }
+    }
+
+    protected List<CrawleableUri> readUriList(DataInputStream in) throws IOException {
+        int size = (int) readVarLong(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+        List<CrawleableUri> uris = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            uris.add(in.readBoolean() ? readUri(in) : null);
+        }
+        return uris;
+    }
+
+    protected void writeUri(DataOutputStream out, CrawleableUri uri) throws IOException {
+        writeString(out, uri.getUri() == null ? null : uri.getUri().toString());
+        InetAddress ip = uri.getIpAddress();
+        if (ip == null) {
+            out.writeByte(0);
+        } else {
+            byte address[] = ip.getAddress();
+            out.writeByte(address.length);
+            out.write(address);
+        }
+        out.writeByte(uri.getType().ordinal());
+        writeVarLong(out, uri.getTimestampNextCrawl());
+        Map<String, Object> data = uri.getData();
+        writeVarLong(out, data.size());
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    protected CrawleableUri readUri(DataInputStream in) throws IOException {
+        String uriString = readString(in);
+        URI uri = null;
+        if (uriString != null) {
+            try {
+                uri = new URI(uriString);
+            } catch (URISyntaxException e) {
+                throw new IOException("Couldn't parse serialized URI.", e);
+            }
+        }
+        InetAddress ip = null;
+        int ipLength = in.readUnsignedByte();
+        if (ipLength > 0) {
+            byte address[] = new byte[ipLength];
+            in.readFully(address);
+            ip = InetAddress.getByAddress(address);
+        }
+        int typeId = in.readUnsignedByte();
+        if (typeId >= UriType.values().length) {
+            throw new IOException("Unknown URI type " + typeId + ".");
+        }
+        CrawleableUri result = new CrawleableUri(uri, ip, UriType.values()[typeId]);
+        result.setTimestampNextCrawl(readVarLong(in));
+        int size = (int) readVarLong(in);
+        for (int i = 0; i < size; ++i) {
+            String key = readString(in);
+            result.addData(key, readValue(in));
+        }
+        return result;
+    }
+
+    protected void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(VALUE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Long) {
+            out.writeByte(VALUE_LONG);
+            writeVarLong(out, (Long) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(VALUE_INTEGER);
+            writeVarLong(out, (Integer) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof byte[]) {
+            byte bytes[] = (byte[]) value;
+            out.writeByte(VALUE_BYTES);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        } else if (value instanceof URI) {
+            out.writeByte(VALUE_URI);
+            writeString(out, value.toString());
+        } else if (value.getClass().equals(ArrayList.class)) {
+            List<?> list = (List<?>) value;
+            out.writeByte(VALUE_LIST);
+            writeVarLong(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else {
+            out.writeByte(VALUE_JAVA_OBJECT);
+            writeJavaObject(out, value);
+        }
+    }
+
+    protected Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+        case VALUE_NULL:
+            return null;
+        case VALUE_STRING:
+            return readString(in);
+        case VALUE_LONG:
+            return readVarLong(in);
+        case VALUE_INTEGER:
+            return (int) readVarLong(in);
+        case VALUE_BOOLEAN:
+            return in.readBoolean();
+        case VALUE_DOUBLE:
+            return in.readDouble();
+        case VALUE_BYTES: {
+            byte bytes[] = new byte[(int) readVarLong(in)];
+            in.readFully(bytes);
+            return bytes;
+        }
+        case VALUE_URI:
+            try {
+                return new URI(readString(in));
+            } catch (URISyntaxException e) {
+                throw new IOException("Couldn't parse serialized URI value.", e);
+            }
+        case VALUE_LIST: {
+            int size = (int) readVarLong(in);
+            List<Object> list = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                list.add(readValue(in));
+            }
+            return list;
+        }
+        case VALUE_JAVA_OBJECT:
+            return readJavaObject(in);
+        default:
+            throw new IOException("Unknown value tag " + tag + ".");
+        }
+    }
+
+    protected void writeJavaObject(DataOutputStream out, Object object) throws IOException {
+        if (!(object instanceof Serializable)) {
+            throw new IllegalArgumentException("The given instance of " + object.getClass().getCanonicalName()
+                    + " does not implement the java.io.Serializable interface. This serializer does not support that.");
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(object);
+        }
+        writeVarLong(out, baos.size());
+        baos.writeTo(out);
+    }
+
+    protected Object readJavaObject(DataInputStream in) throws IOException {
+        byte bytes[] = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes the given string as its length (shifted by one to be able to
+     * express {@code null}) followed by its UTF-8 bytes.
+     */
+    protected static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            writeVarLong(out, 0);
+        } else {
+            byte bytes[] = string.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length + 1);
+            out.write(bytes);
+        }
+    }
+
+    protected static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte bytes[] = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the given value as zig-zag encoded variable-length integer, i.e.,
+     * small positive and negative values need only a single byte.
+     */
+    protected static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    protected static long readVarLong(DataInputStream in) throws IOException {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed variable-length integer.");
+            }
+            b = in.readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
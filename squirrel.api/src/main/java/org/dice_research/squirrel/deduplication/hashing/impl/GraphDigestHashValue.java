@@ -0,0 +1,77 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import org.dice_research.squirrel.deduplication.hashing.HashValue;
+
+/**
+ * A 128 bit digest of a complete graph that does not depend on the labels of
+ * its blank nodes, i.e., two isomorphic graphs have the same digest.
+ */
+public class GraphDigestHashValue implements HashValue {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The delimeter between the two halves of the digest.
+     */
+    private static final String DELIMETER = ":";
+
+    private long high;
+    private long low;
+
+    /**
+     * Constructor.
+     */
+    public GraphDigestHashValue() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param high
+     *            The upper 64 bits of the digest.
+     * @param low
+     *            The lower 64 bits of the digest.
+     */
+    public GraphDigestHashValue(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public String encodeToString() {
+        return Long.toHexString(high) + DELIMETER + Long.toHexString(low);
+    }
+
+    @Override
+    public HashValue decodeFromString(String s) {
+        String[] array = s.split(DELIMETER);
+        return new GraphDigestHashValue(Long.parseUnsignedLong(array[0], 16), Long.parseUnsignedLong(array[1], 16));
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ (high >>> 32) ^ low ^ (low >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof GraphDigestHashValue) {
+            GraphDigestHashValue other = (GraphDigestHashValue) obj;
+            return (high == other.high) && (low == other.low);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphDigestHashValue [" + encodeToString() + "]";
+    }
+}
@@ -0,0 +1,154 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.dice_research.squirrel.deduplication.hashing.HashValue;
+
+/**
+ * A MinHash signature, i.e., the minimum hash of a set of triples for each of
+ * a number of permutations (see {@link StreamingMinHash}). The fraction of
+ * equal positions of two signatures is an estimate of the Jaccard similarity
+ * of the two sets.
+ */
+public class MinHashValue implements HashValue {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The delimeter between the individual hash values.
+     */
+    private static final String DELIMETER = ",";
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * The minimum hash values (compared as unsigned integers) of the single
+     * permutations.
+     */
+    private int[] signature;
+
+    /**
+     * Constructor.
+     */
+    public MinHashValue() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param signature
+     *            The minimum hash values of the single permutations.
+     */
+    public MinHashValue(int[] signature) {
+        this.signature = signature;
+    }
+
+    public int[] getSignature() {
+        return signature;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the sets of this and the given
+     * signature.
+     *
+     * @return the fraction of equal positions or {@code 0} if the signatures
+     *         have a different number of permutations
+     */
+    public double estimateSimilarity(MinHashValue other) {
+        if (signature.length != other.signature.length) {
+            return 0;
+        }
+        int equal = 0;
+        for (int i = 0; i < signature.length; ++i) {
+            if (signature[i] == other.signature[i]) {
+                ++equal;
+            }
+        }
+        return (double) equal / signature.length;
+    }
+
+    /**
+     * Splits the signature into the given number of bands and computes a key for
+     * every band. The key contains the number of the band, i.e., equal rows in
+     * different bands do not collide. If the number of permutations is not a
+     * multiple of the number of bands, the remaining permutations are not part
+     * of any band.
+     *
+     * @param bands
+     *            the number of bands
+     * @return the keys of the single bands
+     */
+    public long[] getBandKeys(int bands) {
+        int rows = Math.max(1, signature.length / bands);
+        int numberOfBands = signature.length / rows;
+        long[] keys = new long[numberOfBands];
+        for (int b = 0; b < numberOfBands; ++b) {
+            long key = (b + 1) * FNV_PRIME;
+            for (int r = b * rows; r < (b + 1) * rows; ++r) {
+                key = (key ^ signature[r]) * FNV_PRIME;
+            }
+            keys[b] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * @return the signature as byte array (4 bytes per permutation, big-endian)
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    /**
+     * Creates a signature from the given byte array.
+     *
+     * @see #toBytes()
+     */
+    public static MinHashValue fromBytes(byte[] bytes) {
+        int[] values = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return new MinHashValue(values);
+    }
+
+    @Override
+    public String encodeToString() {
+        StringBuilder sb = new StringBuilder(signature.length * 9);
+        for (int i = 0; i < signature.length; i++) {
+            if (i > 0) {
+                sb.append(DELIMETER);
+            }
+            sb.append(Integer.toHexString(signature[i]));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public HashValue decodeFromString(String s) {
+        String[] array = s.split(DELIMETER);
+        int[] values = new int[array.length];
+        for (int i = 0; i < array.length; i++) {
+            values[i] = Integer.parseUnsignedInt(array[i], 16);
+        }
+        return new MinHashValue(values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(signature);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MinHashValue) {
+            return Arrays.equals(signature, ((MinHashValue) obj).signature);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "MinHashValue [" + encodeToString() + "]";
+    }
+}
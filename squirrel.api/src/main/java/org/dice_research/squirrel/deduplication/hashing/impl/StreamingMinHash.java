@@ -0,0 +1,139 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+
+/**
+ * Computes the MinHash signature of a set of triples while the triples are
+ * streamed through it, i.e., the triples do not have to be kept in memory.
+ * Every triple is hashed to a 64 bit value which is permuted by a number of
+ * multiply-shift hash functions. The functions are derived from a fixed seed,
+ * i.e., signatures computed by different components are comparable if they
+ * have the same number of permutations. Triples with blank nodes are ignored
+ * since the labels of blank nodes are not stable.
+ *
+ * <p>
+ * Instances are thread-safe.
+ * </p>
+ */
+public class StreamingMinHash {
+
+    /**
+     * The seed from which the permutations are derived.
+     */
+    private static final long SEED = 0x5DEECE66DL;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] multipliers;
+    private final long[] addends;
+    /**
+     * The minimum values of the single permutations (unsigned).
+     */
+    private final int[] minima;
+    private long triples = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param permutations
+     *            The number of permutations, i.e., the length of the signature.
+     */
+    public StreamingMinHash(int permutations) {
+        multipliers = new long[permutations];
+        addends = new long[permutations];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < permutations; ++i) {
+            // the multiplier has to be odd
+            multipliers[i] = random.nextLong() | 1L;
+            addends[i] = random.nextLong();
+        }
+        minima = new int[permutations];
+        Arrays.fill(minima, -1);
+    }
+
+    /**
+     * Adds the given triple to the set.
+     */
+    public void add(Triple triple) {
+        if (triple.getSubject().isBlank() || triple.getObject().isBlank()) {
+            return;
+        }
+        long hash = hash(triple);
+        synchronized (minima) {
+            for (int i = 0; i < minima.length; ++i) {
+                // the upper bits of the product are the best mixed ones
+                int value = (int) ((multipliers[i] * hash + addends[i]) >>> 32);
+                if (Integer.compareUnsigned(value, minima[i]) < 0) {
+                    minima[i] = value;
+                }
+            }
+            ++triples;
+        }
+    }
+
+    /**
+     * @return the number of triples that have been added (without the triples
+     *         with blank nodes)
+     */
+    public long getNumberOfTriples() {
+        synchronized (minima) {
+            return triples;
+        }
+    }
+
+    /**
+     * @return the signature of the triples that have been added so far
+     */
+    public MinHashValue getHashValue() {
+        synchronized (minima) {
+            return new MinHashValue(minima.clone());
+        }
+    }
+
+    /**
+     * Hashes the given triple to a 64 bit value using FNV-1a over the lexical
+     * forms of its nodes and the finalization step of MurmurHash3.
+     */
+    public static long hash(Triple triple) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(triple.getSubject(), hash);
+        hash = hash(triple.getPredicate(), hash);
+        hash = hash(triple.getObject(), hash);
+        // fmix64
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long hash(Node node, long hash) {
+        if (node.isURI()) {
+            return hash(node.getURI(), hash, 'U');
+        } else if (node.isLiteral()) {
+            hash = hash(node.getLiteralLexicalForm(), hash, 'L');
+            String language = node.getLiteralLanguage();
+            if ((language != null) && !language.isEmpty()) {
+                return hash(language, hash, '@');
+            }
+            String datatype = node.getLiteralDatatypeURI();
+            return (datatype != null) ? hash(datatype, hash, '^') : hash;
+        } else {
+            return hash(node.toString(), hash, 'N');
+        }
+    }
+
+    private static long hash(String s, long hash, char type) {
+        // the type separates the single parts
+        hash = (hash ^ type) * FNV_PRIME;
+        for (int i = 0; i < s.length(); ++i) {
+            hash = (hash ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -1,10 +1,10 @@
 package org.dice_research.squirrel.queue;
 
 import java.net.InetAddress;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
@@ -24,7 +24,7 @@ public abstract class AbstractIpAddressBasedQueue implements IpAddressBasedQueue
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractIpAddressBasedQueue.class);
 
     private Semaphore queueMutex = new Semaphore(1);
-    private Set<InetAddress> blockedIps = new HashSet<>();
+    private Set<InetAddress> blockedIps = ConcurrentHashMap.newKeySet();
 
 
     @Override
@@ -52,8 +52,8 @@ public abstract class AbstractIpAddressBasedQueue implements IpAddressBasedQueue
             LOGGER.error("Interrupted while waiting for mutex. Throwing exception.", e);
             throw new IllegalStateException("Interrupted while waiting for mutex.", e);
         }
-        IpUriTypePair pair;
         try {
+            IpUriTypePair pair;
             Iterator<IpUriTypePair> iterator = getIterator();
             do {
                 if (!iterator.hasNext()) {
@@ -62,10 +62,12 @@ public abstract class AbstractIpAddressBasedQueue implements IpAddressBasedQueue
                 pair = iterator.next();
             } while (blockedIps.contains(pair.ip));
             blockedIps.add(pair.ip);
+            // The URIs have to be removed while holding the mutex. Otherwise, other
+            // threads could iterate over or add to the queue while it is changed.
+            return getUris(pair);
         } finally {
             queueMutex.release();
         }
-        return getUris(pair);
     }
 
     protected abstract Iterator<IpUriTypePair> getIterator();
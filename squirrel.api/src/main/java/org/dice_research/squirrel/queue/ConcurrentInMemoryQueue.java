@@ -0,0 +1,365 @@
+package org.dice_research.squirrel.queue;
+
+import java.net.InetAddress;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriType;
+
+/**
+ * <p>
+ * An in-memory {@link IpAddressBasedQueue} that does not rely on a single
+ * mutex. The URIs are stored in one bucket per IP address. The buckets are
+ * managed by a {@link ConcurrentHashMap} and each bucket contains one list per
+ * {@link UriType}, i.e., a single chunk still contains URIs with the same IP
+ * and the same {@link UriType}. Only the (very short) operations on a single
+ * bucket are synchronized. Hence, adding or retrieving URIs of different IPs
+ * can be done in parallel.
+ * </p>
+ *
+ * <p>
+ * Buckets that are neither empty nor leased by a worker are listed in a
+ * lock-free queue of ready buckets. Retrieving the next chunk takes the first
+ * ready bucket instead of iterating over the complete queue. A bucket is
+ * leased (i.e., its IP is blocked) until
+ * {@link #markIpAddressAsAccessible(InetAddress)} is called.
+ * </p>
+ *
+ * <p>
+ * The chunks are created based on a {@link DequeuePolicy}. With a round-robin
+ * rotation, the ready buckets are kept in a lock-free deque, i.e., in contrast
+ * to the {@link InMemoryQueue}, the chunks are not sorted by their IP address
+ * but returned in the order in which their IPs became ready. With a weighted
+ * rotation, the ready buckets are sorted by the virtual time of their next
+ * turn. If the policy merges small chunks, a chunk can contain URIs of several
+ * IPs and several {@link UriType}s.
+ * </p>
+ */
+public class ConcurrentInMemoryQueue implements IpAddressBasedQueue {
+
+    private static final int LIMITFORITERATOR = 50;
+    /**
+     * The number of ready buckets that are checked for each IP that could be
+     * merged into a chunk.
+     */
+    private static final int MERGE_PROBES_PER_IP = 2;
+
+    protected final DequeuePolicy policy;
+
+    /**
+     * The buckets of the single IP addresses.
+     */
+    protected final ConcurrentHashMap<InetAddress, IpBucket> buckets = new ConcurrentHashMap<>();
+    /**
+     * The buckets that are neither empty nor leased.
+     */
+    protected final Queue<IpBucket> readyBuckets;
+    /**
+     * The number of IPs that are currently leased.
+     */
+    protected final AtomicInteger numberOfBlockedIps = new AtomicInteger();
+    /**
+     * The virtual time of the last turn. Buckets that become ready after being
+     * empty start at this time.
+     */
+    protected volatile double virtualTime = 0;
+
+    public ConcurrentInMemoryQueue() {
+        this(new DequeuePolicy());
+    }
+
+    public ConcurrentInMemoryQueue(DequeuePolicy policy) {
+        this.policy = policy;
+        if (policy.getRotation() == DequeuePolicy.Rotation.WEIGHTED) {
+            readyBuckets = new PriorityBlockingQueue<>(64,
+                    (b1, b2) -> Double.compare(b1.nextTurn, b2.nextTurn));
+        } else {
+            readyBuckets = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    @Override
+    public void addUri(CrawleableUri uri) {
+        IpBucket bucket;
+        while (true) {
+            bucket = buckets.computeIfAbsent(uri.getIpAddress(), IpBucket::new);
+            synchronized (bucket) {
+                // If the bucket has been removed in the meantime, we have to try it again
+                if (!bucket.removed) {
+                    if (bucket.isEmpty() && (bucket.nextTurn < virtualTime)) {
+                        bucket.nextTurn = virtualTime;
+                    }
+                    bucket.add(uri);
+                    if (!bucket.leased && !bucket.ready) {
+                        bucket.ready = true;
+                        readyBuckets.offer(bucket);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<CrawleableUri> getNextUris() {
+        IpBucket bucket = readyBuckets.poll();
+        List<CrawleableUri> uris = null;
+        while ((bucket != null) && (uris == null)) {
+            synchronized (bucket) {
+                bucket.ready = false;
+                if (!bucket.leased && !bucket.removed) {
+                    uris = lease(bucket, policy.getMaxChunkSize());
+                }
+            }
+            if (uris == null) {
+                bucket = readyBuckets.poll();
+            }
+        }
+        if ((uris != null) && policy.shouldMerge(uris.size())) {
+            mergeSmallChunks(uris);
+        }
+        return uris;
+    }
+
+    /**
+     * Adds the chunks of other ready buckets to the given chunk as long as they
+     * are small enough. Buckets that do not fit are put back without losing
+     * their turn.
+     */
+    protected void mergeSmallChunks(List<CrawleableUri> uris) {
+        int maxChunkSize = policy.getMaxChunkSize();
+        int ips = 1;
+        int probes = MERGE_PROBES_PER_IP * policy.getMaxIpsPerChunk();
+        List<IpBucket> skipped = new ArrayList<>();
+        IpBucket bucket;
+        while ((ips < policy.getMaxIpsPerChunk()) && (probes > 0) && (uris.size() < policy.getMergeThreshold())) {
+            bucket = readyBuckets.poll();
+            if (bucket == null) {
+                break;
+            }
+            --probes;
+            synchronized (bucket) {
+                bucket.ready = false;
+                if (!bucket.leased && !bucket.removed) {
+                    int size = bucket.getNextChunkSize(maxChunkSize);
+                    if ((size > 0) && (size < policy.getMergeThreshold()) && (uris.size() + size <= maxChunkSize)) {
+                        uris.addAll(lease(bucket, maxChunkSize));
+                        ++ips;
+                    } else if (size > 0) {
+                        bucket.ready = true;
+                        skipped.add(bucket);
+                    }
+                }
+            }
+        }
+        // put the skipped buckets back in their original order
+        for (int i = skipped.size() - 1; i >= 0; --i) {
+            returnReadyBucket(skipped.get(i));
+        }
+    }
+
+    /**
+     * Removes the next chunk from the given bucket and marks it as leased. Has
+     * to be called while holding the monitor of the bucket.
+     *
+     * @return the chunk or {@code null} if the bucket is empty
+     */
+    protected List<CrawleableUri> lease(IpBucket bucket, int maxChunkSize) {
+        long backlog = bucket.size;
+        List<CrawleableUri> uris = bucket.removeNextChunk(maxChunkSize);
+        if (uris != null) {
+            bucket.leased = true;
+            numberOfBlockedIps.incrementAndGet();
+            virtualTime = Math.max(virtualTime, bucket.nextTurn);
+            bucket.nextTurn += policy.getStride(backlog);
+        }
+        return uris;
+    }
+
+    /**
+     * Puts a bucket back that has been polled but not leased.
+     */
+    @SuppressWarnings("unchecked")
+    protected void returnReadyBucket(IpBucket bucket) {
+        if (readyBuckets instanceof Deque) {
+            ((Deque<IpBucket>) readyBuckets).offerFirst(bucket);
+        } else {
+            readyBuckets.offer(bucket);
+        }
+    }
+
+    @Override
+    public void markIpAddressAsAccessible(InetAddress ip) {
+        IpBucket bucket = buckets.get(ip);
+        if (bucket == null) {
+            return;
+        }
+        synchronized (bucket) {
+            if (bucket.leased) {
+                bucket.leased = false;
+                numberOfBlockedIps.decrementAndGet();
+            }
+            if (bucket.isEmpty()) {
+                // remove the empty bucket to free its memory
+                bucket.removed = true;
+                buckets.remove(ip, bucket);
+            } else if (!bucket.ready) {
+                bucket.ready = true;
+                readyBuckets.offer(bucket);
+            }
+        }
+    }
+
+    @Override
+    public int getNumberOfBlockedIps() {
+        return numberOfBlockedIps.get();
+    }
+
+    @Override
+    public Map<InetAddress, Long> getBacklogPerIp() {
+        Map<InetAddress, Long> backlog = new HashMap<>();
+        for (IpBucket bucket : buckets.values()) {
+            synchronized (bucket) {
+                if (!bucket.isEmpty()) {
+                    backlog.put(bucket.ip, bucket.size);
+                }
+            }
+        }
+        return backlog;
+    }
+
+    public DequeuePolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public Iterator<AbstractMap.SimpleEntry<InetAddress, List<CrawleableUri>>> getIPURIIterator() {
+        List<AbstractMap.SimpleEntry<InetAddress, List<CrawleableUri>>> entries = new ArrayList<>();
+        for (IpBucket bucket : buckets.values()) {
+            if (entries.size() >= LIMITFORITERATOR) {
+                break;
+            }
+            synchronized (bucket) {
+                if (!bucket.isEmpty()) {
+                    List<CrawleableUri> uris = new ArrayList<>();
+                    for (Deque<CrawleableUri> typeUris : bucket.uris.values()) {
+                        uris.addAll(typeUris);
+                    }
+                    entries.add(new AbstractMap.SimpleEntry<>(bucket.ip, uris));
+                }
+            }
+        }
+        return entries.iterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (IpBucket bucket : buckets.values()) {
+            synchronized (bucket) {
+                if (!bucket.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void open() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * The URIs of a single IP address. All fields have to be accessed while
+     * holding the monitor of the bucket.
+     */
+    protected static class IpBucket {
+        protected final InetAddress ip;
+        protected final Map<UriType, Deque<CrawleableUri>> uris = new EnumMap<>(UriType.class);
+        /**
+         * The number of URIs in this bucket.
+         */
+        protected long size = 0;
+        /**
+         * The virtual time of the next turn of this bucket. It must not be
+         * changed while the bucket is in the queue of ready buckets.
+         */
+        protected double nextTurn = 0;
+        /**
+         * Flag indicating that the IP is blocked by a worker.
+         */
+        protected boolean leased = false;
+        /**
+         * Flag indicating that the bucket is listed in the queue of ready buckets.
+         */
+        protected boolean ready = false;
+        /**
+         * Flag indicating that the bucket has been removed from the map of buckets.
+         */
+        protected boolean removed = false;
+
+        public IpBucket(InetAddress ip) {
+            this.ip = ip;
+        }
+
+        protected void add(CrawleableUri uri) {
+            Deque<CrawleableUri> typeUris = uris.get(uri.getType());
+            if (typeUris == null) {
+                typeUris = new ArrayDeque<>();
+                uris.put(uri.getType(), typeUris);
+            }
+            typeUris.add(uri);
+            ++size;
+        }
+
+        /**
+         * Removes and returns (at most the given number of) URIs of the first
+         * {@link UriType} or {@code null} if the bucket is empty.
+         */
+        protected List<CrawleableUri> removeNextChunk(int maxChunkSize) {
+            Iterator<Deque<CrawleableUri>> iterator = uris.values().iterator();
+            if (iterator.hasNext()) {
+                Deque<CrawleableUri> typeUris = iterator.next();
+                List<CrawleableUri> chunk = new ArrayList<>(Math.min(typeUris.size(), maxChunkSize));
+                while (!typeUris.isEmpty() && (chunk.size() < maxChunkSize)) {
+                    chunk.add(typeUris.poll());
+                }
+                if (typeUris.isEmpty()) {
+                    iterator.remove();
+                }
+                size -= chunk.size();
+                return chunk;
+            }
+            return null;
+        }
+
+        /**
+         * @return the size of the chunk {@link #removeNextChunk(int)} would
+         *         return
+         */
+        protected int getNextChunkSize(int maxChunkSize) {
+            Iterator<Deque<CrawleableUri>> iterator = uris.values().iterator();
+            return iterator.hasNext() ? Math.min(iterator.next().size(), maxChunkSize) : 0;
+        }
+
+        protected boolean isEmpty() {
+            return uris.isEmpty();
+        }
+    }
+}
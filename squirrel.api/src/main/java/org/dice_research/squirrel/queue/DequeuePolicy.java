@@ -0,0 +1,132 @@
+package org.dice_research.squirrel.queue;
+
+/**
+ * <p>
+ * Defines how an {@link IpAddressBasedQueue} packs the URIs it returns with
+ * {@link IpAddressBasedQueue#getNextUris()} into chunks.
+ * </p>
+ *
+ * <ul>
+ * <li>A chunk contains at most {@link #getMaxChunkSize()} URIs. If an IP has
+ * more URIs, they are returned in several chunks. Since the IP stays blocked
+ * until the first chunk has been crawled, the politeness is not affected.</li>
+ * <li>If the chunk of an IP contains less than {@link #getMergeThreshold()}
+ * URIs, it is merged with the (small) chunks of other IPs that are not blocked
+ * until the merged chunk contains {@link #getMaxIpsPerChunk()} IPs or the
+ * maximum chunk size would be exceeded. All IPs of a merged chunk are blocked
+ * until they are marked as accessible again.</li>
+ * <li>The {@link Rotation} defines the order in which the IPs are served.</li>
+ * </ul>
+ *
+ * <p>
+ * The rotation is based on a virtual time. Every IP has the virtual time of
+ * its next turn. The IP with the earliest turn that is not blocked is served
+ * next and its next turn is moved by {@link #getStride(long)}. IPs that get
+ * new URIs after being empty start with the current virtual time.
+ * </p>
+ */
+public class DequeuePolicy {
+
+    public static enum Rotation {
+        /**
+         * All IPs are served in turn, independent of the number of URIs they
+         * have.
+         */
+        ROUND_ROBIN,
+        /**
+         * IPs with many pending URIs are served more often. The weight of an IP
+         * grows logarithmically with its backlog, i.e., an IP with a large
+         * backlog gets more turns while IPs with a small backlog do not starve.
+         */
+        WEIGHTED
+    }
+
+    public static final int DEFAULT_MAX_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_MERGE_THRESHOLD = 0;
+    public static final int DEFAULT_MAX_IPS_PER_CHUNK = 10;
+
+    private int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+    private int mergeThreshold = DEFAULT_MERGE_THRESHOLD;
+    private int maxIpsPerChunk = DEFAULT_MAX_IPS_PER_CHUNK;
+    private Rotation rotation = Rotation.ROUND_ROBIN;
+
+    /**
+     * Creates a policy with a maximum chunk size of
+     * {@value #DEFAULT_MAX_CHUNK_SIZE}, round-robin rotation and without
+     * merging of chunks.
+     */
+    public DequeuePolicy() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxChunkSize
+     *            the maximum number of URIs in a chunk ({@code <= 0} means that
+     *            the size is not limited)
+     * @param mergeThreshold
+     *            chunks with less URIs are merged with other small chunks
+     *            ({@code <= 1} disables the merging)
+     * @param maxIpsPerChunk
+     *            the maximum number of IPs a merged chunk may have
+     * @param rotation
+     *            the order in which the IPs are served
+     */
+    public DequeuePolicy(int maxChunkSize, int mergeThreshold, int maxIpsPerChunk, Rotation rotation) {
+        this.maxChunkSize = maxChunkSize;
+        this.mergeThreshold = mergeThreshold;
+        this.maxIpsPerChunk = maxIpsPerChunk;
+        this.rotation = rotation;
+    }
+
+    /**
+     * @return the maximum number of URIs in a chunk or
+     *         {@link Integer#MAX_VALUE} if the size is not limited
+     */
+    public int getMaxChunkSize() {
+        return maxChunkSize > 0 ? maxChunkSize : Integer.MAX_VALUE;
+    }
+
+    public int getMergeThreshold() {
+        return mergeThreshold;
+    }
+
+    public int getMaxIpsPerChunk() {
+        return maxIpsPerChunk;
+    }
+
+    public Rotation getRotation() {
+        return rotation;
+    }
+
+    /**
+     * @return {@code true} if a chunk of the given size should be merged with
+     *         chunks of other IPs
+     */
+    public boolean shouldMerge(int chunkSize) {
+        return (mergeThreshold > 1) && (maxIpsPerChunk > 1) && (chunkSize < mergeThreshold)
+                && (chunkSize < getMaxChunkSize());
+    }
+
+    /**
+     * Returns the distance (in virtual time) between two turns of an IP with
+     * the given number of pending URIs.
+     *
+     * @param backlog
+     *            the number of URIs of the IP that are still in the queue
+     * @return the stride of the IP
+     */
+    public double getStride(long backlog) {
+        if (rotation == Rotation.WEIGHTED) {
+            return 1.0 / (1.0 + Math.log1p(Math.max(0, backlog)));
+        } else {
+            return 1.0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DequeuePolicy [maxChunkSize=" + maxChunkSize + ", mergeThreshold=" + mergeThreshold
+                + ", maxIpsPerChunk=" + maxIpsPerChunk + ", rotation=" + rotation + "]";
+    }
+}
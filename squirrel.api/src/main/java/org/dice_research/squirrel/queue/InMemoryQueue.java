@@ -15,6 +15,11 @@ public class InMemoryQueue extends AbstractIpAddressBasedQueue {
 
     protected SortedMap<IpUriTypePair, List<CrawleableUri>> queue;
     private static final int LIMITFORITERATOR = 50;
+    /**
+     * The maximum number of URIs returned as a single chunk. The remaining URIs
+     * of the IP stay in the queue.
+     */
+    protected int maxChunkSize = DequeuePolicy.DEFAULT_MAX_CHUNK_SIZE;
 
     public InMemoryQueue() {
         queue = new TreeMap<IpUriTypePair, List<CrawleableUri>>();
@@ -45,11 +50,29 @@ public class InMemoryQueue extends AbstractIpAddressBasedQueue {
     protected List<CrawleableUri> getUris(IpUriTypePair pair) {
         List<CrawleableUri> uris = null;
         if (queue.containsKey(pair)) {
-            uris = queue.remove(pair);
+            uris = queue.get(pair);
+            if ((maxChunkSize > 0) && (uris.size() > maxChunkSize)) {
+                List<CrawleableUri> head = uris.subList(0, maxChunkSize);
+                List<CrawleableUri> chunk = new ArrayList<CrawleableUri>(head);
+                head.clear();
+                return chunk;
+            }
+            queue.remove(pair);
         }
         return uris;
     }
 
+    /**
+     * Sets the maximum number of URIs returned as a single chunk.
+     * 
+     * @param maxChunkSize
+     *            the maximum chunk size ({@code <= 0} means that the size is not
+     *            limited)
+     */
+    public void setMaxChunkSize(int maxChunkSize) {
+        this.maxChunkSize = maxChunkSize;
+    }
+
     @Override
     public void open() {
     }
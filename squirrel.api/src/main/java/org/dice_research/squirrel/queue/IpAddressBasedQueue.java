@@ -2,8 +2,10 @@ package org.dice_research.squirrel.queue;
 
 import java.net.InetAddress;
 import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 
@@ -40,4 +42,39 @@ public interface IpAddressBasedQueue extends UriQueue {
      * @return a IP-address-iterator with the list of uris for each IP-address
      */
     Iterator<AbstractMap.SimpleEntry<InetAddress, List<CrawleableUri>>> getIPURIIterator();
+
+    /**
+     * Returns the number of URIs that are waiting in the queue for every IP
+     * address. The default implementation returns an empty map. Implementations
+     * should override it if they can determine the backlog efficiently.
+     *
+     * @return a map from IP addresses to the number of their URIs in the queue
+     */
+    public default Map<InetAddress, Long> getBacklogPerIp() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the number of URIs that are waiting in the queue. The default
+     * implementation sums up the {@link #getBacklogPerIp()} or, if it is empty,
+     * goes through the {@link #getIPURIIterator()}, i.e., it should not be
+     * called frequently.
+     *
+     * @return the number of URIs in the queue
+     */
+    public default long getNumberOfUris() {
+        long count = 0;
+        Map<InetAddress, Long> backlog = getBacklogPerIp();
+        if (!backlog.isEmpty()) {
+            for (Long uris : backlog.values()) {
+                count += uris;
+            }
+        } else {
+            Iterator<AbstractMap.SimpleEntry<InetAddress, List<CrawleableUri>>> iterator = getIPURIIterator();
+            while (iterator.hasNext()) {
+                count += iterator.next().getValue().size();
+            }
+        }
+        return count;
+    }
 }
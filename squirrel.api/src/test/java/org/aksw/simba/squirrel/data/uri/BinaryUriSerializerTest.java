@@ -0,0 +1,150 @@
+package org.aksw.simba.squirrel.data.uri;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.CrawleableUriFactory4Tests;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer.Compression;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.rabbit.msgs.CrawlingResult;
+import org.dice_research.squirrel.rabbit.msgs.UriSet;
+import org.dice_research.squirrel.rabbit.msgs.UriSetRequest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class BinaryUriSerializerTest {
+
+    @Parameters
+    public static Collection<Object[]> data() throws Exception {
+        List<Object[]> testConfigs = new ArrayList<Object[]>();
+        CrawleableUriFactory4Tests factory = new CrawleableUriFactory4Tests();
+
+        CrawleableUri uriWithData = factory.create(new URI("http://example.org/data"),
+                InetAddress.getByName("2001:db8::1"), UriType.DUMP);
+        uriWithData.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "text/turtle");
+        uriWithData.addData(Constants.URI_PREFERRED_RECRAWL_ON, -42L);
+        uriWithData.addData("int", Integer.MAX_VALUE);
+        uriWithData.addData("boolean", true);
+        uriWithData.addData("double", 0.5);
+        uriWithData.addData("bytes", new byte[] { 1, 2, 3 });
+        uriWithData.addData("list", new ArrayList<>(Arrays.asList("a", "b")));
+        uriWithData.addData("uri", new URI("http://example.org/value"));
+        uriWithData.addData("date", new Date(123456789L));
+        uriWithData.addData("null", null);
+        uriWithData.setTimestampNextCrawl(System.currentTimeMillis());
+        CrawleableUri simpleUri = factory.create(new URI("http://example.org/1"), InetAddress.getByName("127.0.0.1"),
+                UriType.DEREFERENCEABLE);
+
+        testConfigs.add(new Object[] { null });
+        testConfigs.add(new Object[] { factory.create(new URI("http://example.org/1"), null, UriType.UNKNOWN) });
+        testConfigs.add(new Object[] { uriWithData });
+        testConfigs.add(new Object[] { new UriSet() });
+        testConfigs.add(new Object[] { new UriSet(null) });
+        testConfigs.add(new Object[] { new UriSet(Arrays.asList(simpleUri, uriWithData)) });
+        testConfigs.add(new Object[] { new UriSetRequest() });
+        testConfigs.add(new Object[] { new UriSetRequest("http://w3id.org/squirrel/worker/1", true) });
+        testConfigs.add(new Object[] { new CrawlingResult(Arrays.asList(simpleUri, uriWithData), "worker1") });
+        // an object that is not supported natively
+        testConfigs.add(new Object[] { new Date(123456789L) });
+        return testConfigs;
+    }
+
+    private Object original;
+
+    public BinaryUriSerializerTest(Object object) {
+        this.original = object;
+    }
+
+    @Test
+    public void testWithoutCompression() throws IOException {
+        executeTest(new BinaryUriSerializer(), original);
+    }
+
+    @Test
+    public void testWithSnappy() throws IOException {
+        executeTest(new BinaryUriSerializer(Compression.SNAPPY), original);
+    }
+
+    @Test
+    public void testLegacyData() throws IOException {
+        if (original == null) {
+            return;
+        }
+        Serializer serializer = new BinaryUriSerializer();
+        compare(original, serializer.deserialize(new GzipJavaUriSerializer().serialize(original)));
+        compare(original, serializer.deserialize(new SnappyJavaUriSerializer().serialize(original)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownVersion() throws IOException {
+        Serializer serializer = new BinaryUriSerializer();
+        byte data[] = serializer.serialize(original);
+        data[2] = 99;
+        serializer.deserialize(data);
+    }
+
+    private static void executeTest(Serializer serializer, Object object) throws IOException {
+        byte data[] = serializer.serialize(object);
+        compare(object, serializer.deserialize(data));
+        // the serialization has to be deterministic
+        Assert.assertArrayEquals(data, serializer.serialize(object));
+    }
+
+    private static void compare(Object expected, Object result) {
+        if (expected == null) {
+            Assert.assertNull(result);
+            return;
+        }
+        Assert.assertEquals(expected, result);
+        if (expected instanceof CrawleableUri) {
+            compareUris(Arrays.asList((CrawleableUri) expected), Arrays.asList((CrawleableUri) result));
+        } else if (expected instanceof UriSet) {
+            compareUris(((UriSet) expected).uris, ((UriSet) result).uris);
+        } else if (expected instanceof CrawlingResult) {
+            Assert.assertEquals(((CrawlingResult) expected).idOfWorker, ((CrawlingResult) result).idOfWorker);
+            compareUris(((CrawlingResult) expected).uris, ((CrawlingResult) result).uris);
+        } else if (expected instanceof UriSetRequest) {
+            Assert.assertEquals(((UriSetRequest) expected).getWorkerId(), ((UriSetRequest) result).getWorkerId());
+            Assert.assertEquals(((UriSetRequest) expected).workerSendsAliveMessages(),
+                    ((UriSetRequest) result).workerSendsAliveMessages());
+        }
+    }
+
+    private static void compareUris(List<CrawleableUri> expected, List<CrawleableUri> result) {
+        Assert.assertEquals(expected.size(), result.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            CrawleableUri expectedUri = expected.get(i);
+            CrawleableUri resultUri = result.get(i);
+            Assert.assertEquals(expectedUri.getUri(), resultUri.getUri());
+            Assert.assertEquals(expectedUri.getIpAddress(), resultUri.getIpAddress());
+            Assert.assertEquals(expectedUri.getType(), resultUri.getType());
+            Assert.assertEquals(expectedUri.getTimestampNextCrawl(), resultUri.getTimestampNextCrawl());
+            Assert.assertEquals(expectedUri.getData().keySet(), resultUri.getData().keySet());
+            for (String key : expectedUri.getData().keySet()) {
+                Object expectedValue = expectedUri.getData(key);
+                Object resultValue = resultUri.getData(key);
+                if (expectedValue instanceof byte[]) {
+                    Assert.assertArrayEquals((byte[]) expectedValue, (byte[]) resultValue);
+                } else {
+                    Assert.assertEquals(expectedValue, resultValue);
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,8 @@ import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.UriType;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer.Compression;
 import org.dice_research.squirrel.data.uri.serialize.gson.GsonUriSerializer;
 import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
 import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
@@ -78,10 +80,31 @@ public class CrawleableUriSerializationTest {
         executeTest(new GzipJavaUriSerializer(), "Gzip");
     }
 
-    public void executeTest(Serializer serializer, String name) throws IOException {
+    @Test
+    public void testBinary() throws URISyntaxException, ClassNotFoundException, IOException {
+        int size = executeTest(new BinaryUriSerializer(), "Binary");
+        // the binary format has to be smaller than the Java serialization
+        Assert.assertTrue(size < new GzipJavaUriSerializer().serialize(uri).length);
+        Assert.assertTrue(size < new SnappyJavaUriSerializer().serialize(uri).length);
+    }
+
+    @Test
+    public void testBinaryWithSnappy() throws URISyntaxException, ClassNotFoundException, IOException {
+        int size = executeTest(new BinaryUriSerializer(Compression.SNAPPY), "BinSnp");
+        Assert.assertTrue(size < new GzipJavaUriSerializer().serialize(uri).length);
+        Assert.assertTrue(size < new SnappyJavaUriSerializer().serialize(uri).length);
+    }
+
+    /**
+     * Serializes and deserializes the URI and checks that the result equals the
+     * original URI.
+     * 
+     * @return the number of bytes of the serialized URI
+     */
+    public int executeTest(Serializer serializer, String name) throws IOException {
         CrawleableUri parsedUri;
         byte[] data = serializer.serialize(uri);
-        System.out.println(String.format("%6s: data.length=%d", name, data.length));
+        Assert.assertTrue(name + " created an empty message.", data.length > 0);
         parsedUri = serializer.deserialize(data);
         Assert.assertEquals(uri.getIpAddress(), parsedUri.getIpAddress());
         Assert.assertEquals(uri.getType(), parsedUri.getType());
@@ -90,5 +113,6 @@ public class CrawleableUriSerializationTest {
             Assert.assertEquals(uri.getData(key), parsedUri.getData(key));
         }
         Assert.assertEquals(uri.getData().size(), parsedUri.getData().size());
+        return data.length;
     }
 }
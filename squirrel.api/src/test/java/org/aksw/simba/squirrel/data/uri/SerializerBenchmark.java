@@ -0,0 +1,118 @@
+package org.aksw.simba.squirrel.data.uri;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer.Compression;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.rabbit.msgs.UriSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JMH benchmark comparing the existing Java-based serializers with the
+ * {@link BinaryUriSerializer}. The serialized message is a {@link UriSet} with
+ * a typical chunk of URIs as it is sent from the frontier to a worker. The
+ * {@link #main(String[])} method prints the size of the serialized message for
+ * every serializer before running the benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerializerBenchmark.class);
+
+    private static final String SERIALIZERS[] = { "GzipJava", "SnappyJava", "Binary", "BinarySnappy" };
+    private static final int URIS_PER_MESSAGE = 20;
+
+    @Param({ "GzipJava", "SnappyJava", "Binary", "BinarySnappy" })
+    public String serializerType;
+
+    public Serializer serializer;
+    public UriSet message;
+    public byte serialized[];
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        serializer = createSerializer(serializerType);
+        message = createMessage();
+        serialized = serializer.serialize(message);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return serializer.serialize(message);
+    }
+
+    @Benchmark
+    public UriSet deserialize() throws IOException {
+        return serializer.deserialize(serialized);
+    }
+
+    public static Serializer createSerializer(String type) {
+        switch (type) {
+        case "GzipJava":
+            return new GzipJavaUriSerializer();
+        case "SnappyJava":
+            return new SnappyJavaUriSerializer();
+        case "Binary":
+            return new BinaryUriSerializer();
+        case "BinarySnappy":
+            return new BinaryUriSerializer(Compression.SNAPPY);
+        default:
+            throw new IllegalArgumentException("Unknown serializer type " + type);
+        }
+    }
+
+    public static UriSet createMessage() throws Exception {
+        InetAddress ip = InetAddress.getByAddress(new byte[] { (byte) 192, (byte) 168, 100, 1 });
+        List<CrawleableUri> uris = new ArrayList<>(URIS_PER_MESSAGE);
+        for (int i = 0; i < URIS_PER_MESSAGE; ++i) {
+            CrawleableUri uri = new CrawleableUri(new URI("http://dbpedia.org/resource/Entity_" + i), ip,
+                    UriType.DEREFERENCEABLE);
+            uri.addData(Constants.URI_TYPE_KEY, Constants.URI_TYPE_VALUE_DEREF);
+            uri.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "text/turtle");
+            uri.addData(Constants.URI_PREFERRED_RECRAWL_ON, 1550000000000L + i);
+            uris.add(uri);
+        }
+        return new UriSet(uris);
+    }
+
+    public static void main(String[] args) throws Exception {
+        UriSet message = createMessage();
+        for (String type : SERIALIZERS) {
+            LOGGER.debug("{}: {} bytes", type, createSerializer(type).serialize(message).length);
+        }
+        Options options = new OptionsBuilder().include(SerializerBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
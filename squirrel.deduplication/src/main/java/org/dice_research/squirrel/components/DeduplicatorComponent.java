@@ -3,29 +3,26 @@ package org.dice_research.squirrel.components;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
 
-import org.apache.jena.graph.Triple;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
-import org.dice_research.squirrel.data.uri.filter.KnownUriFilter;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
-import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer.Compression;
 import org.dice_research.squirrel.deduplication.hashing.HashValue;
-import org.dice_research.squirrel.deduplication.hashing.TripleComparator;
-import org.dice_research.squirrel.deduplication.hashing.TripleHashFunction;
 import org.dice_research.squirrel.deduplication.hashing.UriHashCustodian;
-import org.dice_research.squirrel.deduplication.hashing.impl.IntervalBasedMinHashFunction;
-import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleComparator;
-import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.LshUriHashCustodian;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.MongoDBUriHashCustodian;
 import org.dice_research.squirrel.rabbit.RespondingDataHandler;
 import org.dice_research.squirrel.rabbit.ResponseHandler;
 import org.dice_research.squirrel.rabbit.msgs.UriSet;
-import org.dice_research.squirrel.sink.tripleBased.AdvancedTripleBasedSink;
 import org.hobbit.core.components.AbstractComponent;
 import org.hobbit.core.data.RabbitQueue;
 import org.hobbit.core.rabbit.DataReceiverImpl;
@@ -36,13 +33,14 @@ import org.springframework.stereotype.Component;
 
 /**
  * This component is responsible for deduplication.
- * If some new uris have been crawled by the {@link org.dice_research.squirrel.worker.Worker} the deduplicator computes
- * {@link org.dice_research.squirrel.deduplication.hashing.HashValue}s for the triples found in the new uris, stores those
- * hash values in the {@link KnownUriFilter} and compares the newly computed hash values with the hash values of all 'old'
- * triples. By doing that, duplicate data can be found and eliminated.
+ * If some new uris have been crawled by the {@link org.dice_research.squirrel.worker.Worker}, the worker has already
+ * computed a {@link MinHashValue} for the triples found in the new uris while they have been written to the sink. The
+ * deduplicator receives these signatures, looks up the 'old' uris that share at least one band of their signature in the
+ * {@link UriHashCustodian} and compares the signatures with each other. By doing that, near-duplicate data can be found
+ * and eliminated without reading the triples from the triple store.
  * Note: The hash value behind a uri represents the triples behind the uris, it does not represent the uri itself.
- * If The hash values of two uris are equal, the deduplicator looks behind the triples of those two uris and compares them. If the
- * lists of triples are equal, one of the two lists of triples will be deleted as it is a duplicate.
+ * If the estimated similarity of two uris reaches the similarity threshold, the new uri is seen as a duplicate of the old
+ * uri.
  */
 
 @Component
@@ -62,20 +60,21 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
      */
     private final List<CrawleableUri> uriQueue = new ArrayList<>();
 
-    /**
-     * Needed to access the {@link Triple}s.
-     */
-    private AdvancedTripleBasedSink sink;
-
     private Serializer serializer;
 
     private DataReceiverImpl receiver;
 
-    private TripleComparator tripleComparator = new SimpleTripleComparator();
-
     private UriHashCustodian uriHashCustodian;
 
-    private TripleHashFunction tripleHashFunction = new SimpleTripleHashFunction();
+    /**
+     * The number of bands of the locality-sensitive hashing index.
+     */
+    private int bands;
+
+    /**
+     * The minimum estimated Jaccard similarity of two uris to be seen as duplicates.
+     */
+    private double similarityThreshold;
 
     private final Semaphore terminationMutex = new Semaphore(0);
 
@@ -91,19 +90,18 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
             deduplicationActive = Constants.DEFAULT_DEDUPLICATION_ACTIVE;
         }
         if (deduplicationActive) {
-            // Old Method: Using MongoDB
-//            String rdbHostName = null;
-//            int rdbPort = -1;
-//            if (env.containsKey(Constants.MDB_HOST_NAME_KEY)) {
-//                rdbHostName = env.get(Constants.MDB_HOST_NAME_KEY);
-//                if (env.containsKey(Constants.MDB_PORT_KEY)) {
-//                    rdbPort = Integer.parseInt(env.get(Constants.MDB_PORT_KEY));
-//                } else {
-//                    LOGGER.warn("Couldn't get {} from the environment. An in-memory queue will be used.", Constants.MDB_PORT_KEY);
-//                }
-//            } else {
-//                LOGGER.warn("Couldn't get {} from the environment. An in-memory queue will be used.", Constants.MDB_HOST_NAME_KEY);
-//            }
+            String mdbHostName = null;
+            int mdbPort = -1;
+            if (env.containsKey(Constants.MDB_HOST_NAME_KEY)) {
+                mdbHostName = env.get(Constants.MDB_HOST_NAME_KEY);
+                if (env.containsKey(Constants.MDB_PORT_KEY)) {
+                    mdbPort = Integer.parseInt(env.get(Constants.MDB_PORT_KEY));
+                } else {
+                    LOGGER.warn("Couldn't get {} from the environment. An in-memory hash index will be used.", Constants.MDB_PORT_KEY);
+                }
+            } else {
+                LOGGER.warn("Couldn't get {} from the environment. An in-memory hash index will be used.", Constants.MDB_HOST_NAME_KEY);
+            }
 
             // New SO19: Using SPARQL
             String sparqlHostName = null;
@@ -150,9 +148,27 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
 //                uriHashCustodian = knownUriFilter;
 //            }
 
-            // at the moment, RDBKnownUriFilter is the only implementation of UriHashCustodian, that might change in the future
+            bands = Constants.DEFAULT_LSH_BANDS;
+            if (env.containsKey(Constants.LSH_BANDS_KEY)) {
+                bands = Integer.parseInt(env.get(Constants.LSH_BANDS_KEY));
+            } else {
+                LOGGER.warn("Couldn't get {} from the environment. The default value will be used.", Constants.LSH_BANDS_KEY);
+            }
+            if (env.containsKey(Constants.DEDUPLICATION_SIMILARITY_THRESHOLD_KEY)) {
+                similarityThreshold = Double.parseDouble(env.get(Constants.DEDUPLICATION_SIMILARITY_THRESHOLD_KEY));
+            } else {
+                LOGGER.warn("Couldn't get {} from the environment. The default value will be used.", Constants.DEDUPLICATION_SIMILARITY_THRESHOLD_KEY);
+                similarityThreshold = Constants.DEFAULT_DEDUPLICATION_SIMILARITY_THRESHOLD;
+            }
+            if ((mdbHostName != null) && (mdbPort > 0)) {
+                MongoDBUriHashCustodian mongoCustodian = new MongoDBUriHashCustodian(mdbHostName, mdbPort, bands);
+                mongoCustodian.open();
+                uriHashCustodian = mongoCustodian;
+            } else {
+                uriHashCustodian = new LshUriHashCustodian(bands);
+            }
 
-            serializer = new GzipJavaUriSerializer();
+            serializer = new BinaryUriSerializer(Compression.SNAPPY);
 
             try {
                 RabbitQueue rabbitQueue = this.incomingDataQueueFactory.createDefaultRabbitQueue(Constants.DEDUPLICATOR_QUEUE_NAME);
@@ -164,17 +180,16 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
             LOGGER.info("Deduplicator initialized.");
         }
     }
-    //SO19: Calculate hash values based on metadata
     private void handleNewUris(List<CrawleableUri> uris) {
+        List<CrawleableUri> hashedUris = new ArrayList<>(uris.size());
         for (CrawleableUri nextUri : uris) {
-            List<Triple> triples = sink.getTriplesForGraph(nextUri);
-            HashValue value = (new IntervalBasedMinHashFunction(2, tripleHashFunction).hash(triples));
-            nextUri.addData(Constants.URI_HASH_KEY, value);
+            if (nextUri.getData(Constants.URI_HASH_KEY) instanceof MinHashValue) {
+                hashedUris.add(nextUri);
+            } else {
+                LOGGER.warn("{} has no MinHash signature. It will be ignored.", nextUri.getUri());
+            }
         }
-
-        compareNewUrisWithOldUris(uris);
-        uriHashCustodian.addHashValuesForUris(uris);
-
+        compareNewUrisWithOldUris(hashedUris);
     }
 
     @Override
@@ -183,38 +198,45 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
     }
 
     /**
-     * Compare the hash values of the uris in  with the hash values of all uris contained
-     * in {@link #uriHashCustodian}.
+     * Compare the hash values of the uris in the given list with the hash values of all uris contained
+     * in {@link #uriHashCustodian}. The candidates of all uris are retrieved with a single request and
+     * indexed in a local {@link LshUriHashCustodian} together with the new uris, i.e., duplicates within
+     * the given list are found as well. Finally, the hash values of all new uris are added to the
+     * {@link #uriHashCustodian} with a single request.
      * @param uris
      */
     private void compareNewUrisWithOldUris(List<CrawleableUri> uris) {
-//  FIXME fix this part!
-//        if (uriHashCustodian instanceof RDBKnownUriFilter) {
-//            ((RDBKnownUriFilter) uriHashCustodian).openConnector();
-//        }
-
+        if (uris.isEmpty()) {
+            return;
+        }
         Set<HashValue> hashValuesOfNewUris = new HashSet<>();
         for (CrawleableUri uri : uris) {
             hashValuesOfNewUris.add((HashValue) uri.getData(Constants.URI_HASH_KEY));
         }
-        Set<CrawleableUri> oldUrisForComparison = uriHashCustodian.getUrisWithSameHashValues(hashValuesOfNewUris);
-        outer:
+        LshUriHashCustodian candidates = new LshUriHashCustodian(bands);
+        candidates.addHashValuesForUris(
+            new ArrayList<>(uriHashCustodian.getUrisWithSameHashValues(hashValuesOfNewUris)));
+
         for (CrawleableUri uriNew : uris) {
+            MinHashValue valueNew = (MinHashValue) uriNew.getData(Constants.URI_HASH_KEY);
+            Set<CrawleableUri> oldUrisForComparison = candidates
+                .getUrisWithSameHashValues(Collections.<HashValue>singleton(valueNew));
             for (CrawleableUri uriOld : oldUrisForComparison) {
-                if (!uriOld.equals(uriNew)) {
-                    // get triples from pair1 and pair2 and compare them
-                    List<Triple> listOld = sink.getTriplesForGraph(uriOld);
-                    List<Triple> listNew = sink.getTriplesForGraph(uriNew);
-
-                    if (tripleComparator.triplesAreEqual(listOld, listNew)) {
+                Object valueOld = uriOld.getData(Constants.URI_HASH_KEY);
+                if (!uriOld.equals(uriNew) && (valueOld instanceof MinHashValue)) {
+                    double similarity = valueNew.estimateSimilarity((MinHashValue) valueOld);
+                    if (similarity >= similarityThreshold) {
+                        LOGGER.info("{} is a duplicate of {} (estimated similarity {}).", uriNew.getUri(),
+                            uriOld.getUri(), similarity);
                         // TODO: delete duplicate, this means Delete the triples from the new uris and
                         // replace them by a link to the old uris which has the same content
-                        continue outer;
+                        break;
                     }
-
                 }
             }
+            candidates.addHashValuesForUris(Collections.singletonList(uriNew));
         }
+        uriHashCustodian.addHashValuesForUris(uris);
     }
 
     @Override
@@ -0,0 +1,220 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.deduplication.hashing.TripleSetHashFunction;
+
+/**
+ * <p>
+ * Computes a {@link GraphDigestHashValue} for a set of triples that does not
+ * depend on the labels of the blank nodes. Each blank node is labelled with a
+ * hash that is refined iteratively based on the hashes of its neighbours
+ * (colour refinement). A blank node receives the sum of the hashes of its
+ * outgoing and incoming edges, i.e., the result does not depend on the order
+ * of the triples. The refinement stops as soon as an iteration does not split
+ * any class of blank nodes anymore. Finally, the triples are hashed using the
+ * labels of their blank nodes and summed up to the digest.
+ * </p>
+ *
+ * <p>
+ * Isomorphic graphs always get the same digest. Graphs that can not be
+ * distinguished by colour refinement (e.g., two different regular structures of
+ * blank nodes with the same degrees) get the same digest as well. This is very
+ * unlikely for crawled data and acceptable for deduplication. Duplicate triples
+ * are ignored. The effort is linear in the number of triples times the number
+ * of iterations, which is bounded by the depth of the blank node structures
+ * and {@link #maxIterations}.
+ * </p>
+ */
+public class CanonicalGraphHashFunction implements TripleSetHashFunction {
+
+    public static final int DEFAULT_MAX_ITERATIONS = 64;
+
+    private static final long BLANK_NODE_SEED = 0x2545F4914F6CDD1DL;
+    private static final long OUTGOING_EDGE_SEED = 0x9E3779B97F4A7C15L;
+    private static final long INCOMING_EDGE_SEED = 0xC2B2AE3D27D4EB4FL;
+    private static final long SECOND_HALF_SEED = 0x165667B19E3779F9L;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * The maximum number of refinement iterations. The digest of isomorphic
+     * graphs is the same for every number of iterations.
+     */
+    protected int maxIterations;
+
+    public CanonicalGraphHashFunction() {
+        this(DEFAULT_MAX_ITERATIONS);
+    }
+
+    public CanonicalGraphHashFunction(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public GraphDigestHashValue hash(List<Triple> triples) {
+        Set<Triple> tripleSet = new HashSet<>(triples);
+        int size = tripleSet.size();
+        // the index of the blank node in the subject / object position or -1
+        int[] subjects = new int[size];
+        int[] objects = new int[size];
+        // the hashes of the nodes that are not blank
+        long[] subjectHashes = new long[size];
+        long[] predicateHashes = new long[size];
+        long[] objectHashes = new long[size];
+        Map<Node, Integer> blankNodes = new HashMap<>();
+        Map<Node, Long> nodeHashes = new HashMap<>();
+        int pos = 0;
+        for (Triple triple : tripleSet) {
+            subjects[pos] = getBlankNodeIndex(triple.getSubject(), blankNodes);
+            if (subjects[pos] < 0) {
+                subjectHashes[pos] = getNodeHash(triple.getSubject(), nodeHashes);
+            }
+            predicateHashes[pos] = getNodeHash(triple.getPredicate(), nodeHashes);
+            objects[pos] = getBlankNodeIndex(triple.getObject(), blankNodes);
+            if (objects[pos] < 0) {
+                objectHashes[pos] = getNodeHash(triple.getObject(), nodeHashes);
+            }
+            ++pos;
+        }
+
+        long[] labels = new long[blankNodes.size()];
+        Arrays.fill(labels, BLANK_NODE_SEED);
+        if (labels.length > 0) {
+            refineLabels(labels, subjects, objects, subjectHashes, predicateHashes, objectHashes);
+        }
+
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < size; ++i) {
+            long s = (subjects[i] < 0) ? subjectHashes[i] : labels[subjects[i]];
+            long o = (objects[i] < 0) ? objectHashes[i] : labels[objects[i]];
+            long hash = combine(combine(s, predicateHashes[i]), o);
+            high += fmix64(hash);
+            low += fmix64(hash ^ SECOND_HALF_SEED);
+        }
+        return new GraphDigestHashValue(fmix64(high ^ size), low);
+    }
+
+    /**
+     * Refines the labels of the blank nodes until the number of different
+     * labels does not grow anymore or {@link #maxIterations} is reached.
+     */
+    protected void refineLabels(long[] labels, int[] subjects, int[] objects, long[] subjectHashes,
+            long[] predicateHashes, long[] objectHashes) {
+        long[] sums = new long[labels.length];
+        int numberOfClasses = 1;
+        for (int iteration = 0; iteration < maxIterations; ++iteration) {
+            Arrays.fill(sums, 0);
+            for (int i = 0; i < subjects.length; ++i) {
+                if (subjects[i] >= 0) {
+                    long o = (objects[i] < 0) ? objectHashes[i] : labels[objects[i]];
+                    sums[subjects[i]] += combine(OUTGOING_EDGE_SEED ^ predicateHashes[i], o);
+                }
+                if (objects[i] >= 0) {
+                    long s = (subjects[i] < 0) ? subjectHashes[i] : labels[subjects[i]];
+                    sums[objects[i]] += combine(INCOMING_EDGE_SEED ^ predicateHashes[i], s);
+                }
+            }
+            for (int b = 0; b < labels.length; ++b) {
+                labels[b] = combine(labels[b], sums[b]);
+            }
+            int newNumberOfClasses = countDistinct(labels);
+            if (newNumberOfClasses <= numberOfClasses) {
+                return;
+            }
+            numberOfClasses = newNumberOfClasses;
+        }
+    }
+
+    private static int countDistinct(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 1;
+        for (int i = 1; i < sorted.length; ++i) {
+            if (sorted[i] != sorted[i - 1]) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static int getBlankNodeIndex(Node node, Map<Node, Integer> blankNodes) {
+        if (!node.isBlank()) {
+            return -1;
+        }
+        Integer index = blankNodes.get(node);
+        if (index == null) {
+            index = blankNodes.size();
+            blankNodes.put(node, index);
+        }
+        return index;
+    }
+
+    private static long getNodeHash(Node node, Map<Node, Long> nodeHashes) {
+        Long hash = nodeHashes.get(node);
+        if (hash == null) {
+            hash = hash(node);
+            nodeHashes.put(node, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes the given node (that is not blank) using FNV-1a over its lexical
+     * form and the finalization step of MurmurHash3.
+     */
+    protected static long hash(Node node) {
+        long hash = FNV_OFFSET_BASIS;
+        if (node.isURI()) {
+            hash = hash(node.getURI(), hash, 'U');
+        } else if (node.isLiteral()) {
+            hash = hash(node.getLiteralLexicalForm(), hash, 'L');
+            String language = node.getLiteralLanguage();
+            if ((language != null) && !language.isEmpty()) {
+                hash = hash(language, hash, '@');
+            } else if (node.getLiteralDatatypeURI() != null) {
+                hash = hash(node.getLiteralDatatypeURI(), hash, '^');
+            }
+        } else {
+            hash = hash(node.toString(), hash, 'N');
+        }
+        return fmix64(hash);
+    }
+
+    private static long hash(String s, long hash, char type) {
+        // the type separates the single parts
+        hash = (hash ^ type) * FNV_PRIME;
+        for (int i = 0; i < s.length(); ++i) {
+            hash = (hash ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Combines the two given hashes. The result depends on the order of the
+     * two hashes.
+     */
+    private static long combine(long first, long second) {
+        return fmix64((first * OUTGOING_EDGE_SEED) + second);
+    }
+
+    /**
+     * The finalization step of MurmurHash3.
+     */
+    private static long fmix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -33,30 +33,16 @@ public class IntervalBasedMinHashFunction implements TripleSetHashFunction {
 
     @Override
     public HashValue hash(List<Triple> triples) {
-        Integer[] hashValues = new Integer[(int) Math.pow(2, powerNumberOfIntervals)];
+        Integer[] hashValues = new Integer[1 << powerNumberOfIntervals];
 
         for (Triple triple : triples) {
             if (triple.getObject().isBlank() || triple.getSubject().isBlank()) {
                 continue;
             }
             int hash = tripleHashFunction.hash(triple);
-            //TODO Change to bitshifting
-            int bitShiftedNumber = hash >>> (32 - powerNumberOfIntervals);
-            String shortBinaryString = Integer.toBinaryString(bitShiftedNumber);
-            //fill with zeros
-            String prefix = "";
-            if (shortBinaryString.length() < 32) {
-                prefix = String.format("%0" + (32 - shortBinaryString.length()) + "d", 0);
-            }
-            String extendBitShiftedNumber = prefix + shortBinaryString;
-            String lastBits = extendBitShiftedNumber.substring(32 - powerNumberOfIntervals, 32);
-
-            //if we have only one interval, the zero is the desired interval
-            if (lastBits.equals("")) {
-                lastBits = "0";
-            }
-
-            int intervalNumber = Integer.parseInt(lastBits, 2);
+            // the highest bits of the hash are the number of the interval. If we have only one interval, the zero is
+            // the desired interval (a shift by 32 bits would not change the hash)
+            int intervalNumber = (powerNumberOfIntervals == 0) ? 0 : hash >>> (32 - powerNumberOfIntervals);
             if (hashValues[intervalNumber] == null || hashValues[intervalNumber] > hash) {
                 hashValues[intervalNumber] = hash;
             }
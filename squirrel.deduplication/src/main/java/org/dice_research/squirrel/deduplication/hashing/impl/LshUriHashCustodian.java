@@ -0,0 +1,134 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.deduplication.hashing.HashValue;
+import org.dice_research.squirrel.deduplication.hashing.UriHashCustodian;
+
+/**
+ * A {@link UriHashCustodian} that indexes {@link MinHashValue}s using
+ * locality-sensitive hashing. Every signature is split into a number of bands
+ * and the uri is added to the bucket of each of its bands. Two uris are
+ * candidates for duplicates if they share at least one bucket, i.e., if at
+ * least one of their bands is equal. Hash values of other types are ignored.
+ *
+ * <p>
+ * With b bands of r rows, two signatures with a Jaccard similarity s share a
+ * bucket with a probability of 1-(1-s^r)^b. For 128 permutations and 32 bands,
+ * pairs with s=0.9 are found with a probability of more than 99.9% while pairs
+ * with s=0.3 are candidates with a probability of about 23%.
+ * </p>
+ */
+public class LshUriHashCustodian implements UriHashCustodian {
+
+    /**
+     * The number of bands in which a signature is split.
+     */
+    protected int bands;
+    /**
+     * Mapping of band keys to the uris that have this band.
+     */
+    private final Map<Long, Set<String>> buckets = new HashMap<>();
+    private final Map<String, MinHashValue> signatures = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LshUriHashCustodian() {
+        this(Constants.DEFAULT_LSH_BANDS);
+    }
+
+    public LshUriHashCustodian(int bands) {
+        this.bands = bands;
+    }
+
+    /**
+     * Returns all uris that share at least one band with one of the given
+     * {@link MinHashValue}s. The signature of each uri is added to its data
+     * (see {@link Constants#URI_HASH_KEY}) to enable the comparison with the
+     * given values without reading the triples of the uri.
+     */
+    @Override
+    public Set<CrawleableUri> getUrisWithSameHashValues(Set<HashValue> hashValuesForComparison) {
+        Set<String> candidates = new HashSet<>();
+        Set<CrawleableUri> result = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (HashValue value : hashValuesForComparison) {
+                if (value instanceof MinHashValue) {
+                    for (long key : ((MinHashValue) value).getBandKeys(bands)) {
+                        Set<String> bucket = buckets.get(key);
+                        if (bucket != null) {
+                            candidates.addAll(bucket);
+                        }
+                    }
+                }
+            }
+            for (String candidate : candidates) {
+                CrawleableUri uri = new CrawleableUri(URI.create(candidate));
+                uri.addData(Constants.URI_HASH_KEY, signatures.get(candidate));
+                result.add(uri);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Adds the {@link MinHashValue}s of the given uris to the index. If a uri
+     * is already known, its old signature is replaced.
+     */
+    @Override
+    public void addHashValuesForUris(List<CrawleableUri> uris) {
+        lock.writeLock().lock();
+        try {
+            for (CrawleableUri uri : uris) {
+                Object value = uri.getData(Constants.URI_HASH_KEY);
+                if (value instanceof MinHashValue) {
+                    String uriString = uri.getUri().toString();
+                    MinHashValue oldValue = signatures.put(uriString, (MinHashValue) value);
+                    if (oldValue != null) {
+                        removeFromBuckets(uriString, oldValue);
+                    }
+                    for (long key : ((MinHashValue) value).getBandKeys(bands)) {
+                        buckets.computeIfAbsent(key, k -> new HashSet<>()).add(uriString);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeFromBuckets(String uri, MinHashValue value) {
+        for (long key : value.getBandKeys(bands)) {
+            Set<String> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(uri);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of indexed uris
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
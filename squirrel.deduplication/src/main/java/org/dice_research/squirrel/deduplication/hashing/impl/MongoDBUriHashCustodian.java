@@ -0,0 +1,160 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.deduplication.hashing.HashValue;
+import org.dice_research.squirrel.deduplication.hashing.UriHashCustodian;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateOptions;
+
+/**
+ * <p>
+ * A persistent {@link UriHashCustodian} for {@link MinHashValue}s based on
+ * MongoDB. It stores one document per uri with the uri as ID, the signature as
+ * binary ({@link MinHashValue#toBytes()}) and the keys of the bands of the
+ * signature (see {@link MinHashValue#getBandKeys(int)}). The band keys are
+ * indexed, i.e., the candidates that share a band with a signature are
+ * retrieved without scanning the collection.
+ * </p>
+ *
+ * <p>
+ * The candidates for all hash values given to
+ * {@link #getUrisWithSameHashValues(Set)} are retrieved with a single query
+ * and all uris given to {@link #addHashValuesForUris(List)} are upserted with
+ * a single unordered bulk write, i.e., a set of uris received by the
+ * deduplicator needs only two round trips.
+ * </p>
+ */
+public class MongoDBUriHashCustodian implements UriHashCustodian, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoDBUriHashCustodian.class);
+
+    public static final String DB_NAME = "squirrel";
+    public static final String COLLECTION_NAME = "urihashes";
+
+    public static final String FIELD_URI = "_id";
+    public static final String FIELD_SIGNATURE = "signature";
+    public static final String FIELD_BANDS = "bands";
+
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    private MongoClient client;
+    private MongoCollection<Document> collection;
+    /**
+     * The number of bands in which a signature is split.
+     */
+    protected int bands;
+
+    public MongoDBUriHashCustodian(String hostName, int port) {
+        this(new MongoClient(hostName, port), Constants.DEFAULT_LSH_BANDS);
+    }
+
+    public MongoDBUriHashCustodian(String hostName, int port, int bands) {
+        this(new MongoClient(hostName, port), bands);
+    }
+
+    public MongoDBUriHashCustodian(MongoClient client, int bands) {
+        this.client = client;
+        this.bands = bands;
+    }
+
+    public void open() {
+        collection = client.getDatabase(DB_NAME).getCollection(COLLECTION_NAME);
+        // multikey index on the band keys (creating an existing index has no effect)
+        collection.createIndex(Indexes.ascending(FIELD_BANDS));
+    }
+
+    @Override
+    public Set<CrawleableUri> getUrisWithSameHashValues(Set<HashValue> hashValuesForComparison) {
+        List<Long> keys = new ArrayList<>();
+        for (HashValue value : hashValuesForComparison) {
+            if (value instanceof MinHashValue) {
+                for (long key : ((MinHashValue) value).getBandKeys(bands)) {
+                    keys.add(key);
+                }
+            }
+        }
+        Set<CrawleableUri> result = new HashSet<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        MongoCursor<Document> cursor = collection.find(Filters.in(FIELD_BANDS, keys))
+                .projection(Projections.include(FIELD_URI, FIELD_SIGNATURE)).iterator();
+        try {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                try {
+                    CrawleableUri uri = new CrawleableUri(new URI(doc.getString(FIELD_URI)));
+                    uri.addData(Constants.URI_HASH_KEY,
+                            MinHashValue.fromBytes(doc.get(FIELD_SIGNATURE, Binary.class).getData()));
+                    result.add(uri);
+                } catch (Exception e) {
+                    LOGGER.warn("Couldn't read the hash value document of " + doc.get(FIELD_URI)
+                            + ". It will be ignored.", e);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return result;
+    }
+
+    /**
+     * Upserts the {@link MinHashValue}s of all given uris with a single
+     * unordered bulk write. If a uri is already known, its old signature and
+     * bands are replaced.
+     */
+    @Override
+    public void addHashValuesForUris(List<CrawleableUri> uris) {
+        List<ReplaceOneModel<Document>> requests = new ArrayList<>(uris.size());
+        for (CrawleableUri uri : uris) {
+            Object value = uri.getData(Constants.URI_HASH_KEY);
+            if (value instanceof MinHashValue) {
+                MinHashValue minHashValue = (MinHashValue) value;
+                List<Long> keys = new ArrayList<>(bands);
+                for (long key : minHashValue.getBandKeys(bands)) {
+                    keys.add(key);
+                }
+                String uriString = uri.getUri().toString();
+                requests.add(new ReplaceOneModel<>(Filters.eq(FIELD_URI, uriString),
+                        new Document(FIELD_URI, uriString).append(FIELD_SIGNATURE, new Binary(minHashValue.toBytes()))
+                                .append(FIELD_BANDS, keys),
+                        UPSERT));
+            }
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+        collection.bulkWrite(requests, new BulkWriteOptions().ordered(false));
+        LOGGER.debug("Added the hash values of {} URIs.", requests.size());
+    }
+
+    public long count() {
+        return collection.count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
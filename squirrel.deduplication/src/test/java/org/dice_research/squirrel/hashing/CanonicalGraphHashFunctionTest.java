@@ -0,0 +1,88 @@
+package org.dice_research.squirrel.hashing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.deduplication.hashing.impl.CanonicalGraphHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.GraphDigestHashValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CanonicalGraphHashFunction}.
+ */
+public class CanonicalGraphHashFunctionTest {
+
+    private static final Node P = NodeFactory.createURI("http://example.org/p");
+    private static final Node Q = NodeFactory.createURI("http://example.org/q");
+
+    private CanonicalGraphHashFunction hashFunction = new CanonicalGraphHashFunction();
+
+    /**
+     * Creates a graph with nested blank nodes (a list of blank nodes each of
+     * which has two blank nodes with a literal).
+     */
+    private static List<Triple> createGraph(String prefix, int size) {
+        List<Triple> triples = new ArrayList<>();
+        Node resource = NodeFactory.createURI("http://example.org/r");
+        for (int i = 0; i < size; ++i) {
+            Node blank = NodeFactory.createBlankNode(prefix + i);
+            triples.add(new Triple(resource, P, blank));
+            for (int j = 0; j < 2; ++j) {
+                Node inner = NodeFactory.createBlankNode(prefix + i + "_" + j);
+                triples.add(new Triple(blank, Q, inner));
+                triples.add(new Triple(inner, P, NodeFactory.createLiteral("v" + i + "_" + j)));
+            }
+        }
+        return triples;
+    }
+
+    @Test
+    public void testRelabelledGraphs() {
+        List<Triple> triples1 = createGraph("a", 100);
+        List<Triple> triples2 = createGraph("other", 100);
+        Collections.shuffle(triples2);
+        Assert.assertEquals(hashFunction.hash(triples1), hashFunction.hash(triples2));
+    }
+
+    @Test
+    public void testDifferentGraphs() {
+        List<Triple> triples1 = createGraph("a", 100);
+        List<Triple> triples2 = createGraph("a", 100);
+        // move a literal to another blank node
+        triples2.set(2, new Triple(NodeFactory.createBlankNode("a0_0"), P, NodeFactory.createLiteral("v1_0")));
+        triples2.set(8, new Triple(NodeFactory.createBlankNode("a1_0"), P, NodeFactory.createLiteral("v0_0")));
+        Assert.assertNotEquals(hashFunction.hash(triples1), hashFunction.hash(triples2));
+    }
+
+    @Test
+    public void testBlankNodeStructure() {
+        Node a = NodeFactory.createBlankNode("a");
+        Node b = NodeFactory.createBlankNode("b");
+        Node c = NodeFactory.createBlankNode("c");
+        // a chain a -> b -> c
+        List<Triple> chain = new ArrayList<>();
+        chain.add(new Triple(a, P, b));
+        chain.add(new Triple(b, P, c));
+        // a star a -> b <- c
+        List<Triple> star = new ArrayList<>();
+        star.add(new Triple(a, P, b));
+        star.add(new Triple(c, P, b));
+        Assert.assertNotEquals(hashFunction.hash(chain), hashFunction.hash(star));
+
+        List<Triple> relabelledChain = new ArrayList<>();
+        relabelledChain.add(new Triple(c, P, a));
+        relabelledChain.add(new Triple(b, P, c));
+        Assert.assertEquals(hashFunction.hash(chain), hashFunction.hash(relabelledChain));
+    }
+
+    @Test
+    public void testDecodeAndEncode() {
+        GraphDigestHashValue value = hashFunction.hash(createGraph("a", 10));
+        Assert.assertEquals(value, new GraphDigestHashValue().decodeFromString(value.encodeToString()));
+    }
+}
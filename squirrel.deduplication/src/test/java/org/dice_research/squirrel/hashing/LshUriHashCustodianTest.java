@@ -0,0 +1,59 @@
+package org.dice_research.squirrel.hashing;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.deduplication.hashing.HashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.LshUriHashCustodian;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LshUriHashCustodian}.
+ */
+public class LshUriHashCustodianTest {
+
+    private static CrawleableUri createUri(String uri, int[] signature) {
+        CrawleableUri crawleableUri = new CrawleableUri(URI.create(uri));
+        crawleableUri.addData(Constants.URI_HASH_KEY, new MinHashValue(signature));
+        return crawleableUri;
+    }
+
+    @Test
+    public void test() {
+        LshUriHashCustodian custodian = new LshUriHashCustodian(4);
+        CrawleableUri uri1 = createUri("http://example.org/1", new int[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        // shares the last band with uri1
+        CrawleableUri uri2 = createUri("http://example.org/2", new int[] { 0, 0, 0, 0, 0, 0, 7, 8 });
+        // has the same values as uri1 but in other bands
+        CrawleableUri uri3 = createUri("http://example.org/3", new int[] { 7, 8, 5, 6, 3, 4, 1, 2 });
+        custodian.addHashValuesForUris(Arrays.asList(uri1, uri2, uri3));
+        Assert.assertEquals(3, custodian.size());
+
+        Set<CrawleableUri> candidates = custodian.getUrisWithSameHashValues(
+            Collections.<HashValue>singleton(new MinHashValue(new int[] { 9, 9, 9, 9, 9, 9, 7, 8 })));
+        Assert.assertEquals(2, candidates.size());
+        Assert.assertTrue(candidates.contains(uri1));
+        Assert.assertTrue(candidates.contains(uri2));
+        for (CrawleableUri candidate : candidates) {
+            Assert.assertTrue(candidate.getData(Constants.URI_HASH_KEY) instanceof MinHashValue);
+        }
+
+        candidates = custodian.getUrisWithSameHashValues(
+            Collections.<HashValue>singleton(new MinHashValue(new int[] { 9, 9, 9, 9, 9, 9, 9, 9 })));
+        Assert.assertTrue(candidates.isEmpty());
+
+        // replace the signature of uri2
+        custodian.addHashValuesForUris(
+            Arrays.asList(createUri("http://example.org/2", new int[] { 0, 0, 0, 0, 0, 0, 0, 0 })));
+        Assert.assertEquals(3, custodian.size());
+        candidates = custodian.getUrisWithSameHashValues(
+            Collections.<HashValue>singleton(new MinHashValue(new int[] { 9, 9, 9, 9, 9, 9, 7, 8 })));
+        Assert.assertEquals(Collections.singleton(uri1), candidates);
+    }
+}
@@ -0,0 +1,91 @@
+package org.dice_research.squirrel.hashing;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.MongoDBBasedTest;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.deduplication.hashing.HashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.MongoDBUriHashCustodian;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MongoDBUriHashCustodian}.
+ */
+public class MongoDBUriHashCustodianTest extends MongoDBBasedTest {
+
+    private MongoDBUriHashCustodian custodian;
+
+    private static CrawleableUri createUri(String uri, int[] signature) {
+        CrawleableUri crawleableUri = new CrawleableUri(URI.create(uri));
+        crawleableUri.addData(Constants.URI_HASH_KEY, new MinHashValue(signature));
+        return crawleableUri;
+    }
+
+    @Before
+    public void setUp() {
+        client.getDatabase(MongoDBUriHashCustodian.DB_NAME).getCollection(MongoDBUriHashCustodian.COLLECTION_NAME)
+                .drop();
+        custodian = new MongoDBUriHashCustodian(DB_HOST_NAME, DB_PORT, 4);
+        custodian.open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        custodian.close();
+    }
+
+    @Test
+    public void test() {
+        CrawleableUri uri1 = createUri("http://example.org/1", new int[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        // shares the last band with uri1
+        CrawleableUri uri2 = createUri("http://example.org/2", new int[] { 0, 0, 0, 0, 0, 0, 7, 8 });
+        // has the same values as uri1 but in other bands
+        CrawleableUri uri3 = createUri("http://example.org/3", new int[] { 7, 8, 5, 6, 3, 4, 1, 2 });
+        // uris without a MinHashValue are ignored
+        CrawleableUri uri4 = new CrawleableUri(URI.create("http://example.org/4"));
+        custodian.addHashValuesForUris(Arrays.asList(uri1, uri2, uri3, uri4));
+        Assert.assertEquals(3, custodian.count());
+
+        Set<CrawleableUri> candidates = custodian.getUrisWithSameHashValues(
+            Collections.<HashValue>singleton(new MinHashValue(new int[] { 9, 9, 9, 9, 9, 9, 7, 8 })));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(uri1, uri2)), candidates);
+        // the signatures are read from the stored bytes
+        for (CrawleableUri candidate : candidates) {
+            Assert.assertEquals(
+                (candidate.equals(uri1) ? uri1 : uri2).getData(Constants.URI_HASH_KEY),
+                candidate.getData(Constants.URI_HASH_KEY));
+        }
+
+        candidates = custodian.getUrisWithSameHashValues(
+            Collections.<HashValue>singleton(new MinHashValue(new int[] { 9, 9, 9, 9, 9, 9, 9, 9 })));
+        Assert.assertTrue(candidates.isEmpty());
+
+        // several hash values are answered with a single query
+        candidates = custodian.getUrisWithSameHashValues(new HashSet<HashValue>(Arrays.asList(
+            new MinHashValue(new int[] { 9, 9, 9, 9, 9, 9, 7, 8 }),
+            new MinHashValue(new int[] { 7, 8, 9, 9, 9, 9, 9, 9 }))));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(uri1, uri2, uri3)), candidates);
+
+        // replace the signature of uri2
+        custodian.addHashValuesForUris(
+            Arrays.asList(createUri("http://example.org/2", new int[] { 0, 0, 0, 0, 0, 0, 0, 0 })));
+        Assert.assertEquals(3, custodian.count());
+        candidates = custodian.getUrisWithSameHashValues(
+            Collections.<HashValue>singleton(new MinHashValue(new int[] { 9, 9, 9, 9, 9, 9, 7, 8 })));
+        Assert.assertEquals(Collections.singleton(uri1), candidates);
+        candidates = custodian.getUrisWithSameHashValues(
+            Collections.<HashValue>singleton(new MinHashValue(new int[] { 0, 0, 9, 9, 9, 9, 9, 9 })));
+        Assert.assertEquals(1, candidates.size());
+        Assert.assertEquals(new MinHashValue(new int[] { 0, 0, 0, 0, 0, 0, 0, 0 }),
+            candidates.iterator().next().getData(Constants.URI_HASH_KEY));
+    }
+}
@@ -0,0 +1,86 @@
+package org.dice_research.squirrel.hashing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.StreamingMinHash;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StreamingMinHash} and {@link MinHashValue}.
+ */
+public class StreamingMinHashTest {
+
+    private static final int PERMUTATIONS = 128;
+
+    private static List<Triple> createTriples(int start, int end) {
+        List<Triple> triples = new ArrayList<>();
+        for (int i = start; i < end; ++i) {
+            triples.add(new Triple(NodeFactory.createURI("http://example.org/s" + i),
+                NodeFactory.createURI("http://example.org/p"), NodeFactory.createLiteral("o" + i)));
+        }
+        return triples;
+    }
+
+    private static MinHashValue hash(List<Triple> triples) {
+        StreamingMinHash minHash = new StreamingMinHash(PERMUTATIONS);
+        for (Triple triple : triples) {
+            minHash.add(triple);
+        }
+        return minHash.getHashValue();
+    }
+
+    @Test
+    public void testOrderIndependence() {
+        List<Triple> triples = createTriples(0, 100);
+        MinHashValue value = hash(triples);
+        Collections.shuffle(triples);
+        Assert.assertEquals(value, hash(triples));
+        Assert.assertEquals(1.0, value.estimateSimilarity(hash(triples)), 0);
+    }
+
+    @Test
+    public void testSimilarity() {
+        // Jaccard similarity 900/1000 = 0.9
+        MinHashValue value1 = hash(createTriples(0, 950));
+        MinHashValue value2 = hash(createTriples(50, 1000));
+        Assert.assertEquals(0.9, value1.estimateSimilarity(value2), 0.1);
+        // disjoint sets
+        MinHashValue value3 = hash(createTriples(1000, 2000));
+        Assert.assertTrue(value1.estimateSimilarity(value3) < 0.1);
+    }
+
+    @Test
+    public void testBlankNodesAreIgnored() {
+        StreamingMinHash minHash = new StreamingMinHash(PERMUTATIONS);
+        minHash.add(new Triple(NodeFactory.createBlankNode(), NodeFactory.createURI("http://example.org/p"),
+            NodeFactory.createLiteral("o")));
+        Assert.assertEquals(0, minHash.getNumberOfTriples());
+    }
+
+    @Test
+    public void testDecodeAndEncode() {
+        MinHashValue value = hash(createTriples(0, 10));
+        MinHashValue decodedValue = (MinHashValue) new MinHashValue().decodeFromString(value.encodeToString());
+        Assert.assertEquals(value, decodedValue);
+        Assert.assertEquals(value, MinHashValue.fromBytes(value.toBytes()));
+        Assert.assertEquals(PERMUTATIONS * 4, value.toBytes().length);
+    }
+
+    @Test
+    public void testBandKeys() {
+        MinHashValue value = new MinHashValue(new int[] { 1, 2, 1, 2, 3, 4 });
+        long[] keys = value.getBandKeys(3);
+        Assert.assertEquals(3, keys.length);
+        // equal rows in different bands have different keys
+        Assert.assertNotEquals(keys[0], keys[1]);
+        Assert.assertArrayEquals(keys, new MinHashValue(new int[] { 1, 2, 1, 2, 3, 4 }).getBandKeys(3));
+        // the last permutation is not part of a band
+        Assert.assertEquals(2, new MinHashValue(new int[] { 1, 2, 3, 4, 5 }).getBandKeys(2).length);
+    }
+}
@@ -112,8 +112,15 @@ public class SimpleTripleComparatorTest {
         list1.add(getTriple(true, false, "s", "p", "o"));
         list1.add(getTriple(false, false, "s1", "p1", "o1"));
 
+        // only the label of the blank node differs
         list2.add(getTriple(true, false, "s2", "p", "o"));
         list2.add(getTriple(false, false, "s1", "p1", "o1"));
+        Assert.assertTrue(tripleComparator.triplesAreEqual(list1, list2));
+        list2.clear();
+
+        // the blank node has a different object
+        list2.add(getTriple(true, false, "s2", "p", "o2"));
+        list2.add(getTriple(false, false, "s1", "p1", "o1"));
         Assert.assertFalse(tripleComparator.triplesAreEqual(list1, list2));
     }
 
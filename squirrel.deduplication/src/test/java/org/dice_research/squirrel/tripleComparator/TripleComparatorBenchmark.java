@@ -0,0 +1,119 @@
+package org.dice_research.squirrel.tripleComparator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.deduplication.hashing.TripleComparator;
+import org.dice_research.squirrel.deduplication.hashing.impl.CanonicalGraphHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.GraphDigestHashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark measuring the time needed to compute the canonical digest of a
+ * graph and to compare two graphs that differ only in the labels of their blank
+ * nodes and in the order of their triples. The share of triples with blank
+ * nodes can be set with the {@code blankNodeShare} parameter. Run it with
+ * {@code -Xmx4g} for the largest graphs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TripleComparatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class GraphState {
+
+        @Param({ "10000", "100000", "1000000" })
+        public int numberOfTriples;
+
+        @Param({ "0.1", "0.9" })
+        public double blankNodeShare;
+
+        public List<Triple> graph1;
+        public List<Triple> graph2;
+        public CanonicalGraphHashFunction hashFunction = new CanonicalGraphHashFunction();
+        public TripleComparator comparator = new SimpleTripleComparator();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            graph1 = createGraph("a", numberOfTriples, blankNodeShare);
+            graph2 = createGraph("b", numberOfTriples, blankNodeShare);
+            Collections.shuffle(graph2, new Random(42));
+        }
+    }
+
+    /**
+     * Creates a graph with the given number of triples. The given share of
+     * triples is part of trees of blank nodes (a blank node with three blank
+     * children which have a literal each), the other triples have no blank
+     * nodes. The structure depends only on the number of triples and the
+     * share, i.e., graphs created with different prefixes are isomorphic.
+     */
+    public static List<Triple> createGraph(String blankNodePrefix, int numberOfTriples, double blankNodeShare) {
+        List<Triple> triples = new ArrayList<>(numberOfTriples);
+        Random random = new Random(numberOfTriples);
+        Node[] predicates = new Node[16];
+        for (int i = 0; i < predicates.length; ++i) {
+            predicates[i] = NodeFactory.createURI("http://example.org/property" + i);
+        }
+        int blankNodeTriples = (int) (numberOfTriples * blankNodeShare);
+        int id = 0;
+        while (triples.size() < blankNodeTriples) {
+            Node subject = NodeFactory.createURI("http://example.org/resource" + random.nextInt(numberOfTriples));
+            Node root = NodeFactory.createBlankNode(blankNodePrefix + id);
+            triples.add(new Triple(subject, predicates[random.nextInt(predicates.length)], root));
+            for (int i = 0; i < 3; ++i) {
+                Node child = NodeFactory.createBlankNode(blankNodePrefix + id + "_" + i);
+                triples.add(new Triple(root, predicates[i], child));
+                triples.add(new Triple(child, predicates[random.nextInt(predicates.length)],
+                        NodeFactory.createLiteral(Integer.toString(random.nextInt(100)))));
+            }
+            ++id;
+        }
+        while (triples.size() < numberOfTriples) {
+            triples.add(new Triple(NodeFactory.createURI("http://example.org/resource" + random.nextInt(numberOfTriples)),
+                    predicates[random.nextInt(predicates.length)],
+                    NodeFactory.createLiteral(Integer.toString(triples.size()))));
+        }
+        return triples;
+    }
+
+    @Benchmark
+    public GraphDigestHashValue hash(GraphState state) {
+        return state.hashFunction.hash(state.graph1);
+    }
+
+    @Benchmark
+    public boolean compare(GraphState state) {
+        return state.comparator.triplesAreEqual(state.graph1, state.graph2);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(TripleComparatorBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
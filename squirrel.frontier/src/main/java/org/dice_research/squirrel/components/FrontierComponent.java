@@ -11,12 +11,16 @@ import java.util.concurrent.Semaphore;
 
 import org.apache.commons.io.FileUtils;
 import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.configurator.BloomFilterConfiguration;
+import org.dice_research.squirrel.configurator.DequeuePolicyConfiguration;
+import org.dice_research.squirrel.configurator.DnsConfiguration;
 import org.dice_research.squirrel.configurator.MongoConfiguration;
 import org.dice_research.squirrel.configurator.SeedConfiguration;
 import org.dice_research.squirrel.configurator.WebConfiguration;
 import org.dice_research.squirrel.configurator.WhiteListConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.UriUtils;
+import org.dice_research.squirrel.data.uri.filter.BloomFilterKnownUriFilter;
 import org.dice_research.squirrel.data.uri.filter.InMemoryKnownUriFilter;
 import org.dice_research.squirrel.data.uri.filter.KnownUriFilter;
 import org.dice_research.squirrel.data.uri.filter.MongoDBKnowUriFilter;
@@ -24,7 +28,9 @@ import org.dice_research.squirrel.data.uri.filter.RegexBasedWhiteListFilter;
 import org.dice_research.squirrel.data.uri.info.URIReferences;
 import org.dice_research.squirrel.data.uri.norm.NormalizerImpl;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
-import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer.Compression;
+import org.dice_research.squirrel.dns.AsyncDnsResolver;
 import org.dice_research.squirrel.frontier.ExtendedFrontier;
 import org.dice_research.squirrel.frontier.Frontier;
 import org.dice_research.squirrel.frontier.impl.ExtendedFrontierImpl;
@@ -33,8 +39,10 @@ import org.dice_research.squirrel.frontier.impl.FrontierSenderToWebservice;
 import org.dice_research.squirrel.frontier.impl.QueueBasedTerminationCheck;
 import org.dice_research.squirrel.frontier.impl.TerminationCheck;
 import org.dice_research.squirrel.frontier.impl.WorkerGuard;
-import org.dice_research.squirrel.queue.InMemoryQueue;
+import org.dice_research.squirrel.queue.ConcurrentInMemoryQueue;
+import org.dice_research.squirrel.queue.DequeuePolicy;
 import org.dice_research.squirrel.queue.IpAddressBasedQueue;
+import org.dice_research.squirrel.queue.MongoDBBatchedQueue;
 import org.dice_research.squirrel.queue.MongoDBQueue;
 import org.dice_research.squirrel.rabbit.RPCServer;
 import org.dice_research.squirrel.rabbit.RespondingDataHandler;
@@ -57,6 +65,7 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
     private KnownUriFilter knownUriFilter;
     private URIReferences uriReferences = null;
     private Frontier frontier;
+    private AsyncDnsResolver dnsResolver;
     private RabbitQueue rabbitQueue;
     private DataReceiver receiver;
     private Serializer serializer;
@@ -70,22 +79,36 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
     @Override
     public void init() throws Exception {
         super.init();
-        serializer = new GzipJavaUriSerializer();
+        serializer = new BinaryUriSerializer(Compression.SNAPPY);
         MongoConfiguration mongoConfiguration = MongoConfiguration.getMDBConfiguration();
         WebConfiguration webConfiguration = WebConfiguration.getWebConfiguration();
+        DequeuePolicy dequeuePolicy = DequeuePolicyConfiguration.getDequeuePolicyConfiguration().createPolicy();
+        LOGGER.info("Using {}", dequeuePolicy);
         if (mongoConfiguration != null) {
             String dbHostName = mongoConfiguration.getMDBHostName();
             Integer dbPort = mongoConfiguration.getMDBPort();
-            queue = new MongoDBQueue(dbHostName, dbPort, serializer);
-            ((MongoDBQueue) queue).open();
+            if (mongoConfiguration.isBatchedQueue()) {
+                queue = new MongoDBBatchedQueue(dbHostName, dbPort, serializer, dequeuePolicy);
+            } else {
+                queue = new MongoDBQueue(dbHostName, dbPort, serializer);
+            }
+            queue.open();
 
             knownUriFilter = new MongoDBKnowUriFilter(dbHostName, dbPort);
             ((MongoDBKnowUriFilter) knownUriFilter).open();
 
+            BloomFilterConfiguration bloomFilterConfiguration = BloomFilterConfiguration.getBloomFilterConfiguration();
+            if (bloomFilterConfiguration != null) {
+                knownUriFilter = new BloomFilterKnownUriFilter(knownUriFilter,
+                        bloomFilterConfiguration.createBloomFilter(), bloomFilterConfiguration.getBatchSize());
+            }
+
             WhiteListConfiguration whiteListConfiguration = WhiteListConfiguration.getWhiteListConfiguration();
             if (whiteListConfiguration != null) {
                 File whitelistFile = new File(whiteListConfiguration.getWhiteListURI());
-                knownUriFilter = RegexBasedWhiteListFilter.create(knownUriFilter, whitelistFile);
+                File blacklistFile = (whiteListConfiguration.getBlackListURI() != null)
+                        ? new File(whiteListConfiguration.getBlackListURI()) : null;
+                knownUriFilter = RegexBasedWhiteListFilter.create(knownUriFilter, whitelistFile, blacklistFile);
             }
 
             // TODO Reactivate me but with a different configuration
@@ -95,12 +118,21 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
             // }
         } else {
             LOGGER.warn("Couldn't get MDBConfiguration. An in-memory queue will be used.");
-            queue = new InMemoryQueue();
+            queue = new ConcurrentInMemoryQueue(dequeuePolicy);
             knownUriFilter = new InMemoryKnownUriFilter(doRecrawling, recrawlingTime);
         }
 
         // Build frontier
-        frontier = new ExtendedFrontierImpl(new NormalizerImpl(), knownUriFilter, uriReferences, queue, doRecrawling);
+        ExtendedFrontierImpl frontierImpl = new ExtendedFrontierImpl(new NormalizerImpl(), knownUriFilter,
+                uriReferences, queue, doRecrawling);
+        DnsConfiguration dnsConfiguration = DnsConfiguration.getDnsConfiguration();
+        if (dnsConfiguration != null) {
+            dnsResolver = dnsConfiguration.createResolver();
+            frontierImpl.setDnsResolver(dnsResolver);
+        }
+        // the counters start where a persistent queue and filter stopped
+        frontierImpl.getStatistics().initialize(knownUriFilter.count(), queue.getNumberOfUris());
+        frontier = frontierImpl;
 
         rabbitQueue = this.incomingDataQueueFactory.createDefaultRabbitQueue(Constants.FRONTIER_QUEUE_NAME);
         receiver = (new RPCServer.Builder()).responseQueueFactory(outgoingDataQueuefactory).dataHandler(this)
@@ -115,7 +147,8 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
 
         if (webConfiguration.isCommunicationWithWebserviceEnabled()) {
             final FrontierSenderToWebservice sender = new FrontierSenderToWebservice(outgoingDataQueuefactory,
-                    workerGuard, queue, knownUriFilter, uriReferences);
+                    workerGuard, queue, frontierImpl.getStatistics(), uriReferences,
+                    webConfiguration.getStatusInterval(), webConfiguration.getViewInterval());
             LOGGER.trace("FrontierSenderToWebservice -> sendCrawledGraph is set to "
                     + webConfiguration.isVisualizationOfCrawledGraphEnabled());
             Thread senderThread = new Thread(sender);
@@ -133,7 +166,7 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
 
     @Override
     public void run() throws Exception {
-        TimerTask terminatorTask = new TerminatorTask(queue, terminationMutex);
+        TimerTask terminatorTask = new TerminatorTask(queue, dnsResolver, terminationMutex);
         Timer timer = new Timer();
         timer.schedule(terminatorTask, 10000,60000);
         terminationMutex.acquire();
@@ -256,11 +289,12 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
     private class TerminatorTask extends TimerTask{
     	
     	private IpAddressBasedQueue queue;
-    	private TerminationCheck terminationCheck = new QueueBasedTerminationCheck();
+    	private TerminationCheck terminationCheck;
     	private Semaphore terminationMutex;
     	
-    	public TerminatorTask(IpAddressBasedQueue queue, Semaphore terminationMutex) {
+    	public TerminatorTask(IpAddressBasedQueue queue, AsyncDnsResolver dnsResolver, Semaphore terminationMutex) {
     		this.queue = queue;
+    		this.terminationCheck = new QueueBasedTerminationCheck(dnsResolver);
     		this.terminationMutex = terminationMutex;
 		}
 
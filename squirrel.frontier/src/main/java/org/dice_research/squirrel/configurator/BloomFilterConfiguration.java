@@ -0,0 +1,86 @@
+package org.dice_research.squirrel.configurator;
+
+import org.dice_research.squirrel.data.uri.filter.BloomFilter;
+import org.dice_research.squirrel.data.uri.filter.BloomFilterKnownUriFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of the {@link BloomFilterKnownUriFilter}. The filter is only
+ * used if the number of expected URIs is defined.
+ */
+public class BloomFilterConfiguration extends Configuration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BloomFilterConfiguration.class);
+
+    private static final String EXPECTED_URIS_KEY = "BLOOM_FILTER_EXPECTED_URIS";
+    private static final String FALSE_POSITIVE_RATE_KEY = "BLOOM_FILTER_FALSE_POSITIVE_RATE";
+    private static final String MAX_MEMORY_MB_KEY = "BLOOM_FILTER_MAX_MEMORY_MB";
+    private static final String OFF_HEAP_KEY = "BLOOM_FILTER_OFF_HEAP";
+    private static final String BATCH_SIZE_KEY = "BLOOM_FILTER_BATCH_SIZE";
+
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private long expectedUris;
+    private double falsePositiveRate = DEFAULT_FALSE_POSITIVE_RATE;
+    private long maxMemory = 0;
+    private boolean offHeap = false;
+    private int batchSize = BloomFilterKnownUriFilter.DEFAULT_BATCH_SIZE;
+
+    private BloomFilterConfiguration(long expectedUris) {
+        this.expectedUris = expectedUris;
+    }
+
+    public static BloomFilterConfiguration getBloomFilterConfiguration() {
+        long expectedUris = getEnvLong(EXPECTED_URIS_KEY, LOGGER);
+        if (expectedUris <= 0) {
+            return null;
+        }
+        BloomFilterConfiguration configuration = new BloomFilterConfiguration(expectedUris);
+        String falsePositiveRate = getEnv(FALSE_POSITIVE_RATE_KEY, LOGGER);
+        if (falsePositiveRate != null) {
+            try {
+                configuration.falsePositiveRate = Double.parseDouble(falsePositiveRate);
+            } catch (NumberFormatException e) {
+                LOGGER.error(FALSE_POSITIVE_RATE_KEY + " is not a valid number. Using the default value.", e);
+            }
+        }
+        configuration.maxMemory = getEnvLong(MAX_MEMORY_MB_KEY, LOGGER) * 1024L * 1024L;
+        configuration.offHeap = getEnvBoolean(OFF_HEAP_KEY, LOGGER);
+        long batchSize = getEnvLong(BATCH_SIZE_KEY, LOGGER);
+        if (batchSize > 0) {
+            configuration.batchSize = (int) batchSize;
+        }
+        return configuration;
+    }
+
+    /**
+     * @return a new {@link BloomFilter} with the configured size
+     */
+    public BloomFilter createBloomFilter() {
+        return BloomFilter.create(expectedUris, falsePositiveRate, maxMemory, offHeap);
+    }
+
+    public long getExpectedUris() {
+        return expectedUris;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * @return the maximum number of bytes the Bloom filter may use or 0 if it is
+     *         not limited
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -0,0 +1,77 @@
+package org.dice_research.squirrel.configurator;
+
+import org.dice_research.squirrel.queue.DequeuePolicy;
+import org.dice_research.squirrel.queue.DequeuePolicy.Rotation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of the {@link DequeuePolicy} of the frontier queue. All values
+ * are optional.
+ */
+public class DequeuePolicyConfiguration extends Configuration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DequeuePolicyConfiguration.class);
+
+    private static final String MAX_CHUNK_SIZE_KEY = "QUEUE_MAX_CHUNK_SIZE";
+    private static final String MERGE_THRESHOLD_KEY = "QUEUE_MERGE_THRESHOLD";
+    private static final String MAX_IPS_PER_CHUNK_KEY = "QUEUE_MAX_IPS_PER_CHUNK";
+    private static final String ROTATION_KEY = "QUEUE_ROTATION";
+
+    private int maxChunkSize = DequeuePolicy.DEFAULT_MAX_CHUNK_SIZE;
+    private int mergeThreshold = DequeuePolicy.DEFAULT_MERGE_THRESHOLD;
+    private int maxIpsPerChunk = DequeuePolicy.DEFAULT_MAX_IPS_PER_CHUNK;
+    private Rotation rotation = Rotation.ROUND_ROBIN;
+
+    private DequeuePolicyConfiguration() {
+    }
+
+    public static DequeuePolicyConfiguration getDequeuePolicyConfiguration() {
+        DequeuePolicyConfiguration configuration = new DequeuePolicyConfiguration();
+        long value = getEnvLong(MAX_CHUNK_SIZE_KEY, LOGGER);
+        if (value != 0) {
+            // negative values disable the limit
+            configuration.maxChunkSize = (int) value;
+        }
+        value = getEnvLong(MERGE_THRESHOLD_KEY, LOGGER);
+        if (value > 0) {
+            configuration.mergeThreshold = (int) value;
+        }
+        value = getEnvLong(MAX_IPS_PER_CHUNK_KEY, LOGGER);
+        if (value > 0) {
+            configuration.maxIpsPerChunk = (int) value;
+        }
+        String rotation = getEnv(ROTATION_KEY, LOGGER);
+        if (rotation != null) {
+            try {
+                configuration.rotation = Rotation.valueOf(rotation.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOGGER.error(ROTATION_KEY + " is not a valid rotation (ROUND_ROBIN or WEIGHTED). Using the default.",
+                        e);
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * @return a new {@link DequeuePolicy} based on this configuration
+     */
+    public DequeuePolicy createPolicy() {
+        return new DequeuePolicy(maxChunkSize, mergeThreshold, maxIpsPerChunk, rotation);
+    }
+
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    public int getMergeThreshold() {
+        return mergeThreshold;
+    }
+
+    public int getMaxIpsPerChunk() {
+        return maxIpsPerChunk;
+    }
+
+    public Rotation getRotation() {
+        return rotation;
+    }
+}
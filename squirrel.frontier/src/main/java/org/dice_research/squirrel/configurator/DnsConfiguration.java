@@ -0,0 +1,90 @@
+package org.dice_research.squirrel.configurator;
+
+import org.dice_research.squirrel.dns.AsyncDnsResolver;
+import org.dice_research.squirrel.dns.DnsCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of the {@link AsyncDnsResolver} of the frontier. All values
+ * are optional. Setting the number of threads to a negative value disables
+ * the asynchronous resolution.
+ */
+public class DnsConfiguration extends Configuration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DnsConfiguration.class);
+
+    private static final String THREADS_KEY = "DNS_RESOLVER_THREADS";
+    private static final String MAX_WAITING_URIS_KEY = "DNS_MAX_WAITING_URIS";
+    private static final String CACHE_TTL_KEY = "DNS_CACHE_TTL";
+    private static final String NEGATIVE_CACHE_TTL_KEY = "DNS_NEGATIVE_CACHE_TTL";
+    private static final String CACHE_SIZE_KEY = "DNS_CACHE_SIZE";
+
+    private int numberOfThreads = AsyncDnsResolver.DEFAULT_NUMBER_OF_THREADS;
+    private int maxWaitingUris = AsyncDnsResolver.DEFAULT_MAX_WAITING_URIS;
+    private long cacheTtl = DnsCache.DEFAULT_TTL;
+    private long negativeCacheTtl = DnsCache.DEFAULT_NEGATIVE_TTL;
+    private int cacheSize = DnsCache.DEFAULT_MAX_SIZE;
+
+    private DnsConfiguration() {
+    }
+
+    /**
+     * @return the configuration or {@code null} if the asynchronous DNS
+     *         resolution is disabled
+     */
+    public static DnsConfiguration getDnsConfiguration() {
+        DnsConfiguration configuration = new DnsConfiguration();
+        long value = getEnvLong(THREADS_KEY, LOGGER);
+        if (value < 0) {
+            LOGGER.info("Asynchronous DNS resolution is disabled.");
+            return null;
+        } else if (value > 0) {
+            configuration.numberOfThreads = (int) value;
+        }
+        value = getEnvLong(MAX_WAITING_URIS_KEY, LOGGER);
+        if (value > 0) {
+            configuration.maxWaitingUris = (int) value;
+        }
+        value = getEnvLong(CACHE_TTL_KEY, LOGGER);
+        if (value > 0) {
+            configuration.cacheTtl = value;
+        }
+        value = getEnvLong(NEGATIVE_CACHE_TTL_KEY, LOGGER);
+        if (value > 0) {
+            configuration.negativeCacheTtl = value;
+        }
+        value = getEnvLong(CACHE_SIZE_KEY, LOGGER);
+        if (value > 0) {
+            configuration.cacheSize = (int) value;
+        }
+        return configuration;
+    }
+
+    /**
+     * @return a new {@link AsyncDnsResolver} based on this configuration
+     */
+    public AsyncDnsResolver createResolver() {
+        return new AsyncDnsResolver(new DnsCache(cacheTtl, negativeCacheTtl, cacheSize), numberOfThreads,
+                maxWaitingUris);
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public int getMaxWaitingUris() {
+        return maxWaitingUris;
+    }
+
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public long getNegativeCacheTtl() {
+        return negativeCacheTtl;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+}
@@ -14,12 +14,14 @@ public class MongoConfiguration extends Configuration {
     private Integer connectionTimeout = null;
     private Integer socketTimeout = null;
     private Integer serverTimeout = null;
+    private boolean batchedQueue = false;
 
     private static final String MDB_HOST_NAME_KEY = "MDB_HOST_NAME";
     private static final String MDB_PORT_KEY = "MDB_PORT";
     private static final String CONNECTION_TIME_OUT_MS = "MDB_CONNECTION_TIME_OUT";
     private static final String SOCKET_TIME_OUT_MS = "MDB_SOCKET_TIME_OUT";
     private static final String SERVER_SELECTION_TIMEOUT_MS = "MDB_SERVER_TIME_OUT";
+    private static final String BATCHED_QUEUE_KEY = "MDB_BATCHED_QUEUE";
 
 
     private MongoConfiguration(String MDBHostName, Integer MDBPort,Integer connectionTimeout, Integer socketTimeout,Integer serverTimeout) {
@@ -42,14 +44,16 @@ public class MongoConfiguration extends Configuration {
         Integer socketTimeout = getSoc_Timeout();
         Integer serverTimeout = getSrv_Timeout();
 
-
+        MongoConfiguration configuration;
         if(MDBHostName != null && MDBPort != 0 && connectionTimeout != 0 && socketTimeout != 0 && serverTimeout != 0) {
-            return new MongoConfiguration(MDBHostName, MDBPort,connectionTimeout,socketTimeout,serverTimeout);
+            configuration = new MongoConfiguration(MDBHostName, MDBPort,connectionTimeout,socketTimeout,serverTimeout);
         } else if(MDBHostName != null && MDBPort != null){
-        	return new MongoConfiguration(MDBHostName, MDBPort);
+            configuration = new MongoConfiguration(MDBHostName, MDBPort);
         } else {
             return null;
         }
+        configuration.batchedQueue = getEnvBoolean(BATCHED_QUEUE_KEY, LOGGER);
+        return configuration;
     }
 
     private static String getEnvMDBHostName() {
@@ -94,4 +98,11 @@ public class MongoConfiguration extends Configuration {
 	public Integer getMDBPort() {
         return MongoPort;
     }
+
+    /**
+     * @return true if the {@link org.dice_research.squirrel.queue.MongoDBBatchedQueue} should be used
+     */
+    public boolean isBatchedQueue() {
+        return batchedQueue;
+    }
 }
@@ -9,17 +9,38 @@ public class WebConfiguration extends Configuration {
 
     private boolean communicationWithWebserviceEnabled;
     private boolean visualizationOfCrawledGraphEnabaled;
+    /**
+     * Time (in ms) between two status updates sent to the web service.
+     */
+    private long statusInterval;
+    /**
+     * Time (in ms) between two updates of the expensive views (pending URIs, crawled graph).
+     */
+    private long viewInterval;
+
+    public static final long DEFAULT_STATUS_INTERVAL = 1000;
+    public static final long DEFAULT_VIEW_INTERVAL = 30000;
 
     private static final String COMMUNICATION_WITH_WEBSERVICE = "COMMUNICATION_WITH_WEBSERVICE";
     private static final String VISUALIZATION_OF_CRAWLED_GRAPH = "VISUALIZATION_OF_CRAWLED_GRAPH";
+    private static final String WEB_STATUS_INTERVAL = "WEB_STATUS_INTERVAL";
+    private static final String WEB_VIEW_INTERVAL = "WEB_VIEW_INTERVAL";
 
-    private WebConfiguration(boolean communicationWithWebserviceEnabled, boolean visualizationOfCrawledGraphEnabaled) {
+    private WebConfiguration(boolean communicationWithWebserviceEnabled, boolean visualizationOfCrawledGraphEnabaled,
+            long statusInterval, long viewInterval) {
         this.communicationWithWebserviceEnabled = communicationWithWebserviceEnabled;
         this.visualizationOfCrawledGraphEnabaled = visualizationOfCrawledGraphEnabaled;
+        this.statusInterval = statusInterval;
+        this.viewInterval = viewInterval;
     }
 
     public static WebConfiguration getWebConfiguration() {
-        return new WebConfiguration(Configuration.getEnvBoolean(COMMUNICATION_WITH_WEBSERVICE, LOGGER), Configuration.getEnvBoolean(VISUALIZATION_OF_CRAWLED_GRAPH, LOGGER));
+        long statusInterval = Configuration.getEnvLong(WEB_STATUS_INTERVAL, LOGGER);
+        long viewInterval = Configuration.getEnvLong(WEB_VIEW_INTERVAL, LOGGER);
+        return new WebConfiguration(Configuration.getEnvBoolean(COMMUNICATION_WITH_WEBSERVICE, LOGGER),
+                Configuration.getEnvBoolean(VISUALIZATION_OF_CRAWLED_GRAPH, LOGGER),
+                statusInterval > 0 ? statusInterval : DEFAULT_STATUS_INTERVAL,
+                viewInterval > 0 ? viewInterval : DEFAULT_VIEW_INTERVAL);
     }
 
     public boolean isCommunicationWithWebserviceEnabled() {
@@ -29,4 +50,12 @@ public class WebConfiguration extends Configuration {
     public boolean isVisualizationOfCrawledGraphEnabled() {
         return visualizationOfCrawledGraphEnabaled;
     }
+
+    public long getStatusInterval() {
+        return statusInterval;
+    }
+
+    public long getViewInterval() {
+        return viewInterval;
+    }
 }
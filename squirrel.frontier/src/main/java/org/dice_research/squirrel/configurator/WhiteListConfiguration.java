@@ -8,11 +8,14 @@ public class WhiteListConfiguration extends Configuration {
     private static final Logger LOGGER = LoggerFactory.getLogger(WhiteListConfiguration.class);
 
     private static final String URI_WHITELIST_FILE = "URI_WHITELIST_FILE";
+    private static final String URI_BLACKLIST_FILE = "URI_BLACKLIST_FILE";
 
     private String whiteListURI = null;
+    private String blackListURI = null;
 
     private WhiteListConfiguration(String whiteListURI) {
         this.whiteListURI = whiteListURI;
+        this.blackListURI = getEnv(URI_BLACKLIST_FILE, LOGGER);
     }
 
     public static WhiteListConfiguration getWhiteListConfiguration() {
@@ -34,4 +37,11 @@ public class WhiteListConfiguration extends Configuration {
         return whiteListURI;
     }
 
+    /**
+     * @return the path of the optional blacklist file or {@code null}
+     */
+    public String getBlackListURI() {
+        return blackListURI;
+    }
+
 }
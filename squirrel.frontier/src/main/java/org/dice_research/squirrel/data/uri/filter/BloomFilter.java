@@ -0,0 +1,170 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A simple Bloom filter for Strings. The bits are stored in a
+ * {@link LongBuffer} which can be placed on the heap or in direct (off-heap)
+ * memory. The hash functions are derived from two 64 bit hashes using the
+ * double hashing scheme of Kirsch and Mitzenmacher.
+ *
+ * <p>
+ * The filter is thread-safe.
+ * </p>
+ */
+public class BloomFilter {
+
+    /**
+     * The maximum number of bytes a single (direct) buffer can have.
+     */
+    private static final long MAX_BYTES = Integer.MAX_VALUE & ~7L;
+    private static final double LN2 = Math.log(2);
+
+    /**
+     * Creates a Bloom filter that is able to store the given number of elements
+     * with the given false positive rate. If this would need more memory than the
+     * given budget, the filter is limited to the budget, which increases the
+     * false positive rate.
+     *
+     * @param expectedElements
+     *            the number of elements the filter is expected to contain
+     * @param falsePositiveRate
+     *            the desired false positive rate (0 &lt; rate &lt; 1)
+     * @param maxMemory
+     *            the maximum number of bytes the filter may use or a value
+     *            &lt;= 0 if the memory is not limited
+     * @param offHeap
+     *            whether the bits should be stored outside of the Java heap
+     * @return the created filter
+     */
+    public static BloomFilter create(long expectedElements, double falsePositiveRate, long maxMemory,
+            boolean offHeap) {
+        if (expectedElements <= 0) {
+            throw new IllegalArgumentException("The number of expected elements has to be positive.");
+        }
+        if ((falsePositiveRate <= 0) || (falsePositiveRate >= 1)) {
+            throw new IllegalArgumentException("The false positive rate has to be in the range (0,1).");
+        }
+        long numberOfBits = (long) Math.ceil(-expectedElements * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long maxBits = ((maxMemory > 0) ? Math.min(maxMemory & ~7L, MAX_BYTES) : MAX_BYTES) * 8;
+        numberOfBits = Math.max(64, Math.min(numberOfBits, maxBits));
+        int numberOfHashFunctions = (int) Math.max(1, Math.round(LN2 * numberOfBits / expectedElements));
+        return new BloomFilter(numberOfBits, numberOfHashFunctions, offHeap);
+    }
+
+    private final LongBuffer bits;
+    private final long numberOfBits;
+    private final int numberOfHashFunctions;
+    private long size = 0;
+
+    public BloomFilter(long numberOfBits, int numberOfHashFunctions, boolean offHeap) {
+        int numberOfLongs = (int) ((numberOfBits + 63) / 64);
+        if (offHeap) {
+            bits = ByteBuffer.allocateDirect(numberOfLongs * 8).asLongBuffer();
+        } else {
+            bits = LongBuffer.allocate(numberOfLongs);
+        }
+        this.numberOfBits = numberOfLongs * 64L;
+        this.numberOfHashFunctions = numberOfHashFunctions;
+    }
+
+    /**
+     * Adds the given String to the filter.
+     *
+     * @return true if at least one bit has been changed, i.e., the String has
+     *         definitely not been added before
+     */
+    public synchronized boolean put(CharSequence value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+        boolean changed = false;
+        for (int i = 1; i <= numberOfHashFunctions; ++i) {
+            long bit = getBitIndex(hash1 + (i * hash2));
+            int index = (int) (bit >>> 6);
+            long word = bits.get(index);
+            long mask = 1L << bit;
+            if ((word & mask) == 0) {
+                bits.put(index, word | mask);
+                changed = true;
+            }
+        }
+        if (changed) {
+            ++size;
+        }
+        return changed;
+    }
+
+    /**
+     * @return false if the given String definitely has not been added to this
+     *         filter, true if it might have been added
+     */
+    public synchronized boolean mightContain(CharSequence value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 1; i <= numberOfHashFunctions; ++i) {
+            long bit = getBitIndex(hash1 + (i * hash2));
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < bits.capacity(); ++i) {
+            bits.put(i, 0L);
+        }
+        size = 0;
+    }
+
+    private long getBitIndex(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % numberOfBits;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the characters of the given String followed by the
+     * finalization step of MurmurHash3 to spread the bits.
+     */
+    protected static long hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); ++i) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public long getNumberOfBits() {
+        return numberOfBits;
+    }
+
+    public int getNumberOfHashFunctions() {
+        return numberOfHashFunctions;
+    }
+
+    /**
+     * @return the (approximated) number of elements that have been added to this
+     *         filter
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @return the expected false positive rate based on the current number of
+     *         elements in this filter
+     */
+    public synchronized double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-numberOfHashFunctions * (double) size / numberOfBits), numberOfHashFunctions);
+    }
+}
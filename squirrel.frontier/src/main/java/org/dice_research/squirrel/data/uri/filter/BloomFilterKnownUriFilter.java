@@ -0,0 +1,227 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link KnownUriFilterDecorator} that keeps a {@link BloomFilter} of all
+ * known URIs in front of the decorated filter. Since most of the discovered
+ * URIs are already known, only URIs that might be known according to the Bloom
+ * filter are checked against the decorated filter. All other URIs are
+ * definitely new and are good without a request to the database.
+ *
+ * <p>
+ * New URIs are buffered and handed over to the decorated filter in batches
+ * using {@link KnownUriFilter#addAll(List, long[], long[])}. Buffered URIs are
+ * written before they are checked again and before {@link #getOutdatedUris()}
+ * or {@link #count()} are delegated, so the decorated filter always sees a
+ * consistent state.
+ * </p>
+ *
+ * <p>
+ * The Bloom filter is built from the URIs of the decorated filter when this
+ * decorator is created (see {@link KnownUriFilter#forEachKnownUri}). If the
+ * decorated filter can not enumerate its URIs, every check is delegated.
+ * </p>
+ */
+public class BloomFilterKnownUriFilter extends AbstractKnownUriFilterDecorator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BloomFilterKnownUriFilter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final BloomFilter bloomFilter;
+    private final int batchSize;
+    /**
+     * Flag indicating whether the Bloom filter contains all URIs of the decorated
+     * filter. If not, negative answers of the Bloom filter can not be trusted.
+     */
+    private volatile boolean bloomFilterComplete = false;
+
+    private List<CrawleableUri> pendingUris;
+    private long pendingLastCrawlTimestamps[];
+    private long pendingNextCrawlTimestamps[];
+    private Set<String> pendingUriStrings = new HashSet<>();
+
+    private final AtomicLong skippedLookups = new AtomicLong();
+    private final AtomicLong delegatedLookups = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    public BloomFilterKnownUriFilter(KnownUriFilter decorated, BloomFilter bloomFilter) {
+        this(decorated, bloomFilter, DEFAULT_BATCH_SIZE);
+    }
+
+    public BloomFilterKnownUriFilter(KnownUriFilter decorated, BloomFilter bloomFilter, int batchSize) {
+        super(decorated);
+        this.bloomFilter = bloomFilter;
+        this.batchSize = Math.max(1, batchSize);
+        resetPendingUris();
+        rebuild();
+    }
+
+    /**
+     * (Re-)builds the Bloom filter from the URIs of the decorated filter.
+     *
+     * @return true if the Bloom filter could be built
+     */
+    public synchronized boolean rebuild() {
+        flush();
+        bloomFilterComplete = false;
+        bloomFilter.clear();
+        long start = System.currentTimeMillis();
+        try {
+            decorated.forEachKnownUri(bloomFilter::put);
+        } catch (UnsupportedOperationException e) {
+            LOGGER.warn("Couldn't build the Bloom filter since the decorated filter can not enumerate its URIs. "
+                    + "All checks will be delegated.", e);
+            return false;
+        }
+        bloomFilterComplete = true;
+        LOGGER.info(
+                "Built Bloom filter with {} URIs in {}ms ({} bits, {} hash functions, expected false positive rate {}).",
+                bloomFilter.size(), System.currentTimeMillis() - start, bloomFilter.getNumberOfBits(),
+                bloomFilter.getNumberOfHashFunctions(), bloomFilter.getExpectedFalsePositiveRate());
+        return true;
+    }
+
+    @Override
+    public boolean isUriGood(CrawleableUri uri) {
+        String uriString = uri.getUri().toString();
+        if (bloomFilterComplete && !bloomFilter.mightContain(uriString)) {
+            skippedLookups.incrementAndGet();
+            return true;
+        }
+        synchronized (this) {
+            // make sure that the decorated filter knows the URI before asking it
+            if (pendingUriStrings.contains(uriString)) {
+                flush();
+            }
+        }
+        delegatedLookups.incrementAndGet();
+        return decorated.isUriGood(uri);
+    }
+
+    @Override
+    public void add(CrawleableUri uri, long nextCrawlTimestamp) {
+        add(uri, System.currentTimeMillis(), nextCrawlTimestamp);
+    }
+
+    @Override
+    public synchronized void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp) {
+        int pos = pendingUris.size();
+        pendingUris.add(uri);
+        pendingLastCrawlTimestamps[pos] = lastCrawlTimestamp;
+        pendingNextCrawlTimestamps[pos] = nextCrawlTimestamp;
+        String uriString = uri.getUri().toString();
+        pendingUriStrings.add(uriString);
+        bloomFilter.put(uriString);
+        if (pendingUris.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void addAll(List<CrawleableUri> uris, long lastCrawlTimestamps[],
+            long nextCrawlTimestamps[]) {
+        for (int i = 0; i < uris.size(); ++i) {
+            add(uris.get(i), lastCrawlTimestamps[i], nextCrawlTimestamps[i]);
+        }
+    }
+
+    /**
+     * Hands all buffered URIs over to the decorated filter.
+     */
+    public synchronized void flush() {
+        if (pendingUris.isEmpty()) {
+            return;
+        }
+        int size = pendingUris.size();
+        long lastCrawlTimestamps[] = pendingLastCrawlTimestamps;
+        long nextCrawlTimestamps[] = pendingNextCrawlTimestamps;
+        if (size < lastCrawlTimestamps.length) {
+            lastCrawlTimestamps = Arrays.copyOf(lastCrawlTimestamps, size);
+            nextCrawlTimestamps = Arrays.copyOf(nextCrawlTimestamps, size);
+        }
+        decorated.addAll(pendingUris, lastCrawlTimestamps, nextCrawlTimestamps);
+        flushes.incrementAndGet();
+        resetPendingUris();
+    }
+
+    private void resetPendingUris() {
+        pendingUris = new ArrayList<>(batchSize);
+        pendingLastCrawlTimestamps = new long[batchSize];
+        pendingNextCrawlTimestamps = new long[batchSize];
+        pendingUriStrings.clear();
+    }
+
+    @Override
+    public List<CrawleableUri> getOutdatedUris() {
+        flush();
+        return super.getOutdatedUris();
+    }
+
+    @Override
+    public List<CrawleableUri> getOutdatedUris(int maxUris) {
+        flush();
+        return super.getOutdatedUris(maxUris);
+    }
+
+    @Override
+    public long count() {
+        flush();
+        return super.count();
+    }
+
+    @Override
+    public void forEachKnownUri(Consumer<String> consumer) {
+        flush();
+        super.forEachKnownUri(consumer);
+    }
+
+    /**
+     * @return the number of checks that have been answered by the Bloom filter
+     *         without asking the decorated filter
+     */
+    public long getSkippedLookups() {
+        return skippedLookups.get();
+    }
+
+    /**
+     * @return the number of checks that have been delegated to the decorated
+     *         filter
+     */
+    public long getDelegatedLookups() {
+        return delegatedLookups.get();
+    }
+
+    /**
+     * @return the number of batches that have been written to the decorated
+     *         filter
+     */
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    public BloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        LOGGER.info("Bloom filter: {} lookups skipped, {} lookups delegated, {} batches written.",
+                skippedLookups.get(), delegatedLookups.get(), flushes.get());
+        super.close();
+    }
+
+}
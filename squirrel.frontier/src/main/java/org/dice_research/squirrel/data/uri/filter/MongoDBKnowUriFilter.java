@@ -7,12 +7,13 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.configurator.MongoConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.UriType;
@@ -22,15 +23,22 @@ import org.dice_research.squirrel.frontier.impl.FrontierImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.mongodb.BasicDBObject;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoCommandException;
 import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 
 /**
  * 
@@ -57,10 +65,18 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
     public static final String COLUMN_IP = "ipAddress";
     public static final String COLUMN_TYPE = "type";
     public static final String COLUMN_HASH_VALUE = "hashValue";
+    public static final String COLUMN_ETAG = "etag";
+    public static final String COLUMN_LAST_MODIFIED = "lastModified";
     /**
      * Used as a default hash value for URIS, will be replaced by real hash value as soon as it has been computed.
      */
     private static final String DUMMY_HASH_VALUE = "dummyValue";
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+    /**
+     * Error codes of MongoDB if an index exists with different options.
+     */
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+    private static final int INDEX_KEY_SPECS_CONFLICT = 86;
 
     public MongoDBKnowUriFilter(String hostName, Integer port) {
     
@@ -115,10 +131,47 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
         @SuppressWarnings("deprecation")
         UriType uriType = uri.getType();
 
-        return new Document("uri", uri.getUri().toString()).append("type", uriType.toString());
+        Document document = new Document("uri", uri.getUri().toString()).append("type", uriType.toString());
+        if (uri.getIpAddress() != null) {
+            document.append(COLUMN_IP, uri.getIpAddress().getHostAddress());
+        }
+        // keep the validators of the last crawl for a conditional request
+        Object value = uri.getData(Constants.URI_HTTP_ETAG_KEY);
+        if (value != null) {
+            document.append(COLUMN_ETAG, value.toString());
+        }
+        value = uri.getData(Constants.URI_HTTP_LAST_MODIFIED_KEY);
+        if (value != null) {
+            document.append(COLUMN_LAST_MODIFIED, value.toString());
+        }
+        return document;
 
     }
 
+    /**
+     * Creates a {@link CrawleableUri} from the given document including its IP
+     * address and the validators of its last crawl.
+     */
+    public static CrawleableUri mongoDocumentToCrawleableUri(Document doc)
+            throws URISyntaxException, UnknownHostException {
+        InetAddress ip = null;
+        String ipString = (String) doc.get(COLUMN_IP);
+        if (ipString != null) {
+            if (ipString.contains("/")) {
+                ipString = ipString.split("/")[1];
+            }
+            ip = InetAddress.getByName(ipString);
+        }
+        CrawleableUri uri = new CrawleableUri(new URI((String) doc.get(COLUMN_URI)), ip);
+        if (doc.get(COLUMN_ETAG) != null) {
+            uri.addData(Constants.URI_HTTP_ETAG_KEY, doc.getString(COLUMN_ETAG));
+        }
+        if (doc.get(COLUMN_LAST_MODIFIED) != null) {
+            uri.addData(Constants.URI_HTTP_LAST_MODIFIED_KEY, doc.getString(COLUMN_LAST_MODIFIED));
+        }
+        return uri;
+    }
+
     @Override
     public void close() throws IOException {
         mongoDB.getCollection(COLLECTION_NAME).drop();
@@ -129,8 +182,38 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
         mongoDB = client.getDatabase(DB_NAME);
         if (!knowUriTableExists()) {
             mongoDB.createCollection(COLLECTION_NAME);
-            MongoCollection<Document> mongoCollection = mongoDB.getCollection(COLLECTION_NAME);
-            mongoCollection.createIndex(Indexes.compoundIndex(Indexes.ascending("uri")));
+        }
+        MongoCollection<Document> mongoCollection = mongoDB.getCollection(COLLECTION_NAME);
+        // the URIs are upserted by several threads, i.e., the index has to be unique
+        // to avoid duplicates (creating an existing index has no effect)
+        createUniqueUriIndex(mongoCollection);
+        // index used to retrieve the URIs that are due for recrawling
+        mongoCollection.createIndex(Indexes.ascending(COLUMN_TIMESTAMP_NEXT_CRAWL));
+    }
+
+    /**
+     * Creates the unique index of the URIs. Collections created by older
+     * versions have a non-unique index with the same key. It is replaced by the
+     * unique index.
+     */
+    protected void createUniqueUriIndex(MongoCollection<Document> mongoCollection) {
+        IndexOptions uniqueOptions = new IndexOptions().unique(true);
+        try {
+            mongoCollection.createIndex(Indexes.ascending(COLUMN_URI), uniqueOptions);
+        } catch (MongoCommandException e) {
+            if ((e.getErrorCode() != INDEX_OPTIONS_CONFLICT) && (e.getErrorCode() != INDEX_KEY_SPECS_CONFLICT)) {
+                throw e;
+            }
+            LOGGER.info("Replacing the non-unique index of the URIs with a unique index.");
+            mongoCollection.dropIndex(Indexes.ascending(COLUMN_URI));
+            try {
+                mongoCollection.createIndex(Indexes.ascending(COLUMN_URI), uniqueOptions);
+            } catch (MongoCommandException e2) {
+                LOGGER.error("Couldn't create the unique index of the URIs. The collection \"" + COLLECTION_NAME
+                        + "\" seems to contain duplicates that have to be removed. A non-unique index will be used.",
+                        e2);
+                mongoCollection.createIndex(Indexes.ascending(COLUMN_URI));
+            }
         }
     }
 
@@ -147,15 +230,53 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
 
     @Override
     public void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp) {
+    	 // replace the document of the URI if it is already known
     	 mongoDB.getCollection(COLLECTION_NAME)
-         .insertOne(crawleableUriToMongoDocument(uri)
+         .replaceOne(Filters.eq(COLUMN_URI, uri.getUri().toString()), crawleableUriToMongoDocument(uri)
         		 .append(COLUMN_TIMESTAMP_LAST_CRAWL, lastCrawlTimestamp)
         		 .append(COLUMN_TIMESTAMP_NEXT_CRAWL, nextCrawlTimestamp)
         		 .append(COLUMN_CRAWLING_IN_PROCESS, false)
-        		 .append(COLUMN_HASH_VALUE, DUMMY_HASH_VALUE)
-        		 );
+        		 .append(COLUMN_HASH_VALUE, DUMMY_HASH_VALUE),
+        		 UPSERT);
     	 LOGGER.debug("Adding URI {} to the known uri filter list", uri.toString());
     }
+
+    /**
+     * Adds all given URIs with a single unordered bulk write request.
+     */
+    @Override
+    public void addAll(List<CrawleableUri> uris, long lastCrawlTimestamps[], long nextCrawlTimestamps[]) {
+        if (uris.isEmpty()) {
+            return;
+        }
+        List<ReplaceOneModel<Document>> requests = new ArrayList<>(uris.size());
+        for (int i = 0; i < uris.size(); ++i) {
+            requests.add(new ReplaceOneModel<>(Filters.eq(COLUMN_URI, uris.get(i).getUri().toString()),
+                    crawleableUriToMongoDocument(uris.get(i))
+                    .append(COLUMN_TIMESTAMP_LAST_CRAWL, lastCrawlTimestamps[i])
+                    .append(COLUMN_TIMESTAMP_NEXT_CRAWL, nextCrawlTimestamps[i])
+                    .append(COLUMN_CRAWLING_IN_PROCESS, false)
+                    .append(COLUMN_HASH_VALUE, DUMMY_HASH_VALUE), UPSERT));
+        }
+        mongoDB.getCollection(COLLECTION_NAME).bulkWrite(requests, new BulkWriteOptions().ordered(false));
+        LOGGER.debug("Added {} URIs to the known uri filter list", requests.size());
+    }
+
+    @Override
+    public void forEachKnownUri(Consumer<String> consumer) {
+        MongoCursor<Document> cursor = mongoDB.getCollection(COLLECTION_NAME).find()
+                .projection(Projections.include(COLUMN_URI)).batchSize(10000).iterator();
+        try {
+            while (cursor.hasNext()) {
+                Object uri = cursor.next().get(COLUMN_URI);
+                if (uri != null) {
+                    consumer.accept(uri.toString());
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
     
     @Override
     public void addHashValuesForUris(List<CrawleableUri> uris) {
@@ -172,53 +293,59 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
 
     @Override
     public List<CrawleableUri> getOutdatedUris() {
+        return getOutdatedUris(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the URIs that are due for recrawling, ordered by the time of their
+     * next crawl. The query is answered using the index on
+     * {@link #COLUMN_TIMESTAMP_NEXT_CRAWL}. All returned URIs are marked as being
+     * in process with a single update request.
+     */
+    @Override
+    public List<CrawleableUri> getOutdatedUris(int maxUris) {
     	// get all uris with the following property:
         // (nextCrawlTimestamp has passed) AND (crawlingInProcess==false OR lastCrawlTimestamp is 3 times older than generalRecrawlTime)
     	
     	long generalRecrawlTime = Math.max(FrontierImpl.DEFAULT_GENERAL_RECRAWL_TIME, FrontierImpl.getGeneralRecrawlTime());
+    	long now = System.currentTimeMillis();
 
-    	Bson filter = Filters.and(Filters.eq("COLUMN_TIMESTAMP_NEXT_CRAWL", System.currentTimeMillis()),
+    	Bson filter = Filters.and(Filters.lt(COLUMN_TIMESTAMP_NEXT_CRAWL, now),
     			Filters.or(
-	    			Filters.eq("COLUMN_CRAWLING_IN_PROCESS", false),
-	    			Filters.eq("COLUMN_TIMESTAMP_LAST_CRAWL", System.currentTimeMillis() - generalRecrawlTime * 3)
+	    			Filters.eq(COLUMN_CRAWLING_IN_PROCESS, false),
+	    			Filters.lt(COLUMN_TIMESTAMP_LAST_CRAWL, now - generalRecrawlTime * 3)
     			));
 
-        Iterator<Document> uriDocs = mongoDB.getCollection(COLLECTION_NAME).find(filter).iterator();
+        MongoCollection<Document> collection = mongoDB.getCollection(COLLECTION_NAME);
+        MongoCursor<Document> uriDocs = collection.find(filter).sort(Sorts.ascending(COLUMN_TIMESTAMP_NEXT_CRAWL))
+                .limit(maxUris).iterator();
 
         List<CrawleableUri> urisToRecrawl = new ArrayList<>();
-        while (uriDocs.hasNext()) {
-            try {
+        List<Object> ids = new ArrayList<>();
+        try {
+            while (uriDocs.hasNext()) {
                 Document doc = uriDocs.next();
-                String ipString = (String) doc.get(COLUMN_IP);
-                if (ipString.contains("/")) {
-                    ipString = ipString.split("/")[1];
+                ids.add(doc.get("_id"));
+                try {
+                    urisToRecrawl.add(mongoDocumentToCrawleableUri(doc));
+                } catch (URISyntaxException | UnknownHostException e) {
+                    LOGGER.warn(e.toString());
                 }
-                urisToRecrawl.add(new CrawleableUri(new URI((String) doc.get(COLUMN_URI)), InetAddress.getByName(ipString)));
-            } catch (URISyntaxException | UnknownHostException e) {
-                LOGGER.warn(e.toString());
             }
+        } finally {
+            uriDocs.close();
         }
 
         // mark that the uris are in process now
-        for (CrawleableUri uri : urisToRecrawl) {
-        	
-        	BasicDBObject newDocument = new BasicDBObject();
-        	newDocument.append("$set", new BasicDBObject().append(COLUMN_CRAWLING_IN_PROCESS, true));
-        	
-        	BasicDBObject searchQuery = new BasicDBObject().append(COLUMN_URI,  uri.getUri().toString());
-        	
-        	 mongoDB.getCollection(COLLECTION_NAME).updateMany(searchQuery, newDocument);
-        	
-        }
-
-//        cursor.close();
+        if (!ids.isEmpty()) {
+            collection.updateMany(Filters.in("_id", ids), Updates.set(COLUMN_CRAWLING_IN_PROCESS, true));
+        }
         return urisToRecrawl;
     }
 
     @Override
     public long count() {
-        // TODO Auto-generated method stub
-        return 0;
+        return mongoDB.getCollection(COLLECTION_NAME).count();
     }
 
 	@Override
@@ -10,14 +10,12 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class RDBRegexBasedWhiteListFilter extends RDBKnownUriFilter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RDBRegexBasedWhiteListFilter.class);
 
-    private Set<String> whiteList;
+    private UriPatternMatcher whiteList;
 
     public RDBRegexBasedWhiteListFilter(String hostname, Integer port) {
         super(hostname, port);
@@ -30,7 +28,7 @@ public class RDBRegexBasedWhiteListFilter extends RDBKnownUriFilter {
     public RDBRegexBasedWhiteListFilter(String hostname, Integer port, boolean frontierDoesRecrawling, File whiteListFile) {
         super(hostname, port, frontierDoesRecrawling);
         try {
-            whiteList = loadWhiteList(whiteListFile);
+            whiteList = new UriPatternMatcher(loadWhiteList(whiteListFile));
         } catch (IOException e) {
             LOGGER.error("A problem was found when loading the WhiteList");
         }
@@ -38,19 +36,14 @@ public class RDBRegexBasedWhiteListFilter extends RDBKnownUriFilter {
 
     @Override
     public boolean isUriGood(CrawleableUri uri) {
-        if (super.isUriGood(uri) && whiteList != null && !whiteList.isEmpty()) {
-
-            for (String s : whiteList) {
-
-                Pattern p = Pattern.compile(s.toLowerCase());
-                Matcher m = p.matcher(uri.getUri().toString().toLowerCase());
-
-                if (m.find()) {
-                    LOGGER.trace("The URI {} fits to the pattern " + p.pattern() + " of the whitelist", uri.getUri().toString());
-                    return true;
-                }
+        if (whiteList != null && !whiteList.isEmpty()) {
+            String uriString = uri.getUri().toString().toLowerCase();
+            String host = uri.getUri().getHost();
+            if (whiteList.matches(uriString, (host != null) ? host.toLowerCase() : null)) {
+                LOGGER.trace("The URI {} fits to a pattern of the whitelist", uriString);
+                return super.isUriGood(uri);
             }
-            LOGGER.warn("The URI {} is itself a good URI, but no of the " + whiteList.size() + " patterns of the whitelist matches! (in " + this + ")", uri.getUri().toString());
+            LOGGER.debug("None of the " + whiteList.size() + " patterns of the whitelist matches the URI {}. (in " + this + ")", uriString);
         }
         return false;
     }
@@ -1,13 +1,9 @@
 package org.dice_research.squirrel.data.uri.filter;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.filter.AbstractKnownUriFilterDecorator;
@@ -15,65 +11,86 @@ import org.dice_research.squirrel.data.uri.filter.KnownUriFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A decorator that only accepts URIs matching one of the patterns of a
+ * whitelist and none of the patterns of an optional blacklist (see
+ * {@link UriPatternMatcher}). The patterns are checked before the decorated
+ * filter is asked, i.e., URIs that are not allowed do not cause a database
+ * lookup. If the lists are loaded from files, they are reloaded when the files
+ * change.
+ */
 public class RegexBasedWhiteListFilter extends AbstractKnownUriFilterDecorator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RegexBasedWhiteListFilter.class);
 
     public static RegexBasedWhiteListFilter create(KnownUriFilter decorated, File whitelistfile) {
+        return create(decorated, whitelistfile, null);
+    }
+
+    public static RegexBasedWhiteListFilter create(KnownUriFilter decorated, File whitelistfile, File blacklistFile) {
         try {
-            Set<String> whiteList = loadWhiteList(whitelistfile);
-            return new RegexBasedWhiteListFilter(decorated, whiteList);
+            UriPatternFile whiteList = (whitelistfile != null) ? new UriPatternFile(whitelistfile) : null;
+            UriPatternFile blackList = (blacklistFile != null) ? new UriPatternFile(blacklistFile) : null;
+            return new RegexBasedWhiteListFilter(decorated, whiteList, blackList);
         } catch (IOException e) {
             LOGGER.error("A problem was found when loading the WhiteList");
         }
         return null;
     }
 
-    private Set<String> whiteList;
+    private UriPatternFile whiteListFile;
+    private UriPatternFile blackListFile;
+    private UriPatternMatcher whiteList;
+    private UriPatternMatcher blackList;
 
     public RegexBasedWhiteListFilter(KnownUriFilter decorated, Set<String> whiteList) {
+        this(decorated, whiteList, null);
+    }
+
+    public RegexBasedWhiteListFilter(KnownUriFilter decorated, Set<String> whiteList, Set<String> blackList) {
         super(decorated);
-        this.whiteList = whiteList;
+        this.whiteList = (whiteList != null) ? new UriPatternMatcher(whiteList) : null;
+        this.blackList = (blackList != null) ? new UriPatternMatcher(blackList) : null;
+    }
+
+    public RegexBasedWhiteListFilter(KnownUriFilter decorated, UriPatternFile whiteListFile,
+            UriPatternFile blackListFile) {
+        super(decorated);
+        this.whiteListFile = whiteListFile;
+        this.blackListFile = blackListFile;
     }
 
     @Override
     public boolean isUriGood(CrawleableUri uri) {
-        if (super.isUriGood(uri) && (whiteList == null || whiteList.isEmpty())) {
+        return isAllowed(uri) && super.isUriGood(uri);
+    }
+
+    /**
+     * Checks the URI against the white and black list without asking the
+     * decorated filter.
+     */
+    public boolean isAllowed(CrawleableUri uri) {
+        UriPatternMatcher white = (whiteListFile != null) ? whiteListFile.getMatcher() : whiteList;
+        UriPatternMatcher black = (blackListFile != null) ? blackListFile.getMatcher() : blackList;
+        boolean checkWhite = (white != null) && !white.isEmpty();
+        boolean checkBlack = (black != null) && !black.isEmpty();
+        if (!checkWhite && !checkBlack) {
             return true;
         }
-
-        else if (super.isUriGood(uri) && whiteList != null && !whiteList.isEmpty()) {
-
-            for (String s : whiteList) {
-
-                Pattern p = Pattern.compile(s.toLowerCase());
-                Matcher m = p.matcher(uri.getUri().toString().toLowerCase());
-
-                if (m.find()) {
-                    return true;
-                }
-
-            }
-
+        String uriString = uri.getUri().toString().toLowerCase();
+        String host = uri.getUri().getHost();
+        if (host != null) {
+            host = host.toLowerCase();
+        }
+        if (checkBlack && black.matches(uriString, host)) {
+            LOGGER.trace("The URI {} is blacklisted.", uriString);
+            return false;
         }
-        return false;
+        return !checkWhite || white.matches(uriString, host);
     }
 
     protected static Set<String> loadWhiteList(File whiteListFile) throws IOException {
-        Set<String> list = new LinkedHashSet<String>();
-
-        FileReader fr = new FileReader(whiteListFile);
-        BufferedReader br = new BufferedReader(fr);
-
-        String line;
-
-        while ((line = br.readLine()) != null) {
-            list.add(line);
-        }
-
-        br.close();
-
-        return list;
+        return new LinkedHashSet<String>(UriPatternFile.readLines(whiteListFile));
     }
 
 
@@ -0,0 +1,92 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A file containing one pattern per line. The {@link UriPatternMatcher} of
+ * the file is recompiled if the modification date of the file changes. The
+ * file is checked at most once per check interval, i.e., the check is cheap
+ * enough to be done for every URI. If the file can not be read, the
+ * previously compiled patterns are kept.
+ */
+public class UriPatternFile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UriPatternFile.class);
+
+    /**
+     * Time (in ms) between two checks of the modification date.
+     */
+    public static final long DEFAULT_CHECK_INTERVAL = 10000;
+
+    protected File file;
+    protected long checkInterval;
+    private volatile UriPatternMatcher matcher;
+    private long lastModified = 0;
+    private volatile long nextCheck = 0;
+    private final AtomicBoolean checking = new AtomicBoolean(false);
+
+    public UriPatternFile(File file) throws IOException {
+        this(file, DEFAULT_CHECK_INTERVAL);
+    }
+
+    public UriPatternFile(File file, long checkInterval) throws IOException {
+        this.file = file;
+        this.checkInterval = checkInterval;
+        lastModified = file.lastModified();
+        matcher = new UriPatternMatcher(readLines(file));
+        nextCheck = System.currentTimeMillis() + checkInterval;
+    }
+
+    /**
+     * @return the current matcher of the file, which is recompiled if the file
+     *         has been changed
+     */
+    public UriPatternMatcher getMatcher() {
+        long now = System.currentTimeMillis();
+        // only a single thread checks the file while the others keep using the
+        // current matcher
+        if ((now >= nextCheck) && checking.compareAndSet(false, true)) {
+            try {
+                nextCheck = now + checkInterval;
+                long modified = file.lastModified();
+                if (modified != lastModified) {
+                    reload(modified);
+                }
+            } finally {
+                checking.set(false);
+            }
+        }
+        return matcher;
+    }
+
+    private void reload(long modified) {
+        try {
+            UriPatternMatcher newMatcher = new UriPatternMatcher(readLines(file));
+            matcher = newMatcher;
+            lastModified = modified;
+            LOGGER.info("Reloaded {} patterns from {}.", newMatcher.size(), file);
+        } catch (IOException e) {
+            LOGGER.error("Couldn't reload the patterns from " + file + ". The old patterns will be used.", e);
+        }
+    }
+
+    public static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
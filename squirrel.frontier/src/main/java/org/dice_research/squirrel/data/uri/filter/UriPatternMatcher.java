@@ -0,0 +1,274 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Matches lower-cased URIs against a list of patterns that are compiled once.
+ * A URI matches if one of the patterns can be found in it (see
+ * {@link java.util.regex.Matcher#find()}). The patterns are sorted into the
+ * following groups to avoid running thousands of regular expressions for a
+ * single URI:
+ * <ul>
+ * <li>Domain names like {@code dbpedia.org} are stored in a host trie. They
+ * match URIs whose host is this domain or one of its sub domains.</li>
+ * <li>Literal strings anchored at the beginning, e.g.,
+ * {@code ^http://dbpedia\.org/resource/}, are stored in a prefix trie.</li>
+ * <li>Other literal strings are combined into a single Aho-Corasick
+ * automaton.</li>
+ * <li>All remaining patterns are combined into a single regular
+ * expression.</li>
+ * </ul>
+ * Empty lines and lines starting with {@code #} are ignored.
+ */
+public class UriPatternMatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UriPatternMatcher.class);
+
+    private static final Pattern DOMAIN_PATTERN = Pattern.compile("[a-z0-9-]+(\\.[a-z0-9-]+)+");
+    private static final String REGEX_META_CHARACTERS = ".[]{}()*+?^$|\\";
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\[1-9]");
+
+    private final HostTrie hosts = new HostTrie();
+    private final CharTrie prefixes = new CharTrie();
+    private final CharTrie literals = new CharTrie();
+    private Pattern combinedRegex = null;
+    private final List<Pattern> separateRegexes = new ArrayList<>();
+    private int size = 0;
+
+    /**
+     * Creates a matcher for the given patterns. Patterns that are no valid
+     * regular expressions are logged and ignored.
+     */
+    public UriPatternMatcher(Collection<String> patterns) {
+        List<String> regexes = new ArrayList<>();
+        for (String pattern : patterns) {
+            pattern = pattern.trim().toLowerCase();
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                continue;
+            }
+            if (DOMAIN_PATTERN.matcher(pattern).matches()) {
+                hosts.add(pattern);
+            } else if (pattern.startsWith("^") && (unescapeLiteral(pattern.substring(1)) != null)) {
+                prefixes.add(unescapeLiteral(pattern.substring(1)));
+            } else if (unescapeLiteral(pattern) != null) {
+                literals.add(unescapeLiteral(pattern));
+            } else {
+                try {
+                    Pattern regex = Pattern.compile(pattern);
+                    if (BACK_REFERENCE.matcher(pattern).find()) {
+                        // group numbers would change in the combined expression
+                        separateRegexes.add(regex);
+                    } else {
+                        regexes.add(pattern);
+                    }
+                } catch (PatternSyntaxException e) {
+                    LOGGER.error("The pattern \"{}\" is not a valid regular expression. It will be ignored.", pattern);
+                    continue;
+                }
+            }
+            ++size;
+        }
+        literals.buildFailureLinks();
+        if (!regexes.isEmpty()) {
+            StringBuilder builder = new StringBuilder();
+            for (String regex : regexes) {
+                if (builder.length() > 0) {
+                    builder.append('|');
+                }
+                builder.append("(?:").append(regex).append(')');
+            }
+            combinedRegex = Pattern.compile(builder.toString());
+        }
+    }
+
+    /**
+     * Returns the literal string the given regular expression matches or
+     * {@code null} if the expression contains unescaped meta characters.
+     */
+    protected static String unescapeLiteral(String regex) {
+        StringBuilder builder = new StringBuilder(regex.length());
+        for (int i = 0; i < regex.length(); ++i) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                ++i;
+                if ((i < regex.length()) && !Character.isLetterOrDigit(regex.charAt(i))) {
+                    builder.append(regex.charAt(i));
+                } else {
+                    // escape sequences like \d or \Q are no literals
+                    return null;
+                }
+            } else if (REGEX_META_CHARACTERS.indexOf(c) >= 0) {
+                return null;
+            } else {
+                builder.append(c);
+            }
+        }
+        return (builder.length() > 0) ? builder.toString() : null;
+    }
+
+    /**
+     * @param uri
+     *            the lower-cased URI
+     * @param host
+     *            the lower-cased host of the URI or {@code null}
+     * @return {@code true} if one of the patterns matches the URI
+     */
+    public boolean matches(String uri, String host) {
+        if ((host != null) && hosts.containsDomainOf(host)) {
+            return true;
+        }
+        if (prefixes.matchesPrefixOf(uri) || literals.matchesSubstringOf(uri)) {
+            return true;
+        }
+        if ((combinedRegex != null) && combinedRegex.matcher(uri).find()) {
+            return true;
+        }
+        for (Pattern regex : separateRegexes) {
+            if (regex.matcher(uri).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of patterns of this matcher
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A trie of domain names that stores the labels of a name in reversed
+     * order.
+     */
+    protected static class HostTrie {
+        private final Map<String, HostTrie> children = new HashMap<>();
+        private boolean isDomain = false;
+
+        public void add(String domain) {
+            String[] labels = domain.split("\\.");
+            HostTrie node = this;
+            for (int i = labels.length - 1; i >= 0; --i) {
+                node = node.children.computeIfAbsent(labels[i], k -> new HostTrie());
+            }
+            node.isDomain = true;
+        }
+
+        /**
+         * @return {@code true} if the given host or one of its parent domains
+         *         is part of the trie
+         */
+        public boolean containsDomainOf(String host) {
+            HostTrie node = this;
+            int end = host.length();
+            while (end > 0) {
+                int start = host.lastIndexOf('.', end - 1) + 1;
+                node = node.children.get(host.substring(start, end));
+                if (node == null) {
+                    return false;
+                }
+                if (node.isDomain) {
+                    return true;
+                }
+                end = start - 1;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A character trie that can be used to match prefixes or, after the failure
+     * links have been built, as Aho-Corasick automaton to find any of its words
+     * in a given text.
+     */
+    protected static class CharTrie {
+        private final Map<Character, CharTrie> children = new HashMap<>();
+        private boolean isWord = false;
+        private CharTrie failure = null;
+
+        public void add(String word) {
+            CharTrie node = this;
+            for (int i = 0; i < word.length(); ++i) {
+                node = node.children.computeIfAbsent(word.charAt(i), k -> new CharTrie());
+            }
+            node.isWord = true;
+        }
+
+        public boolean matchesPrefixOf(String text) {
+            CharTrie node = this;
+            for (int i = 0; i < text.length(); ++i) {
+                node = node.children.get(text.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+                if (node.isWord) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Adds the failure links of the Aho-Corasick automaton. A node is marked
+         * as word if one of its suffixes is a word.
+         */
+        public void buildFailureLinks() {
+            failure = this;
+            Queue<CharTrie> queue = new ArrayDeque<>();
+            for (CharTrie child : children.values()) {
+                child.failure = this;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                CharTrie node = queue.poll();
+                for (Map.Entry<Character, CharTrie> entry : node.children.entrySet()) {
+                    CharTrie child = entry.getValue();
+                    CharTrie fallback = node.failure;
+                    while ((fallback != this) && !fallback.children.containsKey(entry.getKey())) {
+                        fallback = fallback.failure;
+                    }
+                    CharTrie target = fallback.children.get(entry.getKey());
+                    child.failure = ((target != null) && (target != child)) ? target : this;
+                    child.isWord |= child.failure.isWord;
+                    queue.add(child);
+                }
+            }
+        }
+
+        public boolean matchesSubstringOf(String text) {
+            if (children.isEmpty()) {
+                return false;
+            }
+            CharTrie node = this;
+            for (int i = 0; i < text.length(); ++i) {
+                char c = text.charAt(i);
+                CharTrie next = node.children.get(c);
+                while ((next == null) && (node != this)) {
+                    node = node.failure;
+                    next = node.children.get(c);
+                }
+                node = (next != null) ? next : this;
+                if (node.isWord) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,32 +1,53 @@
 package org.dice_research.squirrel.data.uri.norm;
 
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Parts of the code borrowed from <a href=
  * "https://github.com/crawler-commons/crawler-commons/blob/master/src/main/java/crawlercommons/filters/basic/BasicURLNormalizer.java">Crawler
  * Commons</a>. Converts URLs to a normal form:
  * <ul>
- * <li>remove dot segments in path: <code>/./</code> or <code>/../</code></li>
+ * <li>lower-case scheme and host</li>
  * <li>remove default ports, e.g. 80 for protocol <code>http://</code></li>
+ * <li>remove dot segments and empty segments in path: <code>/./</code>,
+ * <code>/../</code> or <code>//</code></li>
  * <li>normalize <a href=
  * "https://en.wikipedia.org/wiki/Percent-encoding#Percent-encoding_in_a_URI">
- * percent-encoding</a> in URL paths</li>
- * <li>sort query parameters</li>
- * <li>filter parts of the URI</li>
+ * percent-encoding</a> in URL paths and queries, i.e., decode unreserved
+ * characters and upper-case the hex digits of the remaining escapes</li>
+ * <li>remove session parameters from the path (e.g.,
+ * <code>;jsessionid=...</code>) and the query</li>
+ * <li>sort query parameters by their name (parameters with the same name keep
+ * their order)</li>
+ * <li>remove the fragment</li>
  * </ul>
+ * The URI is processed in a single pass over its characters using buffers
+ * that are reused by the calling thread. A new URI object is only created if
+ * the normalized URI differs from the given URI.
  */
 public class NormalizerImpl implements UriNormalizer {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(NormalizerImpl.class);
+
 	/**
-	 * Nutch 1098 - finds URL encoded parts of the URL
+	 * Names of query (or path) parameters which are removed by default since
+	 * they only identify the session of a client.
 	 */
-	private final static Pattern UNESCAPE_RULE_PATTERN = Pattern.compile("%([0-9A-Fa-f]{2})");
+	public static final List<String> DEFAULT_SESSION_PARAMETERS = Arrays.asList("jsessionid", "phpsessid",
+			"aspsessionid", "sid", "sessionid");
+
 	/**
 	 * look-up table for characters which should not be escaped in URL paths
 	 */
@@ -40,39 +61,370 @@ public class NormalizerImpl implements UriNormalizer {
 		 * should not be created by URI producers and, when found in a URI, should be
 		 * decoded to their corresponding unreserved characters by URI normalizers.
 		 */
-		UNESCAPED_CHARS.set(0x2D, 0x2E);
-		UNESCAPED_CHARS.set(0x30, 0x39);
-		UNESCAPED_CHARS.set(0x41, 0x5A);
-		UNESCAPED_CHARS.set(0x61, 0x7A);
+		UNESCAPED_CHARS.set(0x2D, 0x2F);
+		UNESCAPED_CHARS.set(0x30, 0x3A);
+		UNESCAPED_CHARS.set(0x41, 0x5B);
+		UNESCAPED_CHARS.set(0x61, 0x7B);
 		UNESCAPED_CHARS.set(0x5F);
 		UNESCAPED_CHARS.set(0x7E);
 	}
 
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * Maximum number of query parameters that are sorted.
+	 */
+	private static final int MAX_SORTED_PARAMETERS = 256;
+
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	/**
+	 * Lower-cased names of the parameters that are removed.
+	 */
+	protected Set<String> sessionParameters;
+
+	public NormalizerImpl() {
+		this(DEFAULT_SESSION_PARAMETERS);
+	}
+
+	/**
+	 * @param sessionParameters
+	 *            names of query (or path) parameters that should be removed
+	 */
+	public NormalizerImpl(Collection<String> sessionParameters) {
+		this.sessionParameters = new HashSet<>();
+		for (String parameter : sessionParameters) {
+			this.sessionParameters.add(parameter.toLowerCase());
+		}
+	}
+
 	@Override
 	public CrawleableUri normalize(CrawleableUri uri) {
 		URI uriObject = uri.getUri();
-		boolean changed = false;
-		// normalize path
-		String path = uriObject.getPath();
-		if (path != null) {
-			String temp = normalizePath(path);
-			if (temp != path) {
-				path = temp;
+		if (uriObject.isOpaque()) {
+			return uri;
+		}
+		String original = uriObject.toString();
+		String normalized = normalize(original);
+		if (normalized == original) {
+			return uri;
+		}
+		try {
+			@SuppressWarnings("deprecation")
+			CrawleableUri result = new CrawleableUri(new URI(normalized), uri.getIpAddress(), uri.getType());
+			result.setData(new TreeMap<>(uri.getData()));
+			result.setTimestampNextCrawl(uri.getTimestampNextCrawl());
+			return result;
+		} catch (URISyntaxException e) {
+			LOGGER.warn("The normalized form \"{}\" of \"{}\" is not a valid URI. The URI won't be normalized.",
+					normalized, original);
+			return uri;
+		}
+	}
+
+	/**
+	 * Normalizes the given URI string.
+	 *
+	 * @param uri
+	 *            an absolute, hierarchical URI
+	 * @return the normalized URI or exactly the same string object if no changes
+	 *         have been made
+	 */
+	public String normalize(String uri) {
+		StringBuilder out = BUFFERS.get().output;
+		out.setLength(0);
+		int length = uri.length();
+		// scheme
+		int pos = 0;
+		while ((pos < length) && (uri.charAt(pos) != ':')) {
+			out.append(Character.toLowerCase(uri.charAt(pos)));
+			++pos;
+		}
+		if (pos >= length) {
+			// no scheme
+			return uri;
+		}
+		int schemeEnd = pos;
+		out.append(':');
+		++pos;
+		int end = indexOf(uri, '#', pos, length);
+		int queryStart = indexOf(uri, '?', pos, end);
+		// authority
+		if (uri.startsWith("//", pos)) {
+			out.append("//");
+			pos += 2;
+			int authorityEnd = pos;
+			while ((authorityEnd < queryStart) && (uri.charAt(authorityEnd) != '/')) {
+				++authorityEnd;
+			}
+			appendAuthority(uri, pos, authorityEnd, out, getDefaultPort(out, schemeEnd));
+			pos = authorityEnd;
+			if ((pos == queryStart) && isHttp(out, schemeEnd)) {
+				// empty path of an HTTP URI
+				out.append('/');
+			}
+		}
+		// path
+		appendPath(uri, pos, queryStart, out);
+		// query
+		if (queryStart < end) {
+			appendQuery(uri, queryStart + 1, end, out);
+		}
+		if (uri.contentEquals(out)) {
+			return uri;
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Appends the authority with a lower-cased host and without the given
+	 * default port.
+	 */
+	protected static void appendAuthority(String uri, int start, int end, StringBuilder out, int defaultPort) {
+		int hostStart = start;
+		int at = uri.lastIndexOf('@', end - 1);
+		if (at >= start) {
+			// keep the user info as it is
+			out.append(uri, start, at + 1);
+			hostStart = at + 1;
+		}
+		int portStart = end;
+		for (int i = end - 1; i >= hostStart; --i) {
+			char c = uri.charAt(i);
+			if (c == ':') {
+				portStart = i;
+				break;
+			} else if ((c < '0') || (c > '9')) {
+				break;
+			}
+		}
+		for (int i = hostStart; i < portStart; ++i) {
+			out.append(Character.toLowerCase(uri.charAt(i)));
+		}
+		if (portStart < end) {
+			int port = (portStart + 1 < end) ? parsePort(uri, portStart + 1, end) : defaultPort;
+			if (port != defaultPort) {
+				out.append(uri, portStart, end);
+			}
+		}
+	}
+
+	/**
+	 * Appends the normalized path. Dot segments and empty segments are removed
+	 * while the segments are appended to the output, i.e., without splitting the
+	 * path into several strings. Trailing slashes are kept.
+	 */
+	protected void appendPath(String uri, int start, int end, StringBuilder out) {
+		if (start >= end) {
+			return;
+		}
+		if (uri.charAt(start) != '/') {
+			// relative paths are only percent-normalized
+			appendPercentNormalized(uri, start, end, out);
+			return;
+		}
+		int base = out.length();
+		out.append('/');
+		int pos = start;
+		while (pos < end) {
+			// skip (redundant) slashes
+			while ((pos < end) && (uri.charAt(pos) == '/')) {
+				++pos;
+			}
+			if (pos >= end) {
+				break;
+			}
+			int segmentEnd = indexOf(uri, '/', pos, end);
+			int segmentStart = out.length();
+			appendPathSegment(uri, pos, segmentEnd, out);
+			int segmentLength = out.length() - segmentStart;
+			if ((segmentLength == 1) && (out.charAt(segmentStart) == '.')) {
+				out.setLength(segmentStart);
+			} else if ((segmentLength == 2) && (out.charAt(segmentStart) == '.')
+					&& (out.charAt(segmentStart + 1) == '.')) {
+				// remove the previous segment (if there is one)
+				int previousStart = segmentStart - 1;
+				if (previousStart > base) {
+					previousStart = out.lastIndexOf("/", previousStart - 1) + 1;
+				} else {
+					previousStart = segmentStart;
+				}
+				out.setLength(previousStart);
+			} else if (segmentEnd < end) {
+				out.append('/');
+			}
+			pos = segmentEnd;
+		}
+	}
+
+	/**
+	 * Appends a single path segment without session parameters (e.g.,
+	 * <code>;jsessionid=...</code>).
+	 */
+	protected void appendPathSegment(String uri, int start, int end, StringBuilder out) {
+		int paramStart = indexOf(uri, ';', start, end);
+		appendPercentNormalized(uri, start, paramStart, out);
+		while (paramStart < end) {
+			int paramEnd = indexOf(uri, ';', paramStart + 1, end);
+			if (!isSessionParameter(uri, paramStart + 1, paramEnd)) {
+				out.append(';');
+				appendPercentNormalized(uri, paramStart + 1, paramEnd, out);
+			}
+			paramStart = paramEnd;
+		}
+	}
+
+	/**
+	 * Appends the query with sorted parameters and without session parameters.
+	 * Nothing is appended if the query is empty.
+	 */
+	protected void appendQuery(String uri, int start, int end, StringBuilder out) {
+		Buffers buffers = BUFFERS.get();
+		int[] starts = buffers.parameterStarts;
+		int[] ends = buffers.parameterEnds;
+		int count = 0;
+		int pos = start;
+		while (pos < end) {
+			int paramEnd = indexOf(uri, '&', pos, end);
+			if ((paramEnd > pos) && !isSessionParameter(uri, pos, paramEnd)) {
+				if (count == starts.length) {
+					// too many parameters for sorting them, keep them as they are
+					out.append('?');
+					appendPercentNormalized(uri, start, end, out);
+					return;
+				}
+				starts[count] = pos;
+				ends[count] = paramEnd;
+				// insertion sort that keeps the order of parameters with the
+				// same name
+				int i = count;
+				while ((i > 0) && (compareNames(uri, starts[i - 1], ends[i - 1], pos, paramEnd) > 0)) {
+					starts[i] = starts[i - 1];
+					ends[i] = ends[i - 1];
+					--i;
+				}
+				starts[i] = pos;
+				ends[i] = paramEnd;
+				++count;
 			}
+			pos = paramEnd + 1;
+		}
+		for (int i = 0; i < count; ++i) {
+			out.append((i == 0) ? '?' : '&');
+			appendPercentNormalized(uri, starts[i], ends[i], out);
+		}
+	}
+
+	/**
+	 * Appends the given part of the URI, decoding percent-encoded unreserved
+	 * characters and upper-casing the hex digits of the remaining escapes.
+	 */
+	protected static void appendPercentNormalized(String uri, int start, int end, StringBuilder out) {
+		for (int i = start; i < end; ++i) {
+			char c = uri.charAt(i);
+			if ((c == '%') && (i + 2 < end) && isHexDigit(uri.charAt(i + 1)) && isHexDigit(uri.charAt(i + 2))) {
+				int hex = getHexValue(uri.charAt(i + 1), uri.charAt(i + 2));
+				if (UNESCAPED_CHARS.get(hex)) {
+					out.append((char) hex);
+				} else {
+					out.append('%').append(HEX_DIGITS[hex >> 4]).append(HEX_DIGITS[hex & 0xF]);
+				}
+				i += 2;
+			} else {
+				out.append(c);
+			}
+		}
+	}
+
+	protected boolean isSessionParameter(String uri, int start, int end) {
+		if (sessionParameters.isEmpty()) {
+			return false;
+		}
+		int nameEnd = indexOf(uri, '=', start, end);
+		int nameLength = nameEnd - start;
+		for (String parameter : sessionParameters) {
+			if ((parameter.length() == nameLength) && uri.regionMatches(true, start, parameter, 0, nameLength)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compares the names of the two given parameters.
+	 */
+	protected static int compareNames(String uri, int start1, int end1, int start2, int end2) {
+		end1 = indexOf(uri, '=', start1, end1);
+		end2 = indexOf(uri, '=', start2, end2);
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		int length = Math.min(length1, length2);
+		for (int i = 0; i < length; ++i) {
+			int diff = uri.charAt(start1 + i) - uri.charAt(start2 + i);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return length1 - length2;
+	}
+
+	/**
+	 * @return the default port of the scheme at the beginning of the given
+	 *         buffer or -1 if it is not known
+	 */
+	protected static int getDefaultPort(StringBuilder out, int schemeLength) {
+		if (startsWith(out, schemeLength, "http") || startsWith(out, schemeLength, "ws")) {
+			return 80;
+		} else if (startsWith(out, schemeLength, "https") || startsWith(out, schemeLength, "wss")) {
+			return 443;
+		} else if (startsWith(out, schemeLength, "ftp")) {
+			return 21;
 		}
-		// Copy Normalization from
-		// https://github.com/crawler-commons/crawler-commons/blob/master/src/main/java/crawlercommons/filters/basic/BasicURLNormalizer.java
-		// OR use URI.normalize()
+		return -1;
+	}
 
-		// Check whether the query part of a URI has to be sorted
+	protected static boolean isHttp(StringBuilder out, int schemeLength) {
+		return startsWith(out, schemeLength, "http") || startsWith(out, schemeLength, "https");
+	}
 
-		// Filter attributes of the URI
-		// uriObject.getQuery();
+	private static boolean startsWith(StringBuilder out, int length, String prefix) {
+		if (length != prefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; ++i) {
+			if (out.charAt(i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
 
-		if (changed) {
-			// TODO create new URI object;
+	private static int parsePort(String uri, int start, int end) {
+		if (end - start > 5) {
+			return -1;
 		}
-		return uri;
+		int port = 0;
+		for (int i = start; i < end; ++i) {
+			port = (port * 10) + (uri.charAt(i) - '0');
+		}
+		return port;
+	}
+
+	/**
+	 * @return the position of the given char in the given range or the end of
+	 *         the range if it couldn't be found
+	 */
+	private static int indexOf(String s, char c, int start, int end) {
+		for (int i = start; i < end; ++i) {
+			if (s.charAt(i) == c) {
+				return i;
+			}
+		}
+		return end;
+	}
+
+	private static boolean isHexDigit(char c) {
+		return ((c >= '0') && (c <= '9')) || ((c >= 'A') && (c <= 'F')) || ((c >= 'a') && (c <= 'f'));
 	}
 
 	/**
@@ -80,40 +432,19 @@ public class NormalizerImpl implements UriNormalizer {
 	 * src/solaris/native/java/io/canonicalize_md.c) and the <a href=
 	 * "https://github.com/crawler-commons/crawler-commons/blob/master/src/main/java/crawlercommons/filters/basic/BasicURLNormalizer.java">Crawler
 	 * Commons</a> project.
-	 * 
+	 *
 	 * @param path
 	 * @return the normalized path or the given path object if no changes have been
 	 *         made.
 	 */
 	protected String normalizePath(String path) {
-		// Check for encoded parts
-		Matcher matcher = UNESCAPE_RULE_PATTERN.matcher(path);
-		StringBuffer changedPath = null;
-		if (matcher.find()) {
-			changedPath = new StringBuffer(path);
-			int hex, pos = 0;
-			do {
-				changedPath.append(path.substring(pos, matcher.start()));
-				pos = matcher.start();
-				hex = getHexValue(path.charAt(pos + 1), path.charAt(pos + 2));
-				// If this character shouldn't be escaped
-				if (UNESCAPED_CHARS.get(hex)) {
-					changedPath.append((char) hex);
-				} else {
-					changedPath.append(path.substring(pos, pos + 3));
-				}
-				pos += 3;
-			} while (matcher.find());
-			if (pos < path.length()) {
-				changedPath.append(path.substring(pos));
-			}
-		}
-		if (changedPath == null) {
-			return PathNormalization.normalize(path);
-		} else {
-			String newPath = changedPath.toString();
-			return PathNormalization.normalize(newPath.equals(path) ? path : newPath);
+		StringBuilder out = BUFFERS.get().output;
+		out.setLength(0);
+		appendPath(path, 0, path.length(), out);
+		if (path.contentEquals(out)) {
+			return path;
 		}
+		return out.toString();
 	}
 
 	protected static int getHexValue(char c1, char c2) {
@@ -134,4 +465,13 @@ public class NormalizerImpl implements UriNormalizer {
 		return hex;
 	}
 
+	/**
+	 * Buffers that are reused by a thread.
+	 */
+	private static class Buffers {
+		private final StringBuilder output = new StringBuilder(256);
+		private final int[] parameterStarts = new int[MAX_SORTED_PARAMETERS];
+		private final int[] parameterEnds = new int[MAX_SORTED_PARAMETERS];
+	}
+
 }
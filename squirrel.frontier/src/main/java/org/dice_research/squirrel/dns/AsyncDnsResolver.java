@@ -0,0 +1,284 @@
+package org.dice_research.squirrel.dns;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the IP addresses of {@link CrawleableUri}s without blocking the
+ * calling thread. If the address of a host is cached (see {@link DnsCache}),
+ * it is set directly. Otherwise, the URI is parked in a side buffer and the
+ * host is resolved by a thread of this resolver. All URIs that are waiting for
+ * the same host share a single lookup. As soon as the lookup is done, the
+ * waiting URIs are handed over to the consumer of resolved URIs as a single
+ * list. If the host couldn't be resolved, the URIs are handed over with a
+ * {@code null} address, i.e., the consumer decides what happens with them.
+ * The URIs count as pending (see {@link #hasPendingLookups()}) until the
+ * consumer returns.
+ *
+ * <p>
+ * The number of waiting URIs is limited. If the limit is reached, the address
+ * is resolved directly on the calling thread which slows down the producers of
+ * new URIs.
+ * </p>
+ */
+public class AsyncDnsResolver implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncDnsResolver.class);
+
+    public static final int DEFAULT_NUMBER_OF_THREADS = 8;
+    public static final int DEFAULT_MAX_WAITING_URIS = 100000;
+    /**
+     * The number of lookups after which the statistics are logged.
+     */
+    private static final long STATISTICS_LOG_INTERVAL = 10000;
+
+    /**
+     * Resolves a single host name. The default implementation is
+     * {@link InetAddress#getByName(String)}.
+     */
+    public static interface HostResolver {
+        public InetAddress resolve(String host) throws UnknownHostException;
+    }
+
+    private final DnsCache cache;
+    private final HostResolver hostResolver;
+    private final ExecutorService executor;
+    private final int maxWaitingUris;
+    /**
+     * Side buffer of URIs that are waiting for the resolution of their host.
+     * Guarded by itself. {@link #numberOfWaitingUris} includes the URIs that
+     * have been removed from this map but are still handed over to the consumer.
+     */
+    private final Map<String, List<CrawleableUri>> waitingUris = new HashMap<>();
+    private int numberOfWaitingUris = 0;
+    private Consumer<List<CrawleableUri>> resolvedUrisConsumer;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong failedLookups = new AtomicLong();
+    private final AtomicLong lookupTime = new AtomicLong();
+    private final AtomicLong maxLookupTime = new AtomicLong();
+    private final AtomicLong blockingLookups = new AtomicLong();
+
+    public AsyncDnsResolver() {
+        this(new DnsCache(), DEFAULT_NUMBER_OF_THREADS, DEFAULT_MAX_WAITING_URIS, InetAddress::getByName);
+    }
+
+    public AsyncDnsResolver(DnsCache cache, int numberOfThreads, int maxWaitingUris) {
+        this(cache, numberOfThreads, maxWaitingUris, InetAddress::getByName);
+    }
+
+    public AsyncDnsResolver(DnsCache cache, int numberOfThreads, int maxWaitingUris, HostResolver hostResolver) {
+        this.cache = cache;
+        this.maxWaitingUris = maxWaitingUris;
+        this.hostResolver = hostResolver;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "dns-resolver-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = Executors.newFixedThreadPool(numberOfThreads, threadFactory);
+    }
+
+    /**
+     * Sets the consumer which receives the URIs that have been parked in the
+     * side buffer as soon as the IP address of their host is known. The consumer
+     * is called by the threads of this resolver.
+     */
+    public void setResolvedUrisConsumer(Consumer<List<CrawleableUri>> resolvedUrisConsumer) {
+        this.resolvedUrisConsumer = resolvedUrisConsumer;
+    }
+
+    /**
+     * Tries to set the IP address of the given URI. If the address is not known
+     * yet, the URI is parked until the address has been resolved and handed over
+     * to the consumer of resolved URIs.
+     *
+     * @param uri
+     *            the URI that needs an IP address
+     * @return {@code true} if the URI has been handled directly, i.e., its IP
+     *         address has been set or its host can not be resolved (in which case
+     *         the address is {@code null}), or {@code false} if the URI has been
+     *         parked
+     */
+    public boolean resolve(CrawleableUri uri) {
+        String host = uri.getUri().getHost();
+        if (host == null) {
+            uri.setIpAddress(null);
+            return true;
+        }
+        DnsCache.Entry entry = cache.get(host);
+        if (entry != null) {
+            uri.setIpAddress(entry.getAddress());
+            return true;
+        }
+        synchronized (waitingUris) {
+            // the lookup might have finished in the meantime
+            entry = cache.get(host);
+            if (entry != null) {
+                uri.setIpAddress(entry.getAddress());
+                return true;
+            }
+            if ((numberOfWaitingUris < maxWaitingUris) && (resolvedUrisConsumer != null)
+                    && !executor.isShutdown()) {
+                List<CrawleableUri> uris = waitingUris.get(host);
+                if (uris == null) {
+                    uris = new ArrayList<>();
+                    waitingUris.put(host, uris);
+                    executor.execute(() -> lookup(host));
+                }
+                uris.add(uri);
+                ++numberOfWaitingUris;
+                return false;
+            }
+        }
+        // The side buffer is full. Resolve the host on the calling thread.
+        blockingLookups.incrementAndGet();
+        uri.setIpAddress(resolveHost(host));
+        return true;
+    }
+
+    /**
+     * Resolves the given host, caches the result and hands the URIs waiting for
+     * the host over to the consumer.
+     */
+    protected void lookup(String host) {
+        InetAddress address = resolveHost(host);
+        List<CrawleableUri> uris;
+        synchronized (waitingUris) {
+            uris = waitingUris.remove(host);
+            if (uris == null) {
+                return;
+            }
+        }
+        try {
+            for (CrawleableUri uri : uris) {
+                uri.setIpAddress(address);
+            }
+            resolvedUrisConsumer.accept(uris);
+        } catch (Exception e) {
+            LOGGER.error("Exception while handing over resolved URIs. They will be ignored.", e);
+        } finally {
+            synchronized (waitingUris) {
+                numberOfWaitingUris -= uris.size();
+            }
+        }
+    }
+
+    /**
+     * Resolves the given host, measures the time needed and caches the result.
+     *
+     * @return the address of the host or {@code null} if it couldn't be resolved
+     */
+    protected InetAddress resolveHost(String host) {
+        long start = System.nanoTime();
+        InetAddress address = null;
+        try {
+            address = hostResolver.resolve(host);
+        } catch (UnknownHostException e) {
+            LOGGER.debug("Could not resolve {}, unknown host.", host);
+        } catch (Exception e) {
+            LOGGER.warn("Exception while resolving " + host + ".", e);
+        }
+        long time = System.nanoTime() - start;
+        cache.put(host, address);
+        if (address == null) {
+            failedLookups.incrementAndGet();
+        }
+        lookupTime.addAndGet(time);
+        maxLookupTime.accumulateAndGet(time, Math::max);
+        if ((lookups.incrementAndGet() % STATISTICS_LOG_INTERVAL) == 0) {
+            LOGGER.info(getStatistics());
+        }
+        return address;
+    }
+
+    public DnsCache getCache() {
+        return cache;
+    }
+
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    public long getFailedLookups() {
+        return failedLookups.get();
+    }
+
+    /**
+     * @return the number of lookups that have been executed on the calling thread
+     *         because the side buffer was full
+     */
+    public long getBlockingLookups() {
+        return blockingLookups.get();
+    }
+
+    /**
+     * @return the average time (in ms) a lookup took
+     */
+    public double getAverageLookupTime() {
+        long count = lookups.get();
+        return (count > 0) ? (lookupTime.get() / (count * 1000000.0)) : 0;
+    }
+
+    /**
+     * @return the maximum time (in ms) a lookup took
+     */
+    public double getMaxLookupTime() {
+        return maxLookupTime.get() / 1000000.0;
+    }
+
+    /**
+     * @return {@code true} if there are URIs that have been parked and have not
+     *         been handed over to the consumer, yet
+     */
+    public boolean hasPendingLookups() {
+        return getNumberOfWaitingUris() > 0;
+    }
+
+    public int getNumberOfWaitingUris() {
+        synchronized (waitingUris) {
+            return numberOfWaitingUris;
+        }
+    }
+
+    public String getStatistics() {
+        return String.format(
+                "DNS resolver: cache hit rate %.3f (%d hits, %d misses), %d lookups (%d failed, %d blocking), average lookup time %.2fms, max lookup time %.2fms, %d waiting URIs",
+                cache.getHitRate(), cache.getHits(), cache.getMisses(), lookups.get(), failedLookups.get(),
+                blockingLookups.get(), getAverageLookupTime(), getMaxLookupTime(), getNumberOfWaitingUris());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+        }
+        int waiting = getNumberOfWaitingUris();
+        if (waiting > 0) {
+            LOGGER.warn("Closing DNS resolver while {} URIs are still waiting for their IP address.", waiting);
+        }
+        LOGGER.info(getStatistics());
+    }
+}
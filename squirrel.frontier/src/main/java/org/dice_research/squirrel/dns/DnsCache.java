@@ -0,0 +1,144 @@
+package org.dice_research.squirrel.dns;
+
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache for the IP addresses of host names. Failed lookups are
+ * cached as well (negative caching) but typically with a shorter lifetime.
+ */
+public class DnsCache {
+
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+    public static final long DEFAULT_NEGATIVE_TTL = TimeUnit.MINUTES.toMillis(1);
+    public static final int DEFAULT_MAX_SIZE = 100000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private long ttl = DEFAULT_TTL;
+    private long negativeTtl = DEFAULT_NEGATIVE_TTL;
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public DnsCache() {
+    }
+
+    public DnsCache(long ttl, long negativeTtl, int maxSize) {
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached entry for the given host or {@code null} if the host is
+     * not cached or its entry has expired.
+     */
+    public Entry get(String host) {
+        String key = host.toLowerCase(Locale.ROOT);
+        Entry entry = entries.get(key);
+        if ((entry != null) && (entry.expirationTime < System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the given address of the given host.
+     *
+     * @param address
+     *            the address of the host or {@code null} if it couldn't be
+     *            resolved
+     */
+    public void put(String host, InetAddress address) {
+        if (entries.size() >= maxSize) {
+            shrink();
+        }
+        entries.put(host.toLowerCase(Locale.ROOT),
+                new Entry(address, System.currentTimeMillis() + ((address != null) ? ttl : negativeTtl)));
+    }
+
+    /**
+     * Removes expired entries. If this is not sufficient, arbitrary entries are
+     * removed until the cache is filled to 90%.
+     */
+    private synchronized void shrink() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(e -> e.expirationTime < now);
+        Iterator<String> iterator = entries.keySet().iterator();
+        int limit = (int) (maxSize * 0.9);
+        while ((entries.size() > limit) && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the ratio of lookups that have been answered by the cache
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (total > 0) ? ((double) h / total) : 0;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public void setNegativeTtl(long negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * A cached lookup result.
+     */
+    public static class Entry {
+        private final InetAddress address;
+        private final long expirationTime;
+
+        public Entry(InetAddress address, long expirationTime) {
+            this.address = address;
+            this.expirationTime = expirationTime;
+        }
+
+        /**
+         * @return the address of the host or {@code null} if the host couldn't be
+         *         resolved
+         */
+        public InetAddress getAddress() {
+            return address;
+        }
+
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.dice_research.squirrel.data.uri.filter.UriFilter;
 import org.dice_research.squirrel.data.uri.info.URIReferences;
 import org.dice_research.squirrel.data.uri.norm.UriNormalizer;
 import org.dice_research.squirrel.deduplication.hashing.UriHashCustodian;
+import org.dice_research.squirrel.dns.AsyncDnsResolver;
 import org.dice_research.squirrel.frontier.Frontier;
 import org.dice_research.squirrel.graph.GraphLogger;
 import org.dice_research.squirrel.queue.IpAddressBasedQueue;
@@ -19,6 +20,7 @@ import org.slf4j.LoggerFactory;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Standard implementation of the {@link Frontier} interface containing a
@@ -64,6 +66,18 @@ public class FrontierImpl implements Frontier {
      * {@link GraphLogger} that can be added to log the crawled graph.
      */
     protected GraphLogger graphLogger;
+    /**
+     * {@link AsyncDnsResolver} used to determine the IP addresses of new URIs
+     * without blocking. If it is {@code null}, the addresses are resolved by the
+     * {@link #uriProcessor}.
+     */
+    protected AsyncDnsResolver dnsResolver;
+    /**
+     * New URIs that are waiting for their IP address in the {@link #dnsResolver}.
+     * They are marked as known as soon as they have been handed over to the
+     * queue.
+     */
+    protected Set<CrawleableUri> urisWaitingForIp = ConcurrentHashMap.newKeySet();
 
 
     /**
@@ -72,9 +86,14 @@ public class FrontierImpl implements Frontier {
     private boolean doesRecrawling;
 
     /**
-     * The timer that schedules the recrawling.
+     * The scheduler that hands the URIs that are due for recrawling over to the
+     * queue.
      */
-    private Timer timerRecrawling;
+    private RecrawlScheduler recrawlScheduler;
+    /**
+     * Counters describing the URIs that passed this frontier.
+     */
+    protected FrontierStatistics statistics = new FrontierStatistics();
 
     /**
      * Time (in milliseconds) after which uris will be recrawled (only used if no specific time is configured for a URI).
@@ -199,14 +218,8 @@ public class FrontierImpl implements Frontier {
         FrontierImpl.generalRecrawlTime = generalRecrawlTime;
 
         if (this.doesRecrawling) {
-            timerRecrawling = new Timer();
-            timerRecrawling.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    List<CrawleableUri> urisToRecrawl = knownUriFilter.getOutdatedUris();
-                    urisToRecrawl.forEach(uri -> queue.addUri(uriProcessor.recognizeUriType(uri)));
-                }
-            }, this.timerPeriod, this.timerPeriod);
+            recrawlScheduler = new RecrawlScheduler(knownUriFilter, this::addUrisForRecrawling, this.timerPeriod);
+            recrawlScheduler.start();
         }
     }
 
@@ -217,18 +230,50 @@ public class FrontierImpl implements Frontier {
 //        	LOGGER.error("FRONTIER IS TERMINATING!", new Exception());
 //        }
     	
-        return queue.getNextUris();
+        List<CrawleableUri> uris = queue.getNextUris();
+        if (uris != null) {
+            statistics.addDequeuedUris(uris.size());
+        }
+        return uris;
     }
 
     @Override
     public void addNewUris(List<CrawleableUri> uris) {
+        List<CrawleableUri> urisForQueue = new ArrayList<>(uris.size());
+        CrawleableUri processedUri;
         for (CrawleableUri uri : uris) {
-            addNewUri(uri);
+            processedUri = processNewUri(uri);
+            if (processedUri != null) {
+                urisForQueue.add(processedUri);
+            }
+        }
+        // hand the URIs over to the queue as a single batch
+        if (!urisForQueue.isEmpty()) {
+            queue.addUris(urisForQueue);
+            statistics.addEnqueuedUris(urisForQueue.size());
         }
     }
 
     @Override
     public void addNewUri(CrawleableUri uri) {
+        uri = processNewUri(uri);
+        if (uri != null) {
+            queue.addUri(uri);
+            statistics.addEnqueuedUris(1);
+        }
+    }
+
+    /**
+     * Normalizes the given URI, checks whether it should be crawled and
+     * determines its IP address and type.
+     *
+     * @param uri
+     *            the URI that should be added to the frontier
+     * @return the URI that should be added to the queue or {@code null} if it
+     *         should not be crawled
+     */
+    protected CrawleableUri processNewUri(CrawleableUri uri) {
+        CrawleableUri result = null;
         // Normalize the URI
         uri = normalizer.normalize(uri);
         // After knownUriFilter uri should be classified according to
@@ -239,18 +284,28 @@ public class FrontierImpl implements Frontier {
             if (schemeUriFilter.isUriGood(uri)) {
                 LOGGER.trace("addNewUri(" + uri.getUri() + "): URI schemes is OK [" + schemeUriFilter + "]");
                 // Make sure that the IP is known
-                try {
-                    uri = this.uriProcessor.recognizeInetAddress(uri);
-                    
-                } catch (UnknownHostException e) {
-                    LOGGER.error("Could not recognize IP for {}, unknown host", uri.getUri());
-                }
-                if (uri.getIpAddress() != null) {
-                    queue.addUri(this.uriProcessor.recognizeUriType(uri));
+                if (dnsResolver != null) {
+                    if (!urisWaitingForIp.add(uri)) {
+                        LOGGER.debug("addNewUri(" + uri + "): URI is already waiting for its IP. Will not be added!");
+                        return null;
+                    }
+                    if (!dnsResolver.resolve(uri)) {
+                        // the URI waits for its IP and will be added to the queue and
+                        // marked as known later (see #addResolvedUris(List))
+                        return null;
+                    }
+                    urisWaitingForIp.remove(uri);
+                    result = checkInetAddress(uri);
                 } else {
-                    LOGGER.error("Couldn't determine the Inet address of \"{}\". It will be ignored.", uri.getUri());
+                    try {
+                        uri = this.uriProcessor.recognizeInetAddress(uri);
+
+                    } catch (UnknownHostException e) {
+                        LOGGER.error("Could not recognize IP for {}, unknown host", uri.getUri());
+                    }
+                    result = checkInetAddress(uri);
                 }
-                knownUriFilter.add(uri, System.currentTimeMillis());
+                knownUriFilter.add(uri, System.currentTimeMillis() + generalRecrawlTime);
             } else {
                 LOGGER.warn("addNewUri(" + uri + "): " + uri.getUri().getScheme() + " is not supported, only " + schemeUriFilter.getSchemes() + ". Will not added!");
             }
@@ -258,11 +313,105 @@ public class FrontierImpl implements Frontier {
         } else {
             LOGGER.debug("addNewUri(" + uri + "): URI is not good [" + knownUriFilter + "]. Will not be added!");
         }
+        return result;
+    }
+
+    /**
+     * Adds the given URIs, which are already known, to the queue for
+     * recrawling.
+     */
+    protected void addUrisForRecrawling(List<CrawleableUri> uris) {
+        List<CrawleableUri> urisForQueue = new ArrayList<>(uris.size());
+        for (CrawleableUri uri : uris) {
+            if (uri.getIpAddress() == null) {
+                if (dnsResolver != null) {
+                    if (!dnsResolver.resolve(uri)) {
+                        // the URI will be added as soon as its IP is known
+                        continue;
+                    }
+                } else {
+                    try {
+                        uri = this.uriProcessor.recognizeInetAddress(uri);
+                    } catch (UnknownHostException e) {
+                        LOGGER.error("Could not recognize IP for {}, unknown host", uri.getUri());
+                    }
+                }
+            }
+            uri = checkInetAddress(uri);
+            if (uri != null) {
+                urisForQueue.add(uri);
+            }
+        }
+        if (!urisForQueue.isEmpty()) {
+            queue.addUris(urisForQueue);
+            statistics.addEnqueuedUris(urisForQueue.size());
+        }
+    }
+
+    /**
+     * Recognizes the type of the given URI if its IP address is known.
+     *
+     * @return the URI or {@code null} if its IP address is not known
+     */
+    private CrawleableUri checkInetAddress(CrawleableUri uri) {
+        if (uri.getIpAddress() != null) {
+            return this.uriProcessor.recognizeUriType(uri);
+        } else {
+            LOGGER.error("Couldn't determine the Inet address of \"{}\". It will be ignored.", uri.getUri());
+            return null;
+        }
+    }
+
+    /**
+     * Sets the {@link AsyncDnsResolver} that should be used to determine the IP
+     * addresses of new URIs. URIs that have to wait for the resolution of their
+     * host are added to the queue as soon as their IP address is known.
+     *
+     * @param dnsResolver
+     *            the resolver or {@code null} if the addresses should be resolved
+     *            synchronously
+     */
+    public void setDnsResolver(AsyncDnsResolver dnsResolver) {
+        this.dnsResolver = dnsResolver;
+        if (dnsResolver != null) {
+            dnsResolver.setResolvedUrisConsumer(this::addResolvedUris);
+        }
+    }
+
+    /**
+     * Adds the URIs that waited for their IP address in the {@link #dnsResolver}
+     * to the queue. URIs whose IP address couldn't be determined are ignored.
+     * Afterwards, the new URIs among them are marked as known, i.e., a URI that
+     * got lost before reaching the queue is not blocked by the
+     * {@link #knownUriFilter}.
+     */
+    protected void addResolvedUris(List<CrawleableUri> uris) {
+        List<CrawleableUri> urisForQueue = new ArrayList<>(uris.size());
+        CrawleableUri checkedUri;
+        for (CrawleableUri uri : uris) {
+            checkedUri = checkInetAddress(uri);
+            if (checkedUri != null) {
+                urisForQueue.add(checkedUri);
+            }
+        }
+        if (!urisForQueue.isEmpty()) {
+            queue.addUris(urisForQueue);
+            statistics.addEnqueuedUris(urisForQueue.size());
+        }
+        // Like the synchronous resolution, URIs with an unknown host are marked
+        // as known as well
+        long nextCrawl = System.currentTimeMillis() + generalRecrawlTime;
+        for (CrawleableUri uri : uris) {
+            if (urisWaitingForIp.remove(uri)) {
+                knownUriFilter.add(uri, nextCrawl);
+            }
+        }
     }
 
     @Override
     public void crawlingDone(List<CrawleableUri> uris) {
         LOGGER.info("One worker finished his work and crawled " + uris.size() + " URIs.");
+        statistics.addCrawledUris(uris.size());
 
 
 //        List<CrawleableUri> newUris = new ArrayList<>(uriMap.size());
@@ -299,8 +448,10 @@ public class FrontierImpl implements Frontier {
                 CrawleableUri recrawlUri = new CrawleableUri(uri.getUri(), uri.getIpAddress());
                 recrawlUri.addData(Constants.URI_TYPE_KEY, uri.getData(Constants.URI_TYPE_KEY));
                 addNewUri(recrawlUri);
-            }else {
-            	knownUriFilter.add(uri,System.currentTimeMillis());
+            } else {
+                // recrawl the URI at the preferred time or after the general recrawl time
+                long now = System.currentTimeMillis();
+                knownUriFilter.add(uri, now, (recrawlOn != null) ? recrawlOn : (now + generalRecrawlTime));
             }
         }
     }
@@ -321,7 +472,12 @@ public class FrontierImpl implements Frontier {
 
     @Override
     public void close() {
-        timerRecrawling.cancel();
+        if (recrawlScheduler != null) {
+            recrawlScheduler.close();
+        }
+        if (dnsResolver != null) {
+            dnsResolver.close();
+        }
     }
 
 
@@ -329,6 +485,15 @@ public class FrontierImpl implements Frontier {
         return generalRecrawlTime;
     }
 
+    /**
+     * Getter for the {@link #statistics}.
+     *
+     * @return The counters describing the URIs that passed this frontier.
+     */
+    public FrontierStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Getter for the {@link #queue}.
      *
@@ -1,12 +1,11 @@
 package org.dice_research.squirrel.frontier.impl;
 
 
-import com.SquirrelWebObject;
+import com.SquirrelWebDelta;
 import com.graph.VisualisationGraph;
 import com.graph.VisualisationNode;
 import com.rabbitmq.client.Channel;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
-import org.dice_research.squirrel.data.uri.filter.KnownUriFilter;
 import org.dice_research.squirrel.data.uri.info.URIReferences;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
 import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
@@ -27,16 +26,27 @@ import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static java.util.Collections.EMPTY_LIST;
-import static java.util.Collections.EMPTY_MAP;
-
+/**
+ * Sends the status of the Frontier to the web service. The counters are taken from the {@link FrontierStatistics}, i.e.,
+ * they are maintained incrementally by the frontier and reading them is cheap. Every {@link #statusInterval} ms, a
+ * {@link SquirrelWebDelta} containing only the changed counters is sent (if there is a change). The expensive views
+ * (pending URIs per IP, crawled graph) are only computed every {@link #viewInterval} ms. They are sent as a full update
+ * containing all values, so that a web service that missed updates is up to date again.
+ */
 public class FrontierSenderToWebservice implements Runnable, Closeable {
 
+    /**
+     * The maximum number of IP addresses whose URIs are part of the view of pending URIs.
+     */
+    private static final int MAX_IPS_IN_VIEW = 50;
+
     private final long startRunTime = System.currentTimeMillis();
     private WorkerGuard workerGuard;
     private IpAddressBasedQueue queue;
-    private KnownUriFilter knownUriFilter;
+    private FrontierStatistics statistics;
     private URIReferences uriReferences;
+    private long statusInterval;
+    private long viewInterval;
     private final static String WEB_QUEUE_GENERAL_NAME = "squirrel.web.in";
     private RabbitQueueFactory factory;
     private Channel webQueue = null;
@@ -53,15 +63,19 @@ public class FrontierSenderToWebservice implements Runnable, Closeable {
      * @param factory        the {@link RabbitQueueFactory}, the connection framework
      * @param workerGuard    has information about the workers
      * @param queue          has information about the pending URIs
-     * @param knownUriFilter has information about the crawled URIs
+     * @param statistics     has the counters of the crawled and pending URIs
      * @param uriReferences  has information for the crawled graph. if it is {@code null}, the feature of creating a crawled graph is disabled
+     * @param statusInterval time (in ms) between two status updates
+     * @param viewInterval   time (in ms) between two updates of the pending URIs and the crawled graph
      */
-    public FrontierSenderToWebservice(RabbitQueueFactory factory, WorkerGuard workerGuard, IpAddressBasedQueue queue, KnownUriFilter knownUriFilter, URIReferences uriReferences) {
+    public FrontierSenderToWebservice(RabbitQueueFactory factory, WorkerGuard workerGuard, IpAddressBasedQueue queue, FrontierStatistics statistics, URIReferences uriReferences, long statusInterval, long viewInterval) {
         this.factory = factory;
         this.workerGuard = workerGuard;
         this.queue = queue;
-        this.knownUriFilter = knownUriFilter;
+        this.statistics = statistics;
         this.uriReferences = uriReferences;
+        this.statusInterval = statusInterval;
+        this.viewInterval = viewInterval;
     }
 
     /**
@@ -118,22 +132,25 @@ public class FrontierSenderToWebservice implements Runnable, Closeable {
     @Override
     public void run() {
         run = init();
-        SquirrelWebObject lastSentObject = null;
+        long sequenceNumber = 0;
+        long nextViewUpdate = 0;
+        SquirrelWebDelta lastSentState = new SquirrelWebDelta();
         try {
             while (run) {
-                SquirrelWebObject newObject = generateSquirrelWebObject();
-                if (uriReferences != null) {
-                    VisualisationGraph graph = generateVisualisationGraph();
-                    newObject.setGraph(graph);
-                    LOGGER.info("Added a new crawled graph to the SquirrelWebObject " + newObject + " with " + graph.getNodes().length + " nodes and " + graph.getEdges().length + " edges!");
+                long now = System.currentTimeMillis();
+                boolean full = now >= nextViewUpdate;
+                SquirrelWebDelta delta = generateDelta(sequenceNumber, full, lastSentState);
+                if (full) {
+                    addViews(delta);
+                    nextViewUpdate = now + viewInterval;
                 }
-                if (!newObject.equals(lastSentObject)) {
-                    sender.sendData(serializer.serialize(newObject));
-                    //webQueue.basicPublish("", WEB_QUEUE_GENERAL_NAME, null, serializer.serialize(newObject));
-                    LOGGER.info("Putted a new SquirrelWebObject into the queue " + WEB_QUEUE_GENERAL_NAME);
-                    lastSentObject = newObject;
+                if (delta.hasChanges()) {
+                    sender.sendData(serializer.serialize(delta));
+                    LOGGER.debug("Putted the update " + delta + " into the queue " + WEB_QUEUE_GENERAL_NAME);
+                    lastSentState.merge(delta);
+                    ++sequenceNumber;
                 }
-                Thread.sleep(100);
+                Thread.sleep(statusInterval);
             }
         } catch (InterruptedException e) {
             // If we are interrupted it is fine. No special handling needed.
@@ -148,42 +165,67 @@ public class FrontierSenderToWebservice implements Runnable, Closeable {
     }
 
     /**
-     * Generates a {@link SquirrelWebObject} from the current data
+     * Generates a {@link SquirrelWebDelta} containing the counters that differ from the given state that has been sent
+     * last. The counters are cheap to retrieve.
      *
-     * @return a instance of a {@link SquirrelWebObject}
-     * @throws IllegalAccessException if this is thrown, then there is programming bug!
+     * @param sequenceNumber the number of the update
+     * @param full           {@code true} if all counters should be added
+     * @param lastSentState  the state that the web service knows
+     * @return the update
      */
-    private SquirrelWebObject generateSquirrelWebObject() throws IllegalAccessException {
-        SquirrelWebObject newObject = new SquirrelWebObject();
-        newObject.setRuntimeInSeconds(Math.round((System.currentTimeMillis() - startRunTime) / 1000d));
-        newObject.setCountOfWorker(workerGuard.getNumberOfLiveWorkers());
-        newObject.setCountOfDeadWorker(workerGuard.getNumberOfDeadWorker());
+    protected SquirrelWebDelta generateDelta(long sequenceNumber, boolean full, SquirrelWebDelta lastSentState) {
+        SquirrelWebDelta delta = new SquirrelWebDelta(sequenceNumber, full);
+        delta.setRuntimeInSeconds(Math.round((System.currentTimeMillis() - startRunTime) / 1000d));
+        Integer value = workerGuard.getNumberOfLiveWorkers();
+        if (full || !value.equals(lastSentState.getCountOfWorker())) {
+            delta.setCountOfWorker(value);
+        }
+        value = workerGuard.getNumberOfDeadWorker();
+        if (full || !value.equals(lastSentState.getCountOfDeadWorker())) {
+            delta.setCountOfDeadWorker(value);
+        }
+        value = (int) statistics.getCrawledUris();
+        if (full || !value.equals(lastSentState.getCountOfCrawledURIs())) {
+            delta.setCountOfCrawledURIs(value);
+        }
+        value = (int) statistics.getPendingUris();
+        if (full || !value.equals(lastSentState.getCountOfPendingURIs())) {
+            delta.setCountOfPendingURIs(value);
+        }
+        return delta;
+    }
 
-        LinkedHashMap<InetAddress, List<CrawleableUri>> currentQueue = new LinkedHashMap<>(50);
+    /**
+     * Adds the expensive views to the given update, i.e., the pending URIs of the first {@value #MAX_IPS_IN_VIEW} IP
+     * addresses of the queue and the crawled graph (if enabled).
+     *
+     * @param delta the update to which the views should be added
+     */
+    protected void addViews(SquirrelWebDelta delta) {
+        LinkedHashMap<InetAddress, List<CrawleableUri>> currentQueue = new LinkedHashMap<>(MAX_IPS_IN_VIEW);
         Iterator<AbstractMap.SimpleEntry<InetAddress, List<CrawleableUri>>> i;
-        for (i = queue.getIPURIIterator(); i.hasNext() && currentQueue.size() < 50; ) {
+        for (i = queue.getIPURIIterator(); i.hasNext() && currentQueue.size() < MAX_IPS_IN_VIEW; ) {
             AbstractMap.SimpleEntry<InetAddress, List<CrawleableUri>> entry = i.next();
             currentQueue.put(entry.getKey(), entry.getValue());
         }
         if (currentQueue.isEmpty()) {
-            newObject.setIPMapPendingURis(EMPTY_MAP);
-            newObject.setPendingURIs(EMPTY_LIST);
-            newObject.setNextCrawledURIs(EMPTY_LIST);
+            delta.setIPMapPendingURIs(Collections.emptyMap());
+            delta.setPendingURIs(Collections.emptyList());
+            delta.setNextCrawledURIs(Collections.emptyList());
         } else {
-            newObject.setIPMapPendingURis(currentQueue.entrySet().stream()
+            delta.setIPMapPendingURIs(currentQueue.entrySet().stream()
                 .map(e -> new AbstractMap.SimpleEntry<>(e.getKey().getHostAddress(), e.getValue().stream().map(uri -> uri.getUri().getPath()).collect(Collectors.toList())))
                 .collect(HashMap::new, (m, entry) -> m.put(entry.getKey(), entry.getValue()), HashMap::putAll));
             List<String> pendingURIs = new ArrayList<>(currentQueue.size());
             currentQueue.forEach((key, value) -> value.forEach(uri -> pendingURIs.add(uri.getUri().toString())));
-            newObject.setPendingURIs(pendingURIs);
-            newObject.setNextCrawledURIs(currentQueue.entrySet().iterator().next().getValue().stream().map(e -> e.getUri().toString()).collect(Collectors.toList()));
+            delta.setPendingURIs(pendingURIs);
+            delta.setNextCrawledURIs(currentQueue.entrySet().iterator().next().getValue().stream().map(e -> e.getUri().toString()).collect(Collectors.toList()));
+        }
+        if (uriReferences != null) {
+            VisualisationGraph graph = generateVisualisationGraph();
+            delta.setGraph(graph);
+            LOGGER.info("Added a new crawled graph to the update " + delta + " with " + graph.getNodes().length + " nodes and " + graph.getEdges().length + " edges!");
         }
-
-        //Michael remarks, that's not a good idea to pass all crawled URIs, because that takes to much time...
-        //newObject.setCrawledURIs(Collections.EMPTY_LIST);
-        newObject.setCountOfCrawledURIs((int) knownUriFilter.count());
-
-        return newObject;
     }
 
     /**
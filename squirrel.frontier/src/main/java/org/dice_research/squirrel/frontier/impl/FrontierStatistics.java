@@ -0,0 +1,78 @@
+package org.dice_research.squirrel.frontier.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the {@link FrontierImpl} that are updated incrementally while
+ * URIs pass the frontier. Reading them is cheap, i.e., they can be used to
+ * report the status of the frontier without querying the queue or the known
+ * URI filter. Since the counters are not persisted, they should be initialized
+ * with the state of a persistent queue and filter when the frontier starts (see
+ * {@link #initialize(long, long)}). All methods are thread-safe.
+ */
+public class FrontierStatistics {
+
+    private final LongAdder enqueuedUris = new LongAdder();
+    private final LongAdder dequeuedUris = new LongAdder();
+    private final LongAdder crawledUris = new LongAdder();
+
+    /**
+     * Initializes the counters with the state of the queue and the known URI
+     * filter a frontier finds when it (re)starts. Should be called once before
+     * the frontier processes URIs.
+     *
+     * @param knownUris
+     *            the number of URIs in the known URI filter, including the URIs
+     *            in the queue
+     * @param pendingUris
+     *            the number of URIs in the queue
+     */
+    public void initialize(long knownUris, long pendingUris) {
+        enqueuedUris.add(pendingUris);
+        crawledUris.add(Math.max(0, knownUris - pendingUris));
+    }
+
+    /**
+     * Adds the given number of URIs that have been handed over to the queue.
+     */
+    public void addEnqueuedUris(int count) {
+        enqueuedUris.add(count);
+    }
+
+    /**
+     * Adds the given number of URIs that have been retrieved from the queue and
+     * sent to a worker.
+     */
+    public void addDequeuedUris(int count) {
+        dequeuedUris.add(count);
+    }
+
+    /**
+     * Adds the given number of URIs that have been crawled by a worker.
+     */
+    public void addCrawledUris(int count) {
+        crawledUris.add(count);
+    }
+
+    public long getEnqueuedUris() {
+        return enqueuedUris.sum();
+    }
+
+    public long getDequeuedUris() {
+        return dequeuedUris.sum();
+    }
+
+    public long getCrawledUris() {
+        return crawledUris.sum();
+    }
+
+    /**
+     * Returns an estimation of the number of URIs that are waiting in the queue.
+     * It can be too high if the queue drops URIs it already contains.
+     *
+     * @return the number of enqueued URIs minus the number of dequeued URIs
+     */
+    public long getPendingUris() {
+        return Math.max(0, enqueuedUris.sum() - dequeuedUris.sum());
+    }
+}
@@ -1,14 +1,28 @@
 package org.dice_research.squirrel.frontier.impl;
 
+import org.dice_research.squirrel.dns.AsyncDnsResolver;
 import org.dice_research.squirrel.queue.IpAddressBasedQueue;
 
 public class QueueBasedTerminationCheck implements TerminationCheck {
 
     protected boolean wasNotEmpty = false;
-    
+    /**
+     * The resolver whose waiting URIs have not reached the queue, yet. Might be
+     * {@code null}.
+     */
+    protected AsyncDnsResolver dnsResolver;
+
+    public QueueBasedTerminationCheck() {
+        this(null);
+    }
+
+    public QueueBasedTerminationCheck(AsyncDnsResolver dnsResolver) {
+        this.dnsResolver = dnsResolver;
+    }
+
     @Override
     public boolean shouldFrontierTerminate(IpAddressBasedQueue queue) {
-        if(queue.isEmpty()) {
+        if(queue.isEmpty() && ((dnsResolver == null) || !dnsResolver.hasPendingLookups())) {
             return wasNotEmpty;
         } else {
             wasNotEmpty = true;
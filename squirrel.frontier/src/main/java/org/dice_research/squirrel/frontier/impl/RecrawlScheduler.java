@@ -0,0 +1,120 @@
+package org.dice_research.squirrel.frontier.impl;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.filter.KnownUriFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically retrieves the URIs that are due for recrawling from a
+ * {@link KnownUriFilter} and hands them over to a consumer. The URIs are
+ * retrieved in pages of a bounded size using
+ * {@link KnownUriFilter#getOutdatedUris(int)}, i.e., the costs of a run depend
+ * on the number of due URIs instead of the number of known URIs, and the
+ * consumer receives the URIs incrementally. The number of pages per run is
+ * limited since URIs that are in process for too long become due again while
+ * the run is still going on.
+ */
+public class RecrawlScheduler implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecrawlScheduler.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final int DEFAULT_MAX_PAGES_PER_RUN = 100;
+
+    private final KnownUriFilter knownUriFilter;
+    private final Consumer<List<CrawleableUri>> consumer;
+    private final long period;
+    private final int pageSize;
+    private int maxPagesPerRun = DEFAULT_MAX_PAGES_PER_RUN;
+    private final ScheduledExecutorService executor;
+    private long scheduledUris = 0;
+
+    public RecrawlScheduler(KnownUriFilter knownUriFilter, Consumer<List<CrawleableUri>> consumer, long period) {
+        this(knownUriFilter, consumer, period, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param knownUriFilter
+     *            the filter that knows the time of the next crawl of every URI
+     * @param consumer
+     *            the consumer receiving the pages of URIs that should be
+     *            recrawled
+     * @param period
+     *            the time (in ms) between two runs
+     * @param pageSize
+     *            the maximum number of URIs retrieved with a single request
+     */
+    public RecrawlScheduler(KnownUriFilter knownUriFilter, Consumer<List<CrawleableUri>> consumer, long period,
+            int pageSize) {
+        this.knownUriFilter = knownUriFilter;
+        this.consumer = consumer;
+        this.period = period;
+        this.pageSize = pageSize;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "recrawl-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::scheduleDueUris, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands all URIs that are currently due for recrawling over to the consumer.
+     *
+     * @return the number of URIs that have been handed over
+     */
+    public int scheduleDueUris() {
+        int count = 0;
+        int pages = 0;
+        try {
+            List<CrawleableUri> page;
+            do {
+                page = knownUriFilter.getOutdatedUris(pageSize);
+                ++pages;
+                if (!page.isEmpty()) {
+                    consumer.accept(page);
+                    count += page.size();
+                }
+                // The default implementation of the filter might ignore the page size
+            } while ((page.size() == pageSize) && (pages < maxPagesPerRun) && !executor.isShutdown());
+        } catch (Exception e) {
+            LOGGER.error("Exception while scheduling URIs for recrawling.", e);
+        }
+        if (count > 0) {
+            synchronized (this) {
+                scheduledUris += count;
+            }
+            LOGGER.info("Scheduled {} URIs for recrawling.", count);
+        }
+        return count;
+    }
+
+    public void setMaxPagesPerRun(int maxPagesPerRun) {
+        this.maxPagesPerRun = maxPagesPerRun;
+    }
+
+    /**
+     * @return the number of URIs that have been scheduled for recrawling
+     */
+    public synchronized long getScheduledUris() {
+        return scheduledUris;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,460 @@
+package org.dice_research.squirrel.queue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.AbstractMap;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.dice_research.squirrel.configurator.MongoConfiguration;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.dice_research.squirrel.data.uri.UriUtils;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer.Compression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * <p>
+ * Queue implementation for use with MongoDB that works on batches of URIs and
+ * does not need a global mutex.
+ * </p>
+ *
+ * <p>
+ * The queue uses two collections. The {@value #COLLECTION_IPS} collection
+ * contains one document per IP address with the number of URIs that are
+ * pending for this IP and a flag whether the IP is currently blocked by a
+ * worker. The {@value #COLLECTION_URIS} collection contains the serialized
+ * URIs. Their ID is the stable hash generated by
+ * {@link UriUtils#generateUriHash(java.net.URI)}, i.e., a URI that is already
+ * part of the queue is simply not inserted a second time.
+ * </p>
+ *
+ * <p>
+ * A list of URIs is added with two unordered bulk writes: the first inserts
+ * the URIs, the second upserts the counters of their IPs. The next chunk is
+ * retrieved by leasing an unblocked IP with pending URIs using a single
+ * {@code findOneAndUpdate} and reading the URIs of the first
+ * {@link org.dice_research.squirrel.data.uri.UriType} of this IP using the
+ * index on IP and type.
+ * </p>
+ *
+ * <p>
+ * The chunks are created based on a {@link DequeuePolicy}. The size of a chunk
+ * is limited by reading only a limited number of URIs of the leased IP. The
+ * IPs are leased in the order of the virtual time of their next turn, which is
+ * stored in the {@value #FIELD_NEXT_TURN} field. Small chunks are merged by
+ * leasing further IPs whose number of pending URIs fits into the chunk.
+ * </p>
+ */
+public class MongoDBBatchedQueue implements IpAddressBasedQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoDBBatchedQueue.class);
+
+    public static final String DB_NAME = "squirrel";
+    public static final String COLLECTION_IPS = "queue_ips";
+    public static final String COLLECTION_URIS = "queue_uris";
+
+    public static final String FIELD_ID = "_id";
+    public static final String FIELD_IP = "ipAddress";
+    public static final String FIELD_TYPE = "type";
+    public static final String FIELD_URI = "uri";
+    public static final String FIELD_BLOCKED = "blocked";
+    public static final String FIELD_PENDING = "pending";
+    public static final String FIELD_NEXT_TURN = "nextTurn";
+
+    /**
+     * Error code of MongoDB for a duplicate key.
+     */
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final int LIMITFORITERATOR = 50;
+
+    private MongoClient client;
+    private MongoDatabase mongoDB;
+    private MongoCollection<Document> ips;
+    private MongoCollection<Document> uris;
+    private Serializer serializer;
+    private DequeuePolicy policy;
+    /**
+     * The virtual time of the last turn. IPs that are (re-)inserted start at
+     * this time.
+     */
+    private volatile double virtualTime = 0;
+
+    public MongoDBBatchedQueue(String hostName, Integer port, Serializer serializer) {
+        this(hostName, port, serializer, new DequeuePolicy());
+    }
+
+    public MongoDBBatchedQueue(String hostName, Integer port, Serializer serializer, DequeuePolicy policy) {
+        this.serializer = serializer;
+        this.policy = policy;
+
+        MongoClientOptions.Builder optionsBuilder = MongoClientOptions.builder();
+        MongoConfiguration mongoConfiguration = MongoConfiguration.getMDBConfiguration();
+
+        if (mongoConfiguration != null && mongoConfiguration.getConnectionTimeout() != null
+                && mongoConfiguration.getSocketTimeout() != null && mongoConfiguration.getServerTimeout() != null) {
+            optionsBuilder.connectTimeout(mongoConfiguration.getConnectionTimeout());
+            optionsBuilder.socketTimeout(mongoConfiguration.getSocketTimeout());
+            optionsBuilder.serverSelectionTimeout(mongoConfiguration.getServerTimeout());
+            client = new MongoClient(new ServerAddress(hostName, port), optionsBuilder.build());
+        } else {
+            client = new MongoClient(hostName, port);
+        }
+    }
+
+    public MongoDBBatchedQueue(String hostName, Integer port) {
+        client = new MongoClient(hostName, port);
+        serializer = new BinaryUriSerializer(Compression.SNAPPY);
+        policy = new DequeuePolicy();
+    }
+
+    @Override
+    public void open() {
+        mongoDB = client.getDatabase(DB_NAME);
+        ips = mongoDB.getCollection(COLLECTION_IPS);
+        uris = mongoDB.getCollection(COLLECTION_URIS);
+        // Creating an index that already exists has no effect
+        ips.createIndex(Indexes.compoundIndex(Indexes.ascending(FIELD_BLOCKED), Indexes.ascending(FIELD_PENDING)));
+        ips.createIndex(Indexes.compoundIndex(Indexes.ascending(FIELD_BLOCKED), Indexes.ascending(FIELD_NEXT_TURN)));
+        uris.createIndex(Indexes.compoundIndex(Indexes.ascending(FIELD_IP), Indexes.ascending(FIELD_TYPE)));
+        // The workers that blocked IPs before a restart are not known anymore
+        ips.updateMany(Filters.eq(FIELD_BLOCKED, true), Updates.set(FIELD_BLOCKED, false));
+        // Continue with the earliest turn of the stored IPs
+        Document first = ips.find(Filters.exists(FIELD_NEXT_TURN)).sort(Sorts.ascending(FIELD_NEXT_TURN)).first();
+        if (first != null) {
+            virtualTime = ((Number) first.get(FIELD_NEXT_TURN)).doubleValue();
+        }
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    /**
+     * Removes all URIs from the queue.
+     */
+    public void purge() {
+        ips.drop();
+        uris.drop();
+    }
+
+    public long length() {
+        return uris.count();
+    }
+
+    @Override
+    public void addUri(CrawleableUri uri) {
+        addUris(Collections.singletonList(uri));
+    }
+
+    @Override
+    public void addUris(List<CrawleableUri> newUris) {
+        List<WriteModel<Document>> inserts = new ArrayList<>(newUris.size());
+        List<String> insertedIps = new ArrayList<>(newUris.size());
+        for (CrawleableUri uri : newUris) {
+            if (uri.getIpAddress() == null) {
+                LOGGER.error("Got a URI without IP address ({}). It will be ignored.", uri.getUri());
+                continue;
+            }
+            try {
+                inserts.add(new InsertOneModel<>(crawleableUriToMongoDocument(uri)));
+                insertedIps.add(uri.getIpAddress().getHostAddress());
+            } catch (IOException e) {
+                LOGGER.error("Couldn't serialize URI " + uri.getUri() + ". It will be ignored.", e);
+            }
+        }
+        if (inserts.isEmpty()) {
+            return;
+        }
+        // Insert the URIs. URIs that are already in the queue cause duplicate key
+        // errors and are not counted.
+        Set<Integer> failedInserts = Collections.emptySet();
+        try {
+            uris.bulkWrite(inserts, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            failedInserts = new HashSet<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failedInserts.add(error.getIndex());
+                if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                    LOGGER.error("Couldn't insert URI into the queue: {}", error.getMessage());
+                }
+            }
+        }
+        // Update the counters of the IPs (after the URIs have been inserted)
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < insertedIps.size(); ++i) {
+            if (!failedInserts.contains(i)) {
+                counts.merge(insertedIps.get(i), 1, Integer::sum);
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> upserts = new ArrayList<>(counts.size());
+        UpdateOptions upsert = new UpdateOptions().upsert(true);
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            upserts.add(new UpdateOneModel<>(Filters.eq(FIELD_ID, count.getKey()),
+                    Updates.combine(Updates.inc(FIELD_PENDING, count.getValue()),
+                            Updates.setOnInsert(FIELD_BLOCKED, false),
+                            Updates.setOnInsert(FIELD_NEXT_TURN, virtualTime)),
+                    upsert));
+        }
+        ips.bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+    }
+
+    @Override
+    public List<CrawleableUri> getNextUris() {
+        List<CrawleableUri> chunk = new ArrayList<>();
+        int maxChunkSize = policy.getMaxChunkSize();
+        // lease an IP that is not blocked and has pending URIs
+        int added;
+        do {
+            added = leaseAndRead(Filters.and(Filters.eq(FIELD_BLOCKED, false), Filters.gt(FIELD_PENDING, 0)), chunk,
+                    maxChunkSize, true);
+            if (added < 0) {
+                return null;
+            }
+        } while (added == 0);
+        if (policy.shouldMerge(chunk.size())) {
+            // lease further IPs whose pending URIs fit completely into the chunk
+            int numberOfIps = 1;
+            while ((numberOfIps < policy.getMaxIpsPerChunk()) && (chunk.size() < policy.getMergeThreshold())) {
+                int maxPending = Math.min(policy.getMergeThreshold() - 1, maxChunkSize - chunk.size());
+                added = leaseAndRead(Filters.and(Filters.eq(FIELD_BLOCKED, false), Filters.gt(FIELD_PENDING, 0),
+                        Filters.lte(FIELD_PENDING, maxPending)), chunk, maxPending, false);
+                if (added < 0) {
+                    break;
+                } else if (added > 0) {
+                    ++numberOfIps;
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Leases the IP matching the given filter that has the earliest turn, moves
+     * its URIs from the queue to the given chunk and updates its counter and
+     * its next turn.
+     *
+     * @return the number of URIs that have been added to the chunk or -1 if no
+     *         IP matches the filter. If no URIs have been added, the IP is not
+     *         leased anymore.
+     */
+    protected int leaseAndRead(Bson filter, List<CrawleableUri> chunk, int maxChunkSize, boolean singleType) {
+        Document ipDoc = ips.findOneAndUpdate(filter, Updates.set(FIELD_BLOCKED, true),
+                new FindOneAndUpdateOptions().sort(Sorts.ascending(FIELD_NEXT_TURN)));
+        if (ipDoc == null) {
+            return -1;
+        }
+        String ip = ipDoc.getString(FIELD_ID);
+        int pending = ((Number) ipDoc.get(FIELD_PENDING)).intValue();
+        int chunkSize = chunk.size();
+        List<Object> ids = new ArrayList<>();
+        readChunk(ip, chunk, ids, maxChunkSize, singleType);
+        if (ids.size() > 0) {
+            uris.deleteMany(Filters.in(FIELD_ID, ids));
+            Object nextTurn = ipDoc.get(FIELD_NEXT_TURN);
+            double turn = (nextTurn != null) ? ((Number) nextTurn).doubleValue() : virtualTime;
+            virtualTime = Math.max(virtualTime, turn);
+            ips.updateOne(Filters.eq(FIELD_ID, ip), Updates.combine(Updates.inc(FIELD_PENDING, -ids.size()),
+                    Updates.set(FIELD_NEXT_TURN, turn + policy.getStride(pending))));
+            if (chunk.size() > chunkSize) {
+                return chunk.size() - chunkSize;
+            }
+            releaseIp(ip);
+        } else {
+            // The counter is outdated. Remove the (old) number of URIs and free the IP.
+            LOGGER.warn("The IP {} has no URIs although its counter is {}. Resetting it.", ip, pending);
+            releaseIp(ip, Updates.combine(Updates.inc(FIELD_PENDING, -pending), Updates.set(FIELD_BLOCKED, false)));
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the URIs of the first type of the given IP. Since the cursor is
+     * sorted by type, the reading stops as soon as a second type is encountered.
+     *
+     * @param ip
+     *            the IP for which the URIs should be read
+     * @param chunk
+     *            the list to which the deserialized URIs are added
+     * @param ids
+     *            the list to which the IDs of the read documents are added
+     */
+    protected void readFirstChunk(String ip, List<CrawleableUri> chunk, List<Object> ids) {
+        readChunk(ip, chunk, ids, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Reads (at most the given number of) URIs of the given IP.
+     *
+     * @param ip
+     *            the IP for which the URIs should be read
+     * @param chunk
+     *            the list to which the deserialized URIs are added
+     * @param ids
+     *            the list to which the IDs of the read documents are added
+     * @param maxChunkSize
+     *            the maximum number of URIs that are read
+     * @param singleType
+     *            flag indicating whether only URIs of the first type should be
+     *            read
+     */
+    protected void readChunk(String ip, List<CrawleableUri> chunk, List<Object> ids, int maxChunkSize,
+            boolean singleType) {
+        String type = null;
+        Document doc;
+        FindIterable<Document> found = uris.find(Filters.eq(FIELD_IP, ip)).sort(Sorts.ascending(FIELD_TYPE));
+        if (maxChunkSize < Integer.MAX_VALUE) {
+            found = found.limit(maxChunkSize);
+        }
+        try (MongoCursor<Document> cursor = found.iterator()) {
+            while (cursor.hasNext()) {
+                doc = cursor.next();
+                if (type == null) {
+                    type = doc.getString(FIELD_TYPE);
+                } else if (singleType && !type.equals(doc.getString(FIELD_TYPE))) {
+                    break;
+                }
+                ids.add(doc.get(FIELD_ID));
+                try {
+                    chunk.add(serializer.deserialize(((Binary) doc.get(FIELD_URI)).getData()));
+                } catch (Exception e) {
+                    LOGGER.error("Couldn't deserialize URI from the queue. It will be ignored.", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void markIpAddressAsAccessible(InetAddress ip) {
+        releaseIp(ip.getHostAddress());
+    }
+
+    protected void releaseIp(String ip) {
+        releaseIp(ip, Updates.set(FIELD_BLOCKED, false));
+    }
+
+    /**
+     * Frees the given IP with a single atomic update that has to set
+     * {@value #FIELD_BLOCKED} to {@code false}. If the IP has no URIs left, it
+     * is removed afterwards.
+     */
+    protected void releaseIp(String ip, Bson update) {
+        Document ipDoc = ips.findOneAndUpdate(Filters.eq(FIELD_ID, ip), update,
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+        if ((ipDoc != null) && (((Number) ipDoc.get(FIELD_PENDING)).intValue() <= 0)) {
+            // The delete only matches if the IP has neither got new URIs nor has
+            // been leased in the meantime. An IP that gets new URIs afterwards
+            // will be inserted again by the upsert of addUris.
+            ips.deleteOne(Filters.and(Filters.eq(FIELD_ID, ip), Filters.eq(FIELD_BLOCKED, false),
+                    Filters.lte(FIELD_PENDING, 0)));
+        }
+    }
+
+    @Override
+    public int getNumberOfBlockedIps() {
+        return (int) ips.count(Filters.eq(FIELD_BLOCKED, true));
+    }
+
+    @Override
+    public Map<InetAddress, Long> getBacklogPerIp() {
+        Map<InetAddress, Long> backlog = new HashMap<>();
+        for (Document ipDoc : ips.find(Filters.gt(FIELD_PENDING, 0))
+                .projection(Projections.include(FIELD_ID, FIELD_PENDING))) {
+            try {
+                backlog.put(InetAddress.getByName(ipDoc.getString(FIELD_ID)),
+                        ((Number) ipDoc.get(FIELD_PENDING)).longValue());
+            } catch (UnknownHostException e) {
+                LOGGER.error("Couldn't parse IP address from the queue. It will be ignored.", e);
+            }
+        }
+        return backlog;
+    }
+
+    public DequeuePolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return uris.count() == 0L;
+    }
+
+    /**
+     * Returns an iterator over (at most) {@value #LIMITFORITERATOR} IPs with
+     * (at most) {@value #LIMITFORITERATOR} of their pending URIs.
+     */
+    @Override
+    public Iterator<SimpleEntry<InetAddress, List<CrawleableUri>>> getIPURIIterator() {
+        List<SimpleEntry<InetAddress, List<CrawleableUri>>> entries = new ArrayList<>();
+        Bson projection = Projections.include(FIELD_URI);
+        for (Document ipDoc : ips.find(Filters.gt(FIELD_PENDING, 0)).limit(LIMITFORITERATOR)) {
+            List<CrawleableUri> value = new ArrayList<>();
+            for (Document doc : uris.find(Filters.eq(FIELD_IP, ipDoc.getString(FIELD_ID))).projection(projection)
+                    .limit(LIMITFORITERATOR)) {
+                try {
+                    value.add(serializer.deserialize(((Binary) doc.get(FIELD_URI)).getData()));
+                } catch (IOException e) {
+                    LOGGER.error("Couldn't deserialize URI from the queue. It will be ignored.", e);
+                }
+            }
+            try {
+                entries.add(new AbstractMap.SimpleEntry<>(InetAddress.getByName(ipDoc.getString(FIELD_ID)), value));
+            } catch (UnknownHostException e) {
+                LOGGER.error("Couldn't parse IP address from the queue. It will be ignored.", e);
+            }
+        }
+        return entries.iterator();
+    }
+
+    public Document crawleableUriToMongoDocument(CrawleableUri uri) throws IOException {
+        Document docUri = new Document();
+        docUri.put(FIELD_ID, new Binary(UriUtils.generateUriHash(uri.getUri())));
+        docUri.put(FIELD_IP, uri.getIpAddress().getHostAddress());
+        // the type is only used to group the URIs of an IP
+        @SuppressWarnings("deprecation")
+        UriType type = uri.getType();
+        docUri.put(FIELD_TYPE, type.toString());
+        docUri.put(FIELD_URI, new Binary(serializer.serialize(uri)));
+        return docUri;
+    }
+}
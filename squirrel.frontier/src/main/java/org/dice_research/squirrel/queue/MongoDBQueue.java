@@ -15,7 +15,8 @@ import org.dice_research.squirrel.configurator.MongoConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.UriType;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
-import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer.Compression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,7 +75,7 @@ public class MongoDBQueue extends AbstractIpAddressBasedQueue {
 
 	public MongoDBQueue(String hostName, Integer port) {
 		client = new MongoClient(hostName, port);
-		serializer = new SnappyJavaUriSerializer();
+		serializer = new BinaryUriSerializer(Compression.SNAPPY);
 	}
 
 	public void purge() {
@@ -8,7 +8,8 @@ import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.CrawleableUriFactoryImpl;
 import org.dice_research.squirrel.data.uri.UriType;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
-import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer.Compression;
 import org.dice_research.squirrel.model.RDBConnector;
 import org.dice_research.squirrel.queue.AbstractIpAddressBasedQueue;
 import org.dice_research.squirrel.queue.IpUriTypePair;
@@ -29,7 +30,7 @@ public class RDBQueue extends AbstractIpAddressBasedQueue {
     private Serializer serializer;
 
     public RDBQueue(String hostname, Integer port) {
-        this.serializer = new SnappyJavaUriSerializer();
+        this.serializer = new BinaryUriSerializer(Compression.SNAPPY);
         connector = new RDBConnector(hostname, port);
     }
 
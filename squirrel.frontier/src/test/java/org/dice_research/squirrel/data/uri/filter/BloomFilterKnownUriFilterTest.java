@@ -0,0 +1,113 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterKnownUriFilterTest {
+
+    @Test
+    public void testBloomFilter() {
+        int numberOfElements = 10000;
+        double falsePositiveRate = 0.01;
+        BloomFilter filter = BloomFilter.create(numberOfElements, falsePositiveRate, 0, false);
+        for (int i = 0; i < numberOfElements; ++i) {
+            filter.put("http://example.org/known/" + i);
+        }
+        for (int i = 0; i < numberOfElements; ++i) {
+            Assert.assertTrue(filter.mightContain("http://example.org/known/" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < numberOfElements; ++i) {
+            if (filter.mightContain("http://example.org/unknown/" + i)) {
+                ++falsePositives;
+            }
+        }
+        // allow some tolerance
+        Assert.assertTrue("Too many false positives: " + falsePositives,
+                falsePositives < (2 * falsePositiveRate * numberOfElements));
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        BloomFilter filter = BloomFilter.create(1000000, 0.001, 1024, true);
+        Assert.assertEquals(1024 * 8, filter.getNumberOfBits());
+        filter.put("http://example.org/");
+        Assert.assertTrue(filter.mightContain("http://example.org/"));
+    }
+
+    @Test
+    public void testDecorator() throws Exception {
+        CountingKnownUriFilter decorated = new CountingKnownUriFilter();
+        CrawleableUri known = new CrawleableUri(new URI("http://example.org/known"));
+        decorated.add(known, Long.MAX_VALUE);
+
+        BloomFilterKnownUriFilter filter = new BloomFilterKnownUriFilter(decorated,
+                BloomFilter.create(1000, 0.0001, 0, false), 3);
+        // the rebuilt filter knows the URI of the decorated filter
+        Assert.assertFalse(filter.isUriGood(known));
+        Assert.assertEquals(1, decorated.lookups);
+
+        // new URIs are good without asking the decorated filter
+        CrawleableUri uris[] = new CrawleableUri[5];
+        for (int i = 0; i < uris.length; ++i) {
+            uris[i] = new CrawleableUri(new URI("http://example.org/new/" + i));
+            Assert.assertTrue(filter.isUriGood(uris[i]));
+        }
+        Assert.assertEquals(1, decorated.lookups);
+
+        // the first three URIs are written as a single batch
+        for (int i = 0; i < uris.length; ++i) {
+            filter.add(uris[i], Long.MAX_VALUE);
+        }
+        Assert.assertEquals(1, decorated.batches);
+        Assert.assertEquals(4, decorated.count());
+
+        // a pending URI is written before it is checked
+        Assert.assertFalse(filter.isUriGood(uris[4]));
+        Assert.assertEquals(2, decorated.batches);
+        Assert.assertEquals(6, filter.count());
+        Assert.assertEquals(2, decorated.lookups);
+        filter.close();
+    }
+
+    @Test
+    public void testWithoutEnumeration() throws Exception {
+        CountingKnownUriFilter decorated = new CountingKnownUriFilter() {
+            @Override
+            public void forEachKnownUri(Consumer<String> consumer) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        decorated.add(new CrawleableUri(new URI("http://example.org/known")), Long.MAX_VALUE);
+        BloomFilterKnownUriFilter filter = new BloomFilterKnownUriFilter(decorated,
+                BloomFilter.create(1000, 0.01, 0, false));
+        // the Bloom filter can not be trusted, i.e., the decorated filter has to be asked
+        Assert.assertFalse(filter.isUriGood(new CrawleableUri(new URI("http://example.org/known"))));
+        Assert.assertTrue(filter.isUriGood(new CrawleableUri(new URI("http://example.org/new"))));
+        Assert.assertEquals(2, decorated.lookups);
+        filter.close();
+    }
+
+    private static class CountingKnownUriFilter extends InMemoryKnownUriFilter {
+
+        private int lookups = 0;
+        private int batches = 0;
+
+        @Override
+        public boolean isUriGood(CrawleableUri uri) {
+            ++lookups;
+            return super.isUriGood(uri);
+        }
+
+        @Override
+        public void addAll(List<CrawleableUri> uris, long lastCrawlTimestamps[], long nextCrawlTimestamps[]) {
+            ++batches;
+            super.addAll(uris, lastCrawlTimestamps, nextCrawlTimestamps);
+        }
+    }
+}
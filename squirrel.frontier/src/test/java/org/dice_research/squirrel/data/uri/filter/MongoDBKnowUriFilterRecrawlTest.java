@@ -0,0 +1,122 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bson.Document;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.MongoDBBasedTest;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Indexes;
+
+/**
+ * Checks that the validators of a crawl survive the round trip through the
+ * {@link MongoDBKnowUriFilter}, i.e., that a recrawled URI can be requested
+ * with a conditional request.
+ */
+public class MongoDBKnowUriFilterRecrawlTest extends MongoDBBasedTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private MongoDBKnowUriFilter filter;
+
+    @Before
+    public void setUp() throws Exception {
+        filter = new MongoDBKnowUriFilter(DB_HOST_NAME, DB_PORT);
+        filter.open();
+        filter.purge();
+        filter.open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        filter.close();
+    }
+
+    @Test
+    public void testDocumentRoundTrip() throws Exception {
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/data.nt"),
+                InetAddress.getByName("127.0.0.1"));
+        uri.addData(Constants.URI_HTTP_ETAG_KEY, ETAG);
+        uri.addData(Constants.URI_HTTP_LAST_MODIFIED_KEY, LAST_MODIFIED);
+        // other data is not stored
+        uri.addData(Constants.URI_HTTP_STATUS_CODE, 200);
+
+        Document document = filter.crawleableUriToMongoDocument(uri);
+        CrawleableUri readUri = MongoDBKnowUriFilter.mongoDocumentToCrawleableUri(document);
+        Assert.assertEquals(uri, readUri);
+        Assert.assertEquals(uri.getIpAddress(), readUri.getIpAddress());
+        Assert.assertEquals(ETAG, readUri.getData(Constants.URI_HTTP_ETAG_KEY));
+        Assert.assertEquals(LAST_MODIFIED, readUri.getData(Constants.URI_HTTP_LAST_MODIFIED_KEY));
+        Assert.assertNull(readUri.getData(Constants.URI_HTTP_STATUS_CODE));
+    }
+
+    @Test
+    public void testValidatorsAreRestoredForRecrawl() throws Exception {
+        long now = System.currentTimeMillis();
+        CrawleableUri crawled = new CrawleableUri(new URI("http://example.org/data.nt"),
+                InetAddress.getByName("127.0.0.1"));
+        // the validators of the response are added by the fetcher
+        crawled.addData(Constants.URI_HTTP_ETAG_KEY, ETAG);
+        crawled.addData(Constants.URI_HTTP_LAST_MODIFIED_KEY, LAST_MODIFIED);
+        CrawleableUri withoutValidators = new CrawleableUri(new URI("http://example.org/other.nt"),
+                InetAddress.getByName("127.0.0.1"));
+        CrawleableUri notDue = new CrawleableUri(new URI("http://example.org/later.nt"),
+                InetAddress.getByName("127.0.0.1"));
+        filter.addAll(Arrays.asList(crawled, withoutValidators), new long[] { now - 20, now - 20 },
+                new long[] { now - 10, now - 5 });
+        filter.add(notDue, now, now + 50000);
+
+        List<CrawleableUri> outdated = filter.getOutdatedUris();
+        Assert.assertEquals(Arrays.asList(crawled, withoutValidators), outdated);
+        Assert.assertEquals(ETAG, outdated.get(0).getData(Constants.URI_HTTP_ETAG_KEY));
+        Assert.assertEquals(LAST_MODIFIED, outdated.get(0).getData(Constants.URI_HTTP_LAST_MODIFIED_KEY));
+        Assert.assertNull(outdated.get(1).getData(Constants.URI_HTTP_ETAG_KEY));
+        Assert.assertNull(outdated.get(1).getData(Constants.URI_HTTP_LAST_MODIFIED_KEY));
+
+        // a recrawl replaces the validators
+        CrawleableUri recrawled = outdated.get(0);
+        recrawled.addData(Constants.URI_HTTP_ETAG_KEY, "\"v2\"");
+        filter.add(recrawled, now, now - 1);
+        outdated = filter.getOutdatedUris();
+        Assert.assertEquals(1, outdated.size());
+        Assert.assertEquals("\"v2\"", outdated.get(0).getData(Constants.URI_HTTP_ETAG_KEY));
+        Assert.assertEquals(LAST_MODIFIED, outdated.get(0).getData(Constants.URI_HTTP_LAST_MODIFIED_KEY));
+    }
+
+    @Test
+    public void testUniqueUriIndex() throws Exception {
+        // simulate a collection of an older version with a non-unique index
+        filter.close();
+        MongoDatabase db = client.getDatabase(MongoDBKnowUriFilter.DB_NAME);
+        db.createCollection(MongoDBKnowUriFilter.COLLECTION_NAME);
+        db.getCollection(MongoDBKnowUriFilter.COLLECTION_NAME)
+                .createIndex(Indexes.ascending(MongoDBKnowUriFilter.COLUMN_URI));
+
+        filter = new MongoDBKnowUriFilter(DB_HOST_NAME, DB_PORT);
+        filter.open();
+        boolean uniqueIndexFound = false;
+        for (Document index : db.getCollection(MongoDBKnowUriFilter.COLLECTION_NAME).listIndexes()) {
+            if (new Document(MongoDBKnowUriFilter.COLUMN_URI, 1).equals(index.get("key"))) {
+                uniqueIndexFound = Boolean.TRUE.equals(index.getBoolean("unique"));
+            }
+        }
+        Assert.assertTrue("The index of the URIs is not unique.", uniqueIndexFound);
+
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/data.nt"),
+                InetAddress.getByName("127.0.0.1"));
+        long now = System.currentTimeMillis();
+        filter.add(uri, now, now + 1000);
+        filter.addAll(Arrays.asList(uri, uri), new long[] { now, now }, new long[] { now + 2000, now + 2000 });
+        Assert.assertEquals(1, filter.count());
+    }
+}
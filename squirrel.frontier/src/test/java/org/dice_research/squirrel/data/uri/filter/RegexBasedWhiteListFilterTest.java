@@ -0,0 +1,69 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegexBasedWhiteListFilterTest {
+
+    @Test
+    public void testLocalCheckBeforeDecorated() throws Exception {
+        CountingFilter decorated = new CountingFilter();
+        RegexBasedWhiteListFilter filter = new RegexBasedWhiteListFilter(decorated,
+                new HashSet<>(Arrays.asList("dbpedia.org")), new HashSet<>(Arrays.asList("/private/")));
+        Assert.assertTrue(filter.isUriGood(new CrawleableUri(new URI("http://DBpedia.org/resource/A"))));
+        Assert.assertEquals(1, decorated.calls.get());
+        Assert.assertFalse(filter.isUriGood(new CrawleableUri(new URI("http://example.org/resource/A"))));
+        Assert.assertFalse(filter.isUriGood(new CrawleableUri(new URI("http://dbpedia.org/private/A"))));
+        // the decorated filter has not been asked for the URIs that are not allowed
+        Assert.assertEquals(1, decorated.calls.get());
+    }
+
+    @Test
+    public void testEmptyWhiteList() throws Exception {
+        CountingFilter decorated = new CountingFilter();
+        RegexBasedWhiteListFilter filter = new RegexBasedWhiteListFilter(decorated, Collections.emptySet());
+        Assert.assertTrue(filter.isUriGood(new CrawleableUri(new URI("http://example.org/resource/A"))));
+        Assert.assertEquals(1, decorated.calls.get());
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        File whiteListFile = File.createTempFile("whitelist", ".txt");
+        whiteListFile.deleteOnExit();
+        write(whiteListFile, "dbpedia.org");
+        RegexBasedWhiteListFilter filter = new RegexBasedWhiteListFilter(new CountingFilter(),
+                new UriPatternFile(whiteListFile, 0), null);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/resource/A"));
+        Assert.assertFalse(filter.isUriGood(uri));
+
+        write(whiteListFile, "dbpedia.org\nexample.org");
+        // make sure that the modification date changes
+        Assert.assertTrue(whiteListFile.setLastModified(whiteListFile.lastModified() + 2000));
+        Assert.assertTrue(filter.isUriGood(uri));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class CountingFilter extends InMemoryKnownUriFilter {
+        private AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public boolean isUriGood(CrawleableUri uri) {
+            calls.incrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UriPatternMatcherTest {
+
+    @Test
+    public void testHosts() {
+        UriPatternMatcher matcher = new UriPatternMatcher(Arrays.asList("dbpedia.org", "", "# a comment"));
+        Assert.assertEquals(1, matcher.size());
+        Assert.assertTrue(matcher.matches("http://dbpedia.org/resource/a", "dbpedia.org"));
+        Assert.assertTrue(matcher.matches("http://de.dbpedia.org/resource/a", "de.dbpedia.org"));
+        Assert.assertFalse(matcher.matches("http://notdbpedia.org/resource/a", "notdbpedia.org"));
+        Assert.assertFalse(matcher.matches("http://example.org/dbpedia.org", "example.org"));
+    }
+
+    @Test
+    public void testLiterals() {
+        UriPatternMatcher matcher = new UriPatternMatcher(
+                Arrays.asList("^http://example\\.org/data/", "/sparql", "/void\\.ttl", "he", "she", "hers"));
+        // prefixes
+        Assert.assertTrue(matcher.matches("http://example.org/data/a", "example.org"));
+        Assert.assertFalse(matcher.matches("https://example.org/data/a", "example.org"));
+        // literals found anywhere in the URI
+        Assert.assertTrue(matcher.matches("http://a.org/sparql?query=x", "a.org"));
+        Assert.assertTrue(matcher.matches("http://a.org/void.ttl", "a.org"));
+        Assert.assertFalse(matcher.matches("http://a.org/voidxttl", "a.org"));
+        // overlapping literals need the failure links of the automaton
+        Assert.assertTrue(matcher.matches("ushers", null));
+        Assert.assertTrue(matcher.matches("xsxhe", null));
+        Assert.assertFalse(matcher.matches("shx", null));
+    }
+
+    @Test
+    public void testRegexes() {
+        UriPatternMatcher matcher = new UriPatternMatcher(
+                Arrays.asList("HTTP://[a-z]+\\.ORG/\\d+$", "(a)\\1b", "[invalid"));
+        // the invalid pattern is ignored
+        Assert.assertEquals(2, matcher.size());
+        // patterns are lower-cased as the URIs
+        Assert.assertTrue(matcher.matches("http://example.org/123", "example.org"));
+        Assert.assertFalse(matcher.matches("http://example.org/123/a", "example.org"));
+        Assert.assertTrue(matcher.matches("http://b.org/aab", "b.org"));
+    }
+}
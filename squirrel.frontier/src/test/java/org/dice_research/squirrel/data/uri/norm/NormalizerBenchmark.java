@@ -0,0 +1,78 @@
+package org.dice_research.squirrel.data.uri.norm;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark measuring the throughput of the {@link NormalizerImpl} for URIs
+ * that are already normalized (the common case in which no new object should
+ * be created) and for URIs that need several normalization steps. Run it with
+ * {@code -prof gc} to see the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizerBenchmark {
+
+    private static final int NUMBER_OF_URIS = 1 << 10;
+
+    @State(Scope.Benchmark)
+    public static class NormalizerState {
+
+        @Param({ "normalized", "denormalized" })
+        public String uriType;
+
+        public NormalizerImpl normalizer = new NormalizerImpl();
+        public CrawleableUri uris[];
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            uris = new CrawleableUri[NUMBER_OF_URIS];
+            for (int i = 0; i < uris.length; ++i) {
+                String uri;
+                if ("normalized".equals(uriType)) {
+                    uri = "http://example" + (i & 0xF) + ".org/data/resource_" + i + "?format=ttl&page=" + (i & 7);
+                } else {
+                    uri = "HTTP://Example" + (i & 0xF) + ".ORG:80/data/./x/../resource_%7E" + i
+                            + "?page=" + (i & 7) + "&jsessionid=4711&format=ttl#top";
+                }
+                uris[i] = new CrawleableUri(new URI(uri));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        public int counter = 0;
+    }
+
+    @Benchmark
+    public CrawleableUri normalize(NormalizerState state, ThreadState threadState) {
+        return state.normalizer.normalize(state.uris[threadState.counter++ & (NUMBER_OF_URIS - 1)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(NormalizerBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,84 @@
+package org.dice_research.squirrel.data.uri.norm;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class NormalizerImplTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+                // already normalized
+                { "http://example.org/a/b?x=1&y=2", "http://example.org/a/b?x=1&y=2" },
+                // scheme and host
+                { "HTTP://Example.ORG/Path", "http://example.org/Path" },
+                { "http://User@Example.org/", "http://User@example.org/" },
+                // ports
+                { "http://example.org:80/a", "http://example.org/a" },
+                { "https://example.org:443/a", "https://example.org/a" },
+                { "http://example.org:/a", "http://example.org/a" },
+                { "http://example.org:8080/a", "http://example.org:8080/a" },
+                { "https://example.org:80/a", "https://example.org:80/a" },
+                { "http://[::1]:80/a", "http://[::1]/a" },
+                // empty path
+                { "http://example.org", "http://example.org/" },
+                { "http://example.org?a=1", "http://example.org/?a=1" },
+                // dot segments and empty segments
+                { "http://example.org/a/./b/../c", "http://example.org/a/c" },
+                { "http://example.org/a/b/..", "http://example.org/a/" },
+                { "http://example.org/a/.", "http://example.org/a/" },
+                { "http://example.org/../a", "http://example.org/a" },
+                { "http://example.org//a///b/", "http://example.org/a/b/" },
+                // percent-encoding
+                { "http://example.org/%7Euser/%41%2d", "http://example.org/~user/A-" },
+                { "http://example.org/a%2fb%c3%a4", "http://example.org/a%2Fb%C3%A4" },
+                { "http://example.org/%2E%2E/a", "http://example.org/a" },
+                // fragment
+                { "http://example.org/a#section", "http://example.org/a" },
+                // query parameters
+                { "http://example.org/?b=2&a=1&c=3", "http://example.org/?a=1&b=2&c=3" },
+                { "http://example.org/?b=1&a=2&b=0", "http://example.org/?a=2&b=1&b=0" },
+                { "http://example.org/?a=1&&b=2&", "http://example.org/?a=1&b=2" },
+                { "http://example.org/?", "http://example.org/" },
+                // session parameters
+                { "http://example.org/?sid=123&a=1&PHPSESSID=abc", "http://example.org/?a=1" },
+                { "http://example.org/?JSESSIONID=1", "http://example.org/" },
+                { "http://example.org/a;jsessionid=ABC?x=1", "http://example.org/a?x=1" },
+                { "http://example.org/a;v=1/b", "http://example.org/a;v=1/b" } });
+    }
+
+    private String uri;
+    private String expected;
+
+    public NormalizerImplTest(String uri, String expected) {
+        this.uri = uri;
+        this.expected = expected;
+    }
+
+    @Test
+    public void test() throws Exception {
+        NormalizerImpl normalizer = new NormalizerImpl();
+        CrawleableUri original = new CrawleableUri(new URI(uri), InetAddress.getByAddress(new byte[] { 127, 0, 0, 1 }));
+        original.addData("key", "value");
+        CrawleableUri normalized = normalizer.normalize(original);
+        Assert.assertEquals(expected, normalized.getUri().toString());
+        if (uri.equals(expected)) {
+            Assert.assertSame(original, normalized);
+        } else {
+            Assert.assertEquals(original.getIpAddress(), normalized.getIpAddress());
+            Assert.assertEquals("value", normalized.getData("key"));
+        }
+        // the normal form is stable
+        Assert.assertSame(expected, normalizer.normalize(expected));
+    }
+}
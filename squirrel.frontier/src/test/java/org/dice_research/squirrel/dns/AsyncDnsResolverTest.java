@@ -0,0 +1,133 @@
+package org.dice_research.squirrel.dns;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncDnsResolverTest {
+
+    private static final String KNOWN_HOST = "example.org";
+
+    @Test
+    public void testSideBuffer() throws Exception {
+        InetAddress address = InetAddress.getByAddress(new byte[] { 10, 0, 0, 1 });
+        AtomicInteger lookups = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncDnsResolver resolver = new AsyncDnsResolver(new DnsCache(), 2, 100, host -> {
+            lookups.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+            }
+            return resolve(host, address);
+        });
+        List<CrawleableUri> resolved = new ArrayList<>();
+        Semaphore resolvedSignal = new Semaphore(0);
+        resolver.setResolvedUrisConsumer(uris -> {
+            synchronized (resolved) {
+                resolved.addAll(uris);
+            }
+            resolvedSignal.release();
+        });
+
+        // all URIs of the host wait for the same lookup
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertFalse(resolver.resolve(new CrawleableUri(new URI("http://example.org/" + i))));
+        }
+        // the unknown host is looked up in parallel
+        Assert.assertFalse(resolver.resolve(new CrawleableUri(new URI("http://unknown.example.com/"))));
+        Assert.assertEquals(4, resolver.getNumberOfWaitingUris());
+        Assert.assertTrue(resolver.hasPendingLookups());
+        release.countDown();
+        // the URIs of the failed lookup are handed over as well
+        Assert.assertTrue(resolvedSignal.tryAcquire(2, 5, TimeUnit.SECONDS));
+
+        // wait until the consumer calls have returned
+        for (int i = 0; (i < 50) && resolver.hasPendingLookups(); ++i) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(0, resolver.getNumberOfWaitingUris());
+        Assert.assertEquals(2, lookups.get());
+        Assert.assertEquals(1, resolver.getFailedLookups());
+        Assert.assertEquals(4, resolved.size());
+        for (CrawleableUri uri : resolved) {
+            if ("unknown.example.com".equals(uri.getUri().getHost())) {
+                Assert.assertNull(uri.getIpAddress());
+            } else {
+                Assert.assertEquals(address, uri.getIpAddress());
+            }
+        }
+
+        // both hosts are cached now
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/4"));
+        Assert.assertTrue(resolver.resolve(uri));
+        Assert.assertEquals(address, uri.getIpAddress());
+        uri = new CrawleableUri(new URI("http://unknown.example.com/2"));
+        Assert.assertTrue(resolver.resolve(uri));
+        Assert.assertNull(uri.getIpAddress());
+        Assert.assertEquals(2, lookups.get());
+        Assert.assertEquals(2, resolver.getCache().getHits());
+        resolver.close();
+    }
+
+    @Test
+    public void testFullSideBuffer() throws Exception {
+        InetAddress address = InetAddress.getByAddress(new byte[] { 10, 0, 0, 1 });
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncDnsResolver resolver = new AsyncDnsResolver(new DnsCache(), 1, 1, host -> {
+            if (host.equals("slow.example.org")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                }
+            }
+            return address;
+        });
+        resolver.setResolvedUrisConsumer(uris -> {
+        });
+        Assert.assertFalse(resolver.resolve(new CrawleableUri(new URI("http://slow.example.org/"))));
+        // the buffer is full, i.e., the second host is resolved directly
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/"));
+        Assert.assertTrue(resolver.resolve(uri));
+        Assert.assertEquals(address, uri.getIpAddress());
+        Assert.assertEquals(1, resolver.getBlockingLookups());
+        release.countDown();
+        resolver.close();
+    }
+
+    @Test
+    public void testCacheExpiration() throws Exception {
+        InetAddress address = InetAddress.getByAddress(new byte[] { 10, 0, 0, 1 });
+        DnsCache cache = new DnsCache(60000, -1, 10);
+        cache.put("Example.org", address);
+        cache.put("unknown.example.com", null);
+        Assert.assertEquals(address, cache.get("example.org").getAddress());
+        // the negative entry expired directly
+        Assert.assertNull(cache.get("unknown.example.com"));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0.5, cache.getHitRate(), 0.0001);
+
+        for (int i = 0; i < 20; ++i) {
+            cache.put("host" + i + ".example.org", address);
+        }
+        Assert.assertTrue(cache.size() <= 10);
+    }
+
+    private static InetAddress resolve(String host, InetAddress address) throws UnknownHostException {
+        if (KNOWN_HOST.equals(host)) {
+            return address;
+        }
+        throw new UnknownHostException(host);
+    }
+}
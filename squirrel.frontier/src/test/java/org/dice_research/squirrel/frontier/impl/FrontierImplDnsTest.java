@@ -0,0 +1,78 @@
+package org.dice_research.squirrel.frontier.impl;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.filter.InMemoryKnownUriFilter;
+import org.dice_research.squirrel.data.uri.norm.NormalizerImpl;
+import org.dice_research.squirrel.dns.AsyncDnsResolver;
+import org.dice_research.squirrel.dns.DnsCache;
+import org.dice_research.squirrel.queue.ConcurrentInMemoryQueue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that URIs waiting in the {@link AsyncDnsResolver} are neither lost
+ * nor ignored by the termination check.
+ */
+public class FrontierImplDnsTest {
+
+    @Test
+    public void testUrisAreMarkedAsKnownAfterQueueing() throws Exception {
+        InetAddress address = InetAddress.getByAddress(new byte[] { 10, 0, 0, 1 });
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncDnsResolver resolver = new AsyncDnsResolver(new DnsCache(), 2, 100, host -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+            }
+            if ("example.org".equals(host)) {
+                return address;
+            }
+            throw new UnknownHostException(host);
+        });
+        InMemoryKnownUriFilter filter = new InMemoryKnownUriFilter();
+        ConcurrentInMemoryQueue queue = new ConcurrentInMemoryQueue();
+        FrontierImpl frontier = new FrontierImpl(new NormalizerImpl(), filter, queue, false);
+        frontier.setDnsResolver(resolver);
+        QueueBasedTerminationCheck terminationCheck = new QueueBasedTerminationCheck(resolver);
+
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/data"));
+        CrawleableUri unknownHostUri = new CrawleableUri(new URI("http://unknown.example.com/data"));
+        frontier.addNewUri(uri);
+        // a second occurrence of the waiting URI is not queued twice
+        frontier.addNewUri(new CrawleableUri(new URI("http://example.org/data")));
+        frontier.addNewUri(unknownHostUri);
+
+        // the URIs are waiting, i.e., they are neither queued nor known
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertTrue(resolver.hasPendingLookups());
+        Assert.assertTrue(filter.isUriGood(uri));
+        Assert.assertTrue(filter.isUriGood(unknownHostUri));
+        Assert.assertFalse(terminationCheck.shouldFrontierTerminate(queue));
+        Assert.assertFalse(terminationCheck.shouldFrontierTerminate(queue));
+
+        release.countDown();
+        for (int i = 0; (i < 50) && resolver.hasPendingLookups(); ++i) {
+            Thread.sleep(100);
+        }
+        Assert.assertFalse(resolver.hasPendingLookups());
+
+        List<CrawleableUri> nextUris = frontier.getNextUris();
+        Assert.assertNotNull(nextUris);
+        Assert.assertEquals(1, nextUris.size());
+        Assert.assertEquals(uri, nextUris.get(0));
+        Assert.assertEquals(address, nextUris.get(0).getIpAddress());
+        Assert.assertTrue(queue.isEmpty());
+        // both URIs are known now, the URI with the unknown host has been ignored
+        // like it would have been by the synchronous resolution
+        Assert.assertFalse(filter.isUriGood(uri));
+        Assert.assertFalse(filter.isUriGood(unknownHostUri));
+        Assert.assertTrue(terminationCheck.shouldFrontierTerminate(queue));
+        frontier.close();
+    }
+}
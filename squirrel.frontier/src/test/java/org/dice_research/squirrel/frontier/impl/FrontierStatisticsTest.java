@@ -0,0 +1,39 @@
+package org.dice_research.squirrel.frontier.impl;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.Arrays;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.queue.ConcurrentInMemoryQueue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrontierStatisticsTest {
+
+    /**
+     * A restarted frontier has to report the URIs of its persistent queue and
+     * filter instead of starting at 0.
+     */
+    @Test
+    public void testInitializationAfterRestart() throws Exception {
+        InetAddress ip1 = InetAddress.getByAddress(new byte[] { 10, 0, 0, 1 });
+        InetAddress ip2 = InetAddress.getByAddress(new byte[] { 10, 0, 0, 2 });
+        ConcurrentInMemoryQueue queue = new ConcurrentInMemoryQueue();
+        queue.addUris(Arrays.asList(new CrawleableUri(new URI("http://example.org/1"), ip1),
+                new CrawleableUri(new URI("http://example.org/2"), ip1),
+                new CrawleableUri(new URI("http://example.com/1"), ip2)));
+        Assert.assertEquals(3, queue.getNumberOfUris());
+
+        FrontierStatistics statistics = new FrontierStatistics();
+        // 10 known URIs, 3 of them are still in the queue
+        statistics.initialize(10, queue.getNumberOfUris());
+        Assert.assertEquals(3, statistics.getPendingUris());
+        Assert.assertEquals(7, statistics.getCrawledUris());
+
+        statistics.addDequeuedUris(2);
+        statistics.addCrawledUris(2);
+        Assert.assertEquals(1, statistics.getPendingUris());
+        Assert.assertEquals(9, statistics.getCrawledUris());
+    }
+}
@@ -0,0 +1,76 @@
+package org.dice_research.squirrel.frontier.impl;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.filter.InMemoryKnownUriFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecrawlSchedulerTest {
+
+    @Test
+    public void testPagedOutdatedUris() throws Exception {
+        InMemoryKnownUriFilter filter = new InMemoryKnownUriFilter(true, 1000000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; ++i) {
+            filter.add(new CrawleableUri(new URI("http://example.org/due/" + i)), now, now - 1000 + i);
+            filter.add(new CrawleableUri(new URI("http://example.org/later/" + i)), now, now + 100000);
+        }
+        // a URI that is added again gets the new timestamp
+        filter.add(new CrawleableUri(new URI("http://example.org/due/9")), now, now + 100000);
+
+        List<CrawleableUri> page = filter.getOutdatedUris(4);
+        Assert.assertEquals(4, page.size());
+        // the URIs that are due for the longest time come first
+        for (int i = 0; i < page.size(); ++i) {
+            Assert.assertEquals(new URI("http://example.org/due/" + i), page.get(i).getUri());
+        }
+        page = filter.getOutdatedUris(10);
+        Assert.assertEquals(5, page.size());
+        // all due URIs are in process now
+        Assert.assertEquals(0, filter.getOutdatedUris(10).size());
+
+        // crawled URIs are not outdated anymore
+        filter.add(new CrawleableUri(new URI("http://example.org/due/0")), now, now + 100000);
+        Assert.assertEquals(0, filter.getOutdatedUris().size());
+    }
+
+    @Test
+    public void testInProcessTimeout() throws Exception {
+        long recrawlTime = 1000;
+        InMemoryKnownUriFilter filter = new InMemoryKnownUriFilter(true, recrawlTime);
+        long now = System.currentTimeMillis();
+        // the last crawl is more than three recrawl times ago
+        filter.add(new CrawleableUri(new URI("http://example.org/stuck")), now - 10 * recrawlTime, now - 1);
+        Assert.assertEquals(1, filter.getOutdatedUris(10).size());
+        // although in process, the URI is due again
+        Assert.assertEquals(1, filter.getOutdatedUris(10).size());
+    }
+
+    @Test
+    public void testScheduler() throws Exception {
+        InMemoryKnownUriFilter filter = new InMemoryKnownUriFilter(true, 1000000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 25; ++i) {
+            filter.add(new CrawleableUri(new URI("http://example.org/" + i)), now, now - 1);
+        }
+        List<List<CrawleableUri>> pages = new ArrayList<>();
+        RecrawlScheduler scheduler = new RecrawlScheduler(filter, pages::add, 1000000, 10);
+        Assert.assertEquals(25, scheduler.scheduleDueUris());
+        Assert.assertEquals(3, pages.size());
+        Set<CrawleableUri> uris = new HashSet<>();
+        for (List<CrawleableUri> page : pages) {
+            Assert.assertTrue(page.size() <= 10);
+            uris.addAll(page);
+        }
+        Assert.assertEquals(25, uris.size());
+        Assert.assertEquals(0, scheduler.scheduleDueUris());
+        Assert.assertEquals(25, scheduler.getScheduledUris());
+        scheduler.close();
+    }
+}
@@ -0,0 +1,124 @@
+package org.dice_research.squirrel.queue;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.CrawleableUriFactory4Tests;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.dice_research.squirrel.queue.DequeuePolicy.Rotation;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the packaging of URIs into chunks based on a {@link DequeuePolicy}.
+ */
+public class DequeuePolicyTest {
+
+    private CrawleableUriFactory4Tests factory = new CrawleableUriFactory4Tests();
+
+    @Test
+    public void testChunkSizeLimit() throws Exception {
+        ConcurrentInMemoryQueue queue = new ConcurrentInMemoryQueue(new DequeuePolicy(10, 0, 1, Rotation.ROUND_ROBIN));
+        InetAddress ip = InetAddress.getByName("192.168.100.1");
+        addUris(queue, ip, 25);
+        Assert.assertEquals(Long.valueOf(25), queue.getBacklogPerIp().get(ip));
+
+        List<CrawleableUri> chunk = queue.getNextUris();
+        Assert.assertEquals(10, chunk.size());
+        // the IP is blocked until the chunk has been crawled
+        Assert.assertNull(queue.getNextUris());
+        Assert.assertEquals(Long.valueOf(15), queue.getBacklogPerIp().get(ip));
+        queue.markIpAddressAsAccessible(ip);
+        Assert.assertEquals(10, queue.getNextUris().size());
+        queue.markIpAddressAsAccessible(ip);
+        Assert.assertEquals(5, queue.getNextUris().size());
+        queue.markIpAddressAsAccessible(ip);
+        Assert.assertNull(queue.getNextUris());
+        Assert.assertTrue(queue.getBacklogPerIp().isEmpty());
+    }
+
+    @Test
+    public void testChunkSizeLimitOfInMemoryQueue() throws Exception {
+        InMemoryQueue queue = new InMemoryQueue();
+        queue.setMaxChunkSize(10);
+        InetAddress ip = InetAddress.getByName("192.168.100.1");
+        addUris(queue, ip, 15);
+        Assert.assertEquals(10, queue.getNextUris().size());
+        Assert.assertNull(queue.getNextUris());
+        queue.markIpAddressAsAccessible(ip);
+        Assert.assertEquals(5, queue.getNextUris().size());
+    }
+
+    @Test
+    public void testMergingOfSmallHosts() throws Exception {
+        ConcurrentInMemoryQueue queue = new ConcurrentInMemoryQueue(new DequeuePolicy(10, 5, 3, Rotation.ROUND_ROBIN));
+        InetAddress bigIp = InetAddress.getByName("192.168.100.1");
+        addUris(queue, InetAddress.getByName("192.168.100.2"), 1);
+        addUris(queue, bigIp, 20);
+        for (int i = 3; i < 7; ++i) {
+            addUris(queue, InetAddress.getByName("192.168.100." + i), 2);
+        }
+
+        // the first small host is merged with the next small hosts but not with the
+        // big host
+        List<CrawleableUri> chunk = queue.getNextUris();
+        Assert.assertEquals(5, chunk.size());
+        Set<InetAddress> ips = getIps(chunk);
+        Assert.assertEquals(3, ips.size());
+        Assert.assertFalse(ips.contains(bigIp));
+        Assert.assertEquals(3, queue.getNumberOfBlockedIps());
+
+        // the big host did not lose its turn
+        chunk = queue.getNextUris();
+        Assert.assertEquals(10, chunk.size());
+        Assert.assertEquals(1, getIps(chunk).size());
+        Assert.assertEquals(bigIp, chunk.get(0).getIpAddress());
+
+        chunk = queue.getNextUris();
+        Assert.assertEquals(4, chunk.size());
+        Assert.assertEquals(2, getIps(chunk).size());
+        Assert.assertNull(queue.getNextUris());
+    }
+
+    @Test
+    public void testWeightedRotation() throws Exception {
+        ConcurrentInMemoryQueue queue = new ConcurrentInMemoryQueue(new DequeuePolicy(10, 0, 1, Rotation.WEIGHTED));
+        InetAddress bigIp = InetAddress.getByName("192.168.100.1");
+        InetAddress smallIp = InetAddress.getByName("192.168.100.2");
+        addUris(queue, bigIp, 1000);
+        addUris(queue, smallIp, 50);
+
+        Map<InetAddress, Integer> turns = new HashMap<>();
+        List<CrawleableUri> chunk;
+        // simulate two workers that return their chunks directly
+        for (int i = 0; i < 20; ++i) {
+            chunk = queue.getNextUris();
+            turns.merge(chunk.get(0).getIpAddress(), 1, Integer::sum);
+            queue.markIpAddressAsAccessible(chunk.get(0).getIpAddress());
+        }
+        // both IPs are served but the IP with the larger backlog gets more turns
+        Assert.assertTrue(turns.get(smallIp) > 0);
+        Assert.assertTrue(turns.get(bigIp) > turns.get(smallIp));
+    }
+
+    private void addUris(IpAddressBasedQueue queue, InetAddress ip, int count) throws Exception {
+        for (int i = 0; i < count; ++i) {
+            queue.addUri(factory.create(new URI("http://" + ip.getHostAddress() + "/" + i), ip,
+                    UriType.DEREFERENCEABLE));
+        }
+    }
+
+    private Set<InetAddress> getIps(List<CrawleableUri> chunk) {
+        Set<InetAddress> ips = new HashSet<>();
+        for (CrawleableUri uri : chunk) {
+            ips.add(uri.getIpAddress());
+        }
+        return ips;
+    }
+}
@@ -0,0 +1,102 @@
+package org.dice_research.squirrel.queue;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.CrawleableUriFactory4Tests;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing the throughput of the {@link InMemoryQueue} and the
+ * {@link ConcurrentInMemoryQueue} if several threads add URIs and retrieve
+ * chunks in parallel. Each operation adds a single URI, requests the next chunk
+ * and marks the IP of this chunk as accessible again. The {@link #main(String[])}
+ * method runs the benchmark with 1, 8 and 64 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IpAddressBasedQueueBenchmark {
+
+    private static final int NUMBER_OF_IPS = 1024;
+    private static final int NUMBER_OF_URIS = 1 << 16;
+
+    @State(Scope.Benchmark)
+    public static class QueueState {
+
+        @Param({ "InMemoryQueue", "ConcurrentInMemoryQueue" })
+        public String queueType;
+
+        public IpAddressBasedQueue queue;
+        public CrawleableUri uris[];
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            switch (queueType) {
+            case "InMemoryQueue":
+                queue = new InMemoryQueue();
+                break;
+            case "ConcurrentInMemoryQueue":
+                queue = new ConcurrentInMemoryQueue();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown queue type " + queueType);
+            }
+            queue.open();
+            CrawleableUriFactory4Tests factory = new CrawleableUriFactory4Tests();
+            InetAddress ips[] = new InetAddress[NUMBER_OF_IPS];
+            for (int i = 0; i < ips.length; ++i) {
+                ips[i] = InetAddress.getByAddress(new byte[] { 10, 0, (byte) (i >> 8), (byte) i });
+            }
+            uris = new CrawleableUri[NUMBER_OF_URIS];
+            for (int i = 0; i < uris.length; ++i) {
+                uris[i] = factory.create(new URI("http://example.org/uri_" + i), ips[i % ips.length],
+                        UriType.DEREFERENCEABLE);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        public int counter = 0;
+    }
+
+    @Benchmark
+    public List<CrawleableUri> addAndGet(QueueState state, ThreadState threadState) {
+        state.queue.addUri(state.uris[threadState.counter++ & (NUMBER_OF_URIS - 1)]);
+        List<CrawleableUri> chunk = state.queue.getNextUris();
+        if ((chunk != null) && (chunk.size() > 0)) {
+            state.queue.markIpAddressAsAccessible(chunk.get(0).getIpAddress());
+        }
+        return chunk;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] { 1, 8, 64 }) {
+            Options options = new OptionsBuilder().include(IpAddressBasedQueueBenchmark.class.getSimpleName())
+                    .threads(threads).build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -60,6 +60,14 @@ public class IpAddressBasedQueueIpBlockingTest {
         }
     }
 
+    @Test
+    public void testShardedQueue() throws Exception {
+        for (int i = 0; i < 3; ++i) {
+            queue = new ConcurrentInMemoryQueue();
+            startTestRun(queue);
+        }
+    }
+
     private void startTestRun(IpAddressBasedQueue queue) throws Exception {
         UriAdder adder = new UriAdder(
                 new InetAddress[] { InetAddress.getByName("192.168.100.1"), InetAddress.getByName("192.168.200.1") },
@@ -117,8 +117,15 @@ public class IpAddressBasedQueueIpPackagingTest {
 
     @Test
     public void test() throws Exception {
-        IpAddressBasedQueue queue = new InMemoryQueue();
+        runTest(new InMemoryQueue());
+    }
+
+    @Test
+    public void testShardedQueue() throws Exception {
+        runTest(new ConcurrentInMemoryQueue());
+    }
 
+    private void runTest(IpAddressBasedQueue queue) throws Exception {
         for (int i = 0; i < uris.length; ++i) {
             queue.addUri(uris[i]);
         }
@@ -0,0 +1,95 @@
+package org.dice_research.squirrel.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dice_research.squirrel.MongoDBBasedTest;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.CrawleableUriFactory4Tests;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MongoDBBatchedQueueTest extends MongoDBBasedTest {
+
+    private List<CrawleableUri> uris = new ArrayList<CrawleableUri>();
+    private MongoDBBatchedQueue mongodbQueue;
+
+    @Before
+    public void setUp() throws Exception {
+        mongodbQueue = new MongoDBBatchedQueue(DB_HOST_NAME, DB_PORT);
+        mongodbQueue.open();
+        mongodbQueue.purge();
+
+        CrawleableUriFactory4Tests cuf = new CrawleableUriFactory4Tests();
+        uris.add(cuf.create(new URI("http://localhost/sparql"), InetAddress.getByName("127.0.0.1"), UriType.SPARQL));
+        uris.add(cuf.create(new URI("http://dbpedia.org/resource/New_York"), InetAddress.getByName("127.0.0.1"),
+                UriType.DEREFERENCEABLE));
+        uris.add(cuf.create(new URI("http://dbpedia.org/resource/Moscow"), InetAddress.getByName("127.0.0.1"),
+                UriType.DEREFERENCEABLE));
+        uris.add(cuf.create(new URI("http://example.org/dump.nt"), InetAddress.getByName("127.0.0.2"),
+                UriType.DUMP));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mongodbQueue.purge();
+        mongodbQueue.close();
+    }
+
+    @Test
+    public void addUris() throws Exception {
+        assertTrue(mongodbQueue.isEmpty());
+        mongodbQueue.addUris(uris);
+        assertEquals(4, mongodbQueue.length());
+        // adding the same URIs again should not change the queue
+        mongodbQueue.addUris(uris);
+        mongodbQueue.addUri(uris.get(0));
+        assertEquals(4, mongodbQueue.length());
+        assertFalse(mongodbQueue.isEmpty());
+    }
+
+    @Test
+    public void getNextUris() throws Exception {
+        mongodbQueue.addUris(uris);
+
+        List<CrawleableUri> chunk = mongodbQueue.getNextUris();
+        InetAddress firstIp = chunk.get(0).getIpAddress();
+        // the second chunk has to have a different IP
+        List<CrawleableUri> secondChunk = mongodbQueue.getNextUris();
+        assertTrue(!firstIp.equals(secondChunk.get(0).getIpAddress()));
+        assertEquals(2, mongodbQueue.getNumberOfBlockedIps());
+        // both IPs are blocked
+        assertNull(mongodbQueue.getNextUris());
+
+        Set<CrawleableUri> retrievedUris = new HashSet<>();
+        retrievedUris.addAll(chunk);
+        retrievedUris.addAll(secondChunk);
+        mongodbQueue.markIpAddressAsAccessible(chunk.get(0).getIpAddress());
+        mongodbQueue.markIpAddressAsAccessible(secondChunk.get(0).getIpAddress());
+        // get the remaining chunk of 127.0.0.1
+        chunk = mongodbQueue.getNextUris();
+        while (chunk != null) {
+            for (CrawleableUri uri : chunk) {
+                assertEquals(chunk.get(0).getType(), uri.getType());
+                assertEquals(chunk.get(0).getIpAddress(), uri.getIpAddress());
+            }
+            retrievedUris.addAll(chunk);
+            mongodbQueue.markIpAddressAsAccessible(chunk.get(0).getIpAddress());
+            chunk = mongodbQueue.getNextUris();
+        }
+        assertEquals(new HashSet<>(uris), retrievedUris);
+        assertTrue(mongodbQueue.isEmpty());
+        assertEquals(0, mongodbQueue.getNumberOfBlockedIps());
+    }
+}
@@ -0,0 +1,200 @@
+package com;
+
+import com.graph.VisualisationGraph;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact status update from the Frontier to the Web-Service. It contains only the values that changed since the
+ * previous update, all other values are {@code null}. A full update contains all values, i.e., a receiver that missed
+ * previous updates (e.g., because it has been started later) is up to date again after receiving it. The receiver merges
+ * the updates into a state with {@link #merge(SquirrelWebDelta)} and creates {@link SquirrelWebObject}s from this state
+ * with {@link #toSquirrelWebObject()}.
+ */
+public class SquirrelWebDelta implements Serializable {
+
+    static final long serialVersionUID = 1L;
+
+    private long sequenceNumber;
+    private boolean full;
+    private long runtimeInSeconds;
+
+    private Integer countOfWorker;
+    private Integer countOfDeadWorker;
+    private Integer countOfCrawledURIs;
+    private Integer countOfPendingURIs;
+
+    private List<String> pendingURIs;
+    private Map<String, List<String>> IPMapPendingURIs;
+    private List<String> nextCrawledURIs;
+    private VisualisationGraph graph;
+
+    public SquirrelWebDelta() {
+    }
+
+    /**
+     * Constructor
+     *
+     * @param sequenceNumber the number of this update. It is increased by the sender for every update
+     * @param full           {@code true} if this update contains all values
+     */
+    public SquirrelWebDelta(long sequenceNumber, boolean full) {
+        this.sequenceNumber = sequenceNumber;
+        this.full = full;
+    }
+
+    /**
+     * @return {@code true} if this update contains at least one value apart from the runtime
+     */
+    public boolean hasChanges() {
+        return full || countOfWorker != null || countOfDeadWorker != null || countOfCrawledURIs != null
+            || countOfPendingURIs != null || pendingURIs != null || IPMapPendingURIs != null || nextCrawledURIs != null
+            || graph != null;
+    }
+
+    /**
+     * Merges the given update into this state. The values of a full update replace all values of this state, the
+     * values of other updates replace only the values they contain.
+     *
+     * @param delta the update that should be merged into this state
+     */
+    public void merge(SquirrelWebDelta delta) {
+        sequenceNumber = delta.sequenceNumber;
+        runtimeInSeconds = delta.runtimeInSeconds;
+        if (delta.full) {
+            full = true;
+            countOfWorker = delta.countOfWorker;
+            countOfDeadWorker = delta.countOfDeadWorker;
+            countOfCrawledURIs = delta.countOfCrawledURIs;
+            countOfPendingURIs = delta.countOfPendingURIs;
+            pendingURIs = delta.pendingURIs;
+            IPMapPendingURIs = delta.IPMapPendingURIs;
+            nextCrawledURIs = delta.nextCrawledURIs;
+            graph = delta.graph;
+        } else {
+            countOfWorker = (delta.countOfWorker != null) ? delta.countOfWorker : countOfWorker;
+            countOfDeadWorker = (delta.countOfDeadWorker != null) ? delta.countOfDeadWorker : countOfDeadWorker;
+            countOfCrawledURIs = (delta.countOfCrawledURIs != null) ? delta.countOfCrawledURIs : countOfCrawledURIs;
+            countOfPendingURIs = (delta.countOfPendingURIs != null) ? delta.countOfPendingURIs : countOfPendingURIs;
+            pendingURIs = (delta.pendingURIs != null) ? delta.pendingURIs : pendingURIs;
+            IPMapPendingURIs = (delta.IPMapPendingURIs != null) ? delta.IPMapPendingURIs : IPMapPendingURIs;
+            nextCrawledURIs = (delta.nextCrawledURIs != null) ? delta.nextCrawledURIs : nextCrawledURIs;
+            graph = (delta.graph != null) ? delta.graph : graph;
+        }
+    }
+
+    /**
+     * Creates a new {@link SquirrelWebObject} containing the values of this state.
+     *
+     * @return a new, written {@link SquirrelWebObject}
+     */
+    @SuppressWarnings("unchecked")
+    public SquirrelWebObject toSquirrelWebObject() {
+        SquirrelWebObject object = new SquirrelWebObject();
+        try {
+            object.setRuntimeInSeconds(runtimeInSeconds);
+            object.setCountOfWorker((countOfWorker != null) ? countOfWorker : 0);
+            object.setCountOfDeadWorker((countOfDeadWorker != null) ? countOfDeadWorker : 0);
+            object.setCountOfCrawledURIs((countOfCrawledURIs != null) ? countOfCrawledURIs : 0);
+            if (countOfPendingURIs != null) {
+                object.setCountOfPendingURIs(countOfPendingURIs);
+            }
+            object.setPendingURIs((pendingURIs != null) ? pendingURIs : Collections.EMPTY_LIST);
+            object.setIPMapPendingURis((IPMapPendingURIs != null) ? IPMapPendingURIs : Collections.EMPTY_MAP);
+            object.setNextCrawledURIs((nextCrawledURIs != null) ? nextCrawledURIs : Collections.EMPTY_LIST);
+        } catch (IllegalAccessException e) {
+            // a new object can not have been read before
+            throw new IllegalStateException(e);
+        }
+        object.setGraph(graph);
+        return object;
+    }
+
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public long getRuntimeInSeconds() {
+        return runtimeInSeconds;
+    }
+
+    public void setRuntimeInSeconds(long runtimeInSeconds) {
+        this.runtimeInSeconds = runtimeInSeconds;
+    }
+
+    public Integer getCountOfWorker() {
+        return countOfWorker;
+    }
+
+    public void setCountOfWorker(Integer countOfWorker) {
+        this.countOfWorker = countOfWorker;
+    }
+
+    public Integer getCountOfDeadWorker() {
+        return countOfDeadWorker;
+    }
+
+    public void setCountOfDeadWorker(Integer countOfDeadWorker) {
+        this.countOfDeadWorker = countOfDeadWorker;
+    }
+
+    public Integer getCountOfCrawledURIs() {
+        return countOfCrawledURIs;
+    }
+
+    public void setCountOfCrawledURIs(Integer countOfCrawledURIs) {
+        this.countOfCrawledURIs = countOfCrawledURIs;
+    }
+
+    public Integer getCountOfPendingURIs() {
+        return countOfPendingURIs;
+    }
+
+    public void setCountOfPendingURIs(Integer countOfPendingURIs) {
+        this.countOfPendingURIs = countOfPendingURIs;
+    }
+
+    public List<String> getPendingURIs() {
+        return pendingURIs;
+    }
+
+    public void setPendingURIs(List<String> pendingURIs) {
+        this.pendingURIs = pendingURIs;
+    }
+
+    public Map<String, List<String>> getIPMapPendingURIs() {
+        return IPMapPendingURIs;
+    }
+
+    public void setIPMapPendingURIs(Map<String, List<String>> IPMapPendingURIs) {
+        this.IPMapPendingURIs = IPMapPendingURIs;
+    }
+
+    public List<String> getNextCrawledURIs() {
+        return nextCrawledURIs;
+    }
+
+    public void setNextCrawledURIs(List<String> nextCrawledURIs) {
+        this.nextCrawledURIs = nextCrawledURIs;
+    }
+
+    public VisualisationGraph getGraph() {
+        return graph;
+    }
+
+    public void setGraph(VisualisationGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public String toString() {
+        return (full ? "Full" : "Partial") + " status update " + sequenceNumber;
+    }
+}
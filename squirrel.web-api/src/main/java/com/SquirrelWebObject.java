@@ -40,6 +40,10 @@ public class SquirrelWebObject implements Serializable {
     private String nextCrawledURIs;
     //private String crawledURIs;
     private int countOfCrawledURIs;
+    /**
+     * The number of pending URIs if it is known independently of the list of pending URIs
+     */
+    private Integer countOfPendingURIs;
     private int countOfWorker;
     private int countOfDeadWorker;
     private long RuntimeInSeconds;
@@ -239,6 +243,9 @@ public class SquirrelWebObject implements Serializable {
     }
 
     public int getCountOfPendingURIs() {
+        if (countOfPendingURIs != null) {
+            return isReadable(countOfPendingURIs);
+        }
         List<String> ret = StringToList(pendingURIs);
         List<String> error = isReadable(ret);
         if (error == null) {
@@ -367,6 +374,14 @@ public class SquirrelWebObject implements Serializable {
         this.countOfCrawledURIs = countOfCrawledURIs;
     }
 
+    /**
+     * Sets the number of pending URIs. If it is not set, the size of the list of pending URIs is used.
+     */
+    public void setCountOfPendingURIs(int countOfPendingURIs) throws IllegalAccessException {
+        isWritable();
+        this.countOfPendingURIs = countOfPendingURIs;
+    }
+
     public void setNextCrawledURIs(List<String> nextCrawledURIs) throws IllegalAccessException {
         isWritable();
         this.nextCrawledURIs = ListToString(nextCrawledURIs);
@@ -390,6 +405,7 @@ public class SquirrelWebObject implements Serializable {
         return getCountOfCrawledURIs() == that.getCountOfCrawledURIs() &&
             getCountOfWorker() == that.getCountOfWorker() &&
             getCountOfDeadWorker() == that.getCountOfDeadWorker() &&
+            Objects.equals(countOfPendingURIs, that.countOfPendingURIs) &&
             Objects.equals(pendingURIs, that.pendingURIs) &&
             Objects.equals(IPMapPendingURis, that.IPMapPendingURis) &&
             Objects.equals(nextCrawledURIs, that.nextCrawledURIs) &&
@@ -398,7 +414,7 @@ public class SquirrelWebObject implements Serializable {
 
     @Override
     public int hashCode() {
-        int ret = Objects.hash(pendingURIs, IPMapPendingURis, nextCrawledURIs, getCountOfCrawledURIs(), getCountOfWorker(), getCountOfDeadWorker(), graph);
+        int ret = Objects.hash(pendingURIs, IPMapPendingURis, nextCrawledURIs, getCountOfCrawledURIs(), getCountOfWorker(), getCountOfDeadWorker(), countOfPendingURIs, graph);
         int runtimeHash = Long.hashCode(getRuntimeInSeconds() / 15);
         return ret ^ runtimeHash;
     }
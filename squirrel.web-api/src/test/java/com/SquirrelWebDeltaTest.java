@@ -0,0 +1,53 @@
+package com;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SquirrelWebDeltaTest {
+
+    @Test
+    public void merge() {
+        SquirrelWebDelta state = new SquirrelWebDelta();
+
+        SquirrelWebDelta full = new SquirrelWebDelta(0, true);
+        full.setRuntimeInSeconds(1);
+        full.setCountOfWorker(2);
+        full.setCountOfDeadWorker(0);
+        full.setCountOfCrawledURIs(10);
+        full.setCountOfPendingURIs(100);
+        full.setPendingURIs(Arrays.asList("http://example.org/1", "http://example.org/2"));
+        full.setIPMapPendingURIs(Collections.singletonMap("127.0.0.1", Arrays.asList("/1", "/2")));
+        full.setNextCrawledURIs(Arrays.asList("http://example.org/1", "http://example.org/2"));
+        assertTrue(full.hasChanges());
+        state.merge(full);
+
+        SquirrelWebDelta delta = new SquirrelWebDelta(1, false);
+        delta.setRuntimeInSeconds(2);
+        assertFalse("An update with only the runtime shouldn't be sent", delta.hasChanges());
+        delta.setCountOfCrawledURIs(12);
+        assertTrue(delta.hasChanges());
+        state.merge(delta);
+
+        assertEquals(1, state.getSequenceNumber());
+        SquirrelWebObject object = state.toSquirrelWebObject();
+        assertEquals(2, object.getRuntimeInSeconds());
+        assertEquals(2, object.getCountOfWorker());
+        assertEquals(12, object.getCountOfCrawledURIs());
+        assertEquals(100, object.getCountOfPendingURIs());
+        assertEquals(2, object.getPendingURIs().size());
+        assertEquals(2, object.getIpStringListMap().get("127.0.0.1").size());
+
+        // a full update replaces the views
+        full = new SquirrelWebDelta(2, true);
+        full.setCountOfWorker(1);
+        state.merge(full);
+        object = state.toSquirrelWebObject();
+        assertEquals(1, object.getCountOfWorker());
+        assertEquals(0, object.getCountOfCrawledURIs());
+        assertTrue(object.getPendingURIs().isEmpty());
+    }
+}
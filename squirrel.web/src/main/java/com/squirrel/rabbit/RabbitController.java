@@ -29,8 +29,11 @@ public class RabbitController {
     public SquirrelWebObject observeFrontier(@RequestParam(value = "id", defaultValue = "n/a") String property, @RequestParam(value = "percent", defaultValue = "false") String percent) {
         SquirrelWebObject o;
         try {
-        	int id = Boolean.parseBoolean(percent) ? (int) ((Integer.parseInt(property) / 100f) * Application.listenerThread.countSquirrelWebObjects()) : Integer.parseInt(property);
-            o = Application.listenerThread.getSquirrel(id);
+            if (Boolean.parseBoolean(percent)) {
+                o = Application.listenerThread.getSquirrelByPercentage(Integer.parseInt(property));
+            } else {
+                o = Application.listenerThread.getSquirrel(Integer.parseInt(property));
+            }
         } catch (NumberFormatException e) {
             o = Application.listenerThread.getSquirrel();
         }
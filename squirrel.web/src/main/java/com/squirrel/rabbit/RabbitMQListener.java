@@ -2,14 +2,10 @@ package com.squirrel.rabbit;
 
 import java.awt.Color;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeoutException;
 
-import javax.validation.constraints.NotNull;
-
 import org.apache.commons.io.IOUtils;
 import org.dice_research.squirrel.data.uri.CrawleableUriFactoryImpl;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
@@ -23,6 +19,7 @@ import org.hobbit.core.rabbit.RabbitQueueFactoryImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.SquirrelWebDelta;
 import com.SquirrelWebObject;
 import com.graph.VisualisationGraph;
 import com.rabbitmq.client.Channel;
@@ -36,7 +33,15 @@ import com.rabbitmq.client.ConnectionFactory;
  */
 public class RabbitMQListener implements Runnable, DataHandler {
 
-    private List<SquirrelWebObject> dataQueue = new ArrayList<>();
+    /**
+     * All received {@link SquirrelWebObject}s, downsampled to a bounded size. Written only by the thread that holds
+     * the lock of the {@link #currentState}, read by the request threads without locking.
+     */
+    private final TieredHistory<SquirrelWebObject> history = new TieredHistory<>();
+    /**
+     * The current state of the Frontier, merged from all received {@link SquirrelWebDelta}s
+     */
+    private final SquirrelWebDelta currentState = new SquirrelWebDelta();
     private final static String QUEUE_INPUT_GENERAL_NAME = "squirrel.web.in";
     //reuse an already existing queue
     private final static String QUEUE_OUTPUT_URI_NAME = "squirrel.frontier"; // "squirrel.web.out.uri";
@@ -49,8 +54,6 @@ public class RabbitMQListener implements Runnable, DataHandler {
 
     private Logger logger = LoggerFactory.getLogger(RabbitMQListener.class);
 
-    private final static int MAXLENGTHOFHISTORY = 2000;
-
     @Override
     public void run() {
         if (!rabbitConnect(6)) {
@@ -154,7 +157,8 @@ public class RabbitMQListener implements Runnable, DataHandler {
      * @return the latest {@link SquirrelWebObject}
      */
     public SquirrelWebObject getSquirrel() {
-        return getSquirrel(dataQueue.size()-1);
+        SquirrelWebObject ret = history.getLatest();
+        return (ret == null) ? new SquirrelWebObject() : ret;
     }
 
     /**
@@ -163,7 +167,17 @@ public class RabbitMQListener implements Runnable, DataHandler {
      * @return the {@link SquirrelWebObject}
      */
     SquirrelWebObject getSquirrel(int index) {
-        SquirrelWebObject ret = getObject(dataQueue, index);
+        SquirrelWebObject ret = getObject(index);
+        return (ret == null) ? new SquirrelWebObject() : ret;
+    }
+
+    /**
+     * Gets the fetched data from the Frontier. Contains many information about the current crawling status and so on
+     * @param percentage the position in the history. {@code 0} is the oldest entry, {@code 100} is the latest one
+     * @return the {@link SquirrelWebObject}
+     */
+    SquirrelWebObject getSquirrelByPercentage(float percentage) {
+        SquirrelWebObject ret = history.getByPercentage(percentage);
         return (ret == null) ? new SquirrelWebObject() : ret;
     }
 
@@ -172,7 +186,7 @@ public class RabbitMQListener implements Runnable, DataHandler {
      * @return the latest {@link VisualisationGraph}
      */
     VisualisationGraph getCrawledGraph() {
-        return getCrawledGraph(dataQueue.size() - 1);
+        return getCrawledGraph(history.size() - 1);
     }
 
     /**
@@ -181,7 +195,7 @@ public class RabbitMQListener implements Runnable, DataHandler {
      * @return the {@link VisualisationGraph}
      */
     VisualisationGraph getCrawledGraph(int index) {
-        SquirrelWebObject preRet = getObject(dataQueue, index);
+        SquirrelWebObject preRet = getObject(index);
         VisualisationGraph ret;
         if (preRet == null || preRet.getGraph() == null) {
             ret = new VisualisationGraph();
@@ -194,15 +208,9 @@ public class RabbitMQListener implements Runnable, DataHandler {
         return ret;
     }
 
-    private<T> T getObject(List<T> list, int index) {
-        if (list.isEmpty()) {
-            return null;
-        }
-        try {
-            return list.get(index);
-        } catch (IndexOutOfBoundsException e) {
-            return list.get(dataQueue.size()-1);
-        }
+    private SquirrelWebObject getObject(int index) {
+        SquirrelWebObject ret = history.get(index);
+        return (ret == null) ? history.getLatest() : ret;
     }
 
     /**
@@ -211,28 +219,7 @@ public class RabbitMQListener implements Runnable, DataHandler {
      * @return the number of {@link SquirrelWebObject}-objects, that were received from the WebService
      */
     int countSquirrelWebObjects() {
-        return dataQueue.size();
-    }
-
-    /**
-     * Adds a element to a {@link List}, but checks in addition before, if a certain size limit (MAXLENGTHOFHISTORY) is reached. If yes, the method truncates every second element from the list.
-     * <b>Attention:</b> if the list is bigger than MAXLENGTHOFHISTORY*2, then the truncate procedure will execute multiple times.
-     * @param list the {@link List}, in that the element should be added. Must not be null.
-     * @param insertedElement the element, that should be added Must not be null.
-     * @param <T> this method is generic
-     */
-    private <T> void addElementToLimitedList(@NotNull List<T> list, @NotNull T insertedElement) {
-        while (list.size() >= MAXLENGTHOFHISTORY) {
-            List<T> toBeDeleted = new ArrayList<>(MAXLENGTHOFHISTORY >> 1);
-            for (int i = 0; i < list.size(); i++) {
-                if (i%2 == 1) {
-                    toBeDeleted.add(list.get(i));
-                }
-            }
-            list.removeAll(toBeDeleted);
-        }
-
-        list.add(insertedElement);
+        return history.size();
     }
 
     /**
@@ -257,10 +244,22 @@ public class RabbitMQListener implements Runnable, DataHandler {
     @Override
     public void handleData(byte[] bytes) {
         try {
-            SquirrelWebObject o = serializer.deserialize(bytes);
-            logger.debug("The Webservice received an SquirrelWebObject from the Frontier!");
-            addElementToLimitedList(dataQueue, o);
-            logger.trace("Added the new SquirrelWebObject to the dataQueue, contains " + dataQueue.size() + " SquirrelWebObjects now!");
+            Object received = serializer.deserialize(bytes);
+            // the history supports only a single writer
+            synchronized (currentState) {
+                if (received instanceof SquirrelWebDelta) {
+                    logger.debug("The Webservice received the update " + received + " from the Frontier!");
+                    currentState.merge((SquirrelWebDelta) received);
+                    history.add(currentState.toSquirrelWebObject());
+                } else if (received instanceof SquirrelWebObject) {
+                    logger.debug("The Webservice received an SquirrelWebObject from the Frontier!");
+                    history.add((SquirrelWebObject) received);
+                } else {
+                    logger.warn("The Webservice received an unknown object " + received + ". It will be ignored.");
+                    return;
+                }
+            }
+            logger.trace("Added the new SquirrelWebObject to the history, contains " + history.size() + " SquirrelWebObjects now!");
         } catch (IOException e) {
             logger.warn("Serializer " + serializer + " can't deserialze the package of " + bytes.length + " bytes, that the Webservice received", e);
         }
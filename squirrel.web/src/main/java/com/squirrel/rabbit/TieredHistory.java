@@ -0,0 +1,241 @@
+package com.squirrel.rabbit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A history of elements with a bounded memory footprint. The elements are stored in several tiers of ring buffers with
+ * a decreasing time resolution, e.g., one element per second for the last minutes, one element per minute for the last
+ * hours and one element per hour for the last days. Every tier keeps the latest element that has been added within a
+ * time slot of its resolution. If a ring buffer is full, its oldest element is overwritten.
+ * <p>
+ * The tiers are presented as a single list ordered by time. A coarser tier contributes only elements that are older than
+ * the oldest element of the next finer tier. Since the capacities of the tiers are fixed, the access by index needs
+ * constant time (a binary search over a ring buffer of fixed size for every tier).
+ * <p>
+ * The history supports a single writing thread and an arbitrary number of reading threads. Readers never block. A reader
+ * that runs concurrently to the writer may get an element that is newer than the element that has been at the given
+ * index when the reader started.
+ *
+ * @param <T> the type of the elements
+ */
+public class TieredHistory<T> {
+
+    /**
+     * Default resolutions (in ms): per second, per minute and per hour.
+     */
+    public static final long[] DEFAULT_RESOLUTIONS = {1000L, 60000L, 3600000L};
+    /**
+     * Default capacities: 10 minutes per second, 24 hours per minute and 30 days per hour.
+     */
+    public static final int[] DEFAULT_CAPACITIES = {600, 1440, 720};
+
+    /**
+     * The tiers ordered from the finest to the coarsest resolution.
+     */
+    private final Tier<T>[] tiers;
+
+    public TieredHistory() {
+        this(DEFAULT_RESOLUTIONS, DEFAULT_CAPACITIES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param resolutions the resolution (in ms) of every tier, ordered from the finest to the coarsest resolution
+     * @param capacities  the maximum number of elements of every tier
+     */
+    @SuppressWarnings("unchecked")
+    public TieredHistory(long[] resolutions, int[] capacities) {
+        if (resolutions.length != capacities.length || resolutions.length == 0) {
+            throw new IllegalArgumentException("There must be at least one tier and a capacity for every resolution.");
+        }
+        tiers = new Tier[resolutions.length];
+        for (int i = 0; i < tiers.length; i++) {
+            tiers[i] = new Tier<>(resolutions[i], capacities[i]);
+        }
+    }
+
+    /**
+     * Adds the given element with the current time. Must not be called by more than one thread at the same time.
+     *
+     * @param element the element that should be added
+     */
+    public void add(T element) {
+        add(element, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds the given element with the given time. The timestamps of the added elements must not decrease. Must not be
+     * called by more than one thread at the same time.
+     *
+     * @param element   the element that should be added
+     * @param timestamp the time (in ms) of the element
+     */
+    public void add(T element, long timestamp) {
+        for (Tier<T> tier : tiers) {
+            tier.add(element, timestamp);
+        }
+    }
+
+    /**
+     * @return the number of elements that can be retrieved
+     */
+    public int size() {
+        int size = 0;
+        for (int visible : getVisibleCounts()) {
+            size += visible;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the element at the given index.
+     *
+     * @param index the index of the element. Index {@code 0} is the oldest element, index {@code size-1} is the latest one
+     * @return the element or {@code null} if the index is not valid
+     */
+    public T get(int index) {
+        if (index < 0) {
+            return null;
+        }
+        int[] visibleCounts = getVisibleCounts();
+        // go from the coarsest (oldest) to the finest (latest) tier
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            if (index < visibleCounts[i]) {
+                Entry<T> entry = tiers[i].get(index);
+                return (entry == null) ? null : entry.element;
+            }
+            index -= visibleCounts[i];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the element at the given position in time.
+     *
+     * @param percentage the position in the history, {@code 0} is the oldest element, {@code 100} the latest one
+     * @return the element or {@code null} if the history is empty
+     */
+    public T getByPercentage(float percentage) {
+        int size = size();
+        if (size == 0) {
+            return null;
+        }
+        int index = Math.round((Math.max(0, Math.min(100, percentage)) / 100f) * (size - 1));
+        return get(index);
+    }
+
+    /**
+     * @return the latest element or {@code null} if the history is empty
+     */
+    public T getLatest() {
+        Entry<T> entry = tiers[0].getLatest();
+        return (entry == null) ? null : entry.element;
+    }
+
+    /**
+     * Determines for every tier the number of elements that are older than the oldest element of the next finer tier.
+     */
+    private int[] getVisibleCounts() {
+        int[] counts = new int[tiers.length];
+        counts[0] = tiers[0].size();
+        Entry<T> oldestOfFinerTier = tiers[0].get(0);
+        for (int i = 1; i < tiers.length; i++) {
+            if (oldestOfFinerTier == null) {
+                counts[i] = 0;
+            } else {
+                counts[i] = tiers[i].countOlderThan(oldestOfFinerTier.timestamp);
+                if (counts[i] > 0) {
+                    oldestOfFinerTier = tiers[i].get(0);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static class Entry<T> {
+        private final long slot;
+        private final long timestamp;
+        private final T element;
+
+        private Entry(long slot, long timestamp, T element) {
+            this.slot = slot;
+            this.timestamp = timestamp;
+            this.element = element;
+        }
+    }
+
+    /**
+     * A ring buffer with a fixed time resolution.
+     */
+    private static class Tier<T> {
+        private final long resolution;
+        private final int capacity;
+        private final AtomicReferenceArray<Entry<T>> entries;
+        /**
+         * The number of entries that have been written to this tier so far.
+         */
+        private final AtomicLong count = new AtomicLong();
+
+        private Tier(long resolution, int capacity) {
+            this.resolution = resolution;
+            this.capacity = capacity;
+            entries = new AtomicReferenceArray<>(capacity);
+        }
+
+        private void add(T element, long timestamp) {
+            long slot = timestamp / resolution;
+            long n = count.get();
+            Entry<T> entry = new Entry<>(slot, timestamp, element);
+            Entry<T> latest = (n > 0) ? entries.get((int) ((n - 1) % capacity)) : null;
+            if (latest != null && latest.slot == slot) {
+                // replace the entry of the current time slot
+                entries.set((int) ((n - 1) % capacity), entry);
+            } else {
+                entries.set((int) (n % capacity), entry);
+                count.set(n + 1);
+            }
+        }
+
+        private int size() {
+            return (int) Math.min(count.get(), capacity);
+        }
+
+        /**
+         * @param index the index of the entry, {@code 0} is the oldest entry of this tier
+         */
+        private Entry<T> get(int index) {
+            long n = count.get();
+            long first = Math.max(0, n - capacity);
+            if (index >= n - first) {
+                return null;
+            }
+            return entries.get((int) ((first + index) % capacity));
+        }
+
+        private Entry<T> getLatest() {
+            long n = count.get();
+            return (n > 0) ? entries.get((int) ((n - 1) % capacity)) : null;
+        }
+
+        /**
+         * @return the number of entries with a timestamp lower than the given timestamp
+         */
+        private int countOlderThan(long timestamp) {
+            // binary search for the first entry that is not older
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                Entry<T> entry = get(mid);
+                if (entry != null && entry.timestamp < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
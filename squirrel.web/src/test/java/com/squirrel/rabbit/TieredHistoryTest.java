@@ -0,0 +1,182 @@
+package com.squirrel.rabbit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TieredHistoryTest {
+
+    @Test
+    public void testEmptyHistory() {
+        TieredHistory<String> history = new TieredHistory<>(new long[] {10, 100}, new int[] {3, 2});
+        Assert.assertEquals(0, history.size());
+        Assert.assertNull(history.get(0));
+        Assert.assertNull(history.getByPercentage(50));
+        Assert.assertNull(history.getLatest());
+    }
+
+    @Test
+    public void testSlotReplacement() {
+        TieredHistory<String> history = new TieredHistory<>(new long[] {10, 100}, new int[] {3, 2});
+        history.add("a", 0);
+        history.add("b", 5);
+        // both elements belong to the same slot of the finest tier
+        Assert.assertEquals(1, history.size());
+        Assert.assertEquals("b", history.get(0));
+        Assert.assertEquals("b", history.getLatest());
+        history.add("c", 10);
+        Assert.assertEquals(2, history.size());
+        Assert.assertEquals("b", history.get(0));
+        Assert.assertEquals("c", history.get(1));
+    }
+
+    @Test
+    public void testRollOver() {
+        TieredHistory<Long> history = new TieredHistory<>(new long[] {10, 100}, new int[] {3, 2});
+        for (long t = 0; t <= 250; t += 10) {
+            history.add(t, t);
+        }
+        // finest tier: 230, 240, 250 (older elements have been overwritten)
+        // coarse tier: 190 (slot 1) and 250 (slot 2), slot 0 has been overwritten
+        Assert.assertEquals(4, history.size());
+        Assert.assertEquals(Long.valueOf(190), history.get(0));
+        Assert.assertEquals(Long.valueOf(230), history.get(1));
+        Assert.assertEquals(Long.valueOf(240), history.get(2));
+        Assert.assertEquals(Long.valueOf(250), history.get(3));
+        Assert.assertNull(history.get(4));
+        Assert.assertNull(history.get(-1));
+        Assert.assertEquals(Long.valueOf(250), history.getLatest());
+    }
+
+    @Test
+    public void testTierBoundary() {
+        TieredHistory<String> history = new TieredHistory<>(new long[] {10, 100}, new int[] {2, 4});
+        history.add("a", 90);
+        history.add("b", 100);
+        history.add("c", 200);
+        // "b" is the oldest element of the finest tier and the latest of slot 1 of
+        // the coarse tier. It must not be listed twice.
+        Assert.assertEquals(3, history.size());
+        Assert.assertEquals("a", history.get(0));
+        Assert.assertEquals("b", history.get(1));
+        Assert.assertEquals("c", history.get(2));
+    }
+
+    @Test
+    public void testTierWithoutVisibleElements() {
+        TieredHistory<String> history = new TieredHistory<>(new long[] {10, 100, 1000}, new int[] {2, 1, 3});
+        history.add("a", 500);
+        history.add("b", 1500);
+        history.add("c", 1995);
+        history.add("d", 2005);
+        // the middle tier only contains "d", which is already part of the finest
+        // tier, but the coarsest tier still contributes "a"
+        Assert.assertEquals(3, history.size());
+        Assert.assertEquals("a", history.get(0));
+        Assert.assertEquals("c", history.get(1));
+        Assert.assertEquals("d", history.get(2));
+    }
+
+    @Test
+    public void testGetByPercentage() {
+        TieredHistory<Integer> history = new TieredHistory<>(new long[] {1}, new int[] {100});
+        for (int i = 0; i <= 10; i++) {
+            history.add(i, i);
+        }
+        Assert.assertEquals(11, history.size());
+        for (int i = 0; i <= 10; i++) {
+            Assert.assertEquals(Integer.valueOf(i), history.get(i));
+        }
+        Assert.assertEquals(Integer.valueOf(0), history.getByPercentage(0));
+        Assert.assertEquals(Integer.valueOf(3), history.getByPercentage(34));
+        Assert.assertEquals(Integer.valueOf(5), history.getByPercentage(50));
+        Assert.assertEquals(Integer.valueOf(10), history.getByPercentage(100));
+        // values outside of the range are clamped
+        Assert.assertEquals(Integer.valueOf(0), history.getByPercentage(-5));
+        Assert.assertEquals(Integer.valueOf(10), history.getByPercentage(150));
+    }
+
+    @Test
+    public void testOrderOverAllTiers() {
+        TieredHistory<Long> history = new TieredHistory<>(new long[] {10, 100, 1000}, new int[] {5, 5, 5});
+        for (long t = 0; t <= 5000; t += 7) {
+            history.add(t, t);
+        }
+        int size = history.size();
+        Assert.assertTrue(size > 5);
+        for (int i = 1; i < size; i++) {
+            Assert.assertTrue("The elements are not ordered by time at index " + i,
+                history.get(i - 1) < history.get(i));
+        }
+        Assert.assertEquals(history.getLatest(), history.get(size - 1));
+        Assert.assertEquals(history.get(0), history.getByPercentage(0));
+        Assert.assertEquals(history.getLatest(), history.getByPercentage(100));
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        final long[] resolutions = {10, 100, 1000};
+        final int[] capacities = {20, 20, 20};
+        final long lastTimestamp = 200000;
+        final TieredHistory<Long> history = new TieredHistory<>(resolutions, capacities);
+        final AtomicBoolean writerDone = new AtomicBoolean(false);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    long previousLatest = -1;
+                    while (!writerDone.get()) {
+                        Long latest = history.getLatest();
+                        if (latest != null) {
+                            Assert.assertTrue("The latest element went back in time.", latest >= previousLatest);
+                            previousLatest = latest;
+                        }
+                        int size = history.size();
+                        Assert.assertTrue(size <= 60);
+                        for (int i = 0; i < size; i++) {
+                            checkElement(history.get(i), lastTimestamp);
+                        }
+                        checkElement(history.getByPercentage(50), lastTimestamp);
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            readers[r].start();
+        }
+        for (long t = 0; t <= lastTimestamp; t++) {
+            history.add(t, t);
+        }
+        writerDone.set(true);
+        for (Thread reader : readers) {
+            reader.join(30000);
+            Assert.assertFalse(reader.isAlive());
+        }
+        if (error.get() != null) {
+            throw new AssertionError("A reader failed.", error.get());
+        }
+
+        // after the writer finished, the history has to look as if it has been
+        // written without any readers
+        TieredHistory<Long> expected = new TieredHistory<>(resolutions, capacities);
+        for (long t = 0; t <= lastTimestamp; t++) {
+            expected.add(t, t);
+        }
+        Assert.assertEquals(expected.size(), history.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i), history.get(i));
+        }
+    }
+
+    private static void checkElement(Long element, long lastTimestamp) {
+        // a concurrent add may make an index invalid, but it must not lead to
+        // an element that has never been added
+        if (element != null) {
+            Assert.assertTrue(element >= 0 && element <= lastTimestamp);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.dice_research.squirrel.analyzer;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.sink.Sink;
+
+/**
+ * An {@link Analyzer} that is able to analyze data without reading it from a
+ * file. Since a stream can only be consumed once, the eligibility is decided
+ * based on the name and the first bytes of the data.
+ */
+public interface StreamingAnalyzer extends Analyzer {
+
+    /**
+     * Checks whether the analyzer can analyze the given data as stream.
+     *
+     * @param curi
+     *            the URI from which the data has been fetched
+     * @param name
+     *            the name of the file or archive entry (might be {@code null})
+     * @param head
+     *            the first bytes of the data
+     * @return {@code true} if
+     *         {@link #analyze(CrawleableUri, String, InputStream, Sink)} can be
+     *         used for the data
+     */
+    public boolean isElegible(CrawleableUri curi, String name, byte[] head);
+
+    /**
+     * Analyzes the given stream.
+     *
+     * @param curi
+     *            the URI from which the data has been fetched
+     * @param name
+     *            the name of the file or archive entry (might be {@code null})
+     * @param stream
+     *            the data that should be analyzed
+     * @param sink
+     *            the sink to which the extracted data is written
+     * @return an iterator over the serialized URIs found in the data or
+     *         {@code null} if an error occurred
+     */
+    public Iterator<byte[]> analyze(CrawleableUri curi, String name, InputStream stream, Sink sink);
+}
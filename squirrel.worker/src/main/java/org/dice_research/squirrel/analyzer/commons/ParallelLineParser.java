@@ -0,0 +1,213 @@
+package org.dice_research.squirrel.analyzer.commons;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.ReaderRIOT;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.ParserProfile;
+import org.apache.jena.riot.system.RiotLib;
+import org.apache.jena.riot.system.StreamRDF;
+
+/**
+ * Parses line-based RDF files (N-Triples and N-Quads) with several threads.
+ * The file is split into segments at line boundaries and every segment is
+ * parsed by its own parser. The triples of all parsers are written to producers
+ * of a single {@link TripleHandOff}, i.e., the order of the triples is not
+ * preserved.
+ *
+ * <p>
+ * All parsers use the same seed for the allocation of blank nodes. Hence, a
+ * blank node label that occurs in several segments is mapped to the same blank
+ * node.
+ * </p>
+ *
+ * <p>
+ * The threads are created when the first file is split and are stopped when
+ * the parser is closed.
+ * </p>
+ */
+public class ParallelLineParser implements Closeable {
+
+    /**
+     * Files smaller than this are not split.
+     */
+    public static final long DEFAULT_MIN_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    private final int parallelism;
+    private final long minSegmentSize;
+    protected ExecutorService executor;
+    private boolean closed = false;
+
+    public ParallelLineParser() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism
+     *            the maximum number of segments that are parsed in parallel
+     * @param minSegmentSize
+     *            the minimum size of a single segment in bytes
+     */
+    public ParallelLineParser(int parallelism, long minSegmentSize) {
+        this.parallelism = Math.max(1, parallelism);
+        this.minSegmentSize = Math.max(1, minSegmentSize);
+    }
+
+    /**
+     * @return the thread pool of this parser. It is created at the first call.
+     */
+    protected synchronized ExecutorService getExecutor() {
+        if (closed) {
+            throw new IllegalStateException("The parser has already been closed.");
+        }
+        if (executor == null) {
+            int poolId = POOL_COUNTER.incrementAndGet();
+            AtomicInteger threadCounter = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(parallelism, r -> {
+                Thread t = new Thread(r, "line-parser-" + poolId + "-" + threadCounter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Checks whether the given language can be split at line boundaries.
+     */
+    public static boolean isLineBased(Lang lang) {
+        return RDFLanguages.sameLang(Lang.NTRIPLES, lang) || RDFLanguages.sameLang(Lang.NQUADS, lang);
+    }
+
+    /**
+     * @return {@code true} if the given file is large enough to be parsed by
+     *         more than one thread
+     */
+    public boolean isWorthSplitting(File file) {
+        return (parallelism > 1) && (file.length() >= 2 * minSegmentSize);
+    }
+
+    /**
+     * Parses the given file and writes the triples to the given hand-off.
+     *
+     * @param file
+     *            the N-Triples or N-Quads file
+     * @param lang
+     *            the language of the file
+     * @param handOff
+     *            the hand-off receiving the triples. It is not closed by this
+     *            method.
+     * @throws IOException
+     *             if the file can not be read or one of the parsers failed
+     */
+    public void parse(File file, Lang lang, TripleHandOff handOff) throws IOException {
+        if (!isLineBased(lang)) {
+            throw new IllegalArgumentException(lang.getName() + " can not be parsed line by line.");
+        }
+        ExecutorService executor = getExecutor();
+        long[] boundaries = determineSegments(file);
+        UUID seed = UUID.randomUUID();
+        String base = file.toURI().toString();
+        List<Future<?>> futures = new ArrayList<>(boundaries.length - 1);
+        for (int i = 1; i < boundaries.length; ++i) {
+            long start = boundaries[i - 1];
+            long length = boundaries[i] - start;
+            if (length > 0) {
+                futures.add(executor.submit(() -> {
+                    parseSegment(file, start, length, lang, base, seed, handOff.createProducer());
+                    return null;
+                }));
+            }
+        }
+        IOException error = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                throw new IOException("Interrupted while waiting for the parsers.", e);
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    error = new IOException("Exception while parsing " + file.getName(), e.getCause());
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Splits the file into segments that start at the beginning of a line.
+     *
+     * @return the start positions of the segments followed by the length of the
+     *         file
+     */
+    protected long[] determineSegments(File file) throws IOException {
+        long fileLength = file.length();
+        int segments = (int) Math.max(1, Math.min(parallelism, fileLength / minSegmentSize));
+        long boundaries[] = new long[segments + 1];
+        boundaries[segments] = fileLength;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            for (int i = 1; i < segments; ++i) {
+                long position = Math.max(boundaries[i - 1], (fileLength / segments) * i);
+                raf.seek(position);
+                int b = raf.read();
+                while ((b >= 0) && (b != '\n')) {
+                    b = raf.read();
+                }
+                boundaries[i] = raf.getFilePointer();
+            }
+        }
+        return boundaries;
+    }
+
+    protected static void parseSegment(File file, long start, long length, Lang lang, String base, UUID seed,
+            StreamRDF output) throws IOException {
+        FileInputStream fin = new FileInputStream(file);
+        try (InputStream in = new BufferedInputStream(new BoundedInputStream(fin, length))) {
+            fin.getChannel().position(start);
+            ReaderRIOT reader = RDFDataMgr.createReader(lang);
+            ParserProfile profile = RiotLib.profile(lang, base);
+            profile.setFactoryRDF(RiotLib.factoryRDF(LabelToNode.createScopeByDocumentHash(seed)));
+            reader.setParserProfile(profile);
+            output.start();
+            reader.read(in, base, null, output, null);
+            output.finish();
+        }
+    }
+
+    /**
+     * Stops the threads of this parser. Files that are currently parsed are
+     * parsed completely.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+}
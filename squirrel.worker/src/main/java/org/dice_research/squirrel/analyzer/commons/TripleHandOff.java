@@ -0,0 +1,188 @@
+package org.dice_research.squirrel.analyzer.commons;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decouples RDF parsers from the (slower) consumer of their triples, e.g., a
+ * {@link FilterSinkRDF} that writes to a sink and a URI collector. Parsers
+ * write into producers created by {@link #createProducer()}. Every producer
+ * collects triples in batches which are handed over to a single consumer
+ * thread through a bounded queue. Since there is only one consumer thread, the
+ * consumer does not have to be thread safe. If the queue is full, the parsers
+ * are blocked until the consumer has caught up.
+ *
+ * <p>
+ * The hand-off has to be closed after all producers have been finished.
+ * {@link #close()} waits until all triples have been consumed and rethrows an
+ * exception that might have been thrown by the consumer.
+ * </p>
+ */
+public class TripleHandOff implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TripleHandOff.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * Marks the end of the stream.
+     */
+    private static final List<Triple> END_OF_STREAM = new ArrayList<>(0);
+
+    private final StreamRDF consumer;
+    private final int batchSize;
+    private final BlockingQueue<List<Triple>> queue;
+    private final Thread consumerThread;
+    private volatile RuntimeException consumerError = null;
+    private long consumedTriples = 0;
+    private boolean closed = false;
+
+    public TripleHandOff(StreamRDF consumer) {
+        this(consumer, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param consumer
+     *            the stream receiving all triples
+     * @param batchSize
+     *            the number of triples a producer collects before handing them
+     *            over
+     * @param queueCapacity
+     *            the maximum number of batches waiting for the consumer
+     */
+    public TripleHandOff(StreamRDF consumer, int batchSize, int queueCapacity) {
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        consumerThread = new Thread(this::consume, "triple-hand-off");
+        consumerThread.setDaemon(true);
+        consumer.start();
+        consumerThread.start();
+    }
+
+    /**
+     * Creates a new producer. A single producer must only be used by a single
+     * thread and has to be finished before the hand-off is closed.
+     *
+     * @return a stream that hands its triples over to the consumer
+     */
+    public StreamRDF createProducer() {
+        return new Producer();
+    }
+
+    private void consume() {
+        try {
+            List<Triple> batch = queue.take();
+            while (batch != END_OF_STREAM) {
+                for (Triple triple : batch) {
+                    consumer.triple(triple);
+                }
+                consumedTriples += batch.size();
+                batch = queue.take();
+            }
+        } catch (InterruptedException e) {
+            consumerError = new IllegalStateException("Interrupted while waiting for triples.", e);
+        } catch (RuntimeException e) {
+            LOGGER.error("Exception while consuming triples.", e);
+            consumerError = e;
+            // make sure that no producer is blocked
+            queue.clear();
+        }
+    }
+
+    private void handOver(List<Triple> batch) {
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                checkConsumer();
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Interrupted while handing over triples.", e);
+        }
+    }
+
+    private void checkConsumer() {
+        if (consumerError != null) {
+            throw consumerError;
+        } else if (!consumerThread.isAlive()) {
+            throw new IllegalStateException("The consumer has been terminated.");
+        }
+    }
+
+    /**
+     * Waits until all triples have been consumed.
+     *
+     * @throws RuntimeException
+     *             if the consumer has thrown an exception
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (consumerThread.isAlive()) {
+            handOver(END_OF_STREAM);
+        }
+        try {
+            consumerThread.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Interrupted while waiting for the consumer.", e);
+        }
+        if (consumerError != null) {
+            throw consumerError;
+        }
+        consumer.finish();
+    }
+
+    /**
+     * @return the number of triples that have been consumed (only reliable after
+     *         {@link #close()} has been called)
+     */
+    public long getConsumedTriples() {
+        return consumedTriples;
+    }
+
+    private class Producer extends StreamRDFBase {
+
+        private List<Triple> batch = new ArrayList<>(batchSize);
+
+        @Override
+        public void triple(Triple triple) {
+            batch.add(triple);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            triple(quad.asTriple());
+        }
+
+        @Override
+        public void finish() {
+            flush();
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                handOver(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+}
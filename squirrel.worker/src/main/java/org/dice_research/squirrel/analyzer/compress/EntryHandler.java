@@ -0,0 +1,50 @@
+package org.dice_research.squirrel.analyzer.compress;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Receives the (decompressed) entries of a file while it is streamed by the
+ * {@link org.dice_research.squirrel.analyzer.compress.impl.FileManager}. For
+ * every entry, the handler decides based on the name and the first bytes of
+ * the entry whether it can consume the entry as stream. Otherwise, the entry
+ * is extracted to a temporary file which is handed over to
+ * {@link #handleFile(String, File)} and deleted afterwards.
+ */
+public interface EntryHandler {
+
+    /**
+     * Checks whether the given entry can be handled as stream.
+     *
+     * @param name
+     *            the name of the entry (might be {@code null})
+     * @param head
+     *            the first bytes of the entry
+     * @return {@code true} if {@link #handleStream(String, InputStream)} should
+     *         be used for the entry
+     */
+    public boolean acceptsStream(String name, byte[] head);
+
+    /**
+     * Handles the given entry. The stream ends at the end of the entry and
+     * closing it has no effect on the underlying archive.
+     *
+     * @param name
+     *            the name of the entry (might be {@code null})
+     * @param stream
+     *            the content of the entry
+     */
+    public void handleStream(String name, InputStream stream) throws IOException;
+
+    /**
+     * Handles an entry that has been extracted to disk.
+     *
+     * @param name
+     *            the name of the entry (might be {@code null})
+     * @param file
+     *            the file containing the entry. It is deleted after this method
+     *            returns unless it is the original input file.
+     */
+    public void handleFile(String name, File file) throws IOException;
+}
@@ -0,0 +1,82 @@
+package org.dice_research.squirrel.analyzer.compress.impl;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import org.dice_research.squirrel.analyzer.StreamingAnalyzer;
+import org.dice_research.squirrel.analyzer.compress.EntryHandler;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.sink.Sink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EntryHandler} that gives the entries of a fetched file to a
+ * {@link StreamingAnalyzer}. Entries that are not accepted as stream are
+ * analyzed as file.
+ */
+public class AnalyzingEntryHandler implements EntryHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalyzingEntryHandler.class);
+
+    private final StreamingAnalyzer analyzer;
+    private final CrawleableUri uri;
+    private final Sink sink;
+    private final Consumer<Iterator<byte[]>> resultConsumer;
+    private int entries = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param analyzer
+     *            the analyzer used for the entries
+     * @param uri
+     *            the URI from which the data has been fetched
+     * @param sink
+     *            the sink to which the extracted data is written
+     * @param resultConsumer
+     *            the consumer of the URIs the analyzer returns for every single
+     *            entry (might be {@code null})
+     */
+    public AnalyzingEntryHandler(StreamingAnalyzer analyzer, CrawleableUri uri, Sink sink,
+            Consumer<Iterator<byte[]>> resultConsumer) {
+        this.analyzer = analyzer;
+        this.uri = uri;
+        this.sink = sink;
+        this.resultConsumer = resultConsumer;
+    }
+
+    @Override
+    public boolean acceptsStream(String name, byte[] head) {
+        return analyzer.isElegible(uri, name, head);
+    }
+
+    @Override
+    public void handleStream(String name, InputStream stream) {
+        ++entries;
+        LOGGER.info("Analyzing entry {} (\"{}\") as stream.", entries, name);
+        consume(analyzer.analyze(uri, name, stream, sink));
+    }
+
+    @Override
+    public void handleFile(String name, File file) {
+        ++entries;
+        LOGGER.info("Analyzing entry {} (\"{}\") as file.", entries, name);
+        consume(analyzer.analyze(uri, file, sink));
+    }
+
+    private void consume(Iterator<byte[]> result) {
+        if ((resultConsumer != null) && (result != null)) {
+            resultConsumer.accept(result);
+        }
+    }
+
+    /**
+     * @return the number of entries that have been analyzed
+     */
+    public int getEntries() {
+        return entries;
+    }
+}
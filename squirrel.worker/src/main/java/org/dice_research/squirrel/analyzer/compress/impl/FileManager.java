@@ -1,19 +1,298 @@
 package org.dice_research.squirrel.analyzer.compress.impl;
 
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.tika.Tika;
+import org.dice_research.squirrel.analyzer.compress.EntryHandler;
 import org.dice_research.squirrel.analyzer.compress.enums.MimeTypeEnum;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Decompresses fetched files. {@link #decompressFile(File)} extracts all
+ * entries of an archive into a temporary directory.
+ * {@link #decompressFile(File, EntryHandler)} streams the entries instead. The
+ * type of a stream is detected based on its first bytes, compressed streams
+ * are decompressed on the fly and archives are read entry by entry, including
+ * nested archives. Only 7z archives, which need random access, and entries the
+ * {@link EntryHandler} does not accept as stream are written to disk.
+ */
 public class FileManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileManager.class);
 
+    /**
+     * The number of bytes handed to {@link EntryHandler#acceptsStream(String, byte[])}.
+     */
+    public static final int HEAD_SIZE = 8192;
+    /**
+     * The default maximum number of nested compressions and archives.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 5;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CompressorStreamFactory compressorFactory = new CompressorStreamFactory(true);
+    private final ArchiveStreamFactory archiveFactory = new ArchiveStreamFactory();
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int extractedEntries = 0;
+    private int streamedEntries = 0;
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Streams the entries of the given file to the given handler.
+     *
+     * @param inputFile
+     *            the file that might be compressed or an archive
+     * @param handler
+     *            the handler receiving the single entries
+     * @throws IOException
+     *             if the file couldn't be read or the handler threw an
+     *             exception
+     */
+    public void decompressFile(File inputFile, EntryHandler handler) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(inputFile), BUFFER_SIZE)) {
+            handleStream(inputFile.getName(), in, inputFile, handler, 0);
+        }
+    }
+
+    /**
+     * Handles a single stream. If it is compressed or an archive, the
+     * decompressed stream or the entries of the archive are handled
+     * recursively. Otherwise, the stream is given to the handler.
+     *
+     * @param name
+     *            the name of the stream
+     * @param in
+     *            the stream (has to support mark and reset)
+     * @param sourceFile
+     *            the file the stream has been read from or {@code null} if the
+     *            stream is not the unchanged content of a file
+     * @param handler
+     *            the handler receiving the single entries
+     * @param depth
+     *            the number of compressions and archives containing the stream
+     */
+    protected void handleStream(String name, InputStream in, File sourceFile, EntryHandler handler, int depth)
+            throws IOException {
+        if (depth < maxDepth) {
+            String compressor = detectCompressor(in);
+            if (compressor != null) {
+                InputStream decompressed = null;
+                try {
+                    decompressed = compressorFactory.createCompressorInputStream(compressor, in);
+                } catch (CompressorException e) {
+                    LOGGER.warn("Couldn't decompress {} stream \"{}\". It will be handled as it is. Exception: {}",
+                            compressor, name, e.getMessage());
+                }
+                if (decompressed != null) {
+                    handleStream(removeExtension(name), new BufferedInputStream(decompressed, BUFFER_SIZE), null,
+                            handler, depth + 1);
+                    return;
+                }
+            }
+            String archiver = detectArchiver(in);
+            if (ArchiveStreamFactory.SEVEN_Z.equals(archiver)) {
+                handleSevenZip(name, in, sourceFile, handler, depth);
+                return;
+            } else if (archiver != null) {
+                ArchiveInputStream archive = null;
+                try {
+                    archive = archiveFactory.createArchiveInputStream(archiver, in);
+                } catch (ArchiveException e) {
+                    LOGGER.warn("Couldn't read {} archive \"{}\". It will be handled as it is. Exception: {}", archiver,
+                            name, e.getMessage());
+                }
+                if (archive != null) {
+                    ArchiveEntry entry;
+                    while ((entry = archive.getNextEntry()) != null) {
+                        if (entry.isDirectory()) {
+                            continue;
+                        }
+                        if (!archive.canReadEntryData(entry)) {
+                            LOGGER.warn("Can not read entry \"{}\" of \"{}\". It will be ignored.", entry.getName(),
+                                    name);
+                            continue;
+                        }
+                        handleStream(entry.getName(),
+                                new BufferedInputStream(new CloseShieldInputStream(archive), BUFFER_SIZE), null,
+                                handler, depth + 1);
+                    }
+                    return;
+                }
+            }
+        } else {
+            LOGGER.warn("Reached the maximum depth of nested archives with \"{}\". It won't be decompressed.", name);
+        }
+        handleEntry(name, in, sourceFile, handler);
+    }
+
+    /**
+     * Gives the given (uncompressed) entry to the handler. If the handler does
+     * not accept it as stream, the entry is written to a temporary file.
+     */
+    protected void handleEntry(String name, InputStream in, File sourceFile, EntryHandler handler)
+            throws IOException {
+        byte[] head = readHead(in);
+        if (handler.acceptsStream(name, head)) {
+            ++streamedEntries;
+            handler.handleStream(name, new CloseShieldInputStream(in));
+        } else if (sourceFile != null) {
+            ++extractedEntries;
+            handler.handleFile(name, sourceFile);
+        } else {
+            File tempFile = extractToTempFile(name, in);
+            try {
+                ++extractedEntries;
+                handler.handleFile(name, tempFile);
+            } finally {
+                if (!tempFile.delete()) {
+                    LOGGER.warn("Couldn't delete temporary file {}.", tempFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the first {@value #HEAD_SIZE} bytes of the given stream and resets
+     * the stream afterwards.
+     *
+     * @param in
+     *            a stream that supports mark and reset
+     * @return the first bytes of the stream
+     */
+    public static byte[] readHead(InputStream in) throws IOException {
+        in.mark(HEAD_SIZE);
+        byte[] head = new byte[HEAD_SIZE];
+        int length = 0;
+        int read;
+        while ((length < HEAD_SIZE) && ((read = in.read(head, length, HEAD_SIZE - length)) >= 0)) {
+            length += read;
+        }
+        in.reset();
+        return (length < HEAD_SIZE) ? Arrays.copyOf(head, length) : head;
+    }
+
+    /**
+     * Reads the entries of a 7z archive. Since the archive format needs random
+     * access, the stream is written to a temporary file if it is not the
+     * content of a file.
+     */
+    protected void handleSevenZip(String name, InputStream in, File sourceFile, EntryHandler handler, int depth)
+            throws IOException {
+        File archiveFile = (sourceFile != null) ? sourceFile : extractToTempFile(name, in);
+        try (SevenZFile sevenZFile = new SevenZFile(archiveFile)) {
+            SevenZArchiveEntry entry;
+            while ((entry = sevenZFile.getNextEntry()) != null) {
+                if (entry.isDirectory() || !entry.hasStream()) {
+                    continue;
+                }
+                handleStream(entry.getName(),
+                        new BufferedInputStream(new SevenZEntryInputStream(sevenZFile), BUFFER_SIZE), null,
+                        handler, depth + 1);
+            }
+        } finally {
+            if ((sourceFile == null) && !archiveFile.delete()) {
+                LOGGER.warn("Couldn't delete temporary file {}.", archiveFile);
+            }
+        }
+    }
+
+    protected File extractToTempFile(String name, InputStream in) throws IOException {
+        String suffix = ((name != null) && !FilenameUtils.getExtension(name).isEmpty())
+                ? ("." + FilenameUtils.getExtension(name))
+                : null;
+        File tempFile = File.createTempFile("entry_", suffix);
+        FileUtils.copyInputStreamToFile(new CloseShieldInputStream(in), tempFile);
+        return tempFile;
+    }
+
+    /**
+     * @return the name of the compressor of the given stream or {@code null} if
+     *         the stream is not compressed
+     */
+    protected static String detectCompressor(InputStream in) {
+        try {
+            return CompressorStreamFactory.detect(in);
+        } catch (CompressorException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the name of the archive format of the given stream or
+     *         {@code null} if the stream is not an archive
+     */
+    protected static String detectArchiver(InputStream in) {
+        try {
+            return ArchiveStreamFactory.detect(in);
+        } catch (ArchiveException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes the last extension (e.g., ".gz") from the given name.
+     */
+    protected static String removeExtension(String name) {
+        return (name != null) ? FilenameUtils.removeExtension(name) : null;
+    }
+
+    /**
+     * @return the number of entries that have been handled as stream
+     */
+    public int getStreamedEntries() {
+        return streamedEntries;
+    }
+
+    /**
+     * @return the number of entries that have been handled as file
+     */
+    public int getExtractedEntries() {
+        return extractedEntries;
+    }
+
+    /**
+     * Reads the current entry of a {@link SevenZFile}.
+     */
+    protected static class SevenZEntryInputStream extends InputStream {
+        private final SevenZFile file;
+
+        public SevenZEntryInputStream(SevenZFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return file.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return file.read(b, off, len);
+        }
+    }
+
     public List<File> decompressFile(File inputFile) {
         List<File> file = new ArrayList<File>();
         try {
@@ -1,9 +1,7 @@
 package org.dice_research.squirrel.analyzer.impl;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
-import java.io.InputStream;
 import java.util.Iterator;
 
 import org.apache.any23.Any23;
@@ -12,10 +10,10 @@ import org.apache.any23.configuration.ModifiableConfiguration;
 import org.apache.any23.source.DocumentSource;
 import org.apache.any23.source.FileDocumentSource;
 import org.apache.any23.writer.TripleHandler;
-import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
 import org.dice_research.squirrel.analyzer.commons.SquirrelTripleHandler;
+import org.dice_research.squirrel.analyzer.mime.ContentSniffer;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.sink.Sink;
@@ -89,16 +87,7 @@ public class MicrodataAnalyzer extends AbstractAnalyzer {
 		if ((contentType != null && contentType.equals("text/html"))) {
 			return true;
 		}
-		Tika tika = new Tika();
-		try (InputStream is = new FileInputStream(data)) {
-			String mimeType = tika.detect(is);
-			if (mimeType.equals("text/html")) {
-				return true;
-			}
-		} catch (Exception e) {
-			LOGGER.error("An error was found when verify eligibility", e);
-		}
-		return false;
+		return ContentSniffer.getDefault().sniff(curi, data).isDetectedMimeType("text/html");
 	}
 
 }
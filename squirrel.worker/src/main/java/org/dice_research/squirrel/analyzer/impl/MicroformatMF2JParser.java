@@ -3,10 +3,8 @@ package org.dice_research.squirrel.analyzer.impl;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.StringWriter;
 import java.net.URI;
 import java.util.Iterator;
@@ -18,7 +16,6 @@ import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.system.StreamRDF;
-import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
 import org.dice_research.squirrel.analyzer.commons.FilterSinkRDF;
@@ -117,15 +114,6 @@ public class MicroformatMF2JParser extends AbstractAnalyzer {
         if ((contentType != null && contentType.equals("text/html"))) {
             return true;
         }
-        Tika tika = new Tika();
-        try (InputStream is = new FileInputStream(data)) {
-            String mimeType = tika.detect(is);
-            if (mimeType.equals("text/html")) {
-                return false;
-            }
-        } catch (Exception e) {
-            LOGGER.error("An error was found when verify eligibility", e);
-        }
         return false;
 	}
 	
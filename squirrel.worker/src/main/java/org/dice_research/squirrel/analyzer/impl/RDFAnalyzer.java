@@ -1,22 +1,36 @@
 package org.dice_research.squirrel.analyzer.impl;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFLanguages;
-import org.apache.jena.riot.system.StreamRDF;
-import org.apache.tika.Tika;
-import org.apache.tika.io.IOUtils;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
+import org.dice_research.squirrel.analyzer.StreamingAnalyzer;
 import org.dice_research.squirrel.analyzer.commons.FilterSinkRDF;
+import org.dice_research.squirrel.analyzer.commons.ParallelLineParser;
+import org.dice_research.squirrel.analyzer.commons.TripleHandOff;
+import org.dice_research.squirrel.analyzer.compress.impl.FileManager;
+import org.dice_research.squirrel.analyzer.mime.ContentSniffer;
+import org.dice_research.squirrel.analyzer.mime.SniffedContentType;
 import org.dice_research.squirrel.collect.UriCollector;
+import org.dice_research.squirrel.configurator.RdfParsingConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.metadata.ActivityUtil;
 import org.dice_research.squirrel.sink.Sink;
@@ -27,19 +41,52 @@ import org.slf4j.LoggerFactory;
  * 
  * Analyzer to parse RDF lang types
  * 
+ * <p>
+ * Data can be analyzed as stream if its language can be determined without
+ * trying all parsers, i.e., based on the name of the file, the content type of
+ * the URI or the first bytes of the data.
+ * </p>
  * 
+ * <p>
+ * If more than one parser thread is configured (see
+ * {@link RdfParsingConfiguration}), large N-Triples and N-Quads files are split
+ * at line boundaries and parsed in parallel (see {@link ParallelLineParser}). Their triples are handed over to
+ * the sink and the collector in batches by a single consumer thread (see
+ * {@link TripleHandOff}). All other data is parsed on the calling thread
+ * since an additional thread only slows down a single parser.
+ * </p>
  * 
  * @author gsjunior gsjunior@mail.uni-paderborn.de
  */
 
-public class RDFAnalyzer extends AbstractAnalyzer {
+public class RDFAnalyzer extends AbstractAnalyzer implements StreamingAnalyzer, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RDFAnalyzer.class);
 
+    /**
+     * A line containing a single N-Triples statement.
+     */
+    private static final Pattern N_TRIPLES_LINE = Pattern
+            .compile("^(<[^>\\s]*>|_:\\S+)\\s*<[^>\\s]*>\\s*(<[^>\\s]*>|_:\\S+|\".*)\\s*\\.\\s*$");
+
+    /**
+     * MIME types that are accepted by {@link #isElegible(CrawleableUri, File)}.
+     */
+    private static final Set<String> ELIGIBLE_MIME_TYPES = new HashSet<>(
+            Arrays.asList("application/rdf+xml", "text/plain", "application/x-turtle"));
+
     private List<Lang> listLangs = new ArrayList<Lang>();
+    private RdfParsingConfiguration configuration;
+    private ParallelLineParser lineParser;
 
     public RDFAnalyzer(UriCollector collector) {
+        this(collector, RdfParsingConfiguration.getRdfParsingConfiguration());
+    }
+
+    public RDFAnalyzer(UriCollector collector, RdfParsingConfiguration configuration) {
     	super(collector);
+        this.configuration = configuration;
+        lineParser = new ParallelLineParser(configuration.getParserThreads(), configuration.getMinSegmentSize());
         listLangs.add(Lang.NT);
         listLangs.add(Lang.NQUADS);
         listLangs.add(Lang.RDFJSON);
@@ -54,19 +101,22 @@ public class RDFAnalyzer extends AbstractAnalyzer {
 
     @Override
     public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
-        FileInputStream fin = null;
         try {
             // First, try to get the language of the data
             Lang lang = null;
             String contentType = (String) curi.getData(Constants.URI_HTTP_MIME_TYPE_KEY);
-            StreamRDF filtered = new FilterSinkRDF(curi, sink, collector);
             if (contentType != null) {
                 lang = RDFLanguages.contentTypeToLang(contentType);
-                RDFDataMgr.parse(filtered, data.getAbsolutePath(), lang);
+            }
+            if (lang == null) {
+                lang = ContentSniffer.getDefault().sniff(curi, data).getRdfLang();
+            }
+            if (lang != null) {
+                parse(curi, data, lang, sink);
             } else {
                 for (Lang l : listLangs) {
                     try {
-                        RDFDataMgr.parse(filtered, data.getAbsolutePath(), l);
+                        parse(curi, data, l, sink);
                         break;
                     } catch (Exception e) {
                         LOGGER.warn("Could not parse file as " + l.getName());
@@ -79,33 +129,116 @@ public class RDFAnalyzer extends AbstractAnalyzer {
             LOGGER.error("Exception while analyzing. Aborting. ", e);
             ActivityUtil.addStep(curi, getClass(), e.getMessage());
             return null;
-        } finally {
-            IOUtils.closeQuietly(fin);
         }
     }
 
-//    @Override
+    @Override
+    public Iterator<byte[]> analyze(CrawleableUri curi, String name, InputStream stream, Sink sink) {
+        try {
+            InputStream in = stream.markSupported() ? stream : new BufferedInputStream(stream);
+            Lang lang = determineLang(curi, name, FileManager.readHead(in));
+            if (lang == null) {
+                throw new IllegalArgumentException("Couldn't determine the language of \"" + name + "\".");
+            }
+            RDFDataMgr.parse(new FilterSinkRDF(curi, sink, collector), in, lang);
+            ActivityUtil.addStep(curi, getClass());
+            return collector.getUris(curi);
+        } catch (Exception e) {
+            LOGGER.error("Exception while analyzing. Aborting. ", e);
+            ActivityUtil.addStep(curi, getClass(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parses the given file. Large N-Triples and N-Quads files are parsed by
+     * several threads which hand the triples over to the sink and the collector
+     * in batches. All other files are parsed on the calling thread.
+     */
+    protected void parse(CrawleableUri curi, File data, Lang lang, Sink sink) throws IOException {
+        if (ParallelLineParser.isLineBased(lang) && lineParser.isWorthSplitting(data)) {
+            LOGGER.info("Parsing {} with several threads.", data.getName());
+            try (TripleHandOff handOff = createHandOff(curi, sink)) {
+                lineParser.parse(data, lang, handOff);
+            }
+        } else {
+            RDFDataMgr.parse(new FilterSinkRDF(curi, sink, collector), data.getAbsolutePath(), lang);
+        }
+    }
+
+    protected TripleHandOff createHandOff(CrawleableUri curi, Sink sink) {
+        return new TripleHandOff(new FilterSinkRDF(curi, sink, collector), configuration.getBatchSize(),
+                configuration.getQueueCapacity());
+    }
+
+    @Override
+    public boolean isElegible(CrawleableUri curi, String name, byte[] head) {
+        return determineLang(curi, name, head) != null;
+    }
+
+    /**
+     * Determines the language of the given data based on the file name, the
+     * content type of the URI or the content type of the first bytes of the
+     * data that has been cached in the URI by the {@link ContentSniffer}.
+     * 
+     * @return the language or {@code null} if it can not be determined
+     */
+    protected Lang determineLang(CrawleableUri curi, String name, byte[] head) {
+        Lang lang = null;
+        if (name != null) {
+            lang = RDFLanguages.filenameToLang(name);
+        }
+        if ((lang == null) && (curi.getData(Constants.URI_HTTP_MIME_TYPE_KEY) != null)) {
+            lang = RDFLanguages.contentTypeToLang((String) curi.getData(Constants.URI_HTTP_MIME_TYPE_KEY));
+        }
+        if (lang == null) {
+            SniffedContentType type = ContentSniffer.getDefault().sniff(curi, name, head);
+            if (type.isDetectedMimeType("text/plain")) {
+                // N-Triples can not be identified by its content type
+                lang = isNTriples(head) ? Lang.NTRIPLES : null;
+            } else if (type.getRdfLang() != null) {
+                lang = type.getRdfLang();
+            } else if (type.getDetectedMimeType() != null) {
+                lang = RDFLanguages.contentTypeToLang(type.getDetectedMimeType());
+            }
+        }
+        return ((lang != null) && listLangs.contains(lang)) ? lang : null;
+    }
+
+    /**
+     * Checks whether the first line of the given data that is neither empty
+     * nor a comment is an N-Triples statement.
+     */
+    protected static boolean isNTriples(byte[] head) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(head), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && (line.charAt(0) != '#')) {
+                    return N_TRIPLES_LINE.matcher(line).matches();
+                }
+            }
+        } catch (IOException e) {
+            // cannot happen with a byte array
+        }
+        return false;
+    }
+
+    @Override
     public boolean isElegible(CrawleableUri curi, File data) {
-        Tika tika = new Tika();
         // Check the content type first
         String contentType = (String) curi.getData(Constants.URI_HTTP_MIME_TYPE_KEY);
-        if ((contentType != null) && (contentType.equals("application/rdf+xml") || contentType.equals("text/plain")
-                || contentType.equals("application/x-turtle"))) {
+        if ((contentType != null) && ELIGIBLE_MIME_TYPES.contains(contentType)) {
             return true;
         }
-        // Try to get the tika mime type
-        // TODO it might be better to do that once and add it to the URIs data
-        try (InputStream is = new FileInputStream(data)) {
-            String mimeType = tika.detect(is);
-            if (mimeType.equals("application/rdf+xml") || mimeType.equals("text/plain")
-                    || mimeType.equals("application/x-turtle")) {
-                return true;
-            }
+        SniffedContentType type = ContentSniffer.getDefault().sniff(curi, data);
+        return ELIGIBLE_MIME_TYPES.contains(type.getDetectedMimeType()) || (type.getRdfLang() != null);
+    }
 
-        } catch (Exception e) {
-            LOGGER.error("An error was found when trying to analyze ", e);
-        }
-        return false;
+    @Override
+    public void close() {
+        lineParser.close();
     }
 
 }
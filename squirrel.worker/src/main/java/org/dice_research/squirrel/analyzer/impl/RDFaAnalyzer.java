@@ -1,18 +1,16 @@
 package org.dice_research.squirrel.analyzer.impl;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
-import java.io.InputStream;
 import java.util.Iterator;
 
 import org.apache.clerezza.rdf.core.MGraph;
 import org.apache.clerezza.rdf.core.UriRef;
 import org.apache.clerezza.rdf.core.access.TcManager;
-import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
 import org.dice_research.squirrel.analyzer.commons.SquirrelClerezzaSink;
+import org.dice_research.squirrel.analyzer.mime.ContentSniffer;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.sink.Sink;
@@ -90,16 +88,7 @@ public class RDFaAnalyzer extends AbstractAnalyzer {
 		if ((contentType != null && contentType.equals("text/html"))) {
 			return true;
 		}
-		Tika tika = new Tika();
-		try (InputStream is = new FileInputStream(data)) {
-			String mimeType = tika.detect(is);
-			if (mimeType.equals("text/html")) {
-				return true;
-			}
-		} catch (Exception e) {
-			LOGGER.error("An error was found when verify eligibility", e);
-		}
-		return false;
+		return ContentSniffer.getDefault().sniff(curi, data).isDetectedMimeType("text/html");
 	}
 
 }
@@ -1,13 +1,10 @@
 package org.dice_research.squirrel.analyzer.impl.html.scraper;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
 
 import org.apache.jena.graph.Triple;
-import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
 import org.dice_research.squirrel.collect.UriCollector;
@@ -56,15 +53,6 @@ public class HTMLScraperAnalyzer extends AbstractAnalyzer {
         if ((contentType != null && contentType.equals("text/html"))) {
             return true;
         }
-        Tika tika = new Tika();
-        try (InputStream is = new FileInputStream(data)) {
-            String mimeType = tika.detect(is);
-            if (mimeType.equals("text/html")) {
-                return false;
-            }
-        } catch (Exception e) {
-            LOGGER.error("An error was found when trying to analyze ", e);
-        }
         return false;
     }
 }
@@ -1,6 +1,10 @@
 package org.dice_research.squirrel.analyzer.manager;
 
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -10,10 +14,15 @@ import java.util.Map.Entry;
 
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
 import org.dice_research.squirrel.analyzer.Analyzer;
+import org.dice_research.squirrel.analyzer.StreamingAnalyzer;
+import org.dice_research.squirrel.analyzer.compress.impl.FileManager;
+import org.dice_research.squirrel.analyzer.mime.ContentSniffer;
+import org.dice_research.squirrel.analyzer.mime.SniffedContentType;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.metadata.ActivityUtil;
 import org.dice_research.squirrel.sink.Sink;
+import org.dice_research.squirrel.utils.Closer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,12 +33,13 @@ import org.slf4j.LoggerFactory;
  * @author gsjunior gsjunior@mail.uni-paderborn.de
  *
  */
-public class SimpleAnalyzerManager implements Analyzer{
+public class SimpleAnalyzerManager implements StreamingAnalyzer, Closeable {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(SimpleAnalyzerManager.class);
 	public static final String LIST_ANALYZERS = "LIST_ANALYZERS";
 	
 	private Map<String, Analyzer> analyzers;
+	private ContentSniffer sniffer = ContentSniffer.getDefault();
 	
 	
 	
@@ -80,20 +90,13 @@ public class SimpleAnalyzerManager implements Analyzer{
 	public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
 		
 		Iterator<byte[]> iterator = null;
+		// read the beginning of the file once. The analyzers use the cached result
+		SniffedContentType type = sniffer.sniff(curi, data);
+		LOGGER.debug("Content type of {}: {}", data.getName(), type);
 		
 		for(Entry<String, Analyzer> analyzerEntry : analyzers.entrySet()) {
 			if(analyzerEntry.getValue().isElegible(curi, data)) {
-				if(curi.getData().containsKey(LIST_ANALYZERS)) {
-					@SuppressWarnings("unchecked")
-					List<String> analyzers = (List<String>) curi.getData().get(LIST_ANALYZERS);
-					analyzers.add(analyzerEntry.getValue().getClass().getName());
-					curi.addData(LIST_ANALYZERS, analyzers);
-				}else {
-					List<String> analyzers = new ArrayList<String>();
-					analyzers.add(analyzerEntry.getValue().getClass().getName());
-					curi.addData(LIST_ANALYZERS, analyzers);
-				}
-				
+				addAnalyzerToUri(curi, analyzerEntry.getValue());
 				ActivityUtil.addStep(curi, analyzerEntry.getValue().getClass());
 				
 				iterator = analyzerEntry.getValue().analyze(curi, data, sink);
@@ -105,10 +108,80 @@ public class SimpleAnalyzerManager implements Analyzer{
 
 
 
+	/**
+	 * Since a stream can be read only once, it is given to the first
+	 * {@link StreamingAnalyzer} that is eligible for it.
+	 */
+	@Override
+	public Iterator<byte[]> analyze(CrawleableUri curi, String name, InputStream stream, Sink sink) {
+		InputStream in = stream.markSupported() ? stream : new BufferedInputStream(stream);
+		StreamingAnalyzer analyzer = null;
+		try {
+			byte[] head = FileManager.readHead(in);
+			// detect the content type once. The analyzers use the cached result
+			SniffedContentType type = sniffer.sniff(curi, name, head);
+			LOGGER.debug("Content type of \"{}\": {}", name, type);
+			for (Analyzer a : analyzers.values()) {
+				if ((a instanceof StreamingAnalyzer) && ((StreamingAnalyzer) a).isElegible(curi, name, head)) {
+					analyzer = (StreamingAnalyzer) a;
+					break;
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.error("Couldn't read stream \"" + name + "\". It will be ignored.", e);
+			return null;
+		}
+		if (analyzer == null) {
+			LOGGER.error("Got a stream without an eligible analyzer. It will be ignored.");
+			return null;
+		}
+		addAnalyzerToUri(curi, analyzer);
+		ActivityUtil.addStep(curi, analyzer.getClass());
+		LOGGER.info(">> Using analyzer " + analyzer.getClass().getName() + " on stream \"" + name + "\".");
+		return analyzer.analyze(curi, name, in, sink);
+	}
+
+	@Override
+	public boolean isElegible(CrawleableUri curi, String name, byte[] head) {
+		sniffer.sniff(curi, name, head);
+		for (Analyzer analyzer : analyzers.values()) {
+			if ((analyzer instanceof StreamingAnalyzer)
+					&& ((StreamingAnalyzer) analyzer).isElegible(curi, name, head)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public boolean isElegible(CrawleableUri curi, File data) {
 		// TODO Auto-generated method stub
 		return true;
 	}
 
+	/**
+	 * Closes all analyzers that hold resources, e.g., threads.
+	 */
+	@Override
+	public void close() {
+		for (Analyzer analyzer : analyzers.values()) {
+			if (analyzer instanceof Closeable) {
+				Closer.close((Closeable) analyzer, LOGGER);
+			}
+		}
+	}
+
+	protected void addAnalyzerToUri(CrawleableUri curi, Analyzer analyzer) {
+		if(curi.getData().containsKey(LIST_ANALYZERS)) {
+			@SuppressWarnings("unchecked")
+			List<String> analyzers = (List<String>) curi.getData().get(LIST_ANALYZERS);
+			analyzers.add(analyzer.getClass().getName());
+			curi.addData(LIST_ANALYZERS, analyzers);
+		}else {
+			List<String> analyzers = new ArrayList<String>();
+			analyzers.add(analyzer.getClass().getName());
+			curi.addData(LIST_ANALYZERS, analyzers);
+		}
+	}
+
 }
@@ -0,0 +1,150 @@
+package org.dice_research.squirrel.analyzer.mime;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.tika.Tika;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Determines the content type of a fetched file in a single pass over a
+ * bounded prefix of the file. The prefix is given to {@link Tika} and to the
+ * RDF/XML and Turtle automata of the {@link MimeTypeDetector}. The result is
+ * stored in the data of the {@link CrawleableUri} together with the path of
+ * the file. Hence, the file is only read once even if several analyzers have
+ * to decide whether they are eligible for it.
+ */
+public class ContentSniffer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentSniffer.class);
+
+    /**
+     * The default size of the prefix. Tika's magic byte patterns do not look
+     * further.
+     */
+    public static final int DEFAULT_PREFIX_SIZE = 64 * 1024;
+
+    private static final ContentSniffer DEFAULT_INSTANCE = new ContentSniffer();
+
+    public static ContentSniffer getDefault() {
+        return DEFAULT_INSTANCE;
+    }
+
+    private final Tika tika = new Tika();
+    private final MimeTypeDetector rdfDetector = new MimeTypeDetector();
+    private final int prefixSize;
+    private final AtomicLong readFiles = new AtomicLong();
+
+    public ContentSniffer() {
+        this(DEFAULT_PREFIX_SIZE);
+    }
+
+    public ContentSniffer(int prefixSize) {
+        this.prefixSize = prefixSize;
+    }
+
+    /**
+     * Returns the content type of the given file. If the URI already contains a
+     * content type for this file, it is returned without reading the file.
+     *
+     * @param curi
+     *            the URI from which the file has been fetched
+     * @param data
+     *            the fetched file
+     * @return the content type of the file
+     */
+    public SniffedContentType sniff(CrawleableUri curi, File data) {
+        String path = data.getAbsolutePath();
+        if (!path.equals(curi.getData(Constants.URI_SNIFFED_FILE_KEY))) {
+            byte[] prefix = readPrefix(data);
+            store(curi, path, tika.detect(prefix), rdfDetector.detectMimeType(prefix));
+        }
+        return getSniffedContentType(curi);
+    }
+
+    /**
+     * Returns the content type of a stream, e.g., an entry of an archive, based
+     * on its name and its first bytes. If the URI already contains the content
+     * type of the same stream, it is returned without running the detection
+     * again.
+     *
+     * @param curi
+     *            the URI from which the stream has been fetched
+     * @param name
+     *            the name of the stream
+     * @param head
+     *            the first bytes of the stream
+     * @return the content type of the stream
+     */
+    public SniffedContentType sniff(CrawleableUri curi, String name, byte[] head) {
+        // several entries of an archive may have the same name
+        String key = "stream:" + name + '#' + head.length + '#' + Arrays.hashCode(head);
+        if (!key.equals(curi.getData(Constants.URI_SNIFFED_FILE_KEY))) {
+            store(curi, key, tika.detect(head, name), rdfDetector.detectMimeType(head));
+        }
+        return getSniffedContentType(curi);
+    }
+
+    protected static void store(CrawleableUri curi, String key, String mimeType, Lang lang) {
+        curi.addData(Constants.URI_SNIFFED_FILE_KEY, key);
+        curi.addData(Constants.URI_SNIFFED_MIME_TYPE_KEY, mimeType);
+        if (lang != null) {
+            curi.addData(Constants.URI_SNIFFED_RDF_LANG_KEY, lang.getName());
+        } else {
+            curi.getData().remove(Constants.URI_SNIFFED_RDF_LANG_KEY);
+        }
+    }
+
+    /**
+     * Returns the content type that has been stored in the given URI without
+     * reading any file.
+     */
+    public static SniffedContentType getSniffedContentType(CrawleableUri curi) {
+        String langName = (String) curi.getData(Constants.URI_SNIFFED_RDF_LANG_KEY);
+        return new SniffedContentType((String) curi.getData(Constants.URI_HTTP_MIME_TYPE_KEY),
+                (String) curi.getData(Constants.URI_SNIFFED_MIME_TYPE_KEY),
+                langName != null ? RDFLanguages.nameToLang(langName) : null);
+    }
+
+    /**
+     * Removes the cached content type from the given URI. The cache refers to a
+     * local file and must not be sent back to the Frontier.
+     */
+    public static void removeSniffedContentType(CrawleableUri curi) {
+        curi.getData().remove(Constants.URI_SNIFFED_FILE_KEY);
+        curi.getData().remove(Constants.URI_SNIFFED_MIME_TYPE_KEY);
+        curi.getData().remove(Constants.URI_SNIFFED_RDF_LANG_KEY);
+    }
+
+    protected byte[] readPrefix(File data) {
+        readFiles.incrementAndGet();
+        byte[] prefix = new byte[prefixSize];
+        int length = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(data))) {
+            int read;
+            while ((length < prefixSize) && ((read = in.read(prefix, length, prefixSize - length)) >= 0)) {
+                length += read;
+            }
+        } catch (IOException e) {
+            LOGGER.error("Couldn't read the beginning of " + data.getAbsolutePath(), e);
+        }
+        return (length < prefixSize) ? Arrays.copyOf(prefix, length) : prefix;
+    }
+
+    /**
+     * @return the number of files that have been read by this sniffer
+     */
+    public long getReadFiles() {
+        return readFiles.get();
+    }
+}
@@ -5,38 +5,59 @@ import org.dice_research.squirrel.analyzer.impl.RDFAnalyzer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 public class MimeTypeDetector implements TypeDetector {
     private static final Logger LOGGER = LoggerFactory.getLogger(RDFAnalyzer.class);
 
     public Lang detectMimeType(File data) {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(data))) {
+            return detectMimeType(inputStream);
+        } catch (IOException e) {
+            LOGGER.error("Couldn't read file " + data.getAbsolutePath(), e);
+        }
+        return null;
+    }
 
-        Lang mimeType = null;
+    /**
+     * Runs the automata over the given bytes, e.g., the first bytes of a file.
+     */
+    public Lang detectMimeType(byte[] data) {
         try {
-            FileInputStream inputStream = new FileInputStream(data.getAbsolutePath());
-            FiniteStateMachine machine1 = RdfAutomata.buildRDFStateMachine();
-            FiniteStateMachine machine2 = TurtleAutomata.buildTurtleStateMachine();
-            char current;
-            while (inputStream.available() > 0 && (!machine1.canStop() || !machine2.canStop())) {
-                current = (char) inputStream.read();
-                if (!machine1.isError()) //whichever leads to error state is processed anymore.
-                    machine1 = machine1.switchState(String.valueOf(current));
-                if (!machine2.isError())
-                    machine2 = machine2.switchState(String.valueOf(current));
-            }
-
-            if (machine1.canStop() && !machine1.isError())
-                mimeType = machine1.getMimeType();
-            if (machine2.canStop() && !machine2.isError())
-                mimeType = machine2.getMimeType();
-            inputStream.close();
+            return detectMimeType(new ByteArrayInputStream(data));
         } catch (IOException e) {
-            e.printStackTrace();
+            // cannot happen with a byte array
+            return null;
+        }
+    }
+
+    /**
+     * Runs the automata over the given stream until both of them can stop or the
+     * stream ends. The stream should be buffered.
+     */
+    public Lang detectMimeType(InputStream inputStream) throws IOException {
+        Lang mimeType = null;
+        FiniteStateMachine machine1 = RdfAutomata.buildRDFStateMachine();
+        FiniteStateMachine machine2 = TurtleAutomata.buildTurtleStateMachine();
+        int current = inputStream.read();
+        while ((current >= 0) && (!machine1.canStop() || !machine2.canStop())) {
+            String c = String.valueOf((char) current);
+            if (!machine1.isError()) //whichever leads to error state is processed anymore.
+                machine1 = machine1.switchState(c);
+            if (!machine2.isError())
+                machine2 = machine2.switchState(c);
+            current = inputStream.read();
         }
 
+        if (machine1.canStop() && !machine1.isError())
+            mimeType = machine1.getMimeType();
+        if (machine2.canStop() && !machine2.isError())
+            mimeType = machine2.getMimeType();
         return mimeType;
     }
 }
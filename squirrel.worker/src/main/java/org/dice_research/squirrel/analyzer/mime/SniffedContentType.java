@@ -0,0 +1,81 @@
+package org.dice_research.squirrel.analyzer.mime;
+
+import org.apache.jena.riot.Lang;
+
+/**
+ * The content type of a fetched file as determined by the
+ * {@link ContentSniffer}. It combines the content type of the HTTP header, the
+ * MIME type detected by Tika and the RDF language detected by the automata.
+ */
+public class SniffedContentType {
+
+    private final String httpMimeType;
+    private final String detectedMimeType;
+    private final Lang rdfLang;
+
+    public SniffedContentType(String httpMimeType, String detectedMimeType, Lang rdfLang) {
+        this.httpMimeType = httpMimeType;
+        this.detectedMimeType = detectedMimeType;
+        this.rdfLang = rdfLang;
+    }
+
+    /**
+     * @return the content type of the HTTP response or {@code null}
+     */
+    public String getHttpMimeType() {
+        return httpMimeType;
+    }
+
+    /**
+     * @return the MIME type detected by Tika or {@code null}
+     */
+    public String getDetectedMimeType() {
+        return detectedMimeType;
+    }
+
+    /**
+     * @return the RDF language detected by the automata or {@code null}
+     */
+    public Lang getRdfLang() {
+        return rdfLang;
+    }
+
+    /**
+     * @return {@code true} if the HTTP content type is one of the given types
+     */
+    public boolean isHttpMimeType(String... mimeTypes) {
+        return contains(httpMimeType, mimeTypes);
+    }
+
+    /**
+     * @return {@code true} if the detected MIME type is one of the given types
+     */
+    public boolean isDetectedMimeType(String... mimeTypes) {
+        return contains(detectedMimeType, mimeTypes);
+    }
+
+    /**
+     * @return {@code true} if the HTTP content type or the detected MIME type is
+     *         one of the given types
+     */
+    public boolean isMimeType(String... mimeTypes) {
+        return isHttpMimeType(mimeTypes) || isDetectedMimeType(mimeTypes);
+    }
+
+    private static boolean contains(String value, String[] values) {
+        if (value != null) {
+            for (String v : values) {
+                if (value.equals(v)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "SniffedContentType [httpMimeType=" + httpMimeType + ", detectedMimeType=" + detectedMimeType
+                + ", rdfLang=" + rdfLang + "]";
+    }
+}
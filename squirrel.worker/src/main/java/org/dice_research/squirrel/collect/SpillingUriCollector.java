@@ -0,0 +1,484 @@
+package org.dice_research.squirrel.collect;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.IOUtils;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of the {@link UriCollector} interface that deduplicates
+ * the found URIs in memory until a given memory budget is exceeded. After that,
+ * the URIs that are kept in memory are sorted and appended as a single run to
+ * a file of the crawled URI. {@link #getUris(CrawleableUri)} merges the runs
+ * and the URIs that are still in memory, i.e., every URI is returned only once
+ * and the collected URIs never have to be loaded into memory completely.
+ *
+ * <p>
+ * This class is thread-safe. Several analyzers can add URIs of the same
+ * crawled URI concurrently. The serialization of new URIs is done outside of
+ * the lock of the crawled URI.
+ * </p>
+ */
+public class SpillingUriCollector implements UriCollector, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillingUriCollector.class);
+
+    /**
+     * The default memory budget (in bytes) of a single crawled URI.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 16L * 1024 * 1024;
+    /**
+     * Rough estimation of the memory a single entry of the in-memory buffer
+     * needs in addition to the URI and its serialization.
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    protected final Serializer serializer;
+    protected final File directory;
+    protected final long memoryBudget;
+    protected final Map<String, UriRunsStatus> knownUris = new ConcurrentHashMap<>();
+
+    public SpillingUriCollector(Serializer serializer, String directory) {
+        this(serializer, directory, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param serializer
+     *            the serializer used for the found URIs
+     * @param directory
+     *            the directory in which the files with the spilled runs are
+     *            created
+     * @param memoryBudget
+     *            the number of bytes the found URIs of a single crawled URI may
+     *            occupy in memory before they are written to disk
+     */
+    public SpillingUriCollector(Serializer serializer, String directory, long memoryBudget) {
+        this.serializer = serializer;
+        this.directory = new File(directory);
+        this.memoryBudget = memoryBudget;
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        String uriString = uri.getUri().toString();
+        UriRunsStatus old = knownUris.put(uriString, new UriRunsStatus());
+        if (old != null) {
+            LOGGER.warn("The sink for \"{}\" has been opened twice. Previously collected URIs are discarded.",
+                    uriString);
+            old.close();
+        }
+    }
+
+    @Override
+    public void addNewUri(CrawleableUri uri, CrawleableUri newUri) {
+        UriRunsStatus status = knownUris.get(uri.getUri().toString());
+        if (status == null) {
+            LOGGER.error("Got an unknown URI \"{}\". It will be ignored.", uri.getUri().toString());
+            return;
+        }
+        String newUriString = newUri.getUri().toString();
+        if (status.containsInMemory(newUriString)) {
+            return;
+        }
+        try {
+            status.add(newUriString, serializer.serialize(newUri));
+        } catch (IOException e) {
+            LOGGER.error("Couldn't add URI \"" + newUri.getUri() + "\". It will be ignored.", e);
+        }
+    }
+
+    @Override
+    public Iterator<byte[]> getUris(CrawleableUri uri) {
+        UriRunsStatus status = knownUris.get(uri.getUri().toString());
+        if (status == null) {
+            LOGGER.error("Got an unknown URI \"{}\". Returning empty Iterator.", uri.getUri().toString());
+            return Collections.emptyIterator();
+        }
+        try {
+            return status.iterator();
+        } catch (IOException e) {
+            LOGGER.error("Exception while reading the spilled URIs of \"" + uri.getUri()
+                    + "\". Returning empty Iterator.", e);
+            return Collections.emptyIterator();
+        }
+    }
+
+    @Override
+    public long getSize(CrawleableUri uri) {
+        UriRunsStatus status = knownUris.get(uri.getUri().toString());
+        if (status == null) {
+            return 0;
+        }
+        try {
+            return status.size();
+        } catch (IOException e) {
+            LOGGER.error("Could not compute size for uri: " + uri.getUri().toString(), e);
+            return 0;
+        }
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        UriRunsStatus status = knownUris.remove(uri.getUri().toString());
+        if (status != null) {
+            status.close();
+        } else {
+            LOGGER.info("Should close \"{}\" but it is not known. It will be ignored.", uri.getUri().toString());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (String uri : knownUris.keySet()) {
+            UriRunsStatus status = knownUris.remove(uri);
+            if (status != null) {
+                status.close();
+            }
+        }
+    }
+
+    /**
+     * The collected URIs of a single crawled URI. The URIs are kept in a sorted
+     * map until the memory budget is exceeded. After that, they are appended to
+     * the run file of the crawled URI and the start position and number of
+     * entries of the run are stored. Guarded by itself.
+     *
+     * <p>
+     * The cursors of the run file are only tracked while they are open. A
+     * cursor is closed as soon as its run has been read completely. The
+     * remaining cursors, e.g., of iterators that have not been read until
+     * their end, are closed together with the status.
+     * </p>
+     */
+    protected class UriRunsStatus {
+        private TreeMap<String, byte[]> buffer = new TreeMap<>();
+        private long bufferedBytes = 0;
+        private File runFile = null;
+        private DataOutputStream runStream = null;
+        private long runFileLength = 0;
+        private final List<long[]> runs = new ArrayList<>();
+        private final Set<Closeable> openCursors = new HashSet<>();
+        /**
+         * The number of distinct URIs or -1 if it has to be determined.
+         */
+        private long size = 0;
+        private boolean closed = false;
+
+        public synchronized boolean containsInMemory(String uri) {
+            return buffer.containsKey(uri);
+        }
+
+        public synchronized void add(String uri, byte[] serializedUri) throws IOException {
+            if (closed || buffer.containsKey(uri)) {
+                return;
+            }
+            buffer.put(uri, serializedUri);
+            bufferedBytes += (2 * uri.length()) + serializedUri.length + ENTRY_OVERHEAD;
+            if (runs.isEmpty()) {
+                ++size;
+            } else {
+                // the URI might have been spilled before
+                size = -1;
+            }
+            if (bufferedBytes > memoryBudget) {
+                spill();
+            }
+        }
+
+        /**
+         * Appends the URIs of the buffer as a sorted run to the run file.
+         */
+        private void spill() throws IOException {
+            if (runStream == null) {
+                if (!directory.exists() && !directory.mkdirs()) {
+                    throw new IOException("Couldn't create directory " + directory.getAbsolutePath());
+                }
+                runFile = File.createTempFile("uris-", ".run", directory);
+                runStream = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(runFile, true), STREAM_BUFFER_SIZE));
+            }
+            long start = runFileLength;
+            for (Map.Entry<String, byte[]> entry : buffer.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                runStream.writeInt(key.length);
+                runStream.write(key);
+                runStream.writeInt(entry.getValue().length);
+                runStream.write(entry.getValue());
+                runFileLength += 8 + key.length + entry.getValue().length;
+            }
+            runs.add(new long[] { start, buffer.size() });
+            LOGGER.debug("Spilled {} URIs ({} bytes) to {}.", buffer.size(), runFileLength - start, runFile);
+            buffer = new TreeMap<>();
+            bufferedBytes = 0;
+        }
+
+        public synchronized Iterator<byte[]> iterator() throws IOException {
+            if (closed) {
+                return Collections.emptyIterator();
+            }
+            if (runs.isEmpty()) {
+                return new ArrayList<>(buffer.values()).iterator();
+            }
+            runStream.flush();
+            List<RunCursor> cursors = new ArrayList<>(runs.size() + 1);
+            try {
+                for (long[] run : runs) {
+                    cursors.add(new FileRunCursor(runFile, run[0], run[1], this::release));
+                }
+            } catch (IOException e) {
+                for (RunCursor cursor : cursors) {
+                    IOUtils.closeQuietly(cursor);
+                }
+                throw e;
+            }
+            openCursors.addAll(cursors);
+            cursors.add(new MemoryRunCursor(new ArrayList<>(buffer.entrySet()).iterator()));
+            return new MergingIterator(cursors);
+        }
+
+        public long size() throws IOException {
+            synchronized (this) {
+                if (size >= 0) {
+                    return size;
+                }
+            }
+            long count = 0;
+            Iterator<byte[]> iterator = iterator();
+            while (iterator.hasNext()) {
+                iterator.next();
+                ++count;
+            }
+            synchronized (this) {
+                size = count;
+            }
+            return count;
+        }
+
+        /**
+         * Removes the given cursor from the set of open cursors after it has
+         * been closed.
+         */
+        protected synchronized void release(Closeable cursor) {
+            openCursors.remove(cursor);
+        }
+
+        protected synchronized int getNumberOfOpenCursors() {
+            return openCursors.size();
+        }
+
+        public synchronized void close() {
+            closed = true;
+            buffer = new TreeMap<>();
+            // closing a cursor releases it, i.e., it removes it from the set
+            List<Closeable> cursors = new ArrayList<>(openCursors);
+            openCursors.clear();
+            for (Closeable cursor : cursors) {
+                IOUtils.closeQuietly(cursor);
+            }
+            IOUtils.closeQuietly(runStream);
+            if ((runFile != null) && !runFile.delete()) {
+                LOGGER.warn("Couldn't delete run file {}.", runFile);
+            }
+            runs.clear();
+        }
+    }
+
+    /**
+     * A cursor on a sorted run of URIs.
+     */
+    protected static interface RunCursor extends Closeable {
+        /**
+         * Moves the cursor to the next entry.
+         *
+         * @return {@code false} if the run has no further entries
+         */
+        public boolean advance() throws IOException;
+
+        public String getKey();
+
+        public byte[] getValue();
+    }
+
+    protected static class MemoryRunCursor implements RunCursor {
+        private final Iterator<Map.Entry<String, byte[]>> iterator;
+        private Map.Entry<String, byte[]> current;
+
+        public MemoryRunCursor(Iterator<Map.Entry<String, byte[]>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean advance() {
+            current = iterator.hasNext() ? iterator.next() : null;
+            return current != null;
+        }
+
+        @Override
+        public String getKey() {
+            return current.getKey();
+        }
+
+        @Override
+        public byte[] getValue() {
+            return current.getValue();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    protected static class FileRunCursor implements RunCursor {
+        private final DataInputStream stream;
+        private final Consumer<FileRunCursor> closeListener;
+        private long remaining;
+        private String key;
+        private byte[] value;
+        private boolean closed = false;
+
+        public FileRunCursor(File file, long start, long entries) throws IOException {
+            this(file, start, entries, null);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param closeListener
+         *            is notified when the cursor is closed, i.e., when the run
+         *            has been read completely or the reading has been aborted.
+         *            May be {@code null}.
+         */
+        public FileRunCursor(File file, long start, long entries, Consumer<FileRunCursor> closeListener)
+                throws IOException {
+            this.closeListener = closeListener;
+            FileInputStream fin = new FileInputStream(file);
+            try {
+                fin.getChannel().position(start);
+            } catch (IOException e) {
+                fin.close();
+                throw e;
+            }
+            stream = new DataInputStream(new BufferedInputStream(fin, STREAM_BUFFER_SIZE));
+            remaining = entries;
+        }
+
+        @Override
+        public boolean advance() throws IOException {
+            if (remaining <= 0) {
+                close();
+                return false;
+            }
+            byte[] keyBytes = new byte[stream.readInt()];
+            stream.readFully(keyBytes);
+            key = new String(keyBytes, StandardCharsets.UTF_8);
+            value = new byte[stream.readInt()];
+            stream.readFully(value);
+            --remaining;
+            return true;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            remaining = 0;
+            if (!closed) {
+                closed = true;
+                try {
+                    stream.close();
+                } finally {
+                    if (closeListener != null) {
+                        closeListener.accept(this);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges several sorted runs. If a URI is contained in several runs, it is
+     * returned only once.
+     */
+    protected static class MergingIterator implements Iterator<byte[]> {
+        private final PriorityQueue<RunCursor> queue;
+
+        public MergingIterator(List<RunCursor> cursors) throws IOException {
+            queue = new PriorityQueue<>(Math.max(1, cursors.size()), (c1, c2) -> c1.getKey().compareTo(c2.getKey()));
+            for (RunCursor cursor : cursors) {
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public byte[] next() {
+            RunCursor cursor = queue.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            String key = cursor.getKey();
+            byte[] value = cursor.getValue();
+            try {
+                advance(cursor);
+                // skip the same URI in the other runs
+                while (!queue.isEmpty() && queue.peek().getKey().equals(key)) {
+                    advance(queue.poll());
+                }
+            } catch (IOException e) {
+                LOGGER.error("Exception while reading spilled URIs. The remaining URIs will be ignored.", e);
+                for (RunCursor c : queue) {
+                    IOUtils.closeQuietly(c);
+                }
+                queue.clear();
+            }
+            return value;
+        }
+
+        private void advance(RunCursor cursor) throws IOException {
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.dice_research.squirrel.configurator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of the service converting N-Triples files into HDT files. All
+ * values are optional. If the number of threads is not set, it is derived
+ * from the maximum heap size and the memory a single conversion is expected
+ * to need.
+ */
+public class HdtConversionConfiguration extends Configuration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdtConversionConfiguration.class);
+
+    private static final String CONVERSION_THREADS_KEY = "HDT_CONVERSION_THREADS";
+    private static final String MEMORY_PER_CONVERSION_KEY = "HDT_MEMORY_PER_CONVERSION";
+    private static final String MAX_BACKLOG_KEY = "HDT_MAX_BACKLOG";
+    private static final String MERGE_THRESHOLD_KEY = "HDT_MERGE_THRESHOLD";
+
+    /**
+     * Memory (in bytes) a single conversion is expected to need.
+     */
+    public static final long DEFAULT_MEMORY_PER_CONVERSION = 1L << 30;
+    public static final int DEFAULT_MAX_BACKLOG = 100;
+
+    private int conversionThreads = 0;
+    private long memoryPerConversion = DEFAULT_MEMORY_PER_CONVERSION;
+    private int maxBacklog = DEFAULT_MAX_BACKLOG;
+    /**
+     * Files smaller than this number of bytes are merged into a single HDT file
+     * until the merged files reach this size. {@code 0} disables merging.
+     */
+    private long mergeThreshold = 0;
+
+    private HdtConversionConfiguration() {
+    }
+
+    public HdtConversionConfiguration(int conversionThreads, int maxBacklog, long mergeThreshold) {
+        this.conversionThreads = conversionThreads;
+        this.maxBacklog = maxBacklog;
+        this.mergeThreshold = mergeThreshold;
+    }
+
+    public static HdtConversionConfiguration getHdtConversionConfiguration() {
+        HdtConversionConfiguration configuration = new HdtConversionConfiguration();
+        long value = getEnvLong(CONVERSION_THREADS_KEY, LOGGER);
+        if (value > 0) {
+            configuration.conversionThreads = (int) value;
+        }
+        value = getEnvLong(MEMORY_PER_CONVERSION_KEY, LOGGER);
+        if (value > 0) {
+            configuration.memoryPerConversion = value;
+        }
+        value = getEnvLong(MAX_BACKLOG_KEY, LOGGER);
+        if (value > 0) {
+            configuration.maxBacklog = (int) value;
+        }
+        value = getEnvLong(MERGE_THRESHOLD_KEY, LOGGER);
+        if (value > 0) {
+            configuration.mergeThreshold = value;
+        }
+        return configuration;
+    }
+
+    public int getConversionThreads() {
+        if (conversionThreads > 0) {
+            return conversionThreads;
+        }
+        long threads = Runtime.getRuntime().maxMemory() / memoryPerConversion;
+        return (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), threads));
+    }
+
+    public long getMemoryPerConversion() {
+        return memoryPerConversion;
+    }
+
+    public int getMaxBacklog() {
+        return maxBacklog;
+    }
+
+    public long getMergeThreshold() {
+        return mergeThreshold;
+    }
+}
@@ -0,0 +1,81 @@
+package org.dice_research.squirrel.configurator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of the connection pool of the HTTP fetcher. All values are
+ * optional.
+ */
+public class HttpFetcherConfiguration extends Configuration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpFetcherConfiguration.class);
+
+    private static final String MAX_CONNECTIONS_KEY = "HTTP_MAX_CONNECTIONS";
+    private static final String MAX_CONNECTIONS_PER_HOST_KEY = "HTTP_MAX_CONNECTIONS_PER_HOST";
+    private static final String CONNECTION_TTL_KEY = "HTTP_CONNECTION_TTL";
+    private static final String IDLE_TIMEOUT_KEY = "HTTP_IDLE_TIMEOUT";
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 200;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    /**
+     * Time (in ms) a pooled connection may be reused.
+     */
+    public static final long DEFAULT_CONNECTION_TTL = 5L * 60000L;
+    /**
+     * Time (in ms) after which idle connections are closed.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000L;
+
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private long connectionTTL = DEFAULT_CONNECTION_TTL;
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    private HttpFetcherConfiguration() {
+    }
+
+    public HttpFetcherConfiguration(int maxConnections, int maxConnectionsPerHost, long connectionTTL,
+            long idleTimeout) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.connectionTTL = connectionTTL;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public static HttpFetcherConfiguration getHttpFetcherConfiguration() {
+        HttpFetcherConfiguration configuration = new HttpFetcherConfiguration();
+        long value = getEnvLong(MAX_CONNECTIONS_KEY, LOGGER);
+        if (value > 0) {
+            configuration.maxConnections = (int) value;
+        }
+        value = getEnvLong(MAX_CONNECTIONS_PER_HOST_KEY, LOGGER);
+        if (value > 0) {
+            configuration.maxConnectionsPerHost = (int) value;
+        }
+        value = getEnvLong(CONNECTION_TTL_KEY, LOGGER);
+        if (value > 0) {
+            configuration.connectionTTL = value;
+        }
+        value = getEnvLong(IDLE_TIMEOUT_KEY, LOGGER);
+        if (value > 0) {
+            configuration.idleTimeout = value;
+        }
+        return configuration;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public long getConnectionTTL() {
+        return connectionTTL;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+}
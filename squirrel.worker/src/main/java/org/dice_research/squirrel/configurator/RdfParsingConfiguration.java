@@ -0,0 +1,77 @@
+package org.dice_research.squirrel.configurator;
+
+import org.dice_research.squirrel.analyzer.commons.ParallelLineParser;
+import org.dice_research.squirrel.analyzer.commons.TripleHandOff;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of the parallel parsing of line-based RDF files and the
+ * hand-off of triples to the sink. All values are optional.
+ *
+ * <p>
+ * Files are parsed by a single thread unless {@value #PARSER_THREADS_KEY} is
+ * set to a larger value. The speedup of the parallel parsing has not been
+ * measured on a multi-core machine, yet (see the ParallelLineParserBenchmark).
+ * </p>
+ */
+public class RdfParsingConfiguration extends Configuration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RdfParsingConfiguration.class);
+
+    private static final String PARSER_THREADS_KEY = "RDF_PARSER_THREADS";
+    private static final String MIN_SEGMENT_SIZE_KEY = "RDF_PARSER_MIN_SEGMENT_SIZE";
+    private static final String BATCH_SIZE_KEY = "RDF_TRIPLE_BATCH_SIZE";
+    private static final String QUEUE_CAPACITY_KEY = "RDF_TRIPLE_QUEUE_CAPACITY";
+
+    private int parserThreads = 1;
+    private long minSegmentSize = ParallelLineParser.DEFAULT_MIN_SEGMENT_SIZE;
+    private int batchSize = TripleHandOff.DEFAULT_BATCH_SIZE;
+    private int queueCapacity = TripleHandOff.DEFAULT_QUEUE_CAPACITY;
+
+    private RdfParsingConfiguration() {
+    }
+
+    public RdfParsingConfiguration(int parserThreads, long minSegmentSize, int batchSize, int queueCapacity) {
+        this.parserThreads = parserThreads;
+        this.minSegmentSize = minSegmentSize;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public static RdfParsingConfiguration getRdfParsingConfiguration() {
+        RdfParsingConfiguration configuration = new RdfParsingConfiguration();
+        long value = getEnvLong(PARSER_THREADS_KEY, LOGGER);
+        if (value > 0) {
+            configuration.parserThreads = (int) value;
+        }
+        value = getEnvLong(MIN_SEGMENT_SIZE_KEY, LOGGER);
+        if (value > 0) {
+            configuration.minSegmentSize = value;
+        }
+        value = getEnvLong(BATCH_SIZE_KEY, LOGGER);
+        if (value > 0) {
+            configuration.batchSize = (int) value;
+        }
+        value = getEnvLong(QUEUE_CAPACITY_KEY, LOGGER);
+        if (value > 0) {
+            configuration.queueCapacity = (int) value;
+        }
+        return configuration;
+    }
+
+    public int getParserThreads() {
+        return parserThreads;
+    }
+
+    public long getMinSegmentSize() {
+        return minSegmentSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+}
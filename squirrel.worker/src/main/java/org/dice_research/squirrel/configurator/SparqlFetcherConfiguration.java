@@ -0,0 +1,97 @@
+package org.dice_research.squirrel.configurator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of the harvesting of SPARQL endpoints. All values are
+ * optional.
+ */
+public class SparqlFetcherConfiguration extends Configuration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SparqlFetcherConfiguration.class);
+
+    private static final String PAGE_SIZE_KEY = "SPARQL_PAGE_SIZE";
+    private static final String MAX_PARALLEL_QUERIES_KEY = "SPARQL_MAX_PARALLEL_QUERIES";
+    private static final String MAX_RETRIES_KEY = "SPARQL_MAX_RETRIES";
+    private static final String INITIAL_BACKOFF_KEY = "SPARQL_INITIAL_BACKOFF";
+    private static final String MAX_BACKOFF_KEY = "SPARQL_MAX_BACKOFF";
+
+    public static final int DEFAULT_PAGE_SIZE = 10000;
+    public static final int DEFAULT_MAX_PARALLEL_QUERIES = 2;
+    public static final int DEFAULT_MAX_RETRIES = 5;
+    /**
+     * Time (in ms) before the first retry of a failed query.
+     */
+    public static final long DEFAULT_INITIAL_BACKOFF = 1000;
+    /**
+     * Maximum time (in ms) between two retries of a failed query.
+     */
+    public static final long DEFAULT_MAX_BACKOFF = 60000;
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    /**
+     * Maximum number of queries that are sent to a single endpoint at the same
+     * time.
+     */
+    private int maxParallelQueries = DEFAULT_MAX_PARALLEL_QUERIES;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+    private SparqlFetcherConfiguration() {
+    }
+
+    public SparqlFetcherConfiguration(int pageSize, int maxParallelQueries, int maxRetries, long initialBackoff,
+            long maxBackoff) {
+        this.pageSize = pageSize;
+        this.maxParallelQueries = maxParallelQueries;
+        this.maxRetries = maxRetries;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public static SparqlFetcherConfiguration getSparqlFetcherConfiguration() {
+        SparqlFetcherConfiguration configuration = new SparqlFetcherConfiguration();
+        long value = getEnvLong(PAGE_SIZE_KEY, LOGGER);
+        if (value > 0) {
+            configuration.pageSize = (int) value;
+        }
+        value = getEnvLong(MAX_PARALLEL_QUERIES_KEY, LOGGER);
+        if (value > 0) {
+            configuration.maxParallelQueries = (int) value;
+        }
+        value = getEnvLong(MAX_RETRIES_KEY, LOGGER);
+        if (value > 0) {
+            configuration.maxRetries = (int) value;
+        }
+        value = getEnvLong(INITIAL_BACKOFF_KEY, LOGGER);
+        if (value > 0) {
+            configuration.initialBackoff = value;
+        }
+        value = getEnvLong(MAX_BACKOFF_KEY, LOGGER);
+        if (value > 0) {
+            configuration.maxBackoff = value;
+        }
+        return configuration;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getMaxParallelQueries() {
+        return maxParallelQueries;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+}
@@ -10,15 +10,25 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections.MapUtils;
+import org.apache.commons.compress.compressors.brotli.BrotliCompressorInputStream;
+import org.apache.commons.compress.compressors.brotli.BrotliUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.entity.DeflateInputStreamFactory;
+import org.apache.http.client.entity.GZIPInputStreamFactory;
+import org.apache.http.client.entity.InputStreamFactory;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -28,6 +38,7 @@ import org.apache.http.util.EntityUtils;
 import org.apache.log4j.lf5.util.StreamUtils;
 import org.apache.tika.io.IOUtils;
 import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.configurator.HttpFetcherConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.fetcher.Fetcher;
 import org.dice_research.squirrel.metadata.ActivityUtil;
@@ -37,6 +48,24 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+/**
+ * A {@link Fetcher} for HTTP(S) URIs. All requests share a connection pool
+ * that is sized by the {@link HttpFetcherConfiguration}, i.e., connections to
+ * a host are kept alive and reused by all threads of the worker. The response
+ * is decompressed if the server used gzip, deflate or brotli as content
+ * encoding. The brotli decoder ({@code org.brotli:dec}) is a dependency of the
+ * worker. Without it, commons-compress reports brotli as unavailable and only
+ * gzip and deflate are advertised.
+ *
+ * <p>
+ * The {@code ETag} and {@code Last-Modified} headers of a response are stored
+ * as {@link Constants#URI_HTTP_ETAG_KEY} and
+ * {@link Constants#URI_HTTP_LAST_MODIFIED_KEY}. The known URI filter keeps them
+ * until the URI is recrawled. If the data of a URI contains one of them, the
+ * request is sent as conditional request. If the server answers with {@code 304 Not Modified}, no file is
+ * returned and {@link Constants#URI_HTTP_NOT_MODIFIED} is set to {@code true}.
+ * </p>
+ */
 @Component
 @Order(value = 1)
 @Qualifier("httpFetcher")
@@ -58,14 +87,41 @@ public class HTTPFetcher implements Fetcher {
     }
 
     public HTTPFetcher(String userAgent) {
-        this(HttpClientBuilder.create().setConnectionManager(new PoolingHttpClientConnectionManager())
-            .setUserAgent(userAgent).build());
+        this(userAgent, HttpFetcherConfiguration.getHttpFetcherConfiguration());
+    }
+
+    public HTTPFetcher(String userAgent, HttpFetcherConfiguration configuration) {
+        this(createClient(userAgent, configuration));
     }
 
     public HTTPFetcher(CloseableHttpClient client) {
         this.client = client;
     }
 
+    /**
+     * Creates a client with a connection pool sized by the given configuration.
+     */
+    public static CloseableHttpClient createClient(String userAgent, HttpFetcherConfiguration configuration) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                configuration.getConnectionTTL(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(configuration.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(configuration.getMaxConnectionsPerHost());
+        HttpClientBuilder builder = HttpClientBuilder.create().setConnectionManager(connectionManager)
+                .setUserAgent(userAgent).evictExpiredConnections()
+                .evictIdleConnections(configuration.getIdleTimeout(), TimeUnit.MILLISECONDS);
+        // The registry replaces the default decoders. Its keys are sent as
+        // Accept-Encoding header.
+        if (BrotliUtils.isBrotliCompressionAvailable()) {
+            Map<String, InputStreamFactory> decoders = new LinkedHashMap<>();
+            decoders.put("gzip", GZIPInputStreamFactory.getInstance());
+            decoders.put("x-gzip", GZIPInputStreamFactory.getInstance());
+            decoders.put("deflate", DeflateInputStreamFactory.getInstance());
+            decoders.put("br", is -> new BrotliCompressorInputStream(is));
+            builder.setContentDecoderRegistry(decoders);
+        }
+        return builder.build();
+    }
+
     @Override
     public File fetch(CrawleableUri uri) {
         // Check whether this fetcher can handle the given URI
@@ -96,7 +152,11 @@ public class HTTPFetcher implements Fetcher {
             ActivityUtil.addStep(uri, getClass(), e.getMessage());
             return null;
         }
-        ActivityUtil.addStep(uri, getClass());
+        if (Boolean.TRUE.equals(uri.getData(Constants.URI_HTTP_NOT_MODIFIED))) {
+            ActivityUtil.addStep(uri, getClass(), "Not modified since the last crawl.");
+        } else {
+            ActivityUtil.addStep(uri, getClass());
+        }
         return dataFile;
     }
     
@@ -108,6 +168,8 @@ public class HTTPFetcher implements Fetcher {
             MapUtils.getString(uri.getData(), Constants.URI_HTTP_ACCEPT_HEADER, acceptHeader));
         request.addHeader(HttpHeaders.ACCEPT_CHARSET,
             MapUtils.getString(uri.getData(), Constants.URI_HTTP_ACCEPT_HEADER, acceptCharset));
+        addConditionalHeaders(uri, request);
+        uri.getData().remove(Constants.URI_HTTP_NOT_MODIFIED);
 
         HttpEntity entity = null;
         CloseableHttpResponse response = null;
@@ -115,14 +177,28 @@ public class HTTPFetcher implements Fetcher {
         try {
             response = client.execute(request);
 
-            // Handle response headers (especially the status and the content type)
+            // Handle response headers (especially the status and the content type). The
+            // headers of a previous crawl are replaced.
+            removeResponseHeaders(uri);
             for (Header header : response.getAllHeaders()) {
                 uri.addData(HTTP_RESPONSE_HEADER_PREFIX + header.getName(), header.getValue());
             }
             StatusLine status = response.getStatusLine();
             uri.addData(Constants.URI_HTTP_STATUS_CODE, status.getStatusCode());
+            if (((status.getStatusCode() >= 200) && (status.getStatusCode() < 300))
+                    || (status.getStatusCode() == HttpStatus.SC_NOT_MODIFIED)) {
+                storeValidators(uri, response);
+            }
+            if (status.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                LOGGER.debug("\"{}\" has not been modified since the last crawl.", uri);
+                uri.addData(Constants.URI_HTTP_NOT_MODIFIED, true);
+                uri.getData().remove(Constants.URI_DATA_FILE_NAME);
+                outputFile.delete();
+                return null;
+            }
             if ((status.getStatusCode() < 200) || (status.getStatusCode() >= 300)) {
                 LOGGER.info("Response of \"{}\" has the wrong status ({}). Returning null.", uri, status.toString());
+                outputFile.delete();
                 return null;
             }
             Header contentTypeHeader = response.getFirstHeader(HttpHeaders.CONTENT_TYPE);
@@ -161,6 +237,66 @@ public class HTTPFetcher implements Fetcher {
         return outputFile;
     }
 
+    /**
+     * Adds {@code If-None-Match} and {@code If-Modified-Since} headers based on
+     * the validators of a previous crawl of the given URI.
+     */
+    protected void addConditionalHeaders(CrawleableUri uri, HttpGet request) {
+        Object eTag = uri.getData(Constants.URI_HTTP_ETAG_KEY);
+        if (eTag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag.toString());
+        }
+        Object lastModified = uri.getData(Constants.URI_HTTP_LAST_MODIFIED_KEY);
+        if (lastModified != null) {
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified.toString());
+        }
+    }
+
+    /**
+     * Stores the {@code ETag} and {@code Last-Modified} headers of the given
+     * response as validators of the given URI. A validator that is not part of
+     * the response (e.g., a {@code 304} answer without {@code Last-Modified}
+     * header) keeps its previous value.
+     */
+    protected static void storeValidators(CrawleableUri uri, CloseableHttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.ETAG);
+        if (header != null) {
+            uri.addData(Constants.URI_HTTP_ETAG_KEY, header.getValue());
+        }
+        header = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        if (header != null) {
+            uri.addData(Constants.URI_HTTP_LAST_MODIFIED_KEY, header.getValue());
+        }
+    }
+
+    /**
+     * Returns the value of the given response header of the last request for
+     * the given URI or {@code null} if the header is not known. Header names are
+     * compared case-insensitively.
+     */
+    protected static String getResponseHeader(CrawleableUri uri, String headerName) {
+        String key = HTTP_RESPONSE_HEADER_PREFIX + headerName;
+        Object value = uri.getData(key);
+        if (value == null) {
+            for (Map.Entry<String, Object> entry : uri.getData().entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(key)) {
+                    value = entry.getValue();
+                    break;
+                }
+            }
+        }
+        return (value != null) ? value.toString() : null;
+    }
+
+    protected static void removeResponseHeaders(CrawleableUri uri) {
+        Iterator<String> iterator = uri.getData().keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().startsWith(HTTP_RESPONSE_HEADER_PREFIX)) {
+                iterator.remove();
+            }
+        }
+    }
+
     @Override
     public void close() throws IOException {
         client.close();
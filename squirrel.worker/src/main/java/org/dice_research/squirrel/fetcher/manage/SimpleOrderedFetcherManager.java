@@ -1,5 +1,6 @@
 package org.dice_research.squirrel.fetcher.manage;
 
+import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.fetcher.Fetcher;
 import org.dice_research.squirrel.fetcher.ftp.FTPFetcher;
@@ -15,7 +16,10 @@ import java.io.IOException;
  * order of the given fetchers. If the manager has got the fetchers A and B, it
  * will first try to fetch data from the given URI using A. If this is
  * successful (i.e., {@code A.fetch(uri) != null}) the result of {@link Fetcher}
- * A is returned. Only if A returns {@code null} {@link Fetcher} B is used.
+ * A is returned. Only if A returns {@code null} {@link Fetcher} B is used. If
+ * a fetcher has found out that the content of the URI hasn't been modified
+ * since the last crawl (see {@link Constants#URI_HTTP_NOT_MODIFIED}), the
+ * remaining fetchers are not asked.
  *
  * @author Michael R&ouml;der (michael.roeder@uni-paderborn.de)
  *
@@ -48,6 +52,8 @@ public class SimpleOrderedFetcherManager implements Fetcher {
             
             if(resultFile != null) {
             	uri.addData(FETCHER, fetchers[fetcherId].getClass().getName());
+            } else if (Boolean.TRUE.equals(uri.getData(Constants.URI_HTTP_NOT_MODIFIED))) {
+                break;
             }
             
             ++fetcherId;
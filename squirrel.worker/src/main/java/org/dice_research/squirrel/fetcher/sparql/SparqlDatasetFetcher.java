@@ -1,27 +1,20 @@
 package org.dice_research.squirrel.fetcher.sparql;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.sql.SQLException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
-import org.aksw.jena_sparql_api.core.QueryExecutionFactory;
-import org.aksw.jena_sparql_api.delay.core.QueryExecutionFactoryDelay;
-import org.aksw.jena_sparql_api.http.QueryExecutionFactoryHttp;
-import org.aksw.jena_sparql_api.pagination.core.QueryExecutionFactoryPaginated;
 import org.apache.commons.io.FileUtils;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.query.QueryFactory;
-import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ResultSet;
-import org.apache.jena.riot.RDFDataMgr;
-import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
-import org.apache.tika.io.IOUtils;
+import org.apache.jena.riot.system.StreamRDF;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.fetcher.Fetcher;
@@ -32,7 +25,10 @@ import org.springframework.stereotype.Component;
 
 /**
  * A simple {@link Fetcher} for SPARQL that tries to get DataSets from a SPARQL
- * endpoint using the query {@value #DATA_SET_QUERY}.
+ * endpoint using the query {@value #DATA_SET_QUERY}. The data sets are
+ * fetched in parallel by a {@link SparqlHarvester}, which limits the number of
+ * parallel queries and retries failed queries with an exponential backoff. The
+ * returned directory contains one N-Triples file per data set.
  *
  * @author Geraldo de Souza Jr (gsjunior@uni-paderborn.de)
  *
@@ -42,10 +38,6 @@ public class SparqlDatasetFetcher implements Fetcher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SparqlDatasetFetcher.class);
 
-    /**
-     * The delay that the system will have between sending two queries.
-     */
-
     protected String dataSetQuery = "select ?s where {?s a <http://www.w3.org/ns/dcat#Dataset>.} " ;
     protected String graphQuery = 
 			"construct { ?s ?p ?o. " + 
@@ -59,9 +51,13 @@ public class SparqlDatasetFetcher implements Fetcher {
     
 
 
+    /**
+     * The delay that the system will have before sending the query of a data set.
+     */
     protected int delay;
     protected int limit = 0;
     protected File dataDirectory = FileUtils.getTempDirectory();
+    protected SparqlHarvester harvester = new SparqlHarvester();
     
     public SparqlDatasetFetcher() {
     	
@@ -83,108 +79,77 @@ public class SparqlDatasetFetcher implements Fetcher {
     public File fetch(CrawleableUri uri) {
         // Check whether we can be sure that it is a SPARQL endpoint
         boolean shouldBeSparql = Constants.URI_TYPE_VALUE_SPARQL.equals(uri.getData(Constants.URI_TYPE_KEY));
-        QueryExecutionFactory qef = null;
-        QueryExecution execution = null;
-        File dataFile = null;
-        OutputStream out = null;
+        String endpoint = uri.getUri().toString();
+        File outputDirectory = null;
         try {
-            // Create query execution instance
-            qef = initQueryExecution(uri.getUri().toString());
-            // create temporary file
-            try {
-            	dataFile = File.createTempFile("fetched_", "", dataDirectory);
-                out = new BufferedOutputStream(new FileOutputStream(dataFile));
-            } catch (IOException e) {
-                LOGGER.error("Couldn't create temporary file for storing fetched data. Returning null.", e);
-                return null;
-            }
-            
-            execution = qef.createQueryExecution(dataSetQuery);
-            ResultSet resultSet = execution.execSelect();
-            
-            int i = 0;
-            
-            while(resultSet.hasNext()) {
-            	
-            	 if(limit != 0 && i>limit) {
-            		 LOGGER.info("LIMIT REACHED, STOPING EXECUTION");
-            		 execution.close();
-            		 break;
-            	 }
-                 	
-            	
-              QuerySolution soln = resultSet.nextSolution() ;
-  		      String dataSetResource = soln.get("s").toString() ;       // Get a result variable by name.
-  		      LOGGER.info("- Now Fetching - " + i + ": " + dataSetResource);
-           
-		      Query query = QueryFactory.create(graphQuery.replaceAll("\\?s", "<" + dataSetResource + ">")) ;
-		      
-		      
-			  boolean tryAgain = true;
-			  
-		      while(tryAgain) {
-		    	  
-		    	try {
-		  			Thread.sleep(delay);
-		  		} catch (InterruptedException e) {
-		  			LOGGER.error("An error occurred when fetching URI: " + uri.getUri().toString()
-		  					,e);
-		  		}
-		      
-		      try {	      
-		      QueryExecution qexecGraph = org.apache.jena.query.QueryExecutionFactory.createServiceRequest(uri.getUri().toString(), query);
-		    	  
-		    	  Iterator<Triple> triples = qexecGraph.execConstructTriples();
-		    	  
-		    	  RDFDataMgr.writeTriples(out, new SelectedTriplesIterator(triples));
-		    	  tryAgain = false;
-
-		    	  i++;
-		      }catch(QueryExceptionHTTP e) {
-		    	  
-		    	  if(e.getResponseCode() == 404 || e.getResponseCode() == 500) {
-		    		 tryAgain = true; 
-		    		 LOGGER.info("Error while fetching " +dataSetResource + ". Trying again...");
-		    	  }
-		  
-		      	}
-		      }        
-            }
-            
-            
-//            RDFDataMgr.writeTriples(out, new SelectedTriplesIterator(resultSet));
+            outputDirectory = Files.createTempDirectory(dataDirectory.toPath(), "fetched_").toFile();
+        } catch (IOException e) {
+            LOGGER.error("Couldn't create temporary directory for storing fetched data. Returning null.", e);
+            return null;
+        }
+        try {
+            List<String> dataSets = harvester.executeWithBackoff(endpoint, () -> selectDataSets(endpoint));
+            LOGGER.info("Found {} data sets at {}.", dataSets.size(), endpoint);
+            harvester.runInParallel(endpoint, dataSets, outputDirectory,
+                    (dataSet, output) -> fetchDataSet(endpoint, dataSet, output));
         } catch (Throwable e) {
+            FileUtils.deleteQuietly(outputDirectory);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             // If this should have worked, print a message, otherwise silently return null
             if (shouldBeSparql) {
-                LOGGER.error("Couldn't create QueryExecutionFactory for \"" + uri.getUri() + "\". Returning -1.");
+                LOGGER.error("Couldn't fetch the data sets of \"" + uri.getUri() + "\". Returning null.", e);
                 ActivityUtil.addStep(uri, getClass(), e.getMessage());
             }
             return null;
-        } finally {
-            IOUtils.closeQuietly(out);
-            if (execution != null) {
-                execution.close();
-            }
-            if (qef != null) {
-                qef.close();
-            }
         }
         ActivityUtil.addStep(uri, getClass());
-        return dataFile;
+        return outputDirectory;
     }
 
-    protected QueryExecutionFactory initQueryExecution(String uri) throws ClassNotFoundException, SQLException {
-        QueryExecutionFactory qef;
-        qef = new QueryExecutionFactoryHttp(uri);
-        qef = new QueryExecutionFactoryDelay(qef, delay);
-        try {
-        	LOGGER.info("Starting to Query uri:" + uri);
-            return new QueryExecutionFactoryPaginated(qef, 2000);
-        } catch (Exception e) {
-            LOGGER.info("Couldn't create Factory with pagination. Returning Factory without pagination. Exception: {}",
-                    e.getLocalizedMessage());
-            return qef;
+    /**
+     * @return the data sets of the given endpoint (at most {@link #limit} if
+     *         the limit is set)
+     */
+    protected List<String> selectDataSets(String endpoint) {
+        List<String> dataSets = new ArrayList<>();
+        try (QueryExecution execution = QueryExecutionFactory.sparqlService(endpoint, dataSetQuery)) {
+            ResultSet resultSet = execution.execSelect();
+            while (resultSet.hasNext() && ((limit == 0) || (dataSets.size() < limit))) {
+                dataSets.add(resultSet.next().get("s").toString());
+            }
         }
+        return dataSets;
+    }
+
+    /**
+     * Writes the triples of the given data set to the given output. The
+     * CONSTRUCT query has no order, i.e., a repeated query may return the
+     * triples in a different order. Hence, all triples are written again if the
+     * query is repeated after a failed attempt. The duplicates do not change
+     * the data of the N-Triples file.
+     *
+     * @return the number of written triples (including duplicates)
+     */
+    protected long fetchDataSet(String endpoint, String dataSet, StreamRDF output) throws Exception {
+        LOGGER.info("- Now Fetching - " + dataSet);
+        Query query = QueryFactory.create(graphQuery.replaceAll("\\?s", "<" + dataSet + ">"));
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+        long written[] = new long[1];
+        harvester.executeWithBackoff(endpoint, () -> {
+            try (QueryExecution execution = QueryExecutionFactory.createServiceRequest(endpoint, query)) {
+                Iterator<Triple> triples = execution.execConstructTriples();
+                while (triples.hasNext()) {
+                    output.triple(triples.next());
+                    ++written[0];
+                }
+            }
+            return null;
+        });
+        return written[0];
     }
 
     @Override
@@ -192,24 +157,4 @@ public class SparqlDatasetFetcher implements Fetcher {
         // nothing to do
     }
 
-    protected static class SelectedTriplesIterator implements Iterator<Triple> {
-        private Iterator<Triple> triples;
-
-        public SelectedTriplesIterator(Iterator<Triple> triples) {
-            this.triples = triples;
-        }
-
-        @Override
-        public boolean hasNext() {
-            return triples.hasNext();
-        }
-
-        @Override
-        public Triple next() {
-           return triples.next();
-        }
-
-    }
-
-
 }
@@ -0,0 +1,443 @@
+package org.dice_research.squirrel.fetcher.sparql;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.WebContent;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.engine.http.QueryEngineHTTP;
+import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
+import org.apache.jena.sparql.util.FmtUtils;
+import org.dice_research.squirrel.configurator.SparqlFetcherConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Harvests the triples of a SPARQL endpoint. The named graphs of the endpoint
+ * are discovered first and fetched in parallel together with its default
+ * graph, while the number of queries sent to a single endpoint at the same time
+ * is limited (see {@link SparqlFetcherConfiguration}). The default graph is
+ * always harvested since many stores (e.g., Fuseki) do not use the union of
+ * the named graphs as default graph. On stores that do, the triples of the
+ * named graphs are written twice, which does not change the harvested data.
+ *
+ * <p>
+ * Triples with IRI subjects are paged using the last subject of the previous
+ * page as key (keyset pagination), i.e., the endpoint does not have to skip
+ * the triples of all previous pages. Since a page may end in the middle of the
+ * triples of a subject, the triples of the last subject of a full page are
+ * requested again with the next page. Subjects with more triples than a page
+ * and blank node subjects are paged using {@code OFFSET}. All results are
+ * streamed into N-Triples files, one per graph.
+ * </p>
+ *
+ * <p>
+ * Failed queries are retried with an exponential backoff if the error might
+ * be temporary (e.g., {@code 503 Service Unavailable}). Rows that have been
+ * written before the failure are skipped when the query is repeated.
+ * </p>
+ */
+public class SparqlHarvester {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SparqlHarvester.class);
+
+    protected static final String GRAPH_DISCOVERY_QUERY = "SELECT DISTINCT ?g WHERE { GRAPH ?g { ?s ?p ?o } }";
+    protected static final String OUTPUT_FILE_PREFIX = "graph_";
+    protected static final String OUTPUT_FILE_ENDING = ".nt";
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    protected SparqlFetcherConfiguration configuration;
+    /**
+     * Slots limiting the number of parallel queries per endpoint host.
+     */
+    private final Map<String, Semaphore> endpointSlots = new ConcurrentHashMap<>();
+
+    public SparqlHarvester() {
+        this(SparqlFetcherConfiguration.getSparqlFetcherConfiguration());
+    }
+
+    public SparqlHarvester(SparqlFetcherConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Harvests the default graph and all named graphs of the given endpoint.
+     *
+     * @return the N-Triples files that have been written into the given
+     *         directory (graphs without triples do not have a file)
+     * @throws Exception
+     *             if no graph could be harvested
+     */
+    public List<File> harvest(String endpoint, File outputDirectory) throws Exception {
+        // the default graph is represented by null
+        List<Node> graphs = new ArrayList<>();
+        graphs.add(null);
+        try {
+            graphs.addAll(discoverGraphs(endpoint));
+            LOGGER.info("Found {} named graphs at {}.", graphs.size() - 1, endpoint);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.info("Couldn't discover the graphs of {} ({}). Harvesting its default graph.", endpoint,
+                    e.getMessage());
+        }
+        return runInParallel(endpoint, graphs, outputDirectory,
+                (graph, output) -> harvestGraph(endpoint, graph, output));
+    }
+
+    /**
+     * @return the IRIs of the named graphs of the given endpoint
+     */
+    public List<Node> discoverGraphs(String endpoint) throws Exception {
+        return executeWithBackoff(endpoint, () -> {
+            List<Node> graphs = new ArrayList<>();
+            try (QueryExecution execution = createQueryExecution(endpoint, GRAPH_DISCOVERY_QUERY)) {
+                ResultSet resultSet = execution.execSelect();
+                while (resultSet.hasNext()) {
+                    Node graph = resultSet.next().get("g").asNode();
+                    if (graph.isURI()) {
+                        graphs.add(graph);
+                    }
+                }
+            }
+            return graphs;
+        });
+    }
+
+    /**
+     * Writes the triples of the given items into one N-Triples file per item.
+     * The items are processed in parallel while the number of items of a single
+     * endpoint that are processed at the same time is limited.
+     *
+     * @return the files that contain at least one triple
+     * @throws IOException
+     *             if none of the items could be processed
+     */
+    public <T> List<File> runInParallel(String endpoint, List<T> items, File outputDirectory,
+            TripleSource<T> source) throws InterruptedException, IOException {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Semaphore slots = endpointSlots.computeIfAbsent(getEndpointKey(endpoint),
+                k -> new Semaphore(configuration.getMaxParallelQueries()));
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(items.size(), configuration.getMaxParallelQueries()), r -> {
+                    Thread t = new Thread(r, "sparql-harvester-" + THREAD_COUNTER.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        List<Future<File>> futures = new ArrayList<>(items.size());
+        try {
+            for (int i = 0; i < items.size(); ++i) {
+                T item = items.get(i);
+                File outputFile = new File(outputDirectory, OUTPUT_FILE_PREFIX + i + OUTPUT_FILE_ENDING);
+                futures.add(executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return writeTriples(item, outputFile, source);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            executor.shutdown();
+            List<File> files = new ArrayList<>();
+            Throwable lastError = null;
+            for (int i = 0; i < futures.size(); ++i) {
+                try {
+                    File file = futures.get(i).get();
+                    if (file != null) {
+                        files.add(file);
+                    }
+                } catch (ExecutionException e) {
+                    lastError = e.getCause();
+                    LOGGER.error("Couldn't harvest " + items.get(i) + " from " + endpoint + ". It will be ignored.",
+                            lastError);
+                }
+            }
+            if ((lastError != null) && files.isEmpty()) {
+                throw new IOException("Couldn't harvest any data from " + endpoint + ".", lastError);
+            }
+            return files;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    protected <T> File writeTriples(T item, File outputFile, TripleSource<T> source) throws Exception {
+        long count;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            StreamRDF stream = StreamRDFWriter.getWriterStream(out, Lang.NTRIPLES);
+            stream.start();
+            count = source.write(item, stream);
+            stream.finish();
+        } catch (Exception e) {
+            outputFile.delete();
+            throw e;
+        }
+        if (count == 0) {
+            outputFile.delete();
+            return null;
+        }
+        LOGGER.debug("Harvested {} triples of {}.", count, item);
+        return outputFile;
+    }
+
+    /**
+     * Writes the triples of the given graph of the endpoint to the given
+     * output.
+     *
+     * @param graph
+     *            the IRI of the graph or {@code null} for the default graph
+     * @return the number of written triples
+     */
+    protected long harvestGraph(String endpoint, Node graph, StreamRDF output) throws Exception {
+        String pattern = createPattern(graph, "?s");
+        int pageSize = configuration.getPageSize();
+        long count = 0;
+        Node lastSubject = null;
+        while (true) {
+            String query = "SELECT ?s ?p ?o WHERE { " + pattern + " FILTER(isIRI(?s)"
+                    + ((lastSubject != null)
+                            ? (" && (STR(?s) > " + FmtUtils.stringForNode(NodeFactory.createLiteral(lastSubject.getURI()))
+                                    + ")")
+                            : "")
+                    + ") } ORDER BY ?s LIMIT " + pageSize;
+            KeysetPage page = new KeysetPage(output);
+            executeWithBackoff(endpoint, () -> {
+                page.read(endpoint, query);
+                return null;
+            });
+            count += page.writtenTriples;
+            if (page.rows < pageSize) {
+                // this is the last page
+                count += page.flush();
+                break;
+            }
+            if (page.lastWrittenSubject != null) {
+                // the triples of the last subject are requested again with the next page
+                lastSubject = page.lastWrittenSubject;
+            } else {
+                // the page contains only a single subject
+                lastSubject = page.currentSubject;
+                Node subject = lastSubject;
+                count += readOffsetPages(endpoint,
+                        "SELECT ?p ?o WHERE { " + createPattern(graph, FmtUtils.stringForNode(subject))
+                                + " } ORDER BY ?p ?o",
+                        solution -> new Triple(subject, solution.get("p").asNode(), solution.get("o").asNode()),
+                        output);
+            }
+        }
+        count += readOffsetPages(endpoint,
+                "SELECT ?s ?p ?o WHERE { " + pattern + " FILTER(isBlank(?s)) } ORDER BY ?s ?p ?o",
+                SparqlHarvester::toTriple, output);
+        return count;
+    }
+
+    /**
+     * @return the triple pattern with the given subject in the given graph or
+     *         in the default graph if the graph is {@code null}
+     */
+    protected static String createPattern(Node graph, String subject) {
+        String pattern = subject + " ?p ?o";
+        return (graph == null) ? pattern : ("GRAPH " + FmtUtils.stringForNode(graph) + " { " + pattern + " }");
+    }
+
+    /**
+     * Pages through the results of the given query using {@code LIMIT} and
+     * {@code OFFSET}.
+     *
+     * @return the number of written triples
+     */
+    protected long readOffsetPages(String endpoint, String query, Function<QuerySolution, Triple> toTriple,
+            StreamRDF output) throws Exception {
+        int pageSize = configuration.getPageSize();
+        long count = 0;
+        long offset = 0;
+        int rows[] = new int[2];
+        do {
+            String pageQuery = query + " LIMIT " + pageSize + " OFFSET " + offset;
+            // rows[0] = written rows of this page, rows[1] = rows of the last attempt
+            rows[0] = 0;
+            executeWithBackoff(endpoint, () -> {
+                try (QueryExecution execution = createQueryExecution(endpoint, pageQuery)) {
+                    ResultSet resultSet = execution.execSelect();
+                    int row = 0;
+                    while (resultSet.hasNext()) {
+                        QuerySolution solution = resultSet.next();
+                        ++row;
+                        // skip rows that have been written by a failed attempt
+                        if (row > rows[0]) {
+                            output.triple(toTriple.apply(solution));
+                            rows[0] = row;
+                        }
+                    }
+                    rows[1] = row;
+                }
+                return null;
+            });
+            count += rows[0];
+            offset += pageSize;
+        } while (rows[1] >= pageSize);
+        return count;
+    }
+
+    /**
+     * Executes the given query and retries it with an exponential backoff if it
+     * fails with a temporary error.
+     */
+    public <T> T executeWithBackoff(String endpoint, Callable<T> query) throws Exception {
+        long backoff = configuration.getInitialBackoff();
+        for (int attempt = 0;; ++attempt) {
+            try {
+                return query.call();
+            } catch (Exception e) {
+                if ((attempt >= configuration.getMaxRetries()) || !isTemporaryError(e)) {
+                    throw e;
+                }
+                LOGGER.info("Query to {} failed ({}). Retrying in {}ms.", endpoint, e.getMessage(), backoff);
+                Thread.sleep(backoff);
+                backoff = Math.min(2 * backoff, configuration.getMaxBackoff());
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the given error might disappear if the query is
+     *         repeated, e.g., an overloaded endpoint or a broken connection
+     */
+    protected static boolean isTemporaryError(Throwable e) {
+        while (e != null) {
+            if (e instanceof QueryExceptionHTTP) {
+                int code = ((QueryExceptionHTTP) e).getResponseCode();
+                if ((code == 429) || (code >= 500) || (code == QueryExceptionHTTP.noResponseCode)) {
+                    return true;
+                }
+            } else if (e instanceof IOException) {
+                return true;
+            }
+            e = e.getCause();
+        }
+        return false;
+    }
+
+    protected QueryExecution createQueryExecution(String endpoint, String query) {
+        QueryEngineHTTP execution = new QueryEngineHTTP(endpoint, query);
+        // XML results are parsed while they are read
+        execution.setSelectContentType(WebContent.contentTypeResultsXML);
+        return execution;
+    }
+
+    protected static String getEndpointKey(String endpoint) {
+        try {
+            String host = new URI(endpoint).getHost();
+            return (host != null) ? host : endpoint;
+        } catch (Exception e) {
+            return endpoint;
+        }
+    }
+
+    protected static Triple toTriple(QuerySolution solution) {
+        return new Triple(solution.get("s").asNode(), solution.get("p").asNode(), solution.get("o").asNode());
+    }
+
+    /**
+     * Writes the triples of a given item to a stream.
+     */
+    public static interface TripleSource<T> {
+        /**
+         * @return the number of written triples
+         */
+        public long write(T item, StreamRDF output) throws Exception;
+    }
+
+    /**
+     * A page of triples ordered by their subjects. The triples of a subject are
+     * only written when the first triple of the next subject is read, i.e., the
+     * triples of the last subject of the page are buffered.
+     */
+    protected class KeysetPage {
+        protected StreamRDF output;
+        /**
+         * Number of rows that have been written by previous attempts.
+         */
+        protected int writtenRows = 0;
+        protected long writtenTriples = 0;
+        protected int rows = 0;
+        protected Node lastWrittenSubject = null;
+        protected Node currentSubject = null;
+        protected List<Triple> buffer = new ArrayList<>();
+
+        public KeysetPage(StreamRDF output) {
+            this.output = output;
+        }
+
+        public void read(String endpoint, String query) {
+            currentSubject = null;
+            buffer.clear();
+            try (QueryExecution execution = createQueryExecution(endpoint, query)) {
+                ResultSet resultSet = execution.execSelect();
+                int row = 0;
+                while (resultSet.hasNext()) {
+                    QuerySolution solution = resultSet.next();
+                    ++row;
+                    // skip the subjects that have been written by a failed attempt
+                    if (row <= writtenRows) {
+                        continue;
+                    }
+                    Triple triple = toTriple(solution);
+                    if (!triple.getSubject().equals(currentSubject)) {
+                        if (currentSubject != null) {
+                            writtenTriples += flush();
+                            lastWrittenSubject = currentSubject;
+                        }
+                        writtenRows = row - 1;
+                        currentSubject = triple.getSubject();
+                    }
+                    buffer.add(triple);
+                }
+                rows = row;
+            }
+        }
+
+        /**
+         * Writes the buffered triples.
+         *
+         * @return the number of written triples
+         */
+        public int flush() {
+            int count = buffer.size();
+            for (Triple triple : buffer) {
+                output.triple(triple);
+            }
+            buffer.clear();
+            return count;
+        }
+    }
+}
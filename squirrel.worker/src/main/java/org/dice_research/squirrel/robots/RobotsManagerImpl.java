@@ -1,27 +1,64 @@
 package org.dice_research.squirrel.robots;
 
+import crawlercommons.fetcher.FetchedResult;
+import crawlercommons.fetcher.HttpFetchException;
+import crawlercommons.fetcher.IOFetchException;
+import crawlercommons.fetcher.RedirectFetchException;
 import crawlercommons.fetcher.http.BaseHttpFetcher;
 import crawlercommons.robots.BaseRobotRules;
 import crawlercommons.robots.BaseRobotsParser;
-import crawlercommons.robots.RobotUtils;
 import crawlercommons.robots.SimpleRobotRulesParser;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.tika.metadata.Metadata;
+import org.dice_research.squirrel.robots.RobotsRulesCache.CachedRobotRules;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
-public class RobotsManagerImpl implements RobotsManager {
+/**
+ * Standard implementation of the {@link RobotsManager} interface. The parsed
+ * robots.txt rules are cached per scheme, host and port (see
+ * {@link RobotsRulesCache}). The lifetime of a cache entry is derived from the
+ * Cache-Control or Expires header of the robots.txt response and limited by the
+ * maximum TTL. If the response does not define a lifetime, the default TTL is
+ * used. If a cache file is set, the cache is loaded from this file and written
+ * back to it when the manager is closed.
+ */
+public class RobotsManagerImpl implements RobotsManager, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RobotsManagerImpl.class);
 
     private static final String ROBOTS_FILE_NAME = "/robots.txt";
     private static final long DEFAULT_MIN_WAITING_TIME = 2000;
+    /**
+     * Minimum time (in ms) the rules are cached, even if the robots.txt
+     * response forbids caching.
+     */
+    private static final long MIN_TTL = TimeUnit.MINUTES.toMillis(1);
+    /**
+     * Time (in ms) the rules are cached if the robots.txt couldn't be retrieved
+     * because of a server or network error.
+     */
+    private static final long DEFAULT_FAILED_FETCH_TTL = TimeUnit.MINUTES.toMillis(10);
 
     private long defaultMinWaitingTime = DEFAULT_MIN_WAITING_TIME;
     private BaseHttpFetcher fetcher;
     private BaseRobotsParser parser;
+    private RobotsRulesCache cache = new RobotsRulesCache();
+    private long cacheTtl = RobotsRulesCache.DEFAULT_TTL;
+    private long maxCacheTtl = RobotsRulesCache.DEFAULT_TTL;
+    private long failedFetchTtl = DEFAULT_FAILED_FETCH_TTL;
+    private File cacheFile = null;
 
     public RobotsManagerImpl(BaseHttpFetcher fetcher) {
         this(fetcher, new SimpleRobotRulesParser());
@@ -33,13 +70,84 @@ public class RobotsManagerImpl implements RobotsManager {
     }
 
     protected BaseRobotRules getRules(URI uri) {
+        return cache.getRules(uri, () -> loadRules(uri));
+    }
+
+    /**
+     * Retrieves and parses the robots.txt file for the origin of the given URI
+     * and determines how long the rules can be cached.
+     */
+    protected CachedRobotRules loadRules(URI uri) {
+        long now = System.currentTimeMillis();
+        URL robotsUrl;
         try {
-            return RobotUtils.getRobotRules(fetcher, parser,
-                    new URL(uri.getScheme(), uri.getHost(), uri.getPort(), ROBOTS_FILE_NAME));
+            robotsUrl = new URL(uri.getScheme(), uri.getHost(), uri.getPort(), ROBOTS_FILE_NAME);
         } catch (MalformedURLException e) {
             LOGGER.error("URL of robots.txt file is malformed. Returning rules for HTTP 400.");
-            return parser.failedFetch(400);
+            return new CachedRobotRules(parser.failedFetch(400), now + cacheTtl);
+        }
+        try {
+            FetchedResult result = fetcher.get(robotsUrl.toExternalForm());
+            long expirationTime = now + getTtl(result.getHeaders(), now);
+            // Some sites redirect the request to another page instead of returning a 404
+            String contentType = result.getContentType();
+            boolean isPlainText = (contentType != null) && contentType.startsWith("text/plain");
+            if ((result.getNumRedirects() > 0) && !isPlainText) {
+                return new CachedRobotRules(parser.failedFetch(410), expirationTime);
+            }
+            return new CachedRobotRules(parser.parseContent(robotsUrl.toExternalForm(), result.getContent(),
+                    contentType, fetcher.getUserAgent().getAgentName()), expirationTime);
+        } catch (HttpFetchException e) {
+            // Client errors mean that there are no rules, server errors should be retried
+            long ttl = (e.getHttpStatus() < 500) ? getTtl(e.getHttpHeaders(), now) : failedFetchTtl;
+            return new CachedRobotRules(parser.failedFetch(e.getHttpStatus()), now + ttl);
+        } catch (IOFetchException e) {
+            return new CachedRobotRules(parser.failedFetch(500), now + failedFetchTtl);
+        } catch (RedirectFetchException e) {
+            return new CachedRobotRules(parser.failedFetch(410), now + cacheTtl);
+        } catch (Exception e) {
+            LOGGER.error("Unexpected exception fetching robots.txt: " + robotsUrl, e);
+            return new CachedRobotRules(parser.failedFetch(500), now + failedFetchTtl);
+        }
+    }
+
+    /**
+     * Determines the time (in ms) the robots.txt file can be cached based on the
+     * Cache-Control and Expires headers of the response. If none of them is
+     * available, the configured TTL is returned.
+     */
+    protected long getTtl(Metadata headers, long now) {
+        long ttl = -1;
+        if (headers != null) {
+            String cacheControl = headers.get(HttpHeaders.CACHE_CONTROL);
+            if (cacheControl != null) {
+                for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                    directive = directive.trim();
+                    if (directive.equals("no-store") || directive.equals("no-cache")) {
+                        ttl = 0;
+                        break;
+                    } else if (directive.startsWith("max-age=")) {
+                        try {
+                            ttl = TimeUnit.SECONDS.toMillis(Long.parseLong(directive.substring(8).trim()));
+                        } catch (NumberFormatException e) {
+                            // ignore malformed directives
+                        }
+                    }
+                }
+            }
+            if (ttl < 0) {
+                String expires = headers.get(HttpHeaders.EXPIRES);
+                if (expires != null) {
+                    Date date = DateUtils.parseDate(expires);
+                    // An invalid date means that the response is already expired
+                    ttl = (date != null) ? date.getTime() - now : 0;
+                }
+            }
         }
+        if (ttl < 0) {
+            return cacheTtl;
+        }
+        return Math.min(Math.max(ttl, MIN_TTL), maxCacheTtl);
     }
 
     @Override
@@ -58,4 +166,64 @@ public class RobotsManagerImpl implements RobotsManager {
         this.defaultMinWaitingTime = defaultMinWaitingTime;
     }
 
+    public RobotsRulesCache getCache() {
+        return cache;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        cache.setMaxSize(cacheSize);
+    }
+
+    /**
+     * @param cacheTtl
+     *            the time (in ms) rules are cached if the robots.txt response
+     *            does not define it
+     */
+    public void setCacheTtl(long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * @param maxCacheTtl
+     *            the maximum time (in ms) rules are cached, regardless of the
+     *            headers of the robots.txt response
+     */
+    public void setMaxCacheTtl(long maxCacheTtl) {
+        this.maxCacheTtl = maxCacheTtl;
+    }
+
+    public void setFailedFetchTtl(long failedFetchTtl) {
+        this.failedFetchTtl = failedFetchTtl;
+    }
+
+    /**
+     * Sets the file in which the cached rules are stored when this manager is
+     * closed and loads the rules that are already stored in the file.
+     *
+     * @param cacheFile
+     *            the path of the file or {@code null} if the cache should not be
+     *            persisted
+     */
+    public void setCacheFile(String cacheFile) {
+        if ((cacheFile == null) || cacheFile.isEmpty()) {
+            this.cacheFile = null;
+            return;
+        }
+        this.cacheFile = new File(cacheFile);
+        try {
+            cache.load(this.cacheFile);
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't load robots.txt cache from " + cacheFile + ". Starting with an empty cache.", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        LOGGER.info("robots.txt cache: {} hits, {} misses, {} evictions.", cache.getHits(), cache.getMisses(),
+                cache.getEvictions());
+        if (cacheFile != null) {
+            cache.save(cacheFile);
+        }
+    }
+
 }
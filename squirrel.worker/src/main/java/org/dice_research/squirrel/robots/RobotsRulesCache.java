@@ -0,0 +1,285 @@
+package org.dice_research.squirrel.robots;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import crawlercommons.robots.BaseRobotRules;
+
+/**
+ * <p>
+ * A size-bounded cache for parsed robots.txt rules. The rules are cached per
+ * origin, i.e., per scheme, host and port. Every entry has its own expiration
+ * time. If the cache exceeds its maximum size, the least recently used entries
+ * are evicted.
+ * </p>
+ * <p>
+ * Concurrent lookups of the same origin are coalesced, i.e., if several threads
+ * miss the same origin at the same time, the rules are loaded only once and all
+ * threads get the same result.
+ * </p>
+ * <p>
+ * Optionally, the cache can be written to and read from a file to keep the
+ * rules across restarts of a worker (see {@link #save(File)} and
+ * {@link #load(File)}).
+ * </p>
+ */
+public class RobotsRulesCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RobotsRulesCache.class);
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+    public static final long DEFAULT_TTL = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * The cached rules in the order of their last access.
+     */
+    private final LinkedHashMap<String, CachedRobotRules> entries;
+    /**
+     * The loading processes that are currently running.
+     */
+    private final Map<String, CompletableFuture<CachedRobotRules>> loading = new ConcurrentHashMap<>();
+    private int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RobotsRulesCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public RobotsRulesCache(int maxSize) {
+        this.maxSize = maxSize;
+        entries = new LinkedHashMap<String, CachedRobotRules>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedRobotRules> eldest) {
+                if (size() > RobotsRulesCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached rules for the origin of the given URI. If there are no
+     * rules or the rules are expired, the given loader is used to retrieve them.
+     * If another thread is already loading the rules of this origin, the method
+     * waits for its result instead of calling the loader.
+     *
+     * @param uri
+     *            the URI for which the robots.txt rules are needed
+     * @param loader
+     *            the loader that retrieves the rules if they are not cached
+     * @return the rules for the origin of the given URI
+     */
+    public BaseRobotRules getRules(URI uri, Supplier<CachedRobotRules> loader) {
+        String key = getKey(uri);
+        CachedRobotRules cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if ((cached != null) && !cached.isExpired(System.currentTimeMillis())) {
+            hits.incrementAndGet();
+            return cached.getRules();
+        }
+        misses.incrementAndGet();
+        CompletableFuture<CachedRobotRules> newFuture = new CompletableFuture<>();
+        CompletableFuture<CachedRobotRules> future = loading.putIfAbsent(key, newFuture);
+        if (future == null) {
+            // This thread has to load the rules
+            future = newFuture;
+            try {
+                cached = loader.get();
+                synchronized (entries) {
+                    entries.put(key, cached);
+                }
+                future.complete(cached);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(key, future);
+            }
+        }
+        return future.join().getRules();
+    }
+
+    /**
+     * Generates the key of the origin of the given URI. The scheme and host are
+     * lower cased and the port is replaced by the default port of the scheme if
+     * it is not given.
+     */
+    public static String getKey(URI uri) {
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (port < 0) {
+            if ("http".equals(scheme)) {
+                port = 80;
+            } else if ("https".equals(scheme)) {
+                port = 443;
+            }
+        }
+        return scheme + "://" + host + ":" + port;
+    }
+
+    /**
+     * Writes all entries that are not expired to the given file.
+     *
+     * @param file
+     *            the file to which the cache should be written
+     * @throws IOException
+     *             if the file can not be written
+     */
+    public void save(File file) throws IOException {
+        HashMap<String, CachedRobotRules> copy = new HashMap<>();
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            for (Map.Entry<String, CachedRobotRules> entry : entries.entrySet()) {
+                if (!entry.getValue().isExpired(now)) {
+                    copy.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeObject(copy);
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+        LOGGER.info("Wrote {} robots.txt rules to {}.", copy.size(), file);
+    }
+
+    /**
+     * Adds the entries of the given file (if they are not expired) to this
+     * cache. If the file does not exist, nothing happens.
+     *
+     * @param file
+     *            the file from which the cache entries should be read
+     * @throws IOException
+     *             if the file exists but can not be read
+     */
+    @SuppressWarnings("unchecked")
+    public void load(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        Map<String, CachedRobotRules> loaded;
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            loaded = (Map<String, CachedRobotRules>) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("The file " + file + " does not contain robots.txt rules.", e);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        long now = System.currentTimeMillis();
+        int count = 0;
+        synchronized (entries) {
+            for (Map.Entry<String, CachedRobotRules> entry : loaded.entrySet()) {
+                if (!entry.getValue().isExpired(now)) {
+                    entries.put(entry.getKey(), entry.getValue());
+                    ++count;
+                }
+            }
+        }
+        LOGGER.info("Loaded {} robots.txt rules from {}.", count, file);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the number of lookups that could be answered by the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that had to load (or wait for) the rules
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries that have been evicted because of the size
+     *         limit
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Rules of a single origin together with their expiration time.
+     */
+    public static class CachedRobotRules implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BaseRobotRules rules;
+        private final long expirationTime;
+
+        public CachedRobotRules(BaseRobotRules rules, long expirationTime) {
+            this.rules = rules;
+            this.expirationTime = expirationTime;
+        }
+
+        public BaseRobotRules getRules() {
+            return rules;
+        }
+
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+
+        public boolean isExpired(long now) {
+            return now >= expirationTime;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package org.dice_research.squirrel.sink.impl.bulk;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.jena.atlas.web.HttpException;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.Quad;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.metadata.CrawlingActivity;
+import org.dice_research.squirrel.sink.impl.file.FileBasedSink;
+import org.dice_research.squirrel.sink.impl.sparql.SparqlBasedSink;
+import org.dice_research.squirrel.utils.Closer;
+import org.dice_research.squirrel.vocab.Squirrel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A sink that appends the triples of all crawled URIs as quads to rolling,
+ * gzip compressed N-Quads segment files instead of updating the triple store
+ * for every URI. The graph of a quad is the result graph of the crawled URI
+ * (see {@link SparqlBasedSink#getGraphId(CrawleableUri)}) or the meta data
+ * graph.
+ *
+ * <p>
+ * A segment is closed if it contains {@link #maxQuadsPerSegment} quads or if
+ * it is older than {@link #maxSegmentAge} ms. Closed segments are handed to a
+ * {@link SegmentLoader} which loads them into the triple store in a background
+ * thread, i.e., crawling and loading are decoupled and the store receives a few
+ * large loads instead of many small updates. A segment that couldn't be loaded
+ * is retried up to {@link #maxRetries} times and renamed to
+ * {@code *.failed} afterwards. Segments that are found in the segment directory
+ * when the sink is created, e.g., after a crash, are loaded as well.
+ * </p>
+ *
+ * <p>
+ * Note that the triples of a URI are not in the store when
+ * {@link #closeSinkForUri(CrawleableUri)} returns. Unstructured data is written
+ * to files as done by the {@link FileBasedSink}.
+ * </p>
+ */
+public class BulkLoadSink extends FileBasedSink implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkLoadSink.class);
+
+    public static final long DEFAULT_MAX_QUADS_PER_SEGMENT = 1000000;
+    /**
+     * Maximum time (in ms) a segment is kept open.
+     */
+    public static final long DEFAULT_MAX_SEGMENT_AGE = 600000;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    /**
+     * Delay (in ms) before the first retry. It is doubled for every further
+     * retry.
+     */
+    public static final long DEFAULT_RETRY_DELAY = 5000;
+
+    protected static final String SEGMENT_FILE_ENDING = ".nq.gz";
+    protected static final String PART_FILE_ENDING = ".part";
+    protected static final String FAILED_FILE_ENDING = ".failed";
+
+    private static final AtomicInteger SINK_COUNTER = new AtomicInteger();
+
+    protected SegmentLoader loader;
+    protected long maxQuadsPerSegment = DEFAULT_MAX_QUADS_PER_SEGMENT;
+    protected long maxSegmentAge = DEFAULT_MAX_SEGMENT_AGE;
+    protected int maxRetries = DEFAULT_MAX_RETRIES;
+    protected long retryDelay = DEFAULT_RETRY_DELAY;
+    /**
+     * Flag whether segments should be kept after they have been loaded.
+     */
+    protected boolean keepLoadedSegments = false;
+
+    /**
+     * Number of triples that have been written for the single crawled URIs.
+     */
+    protected Map<String, AtomicLong> tripleCounts = new ConcurrentHashMap<>();
+    protected CrawleableUri metadataGraphUri = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
+
+    private final Object segmentLock = new Object();
+    private Segment currentSegment = null;
+    private int segmentCounter = 0;
+    private final int sinkId;
+    private final String segmentPrefix;
+
+    private final ExecutorService loaderExecutor;
+    private ScheduledExecutorService rollExecutor = null;
+
+    private final AtomicLong writtenQuads = new AtomicLong();
+    private final AtomicLong loadedSegments = new AtomicLong();
+    private final AtomicLong loadedQuads = new AtomicLong();
+    private final AtomicLong failedSegments = new AtomicLong();
+    private final AtomicInteger pendingSegments = new AtomicInteger();
+
+    public BulkLoadSink(File outputDirectory, SegmentLoader loader) {
+        super(outputDirectory, Lang.NQUADS, true);
+        this.loader = loader;
+        sinkId = SINK_COUNTER.incrementAndGet();
+        segmentPrefix = "segment-" + System.currentTimeMillis() + "-" + sinkId + "-";
+        loaderExecutor = Executors.newSingleThreadExecutor(createThreadFactory("bulk-sink-" + sinkId + "-loader-"));
+        loadPendingSegments();
+    }
+
+    @Override
+    public void addTriple(CrawleableUri uri, Triple triple) {
+        String uriString = uri.getUri().toString();
+        if (!streamMapping.containsKey(uriString)) {
+            LOGGER.error("A triple for {} was added but openSinkForUri hasn't been called before. It will be ignored.",
+                    uriString);
+            return;
+        }
+        Quad quad = new Quad(getGraphNode(uri), triple);
+        try {
+            synchronized (segmentLock) {
+                if (currentSegment == null) {
+                    currentSegment = createSegment();
+                }
+                currentSegment.stream.quad(quad);
+                ++currentSegment.quadCount;
+                if (currentSegment.quadCount >= maxQuadsPerSegment) {
+                    rollSegment();
+                }
+            }
+            writtenQuads.incrementAndGet();
+            tripleCounts.computeIfAbsent(uriString, k -> new AtomicLong()).incrementAndGet();
+        } catch (Exception e) {
+            LOGGER.error("Exception while writing the triple \"" + triple.toString() + "\" from the URI \"" + uriString
+                    + "\". Ignoring it.", e);
+        }
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        super.closeSinkForUri(uri);
+        AtomicLong count = tripleCounts.remove(uri.getUri().toString());
+        CrawlingActivity activity = (CrawlingActivity) uri.getData(Constants.URI_CRAWLING_ACTIVITY);
+        if ((activity != null) && (count != null)) {
+            activity.setNumberOfTriples(count.get());
+            if (!uri.equals(metadataGraphUri)) {
+                activity.addOutputResource(SparqlBasedSink.getGraphId(uri), Squirrel.ResultGraph);
+            }
+        }
+    }
+
+    protected Node getGraphNode(CrawleableUri uri) {
+        if (uri.equals(metadataGraphUri)) {
+            return NodeFactory.createURI(uri.getUri().toString());
+        } else {
+            return NodeFactory.createURI(SparqlBasedSink.getGraphId(uri));
+        }
+    }
+
+    /**
+     * Creates a new segment and starts the thread closing old segments if it is
+     * not running, yet.
+     */
+    protected Segment createSegment() throws IOException {
+        ++segmentCounter;
+        File file = new File(outputDirectory, segmentPrefix + segmentCounter + SEGMENT_FILE_ENDING);
+        if ((rollExecutor == null) && (maxSegmentAge > 0)) {
+            rollExecutor = Executors.newSingleThreadScheduledExecutor(createThreadFactory("bulk-sink-" + sinkId
+                    + "-roll-"));
+            long period = Math.max(100, maxSegmentAge / 2);
+            rollExecutor.scheduleWithFixedDelay(this::rollOldSegment, period, period, TimeUnit.MILLISECONDS);
+        }
+        return new Segment(file);
+    }
+
+    /**
+     * Closes the current segment if it exceeds the maximum age.
+     */
+    protected void rollOldSegment() {
+        try {
+            synchronized (segmentLock) {
+                if ((currentSegment != null)
+                        && (currentSegment.creationTime <= (System.currentTimeMillis() - maxSegmentAge))) {
+                    rollSegment();
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception while closing an old segment.", e);
+        }
+    }
+
+    /**
+     * Closes the current segment (if there is one) and hands it over to the
+     * loader.
+     */
+    public void rollSegment() throws IOException {
+        Segment segment;
+        synchronized (segmentLock) {
+            segment = currentSegment;
+            currentSegment = null;
+            if (segment == null) {
+                return;
+            }
+            segment.close();
+        }
+        LOGGER.info("Closed segment {} with {} quads.", segment.file, segment.quadCount);
+        submit(segment.file, segment.quadCount);
+    }
+
+    /**
+     * Submits the segments of a previous run which haven't been loaded.
+     */
+    protected void loadPendingSegments() {
+        File[] files = outputDirectory.listFiles((dir, name) -> name.endsWith(SEGMENT_FILE_ENDING));
+        if ((files == null) || (files.length == 0)) {
+            return;
+        }
+        Arrays.sort(files);
+        LOGGER.info("Found {} segments that haven't been loaded. They will be loaded now.", files.length);
+        for (File file : files) {
+            submit(file, -1);
+        }
+    }
+
+    protected void submit(File segment, long quadCount) {
+        pendingSegments.incrementAndGet();
+        loaderExecutor.execute(() -> {
+            try {
+                loadWithRetries(segment, quadCount);
+            } finally {
+                pendingSegments.decrementAndGet();
+            }
+        });
+    }
+
+    protected void loadWithRetries(File segment, long quadCount) {
+        for (int attempt = 0;; ++attempt) {
+            try {
+                long start = System.currentTimeMillis();
+                loader.load(segment);
+                loadedSegments.incrementAndGet();
+                if (quadCount > 0) {
+                    loadedQuads.addAndGet(quadCount);
+                }
+                LOGGER.info("Loaded segment {} in {}ms.", segment, System.currentTimeMillis() - start);
+                if (!keepLoadedSegments && !segment.delete()) {
+                    LOGGER.warn("Couldn't delete loaded segment {}.", segment);
+                }
+                return;
+            } catch (Exception e) {
+                if ((attempt < maxRetries) && isTransient(e)) {
+                    LOGGER.warn("Couldn't load segment {} (attempt {}). Retrying. Error: {}", segment, attempt + 1,
+                            e.getMessage());
+                    try {
+                        Thread.sleep(retryDelay << attempt);
+                        continue;
+                    } catch (InterruptedException e1) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    LOGGER.error("Was not able to load segment " + segment + ". It will be kept for a manual load.", e);
+                }
+                failedSegments.incrementAndGet();
+                File failed = new File(segment.getPath() + FAILED_FILE_ENDING);
+                if (!segment.renameTo(failed)) {
+                    LOGGER.warn("Couldn't rename failed segment {}.", segment);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Decides whether loading a segment should be retried after the given
+     * exception. HTTP client errors (4xx) are not transient.
+     */
+    protected boolean isTransient(Exception e) {
+        if (e instanceof HttpException) {
+            int code = ((HttpException) e).getResponseCode();
+            return (code < 400) || (code >= 500);
+        }
+        return true;
+    }
+
+    /**
+     * Closes the current segment, waits until all segments have been loaded and
+     * closes the loader.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (segmentLock) {
+            if (rollExecutor != null) {
+                rollExecutor.shutdownNow();
+                rollExecutor = null;
+            }
+            rollSegment();
+        }
+        loaderExecutor.shutdown();
+        try {
+            if (!loaderExecutor.awaitTermination(1, TimeUnit.HOURS)) {
+                LOGGER.warn("Loader did not finish. {} segments haven't been loaded.", pendingSegments.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Closer.close(loader, LOGGER);
+        LOGGER.info("Closed sink. Wrote {} quads. Loaded {} segments ({} quads), {} segments failed.", writtenQuads.get(),
+                loadedSegments.get(), loadedQuads.get(), failedSegments.get());
+    }
+
+    private static ThreadFactory createThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    public long getWrittenQuads() {
+        return writtenQuads.get();
+    }
+
+    public long getLoadedSegments() {
+        return loadedSegments.get();
+    }
+
+    public long getLoadedQuads() {
+        return loadedQuads.get();
+    }
+
+    public long getFailedSegments() {
+        return failedSegments.get();
+    }
+
+    public int getPendingSegments() {
+        return pendingSegments.get();
+    }
+
+    public void setMaxQuadsPerSegment(long maxQuadsPerSegment) {
+        this.maxQuadsPerSegment = maxQuadsPerSegment;
+    }
+
+    /**
+     * Sets the maximum age of a segment. Has to be called before the first
+     * triple is added.
+     */
+    public void setMaxSegmentAge(long maxSegmentAge) {
+        this.maxSegmentAge = maxSegmentAge;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    public void setKeepLoadedSegments(boolean keepLoadedSegments) {
+        this.keepLoadedSegments = keepLoadedSegments;
+    }
+
+    /**
+     * A segment that is currently written. It is written to a {@code .part} file
+     * which is renamed when the segment is closed. Hence, a crash does not leave
+     * incomplete segments that would be loaded later on.
+     */
+    protected static class Segment implements Closeable {
+        protected File file;
+        protected File partFile;
+        protected OutputStream outputStream;
+        protected StreamRDF stream;
+        protected long quadCount = 0;
+        protected long creationTime = System.currentTimeMillis();
+
+        public Segment(File file) throws IOException {
+            this.file = file;
+            this.partFile = new File(file.getPath() + PART_FILE_ENDING);
+            outputStream = new GZIPOutputStream(new FileOutputStream(partFile), 1 << 16);
+            stream = StreamRDFWriter.getWriterStream(outputStream, Lang.NQUADS);
+            stream.start();
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.finish();
+            outputStream.close();
+            if (!partFile.renameTo(file)) {
+                throw new IOException("Couldn't rename " + partFile + " to " + file);
+            }
+        }
+    }
+}
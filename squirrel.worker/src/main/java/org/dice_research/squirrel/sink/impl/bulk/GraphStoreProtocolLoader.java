@@ -0,0 +1,94 @@
+package org.dice_research.squirrel.sink.impl.bulk;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.apache.jena.atlas.web.HttpException;
+import org.apache.jena.riot.WebContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SegmentLoader} that POSTs the segments to the dataset endpoint of a
+ * triple store supporting the SPARQL 1.1 Graph Store HTTP Protocol, e.g.,
+ * {@code http://localhost:3030/ds/data}. Since the segments contain quads, the
+ * request does not name a graph. By default, the segment is decompressed while
+ * it is streamed to the store. If the store accepts gzip encoded requests, the
+ * file can be sent as it is.
+ */
+public class GraphStoreProtocolLoader implements SegmentLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphStoreProtocolLoader.class);
+
+    protected static final ContentType NQUADS_CONTENT_TYPE = ContentType.create(WebContent.contentTypeNQuads);
+
+    protected String datasetUrl;
+    protected boolean sendCompressed;
+    protected CloseableHttpClient client;
+
+    public GraphStoreProtocolLoader(String datasetUrl) {
+        this(datasetUrl, null, null, false);
+    }
+
+    public GraphStoreProtocolLoader(String datasetUrl, String username, String password, boolean sendCompressed) {
+        this.datasetUrl = datasetUrl;
+        this.sendCompressed = sendCompressed;
+        HttpClientBuilder builder = HttpClientBuilder.create();
+        if (username != null && password != null) {
+            CredentialsProvider credentials = new BasicCredentialsProvider();
+            credentials.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(username, password));
+            builder.setDefaultCredentialsProvider(credentials);
+        }
+        client = builder.build();
+    }
+
+    @Override
+    public void load(File segment) throws Exception {
+        HttpPost request = new HttpPost(datasetUrl);
+        InputStream is = null;
+        try {
+            if (sendCompressed) {
+                request.setEntity(new FileEntity(segment, NQUADS_CONTENT_TYPE));
+                request.setHeader("Content-Encoding", "gzip");
+            } else {
+                is = new GZIPInputStream(new FileInputStream(segment));
+                request.setEntity(new InputStreamEntity(is, -1, NQUADS_CONTENT_TYPE));
+            }
+            try (CloseableHttpResponse response = client.execute(request)) {
+                int code = response.getStatusLine().getStatusCode();
+                if ((code < HttpStatus.SC_OK) || (code >= HttpStatus.SC_MULTIPLE_CHOICES)) {
+                    String reason = response.getStatusLine().getReasonPhrase();
+                    String body = (response.getEntity() != null) ? EntityUtils.toString(response.getEntity()) : null;
+                    throw new HttpException(code, reason, body);
+                }
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+            LOGGER.debug("Posted {} to {}.", segment, datasetUrl);
+        } finally {
+            if (is != null) {
+                is.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
@@ -0,0 +1,22 @@
+package org.dice_research.squirrel.sink.impl.bulk;
+
+import java.io.Closeable;
+import java.io.File;
+
+/**
+ * Loads a closed N-Quads segment, i.e., a gzip compressed N-Quads file written
+ * by the {@link BulkLoadSink}, into a triple store.
+ */
+public interface SegmentLoader extends Closeable {
+
+    /**
+     * Loads the given segment. Implementations should throw an exception if the
+     * segment couldn't be loaded to give the sink the chance to retry.
+     *
+     * @param segment
+     *            the gzip compressed N-Quads file that should be loaded
+     * @throws Exception
+     *             if the segment couldn't be loaded
+     */
+    public void load(File segment) throws Exception;
+}
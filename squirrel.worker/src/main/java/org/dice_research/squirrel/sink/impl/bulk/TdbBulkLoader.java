@@ -0,0 +1,49 @@
+package org.dice_research.squirrel.sink.impl.bulk;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.tdb.TDB;
+import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.tdb.TDBLoader;
+import org.apache.jena.tdb.sys.TDBInternal;
+
+/**
+ * A {@link SegmentLoader} that loads the segments into a local TDB dataset
+ * using the TDB bulk loader. The bulk loader works outside of transactions,
+ * i.e., the dataset must not be used by another process while the crawler is
+ * writing to it.
+ */
+public class TdbBulkLoader implements SegmentLoader {
+
+    protected DatasetGraph dataset;
+
+    public TdbBulkLoader(String directory) {
+        this(TDBFactory.createDatasetGraph(directory));
+    }
+
+    public TdbBulkLoader(DatasetGraph dataset) {
+        this.dataset = dataset;
+    }
+
+    @Override
+    public synchronized void load(File segment) throws Exception {
+        try (InputStream is = new GZIPInputStream(new FileInputStream(segment))) {
+            TDBLoader.load(TDBInternal.getBaseDatasetGraphTDB(dataset), is, false);
+        }
+        TDB.sync(dataset);
+    }
+
+    public DatasetGraph getDataset() {
+        return dataset;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        dataset.close();
+    }
+}
@@ -199,7 +199,9 @@ public class FileBasedSink implements Sink {
 
         @Override
         public void close() throws IOException {
-            tripleStream.finish();
+            if (tripleStream != null) {
+                tripleStream.finish();
+            }
             Closer.close(tripleOutputStream, LOGGER);
             Closer.close(dataOutputStream, LOGGER);
         }
@@ -1,5 +1,6 @@
 package org.dice_research.squirrel.sink.impl.hdt;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -8,18 +9,12 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.jena.graph.Triple;
 import org.apache.jena.riot.Lang;
+import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.sink.impl.file.FileBasedSink;
-import org.rdfhdt.hdt.enums.RDFNotation;
-import org.rdfhdt.hdt.hdt.HDT;
-import org.rdfhdt.hdt.hdt.HDTManager;
-import org.rdfhdt.hdt.options.HDTSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,17 +22,24 @@ import org.slf4j.LoggerFactory;
 /**
  * 
  * HDT File based Sink, uses the FileBasedSink to store the triples of the URI
- * in a temp folder and parses it to HDT when the sink is closed
+ * in a temp folder and parses it to HDT when the sink is closed. The
+ * conversion is done by a bounded {@link HdtConversionService}.
  * 
  * @author gsjunior
  *
  */
 
-public class HdtBasedSink extends FileBasedSink {
+public class HdtBasedSink extends FileBasedSink implements Closeable {
 	
     private static final Logger LOGGER = LoggerFactory.getLogger(HdtBasedSink.class);
 
-    private final ExecutorService EXECUTION_SERVICE = Executors.newScheduledThreadPool(100);
+    /**
+     * Name of the directory (inside the temp folder) containing the pending
+     * conversion jobs.
+     */
+    protected static final String JOB_DIRECTORY_NAME = ".jobs";
+
+    protected HdtConversionService conversionService;
 	
     protected File outputDirectory;
     
@@ -58,10 +60,29 @@ public class HdtBasedSink extends FileBasedSink {
 	 * @throws IOException
 	 */
     public HdtBasedSink(File outputDirectory) throws IOException {
+        this(outputDirectory, null);
+    }
 
-    	super(Files.createDirectory(new File(outputDirectory + "_hdt").toPath()).toFile(),Lang.NT, false);
-		this.outputDirectory = outputDirectory;
-	}
+    /**
+     * Creates a temp folder for the FileBasedsink storage. The temp folder may
+     * already exist, e.g., after a restart. In this case, the pending
+     * conversions are resumed.
+     * 
+     * @param outputDirectory
+     * @param conversionService
+     *            the service converting the files or {@code null} if a service
+     *            should be created based on the environment
+     * @throws IOException
+     */
+    public HdtBasedSink(File outputDirectory, HdtConversionService conversionService) throws IOException {
+        super(Files.createDirectories(new File(outputDirectory + "_hdt").toPath()).toFile(), Lang.NT, false);
+        this.outputDirectory = outputDirectory;
+        if (conversionService == null) {
+            conversionService = new HdtConversionService(outputDirectory,
+                    new File(super.outputDirectory, JOB_DIRECTORY_NAME));
+        }
+        this.conversionService = conversionService;
+    }
 
 	@Override
 	public void addTriple(CrawleableUri uri, Triple triple) {
@@ -106,11 +127,14 @@ public class HdtBasedSink extends FileBasedSink {
 		
 		super.closeSinkForUri(uri);
 		
-		EXECUTION_SERVICE.execute(new HDTParser(rdfInput,uri));
 		try {
-			EXECUTION_SERVICE.awaitTermination(1, TimeUnit.SECONDS);
+			conversionService.submit(new File(rdfInput), uri.getUri().toString(), new File(
+			        outputDirectory.getAbsolutePath() + File.separator + generateFileName(uri, null, false)));
 		} catch (InterruptedException e) {
-			LOGGER.error("",e);
+			LOGGER.error("Interrupted while submitting the HDT conversion of " + uri.getUri().toString() + ".", e);
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			LOGGER.error("Couldn't submit the HDT conversion of " + uri.getUri().toString() + ".", e);
 		}
 		
 //		HDT hdt;
@@ -139,40 +163,17 @@ public class HdtBasedSink extends FileBasedSink {
 		super.addData(uri, stream);		
 	}
 	
-    protected class HDTParser implements Runnable{
-
-    	private String rdfInput;
-    	private CrawleableUri uri;
-    	
-    	public HDTParser(String rdfInput, CrawleableUri uri) {
-			this.rdfInput = rdfInput;
-			this.uri = uri;
-		}
-    	
-		@Override
-		public void run() {
-			HDT hdt;
-			try {
-				hdt = HDTManager.generateHDT(
-				        rdfInput,         // Input RDF File
-				        uri.getUri().toString(),          // Base URI
-				        RDFNotation.parse(inputType), // Input Type
-				        new HDTSpecification(),   // HDT Options
-				        null              // Progress Listener
-	   );
-				// Save generated HDT to a file
-				hdt.saveToHDT(outputDirectory.getAbsolutePath() + File.separator
-		                + generateFileName(uri, null, false), null);
-			
-				File file = new File(rdfInput);
-				file.delete();
-		}catch (Exception e) {
-            LOGGER.error("Should close the sink for the URI \"" + uri.getUri().toString() + "\" but an error occurred.");
-		}
-    	
+    public HdtConversionService getConversionService() {
+        return conversionService;
     }
-	
 
+    /**
+     * Closes the sink of the meta data graph, waits until all pending
+     * conversions are finished and stops the conversion service.
+     */
+    @Override
+    public void close() throws IOException {
+        closeSinkForUri(new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI));
+        conversionService.close();
     }
-    
 }
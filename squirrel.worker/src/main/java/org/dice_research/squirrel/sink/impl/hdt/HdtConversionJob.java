@@ -0,0 +1,100 @@
+package org.dice_research.squirrel.sink.impl.hdt;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A conversion of one or more N-Triples files into a single HDT file. Every
+ * job is stored in its own job file until it has been finished. Hence, the
+ * jobs that are pending when the crawler stops can be recovered after a
+ * restart.
+ */
+public class HdtConversionJob {
+
+    private static final String OUTPUT_KEY = "output";
+    private static final String BASE_URI_KEY = "baseUri";
+    private static final String INPUT_COUNT_KEY = "inputs";
+    private static final String INPUT_KEY_PREFIX = "input.";
+
+    protected File jobFile;
+    protected File output;
+    protected String baseUri;
+    protected List<File> inputs;
+
+    public HdtConversionJob(File jobFile, File output, String baseUri, List<File> inputs) {
+        this.jobFile = jobFile;
+        this.output = output;
+        this.baseUri = baseUri;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Writes the job to its job file. The file is replaced atomically, i.e., a
+     * crash does not leave a partially written job.
+     */
+    public void store() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(OUTPUT_KEY, output.getAbsolutePath());
+        properties.setProperty(BASE_URI_KEY, baseUri);
+        properties.setProperty(INPUT_COUNT_KEY, Integer.toString(inputs.size()));
+        for (int i = 0; i < inputs.size(); ++i) {
+            properties.setProperty(INPUT_KEY_PREFIX + i, inputs.get(i).getAbsolutePath());
+        }
+        File tempFile = new File(jobFile.getPath() + ".tmp");
+        try (OutputStream os = new FileOutputStream(tempFile)) {
+            properties.store(os, null);
+        }
+        Files.move(tempFile.toPath(), jobFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static HdtConversionJob load(File jobFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream is = new FileInputStream(jobFile)) {
+            properties.load(is);
+        }
+        int count = Integer.parseInt(properties.getProperty(INPUT_COUNT_KEY, "0"));
+        List<File> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            inputs.add(new File(properties.getProperty(INPUT_KEY_PREFIX + i)));
+        }
+        return new HdtConversionJob(jobFile, new File(properties.getProperty(OUTPUT_KEY)),
+                properties.getProperty(BASE_URI_KEY), inputs);
+    }
+
+    /**
+     * @return the size of all input files in bytes
+     */
+    public long getInputSize() {
+        long size = 0;
+        for (File input : inputs) {
+            size += input.length();
+        }
+        return size;
+    }
+
+    public File getJobFile() {
+        return jobFile;
+    }
+
+    public File getOutput() {
+        return output;
+    }
+
+    public String getBaseUri() {
+        return baseUri;
+    }
+
+    public List<File> getInputs() {
+        return inputs;
+    }
+}
@@ -0,0 +1,80 @@
+package org.dice_research.squirrel.sink.impl.hdt;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simple counters describing the conversions of an
+ * {@link HdtConversionService}. The backlog comprises the jobs that are
+ * waiting or running as well as the files waiting to be merged.
+ */
+public class HdtConversionMetrics {
+
+    private final AtomicLong convertedFiles = new AtomicLong();
+    private final AtomicLong createdHdtFiles = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong totalConversionTime = new AtomicLong();
+    private final AtomicLong maxConversionTime = new AtomicLong();
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    public void jobFinished(int files, long conversionTime) {
+        convertedFiles.addAndGet(files);
+        createdHdtFiles.incrementAndGet();
+        totalConversionTime.addAndGet(conversionTime);
+        maxConversionTime.accumulateAndGet(conversionTime, Math::max);
+    }
+
+    public void jobFailed() {
+        failedJobs.incrementAndGet();
+    }
+
+    public void increaseBacklog(int files) {
+        backlog.addAndGet(files);
+    }
+
+    public void decreaseBacklog(int files) {
+        backlog.addAndGet(-files);
+    }
+
+    public long getConvertedFiles() {
+        return convertedFiles.get();
+    }
+
+    public long getCreatedHdtFiles() {
+        return createdHdtFiles.get();
+    }
+
+    public long getFailedJobs() {
+        return failedJobs.get();
+    }
+
+    /**
+     * @return the number of N-Triples files that haven't been converted, yet
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * @return the average time of a successful conversion in milliseconds
+     */
+    public double getAverageConversionTime() {
+        long files = createdHdtFiles.get();
+        return (files > 0) ? (totalConversionTime.get() / (double) files) : 0;
+    }
+
+    /**
+     * @return the maximum time of a successful conversion in milliseconds
+     */
+    public long getMaxConversionTime() {
+        return maxConversionTime.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "HdtConversionMetrics [convertedFiles=%d, createdHdtFiles=%d, failedJobs=%d, backlog=%d, avgConversionTime=%.1fms, maxConversionTime=%dms]",
+                getConvertedFiles(), getCreatedHdtFiles(), getFailedJobs(), getBacklog(),
+                getAverageConversionTime(), getMaxConversionTime());
+    }
+}
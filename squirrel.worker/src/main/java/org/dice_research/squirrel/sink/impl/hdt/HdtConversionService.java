@@ -0,0 +1,333 @@
+package org.dice_research.squirrel.sink.impl.hdt;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dice_research.squirrel.configurator.HdtConversionConfiguration;
+import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts N-Triples files into HDT files using a fixed number of worker
+ * threads. Since the generation of an HDT file needs a lot of memory, the
+ * number of workers should be derived from the available heap (see
+ * {@link HdtConversionConfiguration}).
+ *
+ * <p>
+ * {@link #submit(File, String, File)} blocks if the number of waiting and
+ * running jobs reaches the number of workers plus the maximum backlog, i.e.,
+ * the sink can not outrun the conversion. Every job is stored as a file in the
+ * job directory until it has been finished. Jobs found in this directory are
+ * resubmitted when the service is created. If a merge threshold is set, files
+ * smaller than this threshold are collected and converted into a single HDT
+ * file as soon as their size reaches the threshold or when the service is
+ * closed.
+ * </p>
+ */
+public class HdtConversionService implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdtConversionService.class);
+
+    protected static final String JOB_FILE_ENDING = ".job";
+    protected static final String FAILED_FILE_ENDING = ".failed";
+    protected static final String MERGED_FILE_PREFIX = "merged-";
+    protected static final String HDT_FILE_ENDING = ".hdt";
+
+    private static final AtomicInteger SERVICE_COUNTER = new AtomicInteger();
+
+    protected File outputDirectory;
+    protected File jobDirectory;
+    protected long mergeThreshold;
+    protected HdtConversionMetrics metrics = new HdtConversionMetrics();
+
+    private final ExecutorService executor;
+    private final Semaphore jobSlots;
+    private final String jobPrefix;
+    private final AtomicInteger jobCounter = new AtomicInteger();
+    /**
+     * Number of jobs that have been handed to the executor and are not finished.
+     */
+    private int runningJobs = 0;
+    private final Object runningJobsLock = new Object();
+
+    private final List<HdtConversionJob> mergeBuffer = new ArrayList<>();
+    private long mergeBufferSize = 0;
+
+    public HdtConversionService(File outputDirectory, File jobDirectory) throws IOException {
+        this(outputDirectory, jobDirectory, HdtConversionConfiguration.getHdtConversionConfiguration());
+    }
+
+    public HdtConversionService(File outputDirectory, File jobDirectory, HdtConversionConfiguration configuration)
+            throws IOException {
+        this.outputDirectory = outputDirectory;
+        this.jobDirectory = jobDirectory;
+        this.mergeThreshold = configuration.getMergeThreshold();
+        Files.createDirectories(outputDirectory.toPath());
+        Files.createDirectories(jobDirectory.toPath());
+        int serviceId = SERVICE_COUNTER.incrementAndGet();
+        jobPrefix = System.currentTimeMillis() + "-" + serviceId + "-";
+        int workers = configuration.getConversionThreads();
+        jobSlots = new Semaphore(workers + configuration.getMaxBacklog());
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "hdt-conversion-" + serviceId + "-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        LOGGER.info("Started HDT conversion service with {} workers.", workers);
+        recoverJobs();
+    }
+
+    /**
+     * Submits the conversion of the given N-Triples file. Blocks if the backlog
+     * is full.
+     *
+     * @param input
+     *            the N-Triples file that should be converted. It is deleted
+     *            after the conversion.
+     * @param baseUri
+     *            the base URI of the HDT file
+     * @param output
+     *            the HDT file that should be written (if the input is not
+     *            merged with other files)
+     */
+    public void submit(File input, String baseUri, File output) throws IOException, InterruptedException {
+        HdtConversionJob job = new HdtConversionJob(createJobFile(), output, baseUri,
+                Collections.singletonList(input));
+        job.store();
+        metrics.increaseBacklog(1);
+        enqueue(job, true);
+    }
+
+    /**
+     * Resubmits the jobs which have been found in the job directory.
+     */
+    protected void recoverJobs() {
+        File[] jobFiles = jobDirectory.listFiles((dir, name) -> name.endsWith(JOB_FILE_ENDING));
+        if ((jobFiles == null) || (jobFiles.length == 0)) {
+            return;
+        }
+        Arrays.sort(jobFiles);
+        LOGGER.info("Found {} pending HDT conversion jobs. They will be resubmitted.", jobFiles.length);
+        for (File jobFile : jobFiles) {
+            try {
+                HdtConversionJob job = HdtConversionJob.load(jobFile);
+                metrics.increaseBacklog(job.getInputs().size());
+                // recovered jobs are already on disk and do not need to wait
+                // for a free slot
+                enqueue(job, false);
+            } catch (Exception e) {
+                LOGGER.error("Couldn't recover the HDT conversion job " + jobFile + ". It will be ignored.", e);
+                renameToFailed(jobFile);
+            }
+        }
+    }
+
+    protected void enqueue(HdtConversionJob job, boolean acquireSlot) throws IOException, InterruptedException {
+        if ((mergeThreshold > 0) && (job.getInputSize() < mergeThreshold)) {
+            HdtConversionJob mergedJob = null;
+            synchronized (mergeBuffer) {
+                mergeBuffer.add(job);
+                mergeBufferSize += job.getInputSize();
+                if (mergeBufferSize >= mergeThreshold) {
+                    mergedJob = mergeBufferedJobs();
+                }
+            }
+            if (mergedJob != null) {
+                execute(mergedJob, acquireSlot);
+            }
+        } else {
+            execute(job, acquireSlot);
+        }
+    }
+
+    /**
+     * Converts the files that are waiting to be merged, even if they haven't
+     * reached the merge threshold.
+     */
+    public void flushMergeBuffer() throws IOException, InterruptedException {
+        HdtConversionJob mergedJob;
+        synchronized (mergeBuffer) {
+            mergedJob = mergeBufferedJobs();
+        }
+        if (mergedJob != null) {
+            execute(mergedJob, true);
+        }
+    }
+
+    /**
+     * Replaces the buffered jobs by a single job. The merged job is stored
+     * before the job files of the buffered jobs are removed, i.e., a crash does
+     * not lose any of them.
+     */
+    private HdtConversionJob mergeBufferedJobs() throws IOException {
+        if (mergeBuffer.isEmpty()) {
+            return null;
+        }
+        List<File> inputs = new ArrayList<>();
+        for (HdtConversionJob job : mergeBuffer) {
+            inputs.addAll(job.getInputs());
+        }
+        HdtConversionJob mergedJob = new HdtConversionJob(createJobFile(),
+                new File(outputDirectory, MERGED_FILE_PREFIX + jobPrefix + jobCounter.get() + HDT_FILE_ENDING),
+                mergeBuffer.get(0).getBaseUri(), inputs);
+        mergedJob.store();
+        for (HdtConversionJob job : mergeBuffer) {
+            if (!job.getJobFile().delete()) {
+                LOGGER.warn("Couldn't delete merged job file {}.", job.getJobFile());
+            }
+        }
+        mergeBuffer.clear();
+        mergeBufferSize = 0;
+        return mergedJob;
+    }
+
+    protected void execute(HdtConversionJob job, boolean acquireSlot) throws InterruptedException {
+        if (acquireSlot) {
+            jobSlots.acquire();
+        }
+        synchronized (runningJobsLock) {
+            ++runningJobs;
+        }
+        executor.execute(() -> {
+            try {
+                convert(job);
+            } finally {
+                if (acquireSlot) {
+                    jobSlots.release();
+                }
+                metrics.decreaseBacklog(job.getInputs().size());
+                synchronized (runningJobsLock) {
+                    --runningJobs;
+                    if (runningJobs == 0) {
+                        runningJobsLock.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    protected void convert(HdtConversionJob job) {
+        long start = System.currentTimeMillis();
+        List<File> inputs = new ArrayList<>();
+        for (File input : job.getInputs()) {
+            // a graph without triples does not have a file
+            if (input.exists()) {
+                inputs.add(input);
+            }
+        }
+        File concatenated = null;
+        try {
+            if (!inputs.isEmpty()) {
+                File input = inputs.get(0);
+                if (inputs.size() > 1) {
+                    concatenated = concatenate(inputs, new File(job.getJobFile().getPath() + ".nt"));
+                    input = concatenated;
+                }
+                File partFile = new File(job.getOutput().getPath() + ".part");
+                HDT hdt = HDTManager.generateHDT(input.getAbsolutePath(), job.getBaseUri(), RDFNotation.NTRIPLES,
+                        new HDTSpecification(), null);
+                try {
+                    hdt.saveToHDT(partFile.getAbsolutePath(), null);
+                } finally {
+                    hdt.close();
+                }
+                Files.move(partFile.toPath(), job.getOutput().toPath(), StandardCopyOption.REPLACE_EXISTING);
+                for (File file : inputs) {
+                    if (!file.delete()) {
+                        LOGGER.warn("Couldn't delete converted file {}.", file);
+                    }
+                }
+                metrics.jobFinished(inputs.size(), System.currentTimeMillis() - start);
+                LOGGER.debug("Converted {} file(s) into {} in {}ms.", inputs.size(), job.getOutput(),
+                        System.currentTimeMillis() - start);
+            }
+            if (!job.getJobFile().delete()) {
+                LOGGER.warn("Couldn't delete job file {}.", job.getJobFile());
+            }
+        } catch (Throwable e) {
+            // HDT generation may run out of memory
+            metrics.jobFailed();
+            LOGGER.error("Couldn't convert " + inputs + " into " + job.getOutput()
+                    + ". The job will be kept for a manual conversion.", e);
+            renameToFailed(job.getJobFile());
+        } finally {
+            if ((concatenated != null) && !concatenated.delete()) {
+                LOGGER.warn("Couldn't delete temporary file {}.", concatenated);
+            }
+        }
+    }
+
+    /**
+     * Concatenates the given N-Triples files. The blank nodes written by the
+     * sink have globally unique labels, i.e., they do not clash.
+     */
+    protected static File concatenate(List<File> inputs, File output) throws IOException {
+        try (OutputStream os = new FileOutputStream(output)) {
+            for (File input : inputs) {
+                Files.copy(input.toPath(), os);
+            }
+        }
+        return output;
+    }
+
+    private File createJobFile() {
+        return new File(jobDirectory, jobPrefix + jobCounter.incrementAndGet() + JOB_FILE_ENDING);
+    }
+
+    private static void renameToFailed(File jobFile) {
+        if (!jobFile.renameTo(new File(jobFile.getPath() + FAILED_FILE_ENDING))) {
+            LOGGER.warn("Couldn't rename failed job file {}.", jobFile);
+        }
+    }
+
+    /**
+     * Blocks until all jobs that have been handed to the workers are finished.
+     * Files waiting to be merged are not taken into account.
+     */
+    public void awaitRunningJobs() throws InterruptedException {
+        synchronized (runningJobsLock) {
+            while (runningJobs > 0) {
+                runningJobsLock.wait();
+            }
+        }
+    }
+
+    public HdtConversionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Converts the files waiting to be merged, waits for all jobs and stops the
+     * workers.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushMergeBuffer();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("Closed HDT conversion service. {}", metrics);
+    }
+}
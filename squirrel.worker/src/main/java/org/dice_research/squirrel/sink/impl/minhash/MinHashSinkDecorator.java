@@ -0,0 +1,100 @@
+package org.dice_research.squirrel.sink.impl.minhash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.deduplication.hashing.impl.StreamingMinHash;
+import org.dice_research.squirrel.sink.AbstractSinkDecorator;
+import org.dice_research.squirrel.sink.Sink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A decorator that computes the MinHash signature of the triples of a URI
+ * while they are passed to the decorated sink. When the sink is closed for the
+ * URI, the signature is added to the data of the URI (see
+ * {@link Constants#URI_HASH_KEY}), i.e., it is sent to the deduplicator
+ * together with the crawled URI and the deduplicator does not have to read the
+ * triples from the triple store.
+ */
+public class MinHashSinkDecorator extends AbstractSinkDecorator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinHashSinkDecorator.class);
+
+    /**
+     * Returns the given sink decorated with a {@link MinHashSinkDecorator} if
+     * the deduplication is active. Otherwise, the given sink is returned.
+     */
+    public static Sink decorateIfDeduplicationActive(Sink sink) {
+        String active = System.getenv(Constants.DEDUPLICATION_ACTIVE_KEY);
+        if ((active != null) ? Boolean.parseBoolean(active) : Constants.DEFAULT_DEDUPLICATION_ACTIVE) {
+            return new MinHashSinkDecorator(sink, getPermutationsFromEnv());
+        } else {
+            return sink;
+        }
+    }
+
+    protected static int getPermutationsFromEnv() {
+        String value = System.getenv(Constants.MINHASH_PERMUTATIONS_KEY);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Couldn't parse {}. The default value will be used.", Constants.MINHASH_PERMUTATIONS_KEY);
+            }
+        }
+        return Constants.DEFAULT_MINHASH_PERMUTATIONS;
+    }
+
+    protected int permutations;
+    private final Map<CrawleableUri, StreamingMinHash> hashes = new ConcurrentHashMap<>();
+
+    public MinHashSinkDecorator(Sink decorated) {
+        this(decorated, Constants.DEFAULT_MINHASH_PERMUTATIONS);
+    }
+
+    public MinHashSinkDecorator(Sink decorated, int permutations) {
+        super(decorated);
+        this.permutations = permutations;
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        hashes.put(uri, new StreamingMinHash(permutations));
+        super.openSinkForUri(uri);
+    }
+
+    @Override
+    public void addTriple(CrawleableUri uri, Triple triple) {
+        StreamingMinHash hash = hashes.get(uri);
+        if (hash != null) {
+            hash.add(triple);
+        }
+        super.addTriple(uri, triple);
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        StreamingMinHash hash = hashes.remove(uri);
+        // A graph without triples has no meaningful signature
+        if ((hash != null) && (hash.getNumberOfTriples() > 0)) {
+            uri.addData(Constants.URI_HASH_KEY, hash.getHashValue());
+        }
+        super.closeSinkForUri(uri);
+    }
+
+    @Override
+    public void addData(CrawleableUri uri, InputStream stream) {
+        decorated.addData(uri, stream);
+    }
+
+    @Override
+    public void close() throws IOException {
+        decorated.close();
+    }
+}
@@ -1,11 +1,25 @@
 package org.dice_research.squirrel.sink.impl.sparql;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.jena.atlas.web.HttpException;
 import org.apache.jena.graph.Triple;
+import org.apache.jena.query.QueryException;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.metadata.CrawlingActivity;
@@ -13,6 +27,21 @@ import org.dice_research.squirrel.sink.tripleBased.TripleBasedSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A sink that buffers the triples of every graph and sends them in batches.
+ *
+ * <p>
+ * A batch is sent if the buffer of a graph reaches {@link #bufferSize} triples
+ * or if its oldest triple is older than {@link #maxBufferAge} ms. Batches are
+ * sent asynchronously by a pool of {@link #maxParallelUpdates} threads. If all
+ * update slots are in use, the thread adding triples is blocked until a slot
+ * is freed, i.e., the analyzer can not outrun the triple store. A batch that
+ * could not be sent because of a transient error is retried up to
+ * {@link #maxRetries} times with an exponentially growing delay. Closing the
+ * sink for a URI blocks until all batches of this URI have been sent. If
+ * {@link #maxParallelUpdates} is not positive, batches are sent synchronously.
+ * </p>
+ */
 public abstract class AbstractBufferingTripleBasedSink implements TripleBasedSink {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractBufferingTripleBasedSink.class);
@@ -22,16 +51,41 @@ public abstract class AbstractBufferingTripleBasedSink implements TripleBasedSin
      * they are sent to the sink.
      */
     protected static final int DEFAULT_BUFFER_SIZE = 200;
+    /**
+     * Maximum time (in ms) a triple is buffered before it is sent.
+     */
+    public static final long DEFAULT_MAX_BUFFER_AGE = 5000;
+    public static final int DEFAULT_MAX_PARALLEL_UPDATES = 4;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    /**
+     * Delay (in ms) before the first retry. It is doubled for every further
+     * retry.
+     */
+    public static final long DEFAULT_RETRY_DELAY = 500;
+
+    private static final AtomicInteger SINK_COUNTER = new AtomicInteger();
+
     /**
      * The data structure (map) in which the triples are buffered.
      */
     private Map<CrawleableUri, TripleBuffer> buffers = Collections.synchronizedMap(new HashMap<>());
 
     protected int bufferSize = DEFAULT_BUFFER_SIZE;
+    protected long maxBufferAge = DEFAULT_MAX_BUFFER_AGE;
+    protected int maxParallelUpdates = DEFAULT_MAX_PARALLEL_UPDATES;
+    protected int maxRetries = DEFAULT_MAX_RETRIES;
+    protected long retryDelay = DEFAULT_RETRY_DELAY;
+
+    protected SinkMetrics metrics = new SinkMetrics();
+
+    private volatile boolean pipelineStarted = false;
+    private ExecutorService updateExecutor = null;
+    private ScheduledExecutorService ageFlushExecutor = null;
+    private Semaphore updateSlots = null;
 
     @Override
     public void openSinkForUri(CrawleableUri uri) {
-        buffers.put(uri, new TripleBuffer());
+        buffers.put(uri, new TripleBuffer(bufferSize));
     }
 
     @Override
@@ -42,10 +96,17 @@ public abstract class AbstractBufferingTripleBasedSink implements TripleBasedSin
             openSinkForUri(uri);
             status = buffers.get(uri);
         }
+        if (!pipelineStarted) {
+            startUpdatePipeline();
+        }
         status.addTriple(this, uri, triple);
     }
 
-    protected abstract void sendTriples(CrawleableUri uri, Collection<Triple> buffer);
+    /**
+     * Sends the given triples. Implementations should throw an exception if the
+     * triples couldn't be sent to give the sink the chance to retry.
+     */
+    protected abstract void sendTriples(CrawleableUri uri, Collection<Triple> buffer) throws Exception;
 
     @Override
     public void closeSinkForUri(CrawleableUri uri) {
@@ -55,10 +116,209 @@ public abstract class AbstractBufferingTripleBasedSink implements TripleBasedSin
             return;
         }
         status.sendTriples(this, uri);
+        try {
+            status.awaitPendingBatches();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for the triples of " + uri + " to be sent.", e);
+            Thread.currentThread().interrupt();
+        }
         CrawlingActivity activity = (CrawlingActivity) uri.getData(Constants.URI_CRAWLING_ACTIVITY);
         if(activity != null) {
             activity.setNumberOfTriples(status.getNumberOfTriples());
         }
     }
 
+    /**
+     * Hands the given batch, which has been taken from the given buffer, over to
+     * the update pipeline. Blocks if all update slots are in use.
+     */
+    protected void flush(CrawleableUri uri, TripleBuffer buffer, List<Triple> batch) {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = updateExecutor;
+        if (executor != null) {
+            try {
+                updateSlots.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            sendWithRetries(uri, batch, start);
+                        } finally {
+                            updateSlots.release();
+                            buffer.batchFinished();
+                        }
+                    });
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the pipeline has been shut down, send the batch directly
+                    updateSlots.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            sendWithRetries(uri, batch, start);
+        } finally {
+            buffer.batchFinished();
+        }
+    }
+
+    protected void sendWithRetries(CrawleableUri uri, List<Triple> batch, long start) {
+        for (int attempt = 0;; ++attempt) {
+            try {
+                sendTriples(uri, batch);
+                metrics.batchSent(batch.size(), System.currentTimeMillis() - start);
+                return;
+            } catch (Exception e) {
+                if ((attempt < maxRetries) && isTransient(e)) {
+                    metrics.retry();
+                    LOGGER.warn("Couldn't send {} triples of {} (attempt {}). Retrying. Error: {}", batch.size(), uri,
+                            attempt + 1, e.getMessage());
+                    try {
+                        Thread.sleep(retryDelay << attempt);
+                    } catch (InterruptedException e1) {
+                        Thread.currentThread().interrupt();
+                        metrics.batchFailed(batch.size());
+                        return;
+                    }
+                } else {
+                    metrics.batchFailed(batch.size());
+                    LOGGER.error("Was not able to send " + batch.size() + " triples of " + uri
+                            + " to the database. Information will get lost :(", e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decides whether sending a batch should be retried after the given
+     * exception. Errors in the query and HTTP client errors (4xx) are not
+     * transient.
+     */
+    protected boolean isTransient(Exception e) {
+        if (e instanceof QueryException) {
+            return false;
+        }
+        if (e instanceof HttpException) {
+            int code = ((HttpException) e).getResponseCode();
+            return (code < 400) || (code >= 500);
+        }
+        return true;
+    }
+
+    /**
+     * Sends all buffers whose oldest triple exceeds the maximum age.
+     */
+    protected void flushOldBuffers() {
+        List<Entry<CrawleableUri, TripleBuffer>> entries;
+        synchronized (buffers) {
+            entries = new ArrayList<>(buffers.entrySet());
+        }
+        long threshold = System.currentTimeMillis() - maxBufferAge;
+        for (Entry<CrawleableUri, TripleBuffer> entry : entries) {
+            List<Triple> batch = entry.getValue().takeBatchIfOlderThan(threshold);
+            if (batch != null) {
+                flush(entry.getKey(), entry.getValue(), batch);
+            }
+        }
+    }
+
+    /**
+     * Starts the threads of the update pipeline. It is called when the first
+     * triple is added, i.e., the setters can be used after the sink has been
+     * opened for a URI.
+     */
+    protected synchronized void startUpdatePipeline() {
+        if (pipelineStarted) {
+            return;
+        }
+        pipelineStarted = true;
+        int sinkId = SINK_COUNTER.incrementAndGet();
+        if (maxParallelUpdates > 0) {
+            updateSlots = new Semaphore(maxParallelUpdates);
+            updateExecutor = Executors.newFixedThreadPool(maxParallelUpdates,
+                    createThreadFactory("sink-" + sinkId + "-update-"));
+        }
+        if (maxBufferAge > 0) {
+            ageFlushExecutor = Executors.newSingleThreadScheduledExecutor(createThreadFactory("sink-" + sinkId
+                    + "-age-flush-"));
+            long period = Math.max(100, maxBufferAge / 2);
+            ageFlushExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    flushOldBuffers();
+                } catch (Exception e) {
+                    LOGGER.error("Exception while flushing old buffers.", e);
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static ThreadFactory createThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Sends the remaining buffers, waits for all pending updates and stops the
+     * threads of the update pipeline.
+     */
+    public void close() throws IOException {
+        List<CrawleableUri> uris;
+        synchronized (buffers) {
+            uris = new ArrayList<>(buffers.keySet());
+        }
+        for (CrawleableUri uri : uris) {
+            closeSinkForUri(uri);
+        }
+        synchronized (this) {
+            pipelineStarted = false;
+            if (ageFlushExecutor != null) {
+                ageFlushExecutor.shutdownNow();
+                ageFlushExecutor = null;
+            }
+            if (updateExecutor != null) {
+                updateExecutor.shutdown();
+                try {
+                    updateExecutor.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                updateExecutor = null;
+            }
+        }
+        LOGGER.info("Closed sink. {}", metrics);
+    }
+
+    public SinkMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setMaxBufferAge(long maxBufferAge) {
+        this.maxBufferAge = maxBufferAge;
+    }
+
+    /**
+     * Sets the maximum number of update requests that are sent in parallel. Has
+     * to be called before the first triple is added.
+     */
+    public void setMaxParallelUpdates(int maxParallelUpdates) {
+        this.maxParallelUpdates = maxParallelUpdates;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
 }
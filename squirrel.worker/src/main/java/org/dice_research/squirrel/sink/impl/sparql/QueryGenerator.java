@@ -3,9 +3,13 @@ package org.dice_research.squirrel.sink.impl.sparql;
 import java.util.Collection;
 
 import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.modify.request.QuadDataAcc;
+import org.apache.jena.sparql.modify.request.UpdateDataInsert;
+import org.apache.jena.update.UpdateRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +38,26 @@ public class QueryGenerator {
         return instance;
     }
 
+    /**
+     * Return an insert request for the given graph and its triples. In contrast
+     * to {@link #getAddQuery(String, Collection)}, the request is created without
+     * serializing and parsing the triples.
+     *
+     * @param graphId             the graph id where the triples are stored or {@code null} for the default graph.
+     * @param listBufferedTriples the given list of triples.
+     * @return The generated request.
+     */
+    public UpdateRequest getAddRequest(String graphId, Collection<Triple> listBufferedTriples) {
+        QuadDataAcc quads = new QuadDataAcc();
+        if (graphId != null) {
+            quads.setGraph(NodeFactory.createURI(graphId));
+        }
+        for (Triple triple : listBufferedTriples) {
+            quads.addTriple(triple);
+        }
+        return new UpdateRequest(new UpdateDataInsert(quads));
+    }
+
     /**
      * Return an Add Query for the default uri and its triples.
      *
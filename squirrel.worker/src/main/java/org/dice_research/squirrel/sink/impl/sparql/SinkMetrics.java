@@ -0,0 +1,90 @@
+package org.dice_research.squirrel.sink.impl.sparql;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simple counters describing the batches that have been sent by an
+ * {@link AbstractBufferingTripleBasedSink}. The latency of a flush is measured
+ * from the hand-over of the batch until it has been sent successfully,
+ * including the time spent waiting for a free update slot and retries.
+ */
+public class SinkMetrics {
+
+    private final AtomicLong sentBatches = new AtomicLong();
+    private final AtomicLong sentTriples = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong failedTriples = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    public void batchSent(int size, long latency) {
+        sentBatches.incrementAndGet();
+        sentTriples.addAndGet(size);
+        totalLatency.addAndGet(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+    }
+
+    public void batchFailed(int size) {
+        failedBatches.incrementAndGet();
+        failedTriples.addAndGet(size);
+    }
+
+    public void retry() {
+        retries.incrementAndGet();
+    }
+
+    public long getSentBatches() {
+        return sentBatches.get();
+    }
+
+    public long getSentTriples() {
+        return sentTriples.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    public long getFailedTriples() {
+        return failedTriples.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return the average latency of a successful flush in milliseconds
+     */
+    public double getAverageLatency() {
+        long batches = sentBatches.get();
+        return (batches > 0) ? (totalLatency.get() / (double) batches) : 0;
+    }
+
+    /**
+     * @return the maximum latency of a successful flush in milliseconds
+     */
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = sentBatches.get();
+        return (batches > 0) ? (sentTriples.get() / (double) batches) : 0;
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "SinkMetrics [sentBatches=%d, sentTriples=%d, failedBatches=%d, failedTriples=%d, retries=%d, avgLatency=%.1fms, maxLatency=%dms, avgBatchSize=%.1f, maxBatchSize=%d]",
+                getSentBatches(), getSentTriples(), getFailedBatches(), getFailedTriples(), getRetries(),
+                getAverageLatency(), getMaxLatency(), getAverageBatchSize(), getMaxBatchSize());
+    }
+}
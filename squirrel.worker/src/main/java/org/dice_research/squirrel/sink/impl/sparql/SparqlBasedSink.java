@@ -18,8 +18,6 @@ import org.apache.http.client.CredentialsProvider;
 import org.apache.http.impl.client.AbstractHttpClient;
 import org.apache.http.protocol.HttpContext;
 import org.apache.jena.atlas.web.auth.HttpAuthenticator;
-import org.apache.jena.graph.Node;
-import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
@@ -27,11 +25,7 @@ import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.sparql.core.DatasetDescription;
-import org.apache.jena.sparql.core.Quad;
-import org.apache.jena.sparql.modify.request.QuadDataAcc;
-import org.apache.jena.sparql.modify.request.UpdateDataInsert;
 import org.apache.jena.update.UpdateProcessor;
-import org.apache.jena.update.UpdateRequest;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.metadata.CrawlingActivity;
@@ -151,25 +145,16 @@ public class SparqlBasedSink extends AbstractBufferingTripleBasedSink implements
      *            the list of {@link Triple}s regarding that uri
      */
     protected void sendTriples(CrawleableUri uri, Collection<Triple> triples) {
-        try {
-            Node graph;
-            if (uri.equals(metadataGraphUri)) {
-                graph = NodeFactory.createURI(uri.getUri().toString());
-            } else {
-                 graph = NodeFactory.createURI(getGraphId(uri));
-            }
-
-            QuadDataAcc quads = new QuadDataAcc();
-            for(Triple triple : triples){
-               quads.addQuad(new Quad(graph, triple));
-            }
-            quads.setGraph(graph);
-            UpdateDataInsert insert = new UpdateDataInsert(quads);
-            UpdateProcessor processor = updateExecFactory.createUpdateProcessor(new UpdateRequest(insert));
-            processor.execute();
-        } catch (Exception e) {
-            LOGGER.error("Exception while sending update query.", e);
+        String graph;
+        if (uri.equals(metadataGraphUri)) {
+            graph = uri.getUri().toString();
+        } else {
+            graph = getGraphId(uri);
         }
+        // exceptions are handled (and retried) by the super class
+        UpdateProcessor processor = updateExecFactory
+                .createUpdateProcessor(QueryGenerator.getInstance().getAddRequest(graph, triples));
+        processor.execute();
     }
 
     @Override
@@ -201,6 +186,8 @@ public class SparqlBasedSink extends AbstractBufferingTripleBasedSink implements
     @Override
     public void close() throws IOException {
         closeSinkForUri(metadataGraphUri);
+        // send the remaining triples before closing the factories
+        super.close();
         try {
             queryExecFactory.close();
         } catch (Exception e) {
@@ -7,7 +7,6 @@ import java.util.List;
 
 import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryException;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.query.QuerySolution;
@@ -16,8 +15,6 @@ import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.update.UpdateExecutionFactory;
-import org.apache.jena.update.UpdateFactory;
-import org.apache.jena.update.UpdateProcessor;
 import org.apache.jena.update.UpdateRequest;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
@@ -114,31 +111,17 @@ public class TDBSink extends AbstractBufferingTripleBasedSink implements Advance
      */
     @Override
     protected void sendTriples(CrawleableUri uri, Collection<Triple> triples) {
-        String stringQuery = null;
+        UpdateRequest request;
         String sparqlEndpoint;
         if (uri.equals(metaDataGraphUri)) {
-            stringQuery = QueryGenerator.getInstance().getAddQuery(triples);
+            request = QueryGenerator.getInstance().getAddRequest(null, triples);
             sparqlEndpoint = updateMetaDataUri;
         } else {
-            stringQuery = QueryGenerator.getInstance().getAddQuery(getGraphId(uri), triples);
+            request = QueryGenerator.getInstance().getAddRequest(getGraphId(uri), triples);
             sparqlEndpoint = updateDatasetURI;
         }
-
-        try {
-            UpdateRequest request = UpdateFactory.create(stringQuery);
-            UpdateProcessor proc = UpdateExecutionFactory.createRemote(request, sparqlEndpoint);
-            try {
-                proc.execute();
-            } catch (Exception e) {
-                LOGGER.error(
-                        "Was not able to send the triples to the database (SPARQL), may because the dataset does not exists. Information will get lost :( ["
-                                + request + "] on " + updateDatasetURI + " with " + triples.size() + " triples]",
-                        e);
-            }
-        } catch (QueryException e) {
-            LOGGER.error(stringQuery);
-            LOGGER.error("Query could not be parsed, no data will be written to the sink", e);
-        }
+        // exceptions are handled (and retried) by the super class
+        UpdateExecutionFactory.createRemote(request, sparqlEndpoint).execute();
     }
 
     @Override
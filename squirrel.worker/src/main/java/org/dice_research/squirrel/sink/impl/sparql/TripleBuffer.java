@@ -6,12 +6,24 @@ import java.util.List;
 import org.apache.jena.graph.Triple;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 
+/**
+ * Buffers the triples of a single graph. A batch is taken from the buffer if
+ * it reaches its size limit or if its oldest triple exceeds a given age. Every
+ * batch that has been taken is counted as pending until
+ * {@link #batchFinished()} is called. This makes it possible to wait for all
+ * batches of a graph before the graph is closed.
+ */
 public class TripleBuffer {
 
-    protected final List<Triple> buffer;
+    protected List<Triple> buffer;
     protected final int bufferSize;
     protected long numberOfTriples = 0;
-    
+    /**
+     * The time at which the first triple of the current buffer has been added.
+     */
+    protected long firstTripleTimestamp = 0;
+    protected int pendingBatches = 0;
+
     public TripleBuffer() {
         this(AbstractBufferingTripleBasedSink.DEFAULT_BUFFER_SIZE);
     }
@@ -22,23 +34,83 @@ public class TripleBuffer {
     }
 
     public void addTriple(AbstractBufferingTripleBasedSink sink, CrawleableUri uri, Triple triple) {
-        synchronized (buffer) {
-            buffer.add(triple);
-            if (buffer.size() >= bufferSize) {
-                sendTriples(sink, uri);
-            }
+        List<Triple> batch = add(triple);
+        if (batch != null) {
+            sink.flush(uri, this, batch);
         }
     }
 
     public void sendTriples(AbstractBufferingTripleBasedSink sink, CrawleableUri uri) {
-        synchronized (buffer) {
-            sink.sendTriples(uri, buffer);
-            numberOfTriples += buffer.size();
-            buffer.clear();
+        List<Triple> batch = takeBatch();
+        if (batch != null) {
+            sink.flush(uri, this, batch);
+        }
+    }
+
+    /**
+     * Adds the given triple.
+     *
+     * @return the batch that has to be sent or {@code null} if the buffer has not
+     *         been filled, yet
+     */
+    public synchronized List<Triple> add(Triple triple) {
+        if (buffer.isEmpty()) {
+            firstTripleTimestamp = System.currentTimeMillis();
+        }
+        buffer.add(triple);
+        return (buffer.size() >= bufferSize) ? takeBatch() : null;
+    }
+
+    /**
+     * @return the buffered triples or {@code null} if the buffer is empty
+     */
+    public synchronized List<Triple> takeBatch() {
+        if (buffer.isEmpty()) {
+            return null;
         }
+        List<Triple> batch = buffer;
+        buffer = new ArrayList<>(bufferSize);
+        numberOfTriples += batch.size();
+        ++pendingBatches;
+        return batch;
+    }
+
+    /**
+     * @return the buffered triples if the first of them has been added before the
+     *         given point in time or {@code null}
+     */
+    public synchronized List<Triple> takeBatchIfOlderThan(long timestamp) {
+        if (!buffer.isEmpty() && (firstTripleTimestamp <= timestamp)) {
+            return takeBatch();
+        }
+        return null;
+    }
+
+    /**
+     * Has to be called after a batch taken from this buffer has been sent (or
+     * dropped).
+     */
+    public synchronized void batchFinished() {
+        --pendingBatches;
+        if (pendingBatches <= 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until all batches taken from this buffer have been finished.
+     */
+    public synchronized void awaitPendingBatches() throws InterruptedException {
+        while (pendingBatches > 0) {
+            wait();
+        }
+    }
+
+    public synchronized int getPendingBatches() {
+        return pendingBatches;
     }
 
-    public long getNumberOfTriples() {
+    public synchronized long getNumberOfTriples() {
         return numberOfTriples;
     }
-}
\ No newline at end of file
+}
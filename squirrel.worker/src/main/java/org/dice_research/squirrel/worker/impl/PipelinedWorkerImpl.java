@@ -0,0 +1,548 @@
+package org.dice_research.squirrel.worker.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.analyzer.Analyzer;
+import org.dice_research.squirrel.analyzer.StreamingAnalyzer;
+import org.dice_research.squirrel.analyzer.compress.impl.AnalyzingEntryHandler;
+import org.dice_research.squirrel.analyzer.compress.impl.FileManager;
+import org.dice_research.squirrel.analyzer.mime.ContentSniffer;
+import org.dice_research.squirrel.collect.SpillingUriCollector;
+import org.dice_research.squirrel.collect.SqlBasedUriCollector;
+import org.dice_research.squirrel.collect.UriCollector;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.fetcher.Fetcher;
+import org.dice_research.squirrel.frontier.Frontier;
+import org.dice_research.squirrel.metadata.CrawlingActivity;
+import org.dice_research.squirrel.metadata.CrawlingActivity.CrawlingURIState;
+import org.dice_research.squirrel.robots.RobotsManager;
+import org.dice_research.squirrel.sink.Sink;
+import org.dice_research.squirrel.utils.Closer;
+import org.dice_research.squirrel.utils.TempPathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A {@link WorkerImpl} that processes the URIs in a staged pipeline instead of
+ * handling one URI after the other. The four stages
+ * </p>
+ * <ol>
+ * <li>robots.txt check and fetching,</li>
+ * <li>decompression,</li>
+ * <li>analysis (including the writing of the triples to the sink) and</li>
+ * <li>finishing (sending the collected URIs to the frontier, closing the sink
+ * and the collector for the URI and storing the crawling activity)</li>
+ * </ol>
+ * <p>
+ * have their own thread pools and are connected by bounded queues. A stage
+ * that tries to hand over a URI to a full queue is blocked until the next stage
+ * has capacity again. Hence, the worker can download the next URI while it is
+ * analyzing the previous one and it can work on several chunks at the same
+ * time.
+ * </p>
+ * <p>
+ * Politeness: all URIs of a chunk share the same IP address and are fetched
+ * sequentially by a single fetching thread, respecting the minimum waiting time
+ * of the {@link RobotsManager}. Since the frontier does not hand out a second
+ * chunk of an IP before {@link Frontier#crawlingDone(List)} has been called
+ * for the first chunk, there are never two requests to the same IP address in
+ * parallel. {@link Frontier#crawlingDone(List)} is called exactly once per
+ * chunk after all of its URIs left the last stage.
+ * </p>
+ * <p>
+ * Since several URIs are analyzed at the same time, the given
+ * {@link UriCollector} has to be thread-safe, e.g., the
+ * {@link SpillingUriCollector}. The {@link SqlBasedUriCollector} shares a
+ * single database connection and its prepared statements between all URIs
+ * and is rejected by the constructor.
+ * </p>
+ */
+public class PipelinedWorkerImpl extends WorkerImpl {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedWorkerImpl.class);
+
+    public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT = 4;
+    public static final int DEFAULT_FETCH_THREADS = 4;
+    public static final int DEFAULT_DECOMPRESS_THREADS = 1;
+    public static final int DEFAULT_ANALYZE_THREADS = 2;
+    public static final int DEFAULT_FINISH_THREADS = 1;
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * Maximum time (in ms) the worker waits for chunks that are still in the
+     * pipeline when it is closed.
+     */
+    private static final long SHUTDOWN_TIMEOUT = 60000;
+
+    /**
+     * Limits the number of chunks that are processed in parallel.
+     */
+    protected final Semaphore chunkPermits;
+    protected final ThreadPoolExecutor fetchExecutor;
+    protected final ThreadPoolExecutor decompressExecutor;
+    protected final ThreadPoolExecutor analyzeExecutor;
+    protected final ThreadPoolExecutor finishExecutor;
+
+    /**
+     * Constructor using the default pipeline configuration.
+     *
+     * @see WorkerImpl#WorkerImpl(Frontier, Fetcher, Sink, Analyzer,
+     *      RobotsManager, Serializer, UriCollector, long, String, boolean)
+     */
+    public PipelinedWorkerImpl(Frontier frontier, Fetcher fetcher, Sink sink, Analyzer analyzer,
+            RobotsManager manager, Serializer serializer, UriCollector collector, long waitingTime, String logDir,
+            boolean sendAliveMessages) {
+        this(frontier, fetcher, sink, analyzer, manager, serializer, collector, waitingTime, logDir,
+                sendAliveMessages, DEFAULT_MAX_CHUNKS_IN_FLIGHT, DEFAULT_FETCH_THREADS, DEFAULT_DECOMPRESS_THREADS,
+                DEFAULT_ANALYZE_THREADS, DEFAULT_FINISH_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxChunksInFlight
+     *            the maximum number of chunks (and, hence, IP addresses) that
+     *            are processed in parallel
+     * @param fetchThreads
+     *            the number of threads fetching URIs
+     * @param decompressThreads
+     *            the number of threads decompressing fetched files
+     * @param analyzeThreads
+     *            the number of threads analyzing files
+     * @param finishThreads
+     *            the number of threads finishing URIs, i.e., sending new URIs
+     *            to the frontier and closing the sink for a URI. Note that
+     *            values &gt; 1 lead to a parallel usage of the given
+     *            {@link Frontier}
+     * @param queueCapacity
+     *            the capacity of the queues between the single stages
+     * @throws IllegalArgumentException
+     *             if one of the numbers is &lt; 1 or the given collector is a
+     *             {@link SqlBasedUriCollector}
+     *
+     * @see WorkerImpl#WorkerImpl(Frontier, Fetcher, Sink, Analyzer,
+     *      RobotsManager, Serializer, UriCollector, long, String, boolean)
+     */
+    public PipelinedWorkerImpl(Frontier frontier, Fetcher fetcher, Sink sink, Analyzer analyzer,
+            RobotsManager manager, Serializer serializer, UriCollector collector, long waitingTime, String logDir,
+            boolean sendAliveMessages, int maxChunksInFlight, int fetchThreads, int decompressThreads,
+            int analyzeThreads, int finishThreads, int queueCapacity) {
+        super(frontier, fetcher, sink, analyzer, manager, serializer, collector, waitingTime, logDir,
+                sendAliveMessages);
+        if ((maxChunksInFlight < 1) || (fetchThreads < 1) || (decompressThreads < 1) || (analyzeThreads < 1)
+                || (finishThreads < 1) || (queueCapacity < 1)) {
+            throw new IllegalArgumentException("The number of chunks, threads and the queue capacity must be > 0.");
+        }
+        if (collector instanceof SqlBasedUriCollector) {
+            throw new IllegalArgumentException(
+                    "The SqlBasedUriCollector is not thread-safe. Please use a SpillingUriCollector instead.");
+        }
+        chunkPermits = new Semaphore(maxChunksInFlight);
+        // The fetch stage gets one task per chunk. Its queue can not overflow since
+        // the number of chunks is limited by the semaphore.
+        fetchExecutor = createStage("fetch", fetchThreads, maxChunksInFlight);
+        decompressExecutor = createStage("decompress", decompressThreads, queueCapacity);
+        analyzeExecutor = createStage("analyze", analyzeThreads, queueCapacity);
+        finishExecutor = createStage("finish", finishThreads, queueCapacity);
+    }
+
+    /**
+     * Creates the executor of a single pipeline stage with a fixed number of
+     * threads and a bounded queue. Submitting a task to a stage with a full
+     * queue blocks the submitting thread until there is space in the queue.
+     */
+    protected static ThreadPoolExecutor createStage(String name, int threads, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "worker-" + name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        RejectedExecutionHandler blockingHandler = (r, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("The " + name + " stage has been shut down.");
+            }
+            try {
+                executor.getQueue().put(r);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the " + name + " stage.", e);
+            }
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, blockingHandler);
+    }
+
+    @Override
+    public void run() {
+        terminateFlag = false;
+        List<CrawleableUri> urisToCrawl;
+        try {
+            while (!terminateFlag) {
+                // wait until the pipeline can take another chunk
+                chunkPermits.acquire();
+                // ask the Frontier for work
+                urisToCrawl = frontier.getNextUris();
+                if ((urisToCrawl == null) || (urisToCrawl.isEmpty())) {
+                    chunkPermits.release();
+                    // if there is no work, sleep for some time and ask again
+                    try {
+                        Thread.sleep(waitingTime);
+                    } catch (InterruptedException e) {
+                        LOGGER.debug("Interrupted while sleeping.", e);
+                    }
+                } else {
+                    // hand the work over to the pipeline
+                    submitChunk(urisToCrawl, null);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Got a severe exception. Aborting.", e);
+        } finally {
+            Closer.close(this, LOGGER);
+        }
+    }
+
+    /**
+     * Crawls the given URIs using the pipeline and waits until all of them have
+     * been processed.
+     */
+    @Override
+    public void crawl(List<CrawleableUri> uris) {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            chunkPermits.acquire();
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for the pipeline. The URIs won't be crawled.", e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        submitChunk(uris, latch);
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for the pipeline to crawl the given URIs.", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands the given chunk over to the fetch stage. The caller has to own a
+     * permit of the {@link #chunkPermits} semaphore which will be released when
+     * the chunk has been processed.
+     *
+     * @param uris
+     *            the chunk of URIs that should be crawled
+     * @param latch
+     *            an optional latch that is counted down when the chunk has been
+     *            processed
+     */
+    protected void submitChunk(List<CrawleableUri> uris, CountDownLatch latch) {
+        List<UriJob> jobs = new ArrayList<>(uris.size());
+        ChunkJob chunk = new ChunkJob(uris, latch);
+        for (CrawleableUri uri : uris) {
+            if (uri == null) {
+                LOGGER.error("Got null as CrawleableUri object. It will be ignored.");
+            } else if (uri.getUri() == null) {
+                LOGGER.error("Got a CrawleableUri object with getUri()=null. It will be ignored.");
+            } else {
+                jobs.add(new UriJob(uri, chunk));
+            }
+        }
+        chunk.pendingUris.set(jobs.size());
+        if (jobs.isEmpty()) {
+            chunkDone(chunk);
+            return;
+        }
+        try {
+            fetchExecutor.execute(() -> fetchChunk(jobs));
+        } catch (RejectedExecutionException e) {
+            LOGGER.error("Couldn't submit chunk to the pipeline.", e);
+            chunkDone(chunk);
+        }
+    }
+
+    /**
+     * The fetch stage. Fetches the URIs of a single chunk one after the other
+     * and hands them over to the decompression stage.
+     */
+    protected void fetchChunk(List<UriJob> jobs) {
+        long timeStampLastUriFetched = 0;
+        for (UriJob job : jobs) {
+            try {
+                // Create the activity object for this URI
+                job.uri.addData(Constants.UUID_KEY, UUID.randomUUID().toString());
+                job.activity = new CrawlingActivity(job.uri, getUri());
+                job.uri.addData(Constants.URI_CRAWLING_ACTIVITY, job.activity);
+
+                // Check robots.txt
+                if (!manager.isUriCrawlable(job.uri.getUri())) {
+                    LOGGER.info("Crawling {} is not allowed by the RobotsManager.", job.uri);
+                    job.activity.addStep(manager.getClass(), "Decided to reject this URI.");
+                    submit(finishExecutor, job, () -> finishUri(job));
+                    continue;
+                }
+                // Make sure that there is a delay between the fetching of two URIs of this
+                // chunk (i.e., of the same IP)
+                long delay = (timeStampLastUriFetched + manager.getMinWaitingTime(job.uri.getUri()))
+                        - System.currentTimeMillis();
+                if ((timeStampLastUriFetched > 0) && (delay > 0)) {
+                    Thread.sleep(delay);
+                }
+
+                // Fetch the URI content
+                LOGGER.debug("I start crawling {} now...", job.uri);
+                File fetched = null;
+                try {
+                    fetched = fetcher.fetch(job.uri);
+                } catch (Exception e) {
+                    LOGGER.error("Exception while Fetching Data. Skipping...", e);
+                    job.activity.addStep(getClass(), "Exception while Fetching Data. " + e.getMessage());
+                }
+                timeStampLastUriFetched = System.currentTimeMillis();
+                if ((fetched == null) && Boolean.TRUE.equals(job.uri.getData(Constants.URI_HTTP_NOT_MODIFIED))) {
+                    // The content is known already
+                    job.activity.addStep(getClass(), "Not modified since the last crawl. Skipped the analysis.");
+                    job.activity.setState(CrawlingURIState.SUCCESSFUL);
+                    submit(finishExecutor, job, () -> finishUri(job));
+                } else if (fetched == null) {
+                    // There are no files
+                    job.activity.addStep(getClass(), "No files for analysis available.");
+                    job.activity.setState(CrawlingURIState.FAILED);
+                    submit(finishExecutor, job, () -> finishUri(job));
+                } else {
+                    job.fetched = fetched;
+                    submit(decompressExecutor, job, () -> decompress(job));
+                }
+            } catch (InterruptedException e) {
+                LOGGER.warn("Interrupted while crawling \"" + job.uri.getUri().toString() + "\".", e);
+                Thread.currentThread().interrupt();
+                failUri(job, e);
+            } catch (Exception e) {
+                LOGGER.error("Unhandled exception while crawling \"" + job.uri.getUri().toString()
+                        + "\". It will be ignored.", e);
+                failUri(job, e);
+            }
+        }
+    }
+
+    /**
+     * The decompression stage. Opens the sink and the collector for the URI and
+     * decompresses the fetched file(s). If the files are decompressed as
+     * streams, the decompression is done by the analysis stage.
+     */
+    protected void decompress(UriJob job) {
+        try {
+            List<File> fetchedFiles = new ArrayList<>();
+            if (job.fetched.isDirectory()) {
+                fetchedFiles.addAll(TempPathUtils.searchPath4Files(job.fetched));
+            } else {
+                fetchedFiles.add(job.fetched);
+            }
+            // open the sink only if a fetcher has been found
+            sink.openSinkForUri(job.uri);
+            collector.openSinkForUri(job.uri);
+            job.sinkOpened = true;
+            job.files = new ArrayList<>();
+            if (isStreamingDecompression()) {
+                for (File data : fetchedFiles) {
+                    if (data != null) {
+                        job.files.add(data);
+                    }
+                }
+                submit(analyzeExecutor, job, () -> analyze(job));
+                return;
+            }
+            FileManager fm = new FileManager();
+            for (File data : fetchedFiles) {
+                if (data != null) {
+                    job.files.addAll(fm.decompressFile(data));
+                }
+            }
+            LOGGER.info("Found " + job.files.size() + " files after decompression ");
+            submit(analyzeExecutor, job, () -> analyze(job));
+        } catch (Exception e) {
+            failUri(job, e);
+        }
+    }
+
+    /**
+     * The analysis stage. Analyzes all files of the URI. The analyzers write the
+     * extracted data into the sink and the found URIs into the collector.
+     */
+    protected void analyze(UriJob job) {
+        try {
+            LOGGER.info(" -- Processing URI: " + job.uri.getUri().toString());
+            int cont = 1;
+            FileManager fm = new FileManager();
+            for (File file : job.files) {
+                LOGGER.info("Analyzing file " + cont + " of " + job.files.size());
+                if (isStreamingDecompression()) {
+                    // the found URIs are taken from the collector in the finishing stage
+                    fm.decompressFile(file,
+                            new AnalyzingEntryHandler((StreamingAnalyzer) analyzer, job.uri, sink, null));
+                } else {
+                    analyzer.analyze(job.uri, file, sink);
+                }
+                cont++;
+            }
+            // If we reach this point, the crawling was successful
+            job.activity.setState(CrawlingURIState.SUCCESSFUL);
+            submit(finishExecutor, job, () -> finishUri(job));
+        } catch (Exception e) {
+            failUri(job, e);
+        }
+    }
+
+    /**
+     * The finishing stage. Sends the collected URIs to the frontier, closes the
+     * sink and the collector for the given URI and stores the crawling activity.
+     */
+    protected void finishUri(UriJob job) {
+        try {
+            if (job.sinkOpened) {
+                try {
+                    if (job.activity.getState() == CrawlingURIState.SUCCESSFUL) {
+                        sendNewUris(collector.getUris(job.uri));
+                    }
+                } finally {
+                    // Make sure that sink and collector do not handle this uri anymore.
+                    sink.closeSinkForUri(job.uri);
+                    collector.closeSinkForUri(job.uri);
+                }
+            }
+            if (job.activity != null) {
+                job.activity.finishActivity(sink);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Unhandled exception while finishing \"" + job.uri.getUri().toString()
+                    + "\". It will be ignored.", e);
+        } finally {
+            // Remove the activity and the sniffed content type since we don't want to send them back to the Frontier
+            job.uri.getData().remove(Constants.URI_CRAWLING_ACTIVITY);
+            ContentSniffer.removeSniffedContentType(job.uri);
+            if (job.chunk.pendingUris.decrementAndGet() == 0) {
+                chunkDone(job.chunk);
+            }
+        }
+    }
+
+    /**
+     * Marks the given URI as failed and finishes it directly.
+     */
+    protected void failUri(UriJob job, Exception e) {
+        if (job.activity != null) {
+            job.activity.addStep(getClass(), "Unhandled exception while Fetching Data. " + e.getMessage());
+            job.activity.setState(CrawlingURIState.FAILED);
+        }
+        finishUri(job);
+    }
+
+    /**
+     * Hands the given job over to the given stage. If the stage does not accept
+     * the job, the job is finished as failed in the current thread to make sure
+     * that the chunk is still reported to the frontier.
+     */
+    protected void submit(ExecutorService stage, UriJob job, Runnable task) {
+        try {
+            stage.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.error("Couldn't hand over \"" + job.uri.getUri().toString() + "\" to the next stage.", e);
+            if (stage == finishExecutor) {
+                finishUri(job);
+            } else {
+                failUri(job, e);
+            }
+        }
+    }
+
+    /**
+     * Sends the results of the given chunk to the frontier and frees its slot
+     * in the pipeline.
+     */
+    protected void chunkDone(ChunkJob chunk) {
+        try {
+            frontier.crawlingDone(chunk.uris);
+        } catch (Exception e) {
+            LOGGER.error("Exception while sending the crawling result to the frontier.", e);
+        } finally {
+            chunkPermits.release();
+            if (chunk.latch != null) {
+                chunk.latch.countDown();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // Shut down the stages in the order of the pipeline to let the remaining URIs
+        // pass through before the fetcher and the sink are closed
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+        for (ThreadPoolExecutor stage : new ThreadPoolExecutor[] { fetchExecutor, decompressExecutor,
+                analyzeExecutor, finishExecutor }) {
+            stage.shutdown();
+            try {
+                if (!stage.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("A pipeline stage did not terminate in time. Its remaining tasks will be dropped.");
+                    stage.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                stage.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        super.close();
+    }
+
+    /**
+     * A chunk of URIs that has been retrieved from the frontier.
+     */
+    protected static class ChunkJob {
+        protected final List<CrawleableUri> uris;
+        protected final CountDownLatch latch;
+        /**
+         * The number of URIs of this chunk that have not left the pipeline.
+         */
+        protected final AtomicInteger pendingUris = new AtomicInteger();
+
+        public ChunkJob(List<CrawleableUri> uris, CountDownLatch latch) {
+            this.uris = uris;
+            this.latch = latch;
+        }
+    }
+
+    /**
+     * The state of a single URI while it is passing through the pipeline. A job
+     * is handled by only one stage at a time.
+     */
+    protected static class UriJob {
+        protected final CrawleableUri uri;
+        protected final ChunkJob chunk;
+        protected CrawlingActivity activity;
+        protected File fetched;
+        protected List<File> files;
+        protected boolean sinkOpened = false;
+
+        public UriJob(CrawleableUri uri, ChunkJob chunk) {
+            this.uri = uri;
+            this.chunk = chunk;
+        }
+    }
+}
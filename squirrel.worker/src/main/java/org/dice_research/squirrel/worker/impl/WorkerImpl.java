@@ -11,7 +11,10 @@ import java.util.UUID;
 
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.Analyzer;
+import org.dice_research.squirrel.analyzer.StreamingAnalyzer;
+import org.dice_research.squirrel.analyzer.compress.impl.AnalyzingEntryHandler;
 import org.dice_research.squirrel.analyzer.compress.impl.FileManager;
+import org.dice_research.squirrel.analyzer.mime.ContentSniffer;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
@@ -69,6 +72,11 @@ public class WorkerImpl implements Worker, Closeable {
     protected long waitingTime;
     protected long timeStampLastUriFetched = 0;
     protected boolean terminateFlag;
+    /**
+     * Flag indicating whether fetched files should be decompressed as streams
+     * (if the analyzer supports it) instead of being extracted to disk.
+     */
+    protected boolean streamingDecompression = true;
     private final String uri = Constants.DEFAULT_WORKER_URI_PREFIX + UUID.randomUUID().toString();
     @Deprecated
     private final int id = (int) Math.floor(Math.random() * 100000);
@@ -237,9 +245,11 @@ public class WorkerImpl implements Worker, Closeable {
             }
             timeStampLastUriFetched = System.currentTimeMillis();
             List<File> fetchedFiles = new ArrayList<>();
+            boolean notModified = (fetched == null)
+                    && Boolean.TRUE.equals(uri.getData(Constants.URI_HTTP_NOT_MODIFIED));
             if (fetched != null && fetched.isDirectory()) {
                 fetchedFiles.addAll(TempPathUtils.searchPath4Files(fetched));
-            } else {
+            } else if (!notModified) {
                 fetchedFiles.add(fetched);
             }
 
@@ -254,7 +264,13 @@ public class WorkerImpl implements Worker, Closeable {
                     // Go over all files and analyze them
                     LOGGER.info(" -- Processing URI: " + uri.getUri().toString());
                     for (File data : fetchedFiles) {
-                        if (data != null) {
+                        if ((data != null) && isStreamingDecompression()) {
+                            AnalyzingEntryHandler handler = new AnalyzingEntryHandler(
+                                    (StreamingAnalyzer) analyzer, uri, sink, this::sendNewUris);
+                            fm.decompressFile(data, handler);
+                            LOGGER.info("Analyzed " + handler.getEntries() + " entries ("
+                                    + fm.getExtractedEntries() + " extracted to disk)");
+                        } else if (data != null) {
                             fileList = fm.decompressFile(data);
                             LOGGER.info("Found " + fileList.size() + " files after decompression ");
                             int cont = 1;
@@ -279,6 +295,10 @@ public class WorkerImpl implements Worker, Closeable {
                 }
                 // If we reach this point, the crawling was successful
                 activity.setState(CrawlingURIState.SUCCESSFUL);
+            } else if (notModified) {
+                // The content is known already
+                activity.addStep(getClass(), "Not modified since the last crawl. Skipped the analysis.");
+                activity.setState(CrawlingURIState.SUCCESSFUL);
             } else {
                 // There are no files
                 activity.addStep(getClass(), "No files for analysis available.");
@@ -293,8 +313,9 @@ public class WorkerImpl implements Worker, Closeable {
         setSpecificRecrawlTime(uri);
 
         } finally {
-            // Remove the activity since we don't want to send it back to the Frontier
+            // Remove the activity and the sniffed content type since we don't want to send them back to the Frontier
             uri.getData().remove(Constants.URI_CRAWLING_ACTIVITY);
+            ContentSniffer.removeSniffedContentType(uri);
         }
 
         // TODO (this is only a unsatisfying quick fix to avoid unreadable graphs
@@ -320,6 +341,18 @@ public class WorkerImpl implements Worker, Closeable {
         return sendAliveMessages;
     }
 
+    public void setStreamingDecompression(boolean streamingDecompression) {
+        this.streamingDecompression = streamingDecompression;
+    }
+
+    /**
+     * @return {@code true} if the fetched files are decompressed as streams and
+     *         directly handed to the analyzer
+     */
+    protected boolean isStreamingDecompression() {
+        return streamingDecompression && (analyzer instanceof StreamingAnalyzer);
+    }
+
     /**
      * Sends the given URIs to the frontier.
      * 
@@ -351,6 +384,12 @@ public class WorkerImpl implements Worker, Closeable {
     public void close() {
         Closer.close(fetcher, LOGGER);
         Closer.close(sink, LOGGER);
+        if (manager instanceof Closeable) {
+            Closer.close((Closeable) manager, LOGGER);
+        }
+        if (analyzer instanceof Closeable) {
+            Closer.close((Closeable) analyzer, LOGGER);
+        }
     }
 
     public void setTerminateFlag(boolean terminateFlag) {
@@ -0,0 +1,106 @@
+package org.dice_research.squirrel.analyzer.commons;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing the parsing of an N-Triples file on the calling
+ * thread (1 thread) with the {@link ParallelLineParser} and its
+ * {@link TripleHandOff} (more threads). The parallel parsing is only enabled
+ * by default if this benchmark shows a speedup on a multi-core machine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelLineParserBenchmark {
+
+    private static final int NUMBER_OF_LINES = 500000;
+
+    @State(Scope.Benchmark)
+    public static class ParserState {
+
+        @Param({ "1", "2", "4" })
+        public int threads;
+
+        public File file;
+        public ParallelLineParser parser;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = File.createTempFile("parallelParserBenchmark", ".nt");
+            try (PrintStream out = new PrintStream(file, StandardCharsets.UTF_8.name())) {
+                for (int i = 0; i < NUMBER_OF_LINES; ++i) {
+                    out.print("<http://example.org/resource/");
+                    out.print(i);
+                    out.print("> <http://example.org/property/");
+                    out.print(i & 0xFF);
+                    out.print("> \"literal value ");
+                    out.print(i);
+                    out.println("\"@en .");
+                }
+            }
+            parser = new ParallelLineParser(threads, file.length() / threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            parser.close();
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public long parse(ParserState state) throws IOException {
+        CountingStream counter = new CountingStream();
+        if (state.parser.isWorthSplitting(state.file)) {
+            try (TripleHandOff handOff = new TripleHandOff(counter, TripleHandOff.DEFAULT_BATCH_SIZE,
+                    TripleHandOff.DEFAULT_QUEUE_CAPACITY)) {
+                state.parser.parse(state.file, Lang.NTRIPLES, handOff);
+            }
+        } else {
+            RDFDataMgr.parse(counter, state.file.getAbsolutePath(), Lang.NTRIPLES);
+        }
+        return counter.count;
+    }
+
+    protected static class CountingStream extends StreamRDFBase {
+        protected long count = 0;
+
+        @Override
+        public void triple(Triple triple) {
+            ++count;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(ParallelLineParserBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
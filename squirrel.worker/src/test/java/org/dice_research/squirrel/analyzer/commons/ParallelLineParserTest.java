@@ -0,0 +1,122 @@
+package org.dice_research.squirrel.analyzer.commons;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelLineParserTest {
+
+    private static final int NUMBER_OF_LINES = 5000;
+
+    private File file;
+
+    @Before
+    public void prepare() throws IOException {
+        file = File.createTempFile("parallelParserTest", ".nt");
+        try (PrintStream out = new PrintStream(file, StandardCharsets.UTF_8.name())) {
+            for (int i = 0; i < NUMBER_OF_LINES; ++i) {
+                out.print("<http://example.org/s");
+                out.print(i);
+                out.print("> <http://example.org/p> \"literal with\\nline break ");
+                out.print(i);
+                out.println("\" .");
+                // blank nodes that are used in all segments of the file
+                out.print("_:b");
+                out.print(i % 10);
+                out.print(" <http://example.org/q> <http://example.org/o");
+                out.print(i);
+                out.println("> .");
+            }
+        }
+    }
+
+    @After
+    public void cleanUp() {
+        file.delete();
+    }
+
+    @Test
+    public void testSegments() throws IOException {
+        ParallelLineParser parser = new ParallelLineParser(4, 1024);
+        long[] boundaries = parser.determineSegments(file);
+        Assert.assertEquals(5, boundaries.length);
+        Assert.assertEquals(0, boundaries[0]);
+        Assert.assertEquals(file.length(), boundaries[4]);
+        for (int i = 1; i < boundaries.length; ++i) {
+            Assert.assertTrue(boundaries[i - 1] < boundaries[i]);
+        }
+    }
+
+    @Test
+    public void testParallelParsing() throws IOException {
+        Graph expected = GraphFactory.createDefaultGraph();
+        RDFDataMgr.parse(StreamRDFLib.graph(expected), file.getAbsolutePath(), Lang.NTRIPLES);
+
+        ParallelLineParser parser = new ParallelLineParser(4, 1024);
+        Assert.assertTrue(parser.isWorthSplitting(file));
+        Graph graph = GraphFactory.createDefaultGraph();
+        TripleHandOff handOff = new TripleHandOff(StreamRDFLib.graph(graph), 100, 4);
+        parser.parse(file, Lang.NTRIPLES, handOff);
+        handOff.close();
+
+        Assert.assertEquals(2 * NUMBER_OF_LINES, handOff.getConsumedTriples());
+        Assert.assertEquals(expected.size(), graph.size());
+        // the blank nodes of the different segments have to be the same
+        Assert.assertTrue(expected.isIsomorphicWith(graph));
+    }
+
+    @Test
+    public void testThreadPoolLifecycle() throws IOException {
+        ParallelLineParser parser = new ParallelLineParser(2, 1024);
+        // the threads are only created if a file is split
+        Assert.assertNull(parser.executor);
+        TripleHandOff handOff = new TripleHandOff(StreamRDFLib.sinkNull(), 100, 4);
+        parser.parse(file, Lang.NTRIPLES, handOff);
+        handOff.close();
+        ExecutorService executor = parser.executor;
+        Assert.assertNotNull(executor);
+
+        parser.close();
+        Assert.assertTrue(executor.isShutdown());
+        handOff = new TripleHandOff(StreamRDFLib.sinkNull(), 100, 4);
+        try {
+            parser.parse(file, Lang.NTRIPLES, handOff);
+            Assert.fail("A closed parser should not parse files.");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            handOff.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConsumerException() throws IOException {
+        TripleHandOff handOff = new TripleHandOff(new StreamRDFBase() {
+            @Override
+            public void triple(Triple triple) {
+                throw new IllegalStateException("Sink is not available");
+            }
+        }, 10, 1);
+        try {
+            new ParallelLineParser(2, 1024).parse(file, Lang.NTRIPLES, handOff);
+            Assert.fail("The parser should have been stopped.");
+        } catch (IOException e) {
+            // the producers have been stopped
+        }
+        handOff.close();
+    }
+}
@@ -0,0 +1,155 @@
+package org.dice_research.squirrel.analyzer.compress.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.dice_research.squirrel.analyzer.compress.EntryHandler;
+import org.dice_research.squirrel.analyzer.impl.RDFAnalyzer;
+import org.dice_research.squirrel.collect.SimpleUriCollector;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileManagerTest {
+
+    private static final String N_TRIPLES = "<http://example.org/s> <http://example.org/p> <http://example.org/o> .\n";
+    private static final String TURTLE = "@prefix ex: <http://example.org/> .\nex:s ex:p ex:o .\n";
+    private static final byte[] HDT = "$HDT\u0001binary".getBytes(StandardCharsets.ISO_8859_1);
+
+    private File tempFile;
+
+    @Before
+    public void prepare() throws IOException {
+        tempFile = File.createTempFile("fileManagerTest", ".tar.gz");
+    }
+
+    @After
+    public void cleanUp() {
+        tempFile.delete();
+    }
+
+    @Test
+    public void testNestedArchives() throws Exception {
+        // a tar.gz containing an N-Triples file, an HDT file and a zip file with
+        // a Turtle file
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(new FileOutputStream(tempFile)))) {
+            addTarEntry(tar, "dump/data.nt", N_TRIPLES.getBytes(StandardCharsets.UTF_8));
+            addTarEntry(tar, "dump/data.hdt", HDT);
+            ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+            try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(zipBytes)) {
+                zip.putArchiveEntry(new ZipArchiveEntry("inner/data.ttl"));
+                zip.write(TURTLE.getBytes(StandardCharsets.UTF_8));
+                zip.closeArchiveEntry();
+            }
+            addTarEntry(tar, "dump/nested.zip", zipBytes.toByteArray());
+        }
+
+        RecordingHandler handler = new RecordingHandler();
+        FileManager fm = new FileManager();
+        fm.decompressFile(tempFile, handler);
+
+        Assert.assertEquals(N_TRIPLES, handler.streams.get("dump/data.nt"));
+        Assert.assertEquals(TURTLE, handler.streams.get("inner/data.ttl"));
+        Assert.assertEquals(2, handler.streams.size());
+        // the HDT file needs random access and is extracted to disk
+        Assert.assertEquals(1, handler.files.size());
+        Assert.assertTrue(handler.files.contains("dump/data.hdt"));
+        Assert.assertEquals(2, fm.getStreamedEntries());
+        Assert.assertEquals(1, fm.getExtractedEntries());
+        // the extracted file has been deleted
+        Assert.assertFalse(handler.lastFile.exists());
+    }
+
+    @Test
+    public void testSevenZip() throws Exception {
+        try (SevenZOutputFile sevenZ = new SevenZOutputFile(tempFile)) {
+            SevenZArchiveEntry entry = new SevenZArchiveEntry();
+            entry.setName("data.nt");
+            sevenZ.putArchiveEntry(entry);
+            sevenZ.write(N_TRIPLES.getBytes(StandardCharsets.UTF_8));
+            sevenZ.closeArchiveEntry();
+        }
+        RecordingHandler handler = new RecordingHandler();
+        new FileManager().decompressFile(tempFile, handler);
+        Assert.assertEquals(N_TRIPLES, handler.streams.get("data.nt"));
+    }
+
+    @Test
+    public void testUncompressedFile() throws Exception {
+        FileUtils.writeByteArrayToFile(tempFile, HDT);
+        RecordingHandler handler = new RecordingHandler();
+        new FileManager().decompressFile(tempFile, handler);
+        // the original file is handed over without copying it
+        Assert.assertEquals(tempFile, handler.lastFile);
+        Assert.assertTrue(tempFile.exists());
+    }
+
+    @Test
+    public void testRdfAnalyzerEligibility() throws Exception {
+        RDFAnalyzer analyzer = new RDFAnalyzer(new SimpleUriCollector(new GzipJavaUriSerializer()));
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dump.tar.gz"));
+        byte[] nt = N_TRIPLES.getBytes(StandardCharsets.UTF_8);
+        Assert.assertTrue(analyzer.isElegible(uri, "data.ttl", new byte[0]));
+        // N-Triples without file extension is detected based on its content
+        Assert.assertTrue(analyzer.isElegible(uri, "data", nt));
+        Assert.assertFalse(analyzer.isElegible(uri, "data", "some text".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertFalse(analyzer.isElegible(uri, "data.hdt", HDT));
+    }
+
+    private static void addTarEntry(TarArchiveOutputStream tar, String name, byte[] content) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        tar.putArchiveEntry(entry);
+        tar.write(content);
+        tar.closeArchiveEntry();
+    }
+
+    /**
+     * Accepts all entries whose names end with ".nt" or ".ttl" as streams.
+     */
+    private static class RecordingHandler implements EntryHandler {
+        private Map<String, String> streams = new HashMap<>();
+        private Set<String> files = new HashSet<>();
+        private File lastFile;
+
+        @Override
+        public boolean acceptsStream(String name, byte[] head) {
+            return name.endsWith(".nt") || name.endsWith(".ttl");
+        }
+
+        @Override
+        public void handleStream(String name, InputStream stream) throws IOException {
+            streams.put(name, IOUtils.toString(stream, StandardCharsets.UTF_8));
+            stream.close();
+        }
+
+        @Override
+        public void handleFile(String name, File file) throws IOException {
+            Assert.assertTrue(file.exists());
+            files.add(name);
+            lastFile = file;
+        }
+    }
+}
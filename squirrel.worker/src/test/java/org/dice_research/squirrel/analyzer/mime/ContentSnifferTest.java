@@ -0,0 +1,76 @@
+package org.dice_research.squirrel.analyzer.mime;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.riot.Lang;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ContentSnifferTest {
+
+    private File getFile(String name) {
+        return new File(getClass().getClassLoader().getResource(name).getFile());
+    }
+
+    @Test
+    public void testSniffingIsCached() throws Exception {
+        ContentSniffer sniffer = new ContentSniffer();
+        CrawleableUri curi = new CrawleableUri(new URI("http://example.org/newyork"));
+        File rdfXml = getFile("rdf_analyzer/new_york/new_york_rdf");
+
+        SniffedContentType type = sniffer.sniff(curi, rdfXml);
+        Assert.assertEquals("application/rdf+xml", type.getDetectedMimeType());
+        Assert.assertEquals(Lang.RDFXML, type.getRdfLang());
+        Assert.assertNull(type.getHttpMimeType());
+        Assert.assertEquals(rdfXml.getAbsolutePath(), curi.getData(Constants.URI_SNIFFED_FILE_KEY));
+        Assert.assertEquals(1, sniffer.getReadFiles());
+
+        // the same file is not read again
+        type = sniffer.sniff(curi, rdfXml);
+        Assert.assertEquals(Lang.RDFXML, type.getRdfLang());
+        Assert.assertEquals(1, sniffer.getReadFiles());
+
+        // another file of the same URI, e.g., an extracted archive entry
+        type = sniffer.sniff(curi, getFile("sample.ttl"));
+        Assert.assertEquals(Lang.TURTLE, type.getRdfLang());
+        Assert.assertEquals(2, sniffer.getReadFiles());
+
+        // the cache is not sent back to the frontier
+        ContentSniffer.removeSniffedContentType(curi);
+        Assert.assertNull(curi.getData(Constants.URI_SNIFFED_FILE_KEY));
+        Assert.assertNull(curi.getData(Constants.URI_SNIFFED_MIME_TYPE_KEY));
+        Assert.assertNull(curi.getData(Constants.URI_SNIFFED_RDF_LANG_KEY));
+    }
+
+    @Test
+    public void testSniffingOfStreams() throws Exception {
+        CrawleableUri curi = new CrawleableUri(new URI("http://example.org/dump.tar.gz"));
+        byte[] turtle = "@prefix ex: <http://example.org/> .\nex:a ex:b ex:c .\n".getBytes(StandardCharsets.UTF_8);
+        ContentSniffer sniffer = new ContentSniffer();
+        SniffedContentType type = sniffer.sniff(curi, "data", turtle);
+        Assert.assertEquals(Lang.TURTLE, type.getRdfLang());
+        // the cached type is returned for the same stream
+        Assert.assertEquals(Lang.TURTLE, ContentSniffer.getSniffedContentType(curi).getRdfLang());
+
+        // another entry with the same name but a different content
+        type = sniffer.sniff(curi, "data", "some text".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("text/plain", type.getDetectedMimeType());
+        Assert.assertNull(type.getRdfLang());
+        // no file has been read
+        Assert.assertEquals(0, sniffer.getReadFiles());
+    }
+
+    @Test
+    public void testHttpContentType() throws Exception {
+        CrawleableUri curi = new CrawleableUri(new URI("http://example.org/page"));
+        curi.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "text/html");
+        SniffedContentType type = new ContentSniffer().sniff(curi, getFile("sample.ttl"));
+        Assert.assertTrue(type.isHttpMimeType("text/html"));
+        Assert.assertTrue(type.isMimeType("application/xhtml+xml", "text/html"));
+        Assert.assertFalse(type.isDetectedMimeType("text/html"));
+    }
+}
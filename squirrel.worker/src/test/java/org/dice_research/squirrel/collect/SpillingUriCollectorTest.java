@@ -0,0 +1,151 @@
+package org.dice_research.squirrel.collect;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.utils.TempFileHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpillingUriCollectorTest {
+
+    private Serializer serializer;
+    private File directory;
+
+    @Before
+    public void prepare() throws Exception {
+        serializer = new BinaryUriSerializer();
+        directory = TempFileHelper.getTempDir("spillTest", "");
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testSpillingAndMerging() throws Exception {
+        // a small budget forces the collector to spill several runs
+        SpillingUriCollector collector = new SpillingUriCollector(serializer, directory.getAbsolutePath(), 2048);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dump"));
+        collector.openSinkForUri(uri);
+
+        Set<String> expectedUris = new TreeSet<String>();
+        for (int i = 0; i < 1000; ++i) {
+            String newUri = "http://example.org/entity" + (i % 300);
+            expectedUris.add(newUri);
+            collector.addNewUri(uri, new CrawleableUri(new URI(newUri)));
+        }
+        Assert.assertEquals(1, directory.listFiles().length);
+        Assert.assertEquals(expectedUris, readUris(collector, uri));
+        Assert.assertEquals(expectedUris.size(), collector.getSize(uri));
+        // the cursors of the completely read runs have been closed
+        Assert.assertEquals(0, collector.knownUris.get(uri.getUri().toString()).getNumberOfOpenCursors());
+
+        // URIs can still be added after reading
+        collector.addNewUri(uri, new CrawleableUri(new URI("http://example.org/other")));
+        expectedUris.add("http://example.org/other");
+        Assert.assertEquals(expectedUris, readUris(collector, uri));
+        Assert.assertEquals(expectedUris.size(), collector.getSize(uri));
+
+        collector.closeSinkForUri(uri);
+        Assert.assertEquals(0, directory.listFiles().length);
+        Assert.assertFalse(collector.getUris(uri).hasNext());
+        collector.close();
+    }
+
+    @Test
+    public void testUnfinishedIterator() throws Exception {
+        SpillingUriCollector collector = new SpillingUriCollector(serializer, directory.getAbsolutePath(), 2048);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dump"));
+        collector.openSinkForUri(uri);
+        for (int i = 0; i < 300; ++i) {
+            collector.addNewUri(uri, new CrawleableUri(new URI("http://example.org/entity" + i)));
+        }
+        Iterator<byte[]> iterator = collector.getUris(uri);
+        Assert.assertTrue(iterator.hasNext());
+        iterator.next();
+        SpillingUriCollector.UriRunsStatus status = collector.knownUris.get(uri.getUri().toString());
+        Assert.assertTrue(status.getNumberOfOpenCursors() > 0);
+        // computing the size does not leave further cursors open
+        int openCursors = status.getNumberOfOpenCursors();
+        Assert.assertEquals(300, collector.getSize(uri));
+        Assert.assertEquals(openCursors, status.getNumberOfOpenCursors());
+
+        // the cursors of the unfinished iterator are closed with the sink
+        collector.closeSinkForUri(uri);
+        Assert.assertEquals(0, status.getNumberOfOpenCursors());
+        Assert.assertEquals(0, directory.listFiles().length);
+        collector.close();
+    }
+
+    @Test
+    public void testInMemory() throws Exception {
+        SpillingUriCollector collector = new SpillingUriCollector(serializer, directory.getAbsolutePath());
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/test"));
+        collector.openSinkForUri(uri);
+        collector.addNewUri(uri, new CrawleableUri(new URI("http://example.org/a")));
+        collector.addNewUri(uri, new CrawleableUri(new URI("http://example.org/b")));
+        collector.addNewUri(uri, new CrawleableUri(new URI("http://example.org/a")));
+        Assert.assertEquals(2, collector.getSize(uri));
+        Assert.assertEquals(2, readUris(collector, uri).size());
+        // nothing has been written to disk
+        Assert.assertEquals(0, directory.listFiles().length);
+        collector.closeSinkForUri(uri);
+        collector.close();
+    }
+
+    @Test
+    public void testConcurrentAnalyzers() throws Exception {
+        SpillingUriCollector collector = new SpillingUriCollector(serializer, directory.getAbsolutePath(), 4096);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dump"));
+        collector.openSinkForUri(uri);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; ++t) {
+            final int offset = t * 250;
+            futures.add(executor.submit(() -> {
+                // the ranges of the threads overlap
+                for (int i = offset; i < offset + 500; ++i) {
+                    collector.addNewUri(uri, new CrawleableUri(new URI("http://example.org/entity" + i)));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Set<String> uris = readUris(collector, uri);
+        Assert.assertEquals(1250, uris.size());
+        Assert.assertEquals(1250, collector.getSize(uri));
+        collector.close();
+        Assert.assertEquals(0, directory.listFiles().length);
+    }
+
+    private Set<String> readUris(UriCollector collector, CrawleableUri uri) throws Exception {
+        Set<String> uris = new TreeSet<String>();
+        Iterator<byte[]> iterator = collector.getUris(uri);
+        while (iterator.hasNext()) {
+            Assert.assertTrue("Got a URI twice.",
+                    uris.add(((CrawleableUri) serializer.deserialize(iterator.next())).getUri().toString()));
+        }
+        return uris;
+    }
+}
@@ -0,0 +1,133 @@
+package org.dice_research.squirrel.fetcher.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.fetcher.Fetcher;
+import org.dice_research.squirrel.fetcher.manage.SimpleOrderedFetcherManager;
+import org.dice_research.squirrel.simulation.AbstractServerMockUsingTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.simpleframework.http.Request;
+import org.simpleframework.http.Response;
+import org.simpleframework.http.Status;
+import org.simpleframework.http.core.Container;
+
+public class HTTPFetcherTest extends AbstractServerMockUsingTest {
+
+    private static final String CONTENT = "<http://example.org/s> <http://example.org/p> <http://example.org/o> .\n";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    public HTTPFetcherTest() {
+        super(new ConditionalContainer());
+    }
+
+    @Test
+    public void testConditionalGet() throws Exception {
+        ConditionalContainer server = (ConditionalContainer) container;
+        CrawleableUri uri = new CrawleableUri(new URI(HTTP_SERVER_ADDRESS + "/data.nt"));
+        try (HTTPFetcher fetcher = new HTTPFetcher()) {
+            File file = fetcher.fetch(uri);
+            Assert.assertNotNull(file);
+            // the gzipped response has been decompressed
+            Assert.assertEquals(CONTENT, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+            Assert.assertEquals(ETAG, HTTPFetcher.getResponseHeader(uri, "etag"));
+            Assert.assertEquals(ETAG, uri.getData(Constants.URI_HTTP_ETAG_KEY));
+            Assert.assertEquals(LAST_MODIFIED, uri.getData(Constants.URI_HTTP_LAST_MODIFIED_KEY));
+            Assert.assertNull(uri.getData(Constants.URI_HTTP_NOT_MODIFIED));
+            file.delete();
+
+            // the second request should be conditional
+            Assert.assertNull(fetcher.fetch(uri));
+            Assert.assertEquals(Boolean.TRUE, uri.getData(Constants.URI_HTTP_NOT_MODIFIED));
+            Assert.assertEquals(304, uri.getData(Constants.URI_HTTP_STATUS_CODE));
+            Assert.assertEquals(ETAG, server.ifNoneMatchHeaders.get(1));
+            Assert.assertEquals(LAST_MODIFIED, server.ifModifiedSinceHeaders.get(1));
+        }
+        Assert.assertNull(server.ifNoneMatchHeaders.get(0));
+        // gzip and brotli are advertised
+        Assert.assertTrue(server.acceptEncodingHeaders.get(0).contains("gzip"));
+        Assert.assertTrue(server.acceptEncodingHeaders.get(0).contains("br"));
+    }
+
+    @Test
+    public void testNotModifiedStopsFetcherManager() throws Exception {
+        CrawleableUri uri = new CrawleableUri(new URI(HTTP_SERVER_ADDRESS + "/data.nt"));
+        uri.addData(Constants.URI_HTTP_ETAG_KEY, ETAG);
+        List<CrawleableUri> askedUris = new ArrayList<>();
+        Fetcher second = new Fetcher() {
+            @Override
+            public File fetch(CrawleableUri uri) {
+                askedUris.add(uri);
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+        try (SimpleOrderedFetcherManager manager = new SimpleOrderedFetcherManager(new HTTPFetcher(), second)) {
+            Assert.assertNull(manager.fetch(uri));
+        }
+        Assert.assertEquals(Boolean.TRUE, uri.getData(Constants.URI_HTTP_NOT_MODIFIED));
+        Assert.assertEquals(Collections.emptyList(), askedUris);
+    }
+
+    /**
+     * Answers requests with the same content (gzipped if the client accepts it)
+     * and {@code 304 Not Modified} if the client sends the current ETag.
+     */
+    protected static class ConditionalContainer implements Container {
+
+        protected List<String> ifNoneMatchHeaders = Collections.synchronizedList(new ArrayList<>());
+        protected List<String> ifModifiedSinceHeaders = Collections.synchronizedList(new ArrayList<>());
+        protected List<String> acceptEncodingHeaders = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void handle(Request request, Response response) {
+            String ifNoneMatch = request.getValue("If-None-Match");
+            ifNoneMatchHeaders.add(ifNoneMatch);
+            ifModifiedSinceHeaders.add(request.getValue("If-Modified-Since"));
+            acceptEncodingHeaders.add(request.getValue("Accept-Encoding"));
+            try {
+                response.setValue("ETag", ETAG);
+                response.setValue("Last-Modified", LAST_MODIFIED);
+                if (ETAG.equals(ifNoneMatch)) {
+                    response.setCode(Status.NOT_MODIFIED.code);
+                    response.getOutputStream().close();
+                    return;
+                }
+                byte data[] = CONTENT.getBytes(StandardCharsets.UTF_8);
+                String acceptEncoding = request.getValue("Accept-Encoding");
+                if ((acceptEncoding != null) && acceptEncoding.contains("gzip")) {
+                    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+                    try (GZIPOutputStream gout = new GZIPOutputStream(bout)) {
+                        gout.write(data);
+                    }
+                    data = bout.toByteArray();
+                    response.setValue("Content-Encoding", "gzip");
+                }
+                response.setCode(Status.OK.code);
+                response.setValue("Content-Type", "application/n-triples");
+                response.setContentLength(data.length);
+                try (OutputStream out = response.getOutputStream()) {
+                    out.write(data);
+                }
+            } catch (IOException e) {
+                response.setCode(Status.INTERNAL_SERVER_ERROR.code);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.dice_research.squirrel.fetcher.sparql;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
+import org.dice_research.squirrel.configurator.SparqlFetcherConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SparqlHarvesterTest {
+
+    private static final int PAGE_SIZE = 5;
+
+    private File outputDirectory;
+
+    @Before
+    public void createDirectory() throws Exception {
+        outputDirectory = Files.createTempDirectory("sparql-harvester-test").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        FileUtils.deleteQuietly(outputDirectory);
+    }
+
+    @Test
+    public void testNamedGraphs() throws Exception {
+        // the default graph is not the union of the named graphs
+        Dataset dataset = DatasetFactory.create(createModel("d", 6));
+        dataset.addNamedModel("http://example.org/graph1", createModel("a", 23));
+        dataset.addNamedModel("http://example.org/graph2", createModel("b", 4));
+        dataset.addNamedModel("http://example.org/graph3", ModelFactory.createDefaultModel());
+        LocalHarvester harvester = new LocalHarvester(dataset, 0);
+
+        List<File> files = harvester.harvest("http://localhost/sparql", outputDirectory);
+        // the empty graph does not have a file
+        Assert.assertEquals(3, files.size());
+        checkHarvestedModels(files, dataset.getDefaultModel(), dataset.getNamedModel("http://example.org/graph1"),
+                dataset.getNamedModel("http://example.org/graph2"));
+    }
+
+    @Test
+    public void testDefaultGraphWithFailures() throws Exception {
+        Dataset dataset = DatasetFactory.create(createModel("c", 17));
+        // every third query fails, either immediately or after some rows
+        LocalHarvester harvester = new LocalHarvester(dataset, 3);
+
+        List<File> files = harvester.harvest("http://localhost/sparql", outputDirectory);
+        Assert.assertEquals(1, files.size());
+        checkHarvestedModels(files, dataset.getDefaultModel());
+        Assert.assertTrue(harvester.failures.get() > 0);
+    }
+
+    @Test
+    public void testTemporaryErrors() {
+        Assert.assertTrue(SparqlHarvester.isTemporaryError(new QueryExceptionHTTP(503)));
+        Assert.assertTrue(SparqlHarvester.isTemporaryError(new QueryExceptionHTTP(429)));
+        Assert.assertTrue(SparqlHarvester.isTemporaryError(new RuntimeException(new java.io.IOException())));
+        Assert.assertFalse(SparqlHarvester.isTemporaryError(new QueryExceptionHTTP(404)));
+        Assert.assertFalse(SparqlHarvester.isTemporaryError(new QueryExceptionHTTP(QueryExceptionHTTP.NoServer)));
+        Assert.assertFalse(SparqlHarvester.isTemporaryError(new IllegalArgumentException()));
+    }
+
+    /**
+     * Creates a model with the given number of IRI subjects with 3 triples
+     * each, one subject with more triples than a page and blank node subjects.
+     */
+    private static Model createModel(String name, int subjects) {
+        Model model = ModelFactory.createDefaultModel();
+        String ns = "http://example.org/" + name + "/";
+        for (int i = 0; i < subjects; ++i) {
+            Resource subject = model.createResource(ns + "s" + i);
+            for (int j = 0; j < 3; ++j) {
+                subject.addProperty(model.createProperty(ns + "p" + j), "value " + i + " " + j);
+            }
+        }
+        Resource large = model.createResource(ns + "large");
+        for (int j = 0; j < (2 * PAGE_SIZE + 1); ++j) {
+            large.addProperty(model.createProperty(ns + "p"), model.createTypedLiteral(j));
+        }
+        for (int i = 0; i < 7; ++i) {
+            model.createResource().addProperty(model.createProperty(ns + "p"), large);
+        }
+        return model;
+    }
+
+    private static void checkHarvestedModels(List<File> files, Model... expectedModels) throws Exception {
+        Assert.assertEquals(expectedModels.length, files.size());
+        for (Model expected : expectedModels) {
+            boolean found = false;
+            for (File file : files) {
+                Model harvested = ModelFactory.createDefaultModel();
+                RDFDataMgr.read(harvested, file.getAbsolutePath(), Lang.NTRIPLES);
+                if (harvested.isIsomorphicWith(expected)) {
+                    // every triple has been written exactly once
+                    Assert.assertEquals(expected.size(),
+                            FileUtils.readLines(file, "UTF-8").stream().filter(l -> !l.isEmpty()).count());
+                    found = true;
+                }
+            }
+            Assert.assertTrue("Couldn't find a file containing the expected model.", found);
+        }
+    }
+
+    /**
+     * A harvester that queries a local dataset and lets every n-th query fail.
+     */
+    private static class LocalHarvester extends SparqlHarvester {
+
+        private Dataset dataset;
+        private int failureInterval;
+        private AtomicInteger queries = new AtomicInteger();
+        private AtomicInteger failures = new AtomicInteger();
+
+        public LocalHarvester(Dataset dataset, int failureInterval) {
+            super(new SparqlFetcherConfiguration(PAGE_SIZE, 2, 3, 1, 10));
+            this.dataset = dataset;
+            this.failureInterval = failureInterval;
+        }
+
+        @Override
+        protected QueryExecution createQueryExecution(String endpoint, String query) {
+            int id = queries.incrementAndGet();
+            if ((failureInterval > 0) && ((id % failureInterval) == 0)) {
+                failures.incrementAndGet();
+                if ((id % (2 * failureInterval)) == 0) {
+                    throw new QueryExceptionHTTP(503);
+                } else {
+                    return failAfterFirstRows(QueryExecutionFactory.create(query, dataset));
+                }
+            }
+            return QueryExecutionFactory.create(query, dataset);
+        }
+
+        /**
+         * Wraps the given execution in a proxy whose result set breaks after
+         * two rows.
+         */
+        private static QueryExecution failAfterFirstRows(QueryExecution execution) {
+            return (QueryExecution) Proxy.newProxyInstance(QueryExecution.class.getClassLoader(),
+                    new Class<?>[] { QueryExecution.class }, (proxy, method, args) -> {
+                        Object result = invoke(execution, method, args);
+                        if (!"execSelect".equals(method.getName())) {
+                            return result;
+                        }
+                        AtomicInteger rows = new AtomicInteger();
+                        return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                new Class<?>[] { ResultSet.class }, (rsProxy, rsMethod, rsArgs) -> {
+                                    if ("next".equals(rsMethod.getName()) && (rows.incrementAndGet() > 2)) {
+                                        throw new QueryExceptionHTTP(QueryExceptionHTTP.noResponseCode);
+                                    }
+                                    return invoke(result, rsMethod, rsArgs);
+                                });
+                    });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args)
+                throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
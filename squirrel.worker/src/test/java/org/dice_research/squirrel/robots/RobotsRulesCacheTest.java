@@ -0,0 +1,176 @@
+package org.dice_research.squirrel.robots;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.tika.metadata.Metadata;
+import org.dice_research.squirrel.robots.RobotsRulesCache.CachedRobotRules;
+import org.junit.Assert;
+import org.junit.Test;
+
+import crawlercommons.robots.BaseRobotRules;
+import crawlercommons.robots.SimpleRobotRules;
+import crawlercommons.robots.SimpleRobotRules.RobotRulesMode;
+
+public class RobotsRulesCacheTest {
+
+    @Test
+    public void testKey() throws Exception {
+        Assert.assertEquals(RobotsRulesCache.getKey(new URI("http://Example.org/a")),
+                RobotsRulesCache.getKey(new URI("HTTP://example.org:80/b")));
+        Assert.assertEquals(RobotsRulesCache.getKey(new URI("https://example.org/a")),
+                RobotsRulesCache.getKey(new URI("https://example.org:443/b")));
+        Assert.assertNotEquals(RobotsRulesCache.getKey(new URI("http://example.org/a")),
+                RobotsRulesCache.getKey(new URI("https://example.org/a")));
+        Assert.assertNotEquals(RobotsRulesCache.getKey(new URI("http://example.org/a")),
+                RobotsRulesCache.getKey(new URI("http://example.org:8080/a")));
+    }
+
+    @Test
+    public void testHitsAndExpiration() throws Exception {
+        RobotsRulesCache cache = new RobotsRulesCache();
+        AtomicInteger loads = new AtomicInteger();
+        BaseRobotRules rules = new SimpleRobotRules(RobotRulesMode.ALLOW_ALL);
+        URI uri = new URI("http://example.org/a");
+
+        Assert.assertSame(rules, cache.getRules(uri, () -> load(loads, rules, 60000)));
+        Assert.assertSame(rules, cache.getRules(new URI("http://example.org/b"), () -> load(loads, rules, 60000)));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        // expired entries have to be loaded again
+        RobotsRulesCache expiringCache = new RobotsRulesCache();
+        expiringCache.getRules(uri, () -> load(loads, rules, -1));
+        expiringCache.getRules(uri, () -> load(loads, rules, -1));
+        Assert.assertEquals(3, loads.get());
+        Assert.assertEquals(0, expiringCache.getHits());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        RobotsRulesCache cache = new RobotsRulesCache(2);
+        AtomicInteger loads = new AtomicInteger();
+        BaseRobotRules rules = new SimpleRobotRules(RobotRulesMode.ALLOW_ALL);
+        URI uri1 = new URI("http://example1.org/");
+        URI uri2 = new URI("http://example2.org/");
+        URI uri3 = new URI("http://example3.org/");
+        cache.getRules(uri1, () -> load(loads, rules, 60000));
+        cache.getRules(uri2, () -> load(loads, rules, 60000));
+        // uri1 is now used more recently than uri2
+        cache.getRules(uri1, () -> load(loads, rules, 60000));
+        cache.getRules(uri3, () -> load(loads, rules, 60000));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+        cache.getRules(uri1, () -> load(loads, rules, 60000));
+        Assert.assertEquals(3, loads.get());
+        cache.getRules(uri2, () -> load(loads, rules, 60000));
+        Assert.assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testCoalescing() throws Exception {
+        RobotsRulesCache cache = new RobotsRulesCache();
+        AtomicInteger loads = new AtomicInteger();
+        BaseRobotRules rules = new SimpleRobotRules(RobotRulesMode.ALLOW_ALL);
+        URI uri = new URI("http://example.org/a");
+        int numberOfThreads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<BaseRobotRules> results = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; ++i) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                BaseRobotRules result = cache.getRules(uri, () -> {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                    }
+                    return load(loads, rules, 60000);
+                });
+                synchronized (results) {
+                    results.add(result);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(numberOfThreads, results.size());
+        for (BaseRobotRules result : results) {
+            Assert.assertSame(rules, result);
+        }
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        File file = File.createTempFile("robots_cache_", ".bin");
+        file.deleteOnExit();
+        AtomicInteger loads = new AtomicInteger();
+        SimpleRobotRules rules = new SimpleRobotRules();
+        rules.addRule("/private", false);
+        rules.setCrawlDelay(5000);
+        URI uri = new URI("http://example.org/a");
+        URI expiredUri = new URI("http://example2.org/a");
+
+        RobotsRulesCache cache = new RobotsRulesCache();
+        cache.getRules(uri, () -> load(loads, rules, 60000));
+        cache.getRules(expiredUri, () -> load(loads, rules, -1));
+        cache.save(file);
+
+        RobotsRulesCache loadedCache = new RobotsRulesCache();
+        loadedCache.load(file);
+        Assert.assertEquals(1, loadedCache.size());
+        BaseRobotRules loadedRules = loadedCache.getRules(uri, () -> load(loads, rules, 60000));
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(5000, loadedRules.getCrawlDelay());
+        Assert.assertFalse(loadedRules.isAllowed("http://example.org/private"));
+        Assert.assertTrue(loadedRules.isAllowed("http://example.org/public"));
+    }
+
+    @Test
+    public void testTtlFromHeaders() {
+        RobotsManagerImpl manager = new RobotsManagerImpl(null);
+        manager.setCacheTtl(TimeUnit.HOURS.toMillis(1));
+        manager.setMaxCacheTtl(TimeUnit.HOURS.toMillis(2));
+        long now = System.currentTimeMillis();
+
+        Metadata headers = new Metadata();
+        Assert.assertEquals(TimeUnit.HOURS.toMillis(1), manager.getTtl(headers, now));
+        headers.set(HttpHeaders.CACHE_CONTROL, "public, max-age=600");
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(10), manager.getTtl(headers, now));
+        // the max TTL limits the header
+        headers.set(HttpHeaders.CACHE_CONTROL, "max-age=86400");
+        Assert.assertEquals(TimeUnit.HOURS.toMillis(2), manager.getTtl(headers, now));
+        // no-cache leads to the minimum TTL
+        headers.set(HttpHeaders.CACHE_CONTROL, "no-cache");
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(1), manager.getTtl(headers, now));
+
+        headers = new Metadata();
+        headers.set(HttpHeaders.EXPIRES, DateUtils.formatDate(new Date(now + TimeUnit.MINUTES.toMillis(30))));
+        long ttl = manager.getTtl(headers, now);
+        // The date format has a precision of seconds
+        Assert.assertTrue(Math.abs(TimeUnit.MINUTES.toMillis(30) - ttl) < 1000);
+    }
+
+    private static CachedRobotRules load(AtomicInteger loads, BaseRobotRules rules, long ttl) {
+        loads.incrementAndGet();
+        return new CachedRobotRules(rules, System.currentTimeMillis() + ttl);
+    }
+}
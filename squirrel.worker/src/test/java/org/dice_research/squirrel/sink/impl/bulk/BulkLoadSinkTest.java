@@ -0,0 +1,183 @@
+package org.dice_research.squirrel.sink.impl.bulk;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.tdb.TDBFactory;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.sink.impl.sparql.SparqlBasedSink;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BulkLoadSinkTest {
+
+    private File tempDirectory;
+
+    @Before
+    public void createTempDir() throws IOException {
+        tempDirectory = File.createTempFile("BulkLoadSinkTest", ".tmp");
+        Assert.assertTrue(tempDirectory.delete());
+        Assert.assertTrue(tempDirectory.mkdir());
+    }
+
+    @After
+    public void deleteTempDir() throws IOException {
+        FileUtils.deleteDirectory(tempDirectory);
+    }
+
+    @Test
+    public void testRollingSegments() throws Exception {
+        RecordingLoader loader = new RecordingLoader();
+        BulkLoadSink sink = new BulkLoadSink(tempDirectory, loader);
+        sink.setMaxQuadsPerSegment(10);
+        sink.setMaxSegmentAge(0);
+        CrawleableUri uri1 = createUri("http://example.org/a");
+        CrawleableUri uri2 = createUri("http://example.org/b");
+        sink.openSinkForUri(uri1);
+        sink.openSinkForUri(uri2);
+        for (int i = 0; i < 12; ++i) {
+            sink.addTriple(uri1, createTriple(i));
+            sink.addTriple(uri2, createTriple(i));
+        }
+        sink.closeSinkForUri(uri1);
+        sink.closeSinkForUri(uri2);
+        sink.close();
+
+        Assert.assertEquals(3, loader.segments.size());
+        Assert.assertEquals(24, sink.getLoadedQuads());
+        Assert.assertEquals(3, sink.getLoadedSegments());
+        Assert.assertTrue(loader.closed);
+        DatasetGraph loaded = loader.dataset.asDatasetGraph();
+        Assert.assertEquals(12, loaded.getGraph(NodeFactory.createURI(SparqlBasedSink.getGraphId(uri1))).size());
+        Assert.assertEquals(12, loaded.getGraph(NodeFactory.createURI(SparqlBasedSink.getGraphId(uri2))).size());
+        // loaded segments have been removed
+        Assert.assertEquals(0, tempDirectory.list().length);
+    }
+
+    @Test
+    public void testAgeBasedRolling() throws Exception {
+        RecordingLoader loader = new RecordingLoader();
+        BulkLoadSink sink = new BulkLoadSink(tempDirectory, loader);
+        sink.setMaxSegmentAge(100);
+        CrawleableUri uri = createUri("http://example.org/a");
+        sink.openSinkForUri(uri);
+        sink.addTriple(uri, createTriple(0));
+        long end = System.currentTimeMillis() + 5000;
+        while ((sink.getLoadedSegments() == 0) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(20);
+        }
+        // the segment has been loaded without closing the sink
+        Assert.assertEquals(1, loader.segments.size());
+        sink.close();
+    }
+
+    @Test
+    public void testFailedAndPendingSegments() throws Exception {
+        AtomicInteger failures = new AtomicInteger(1);
+        RecordingLoader loader = new RecordingLoader() {
+            @Override
+            public void load(File segment) throws Exception {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IOException("Store is not available");
+                }
+                super.load(segment);
+            }
+        };
+        BulkLoadSink sink = new BulkLoadSink(tempDirectory, loader);
+        sink.setMaxRetries(0);
+        CrawleableUri uri = createUri("http://example.org/a");
+        sink.openSinkForUri(uri);
+        sink.addTriple(uri, createTriple(0));
+        sink.closeSinkForUri(uri);
+        sink.close();
+        Assert.assertEquals(1, sink.getFailedSegments());
+        File[] failed = tempDirectory.listFiles((d, n) -> n.endsWith(BulkLoadSink.FAILED_FILE_ENDING));
+        Assert.assertEquals(1, failed.length);
+
+        // a segment that remained in the directory is loaded by a new sink
+        String name = failed[0].getName();
+        Assert.assertTrue(failed[0].renameTo(
+                new File(tempDirectory, name.substring(0, name.length() - BulkLoadSink.FAILED_FILE_ENDING.length()))));
+        sink = new BulkLoadSink(tempDirectory, loader);
+        sink.close();
+        Assert.assertEquals(1, loader.segments.size());
+        Assert.assertEquals(1, loader.dataset.asDatasetGraph()
+                .getGraph(NodeFactory.createURI(SparqlBasedSink.getGraphId(uri))).size());
+    }
+
+    @Test
+    public void testTdbBulkLoader() throws Exception {
+        File tdbDirectory = new File(tempDirectory, "tdb");
+        Assert.assertTrue(tdbDirectory.mkdir());
+        File segmentDirectory = new File(tempDirectory, "segments");
+        Assert.assertTrue(segmentDirectory.mkdir());
+        DatasetGraph dataset = TDBFactory.createDatasetGraph(tdbDirectory.getAbsolutePath());
+        BulkLoadSink sink = new BulkLoadSink(segmentDirectory, new TdbBulkLoader(dataset));
+        CrawleableUri uri = createUri("http://example.org/a");
+        sink.openSinkForUri(uri);
+        for (int i = 0; i < 5; ++i) {
+            sink.addTriple(uri, createTriple(i));
+        }
+        sink.closeSinkForUri(uri);
+        sink.rollSegment();
+        // wait for the loader before the dataset is closed together with the sink
+        long end = System.currentTimeMillis() + 5000;
+        while ((sink.getLoadedSegments() == 0) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(20);
+        }
+        Node graph = NodeFactory.createURI(SparqlBasedSink.getGraphId(uri));
+        Assert.assertEquals(5, dataset.getGraph(graph).size());
+        sink.close();
+    }
+
+    private static CrawleableUri createUri(String uri) throws Exception {
+        CrawleableUri curi = new CrawleableUri(new URI(uri));
+        curi.addData(Constants.UUID_KEY, Integer.toString(uri.hashCode()));
+        return curi;
+    }
+
+    private static Triple createTriple(int i) {
+        return new Triple(NodeFactory.createURI("http://example.org/s" + i),
+                NodeFactory.createURI("http://example.org/p"), NodeFactory.createLiteral(Integer.toString(i)));
+    }
+
+    private static class RecordingLoader implements SegmentLoader {
+
+        protected List<String> segments = Collections.synchronizedList(new ArrayList<>());
+        protected Dataset dataset = DatasetFactory.create();
+        protected boolean closed = false;
+
+        @Override
+        public void load(File segment) throws Exception {
+            segments.add(segment.getName());
+            try (InputStream is = new GZIPInputStream(new FileInputStream(segment))) {
+                RDFDataMgr.read(dataset, is, Lang.NQUADS);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+}
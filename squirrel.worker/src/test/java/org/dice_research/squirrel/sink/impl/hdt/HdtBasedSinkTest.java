@@ -22,6 +22,7 @@ import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
 import org.apache.tika.io.IOUtils;
+import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.UriUtils;
 import org.dice_research.squirrel.sink.Sink;
@@ -128,6 +129,19 @@ public class HdtBasedSinkTest {
         runTest(false);
     }
 
+    @Test
+    public void testCloseConvertsMetaData() throws IOException, NotFoundException {
+        Sink sink = createSink(false);
+        CrawleableUri metaDataUri = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
+        StmtIterator iterator = models[0].listStatements();
+        while (iterator.hasNext()) {
+            sink.addTriple(metaDataUri, iterator.next().asTriple());
+        }
+        // closing the sink has to close (and convert) the meta data graph
+        sink.close();
+        checkModel(models[0], Constants.DEFAULT_META_DATA_GRAPH_URI, false);
+    }
+
     public void runTest(boolean useCompression) throws IOException, NotFoundException {
         Sink sink = createSink(useCompression);
 
@@ -138,6 +152,8 @@ public class HdtBasedSinkTest {
         }
         try {
             writingFinishedMutex.acquire(models.length);
+            // the conversion is done asynchronously
+            ((HdtBasedSink) sink).getConversionService().awaitRunningJobs();
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
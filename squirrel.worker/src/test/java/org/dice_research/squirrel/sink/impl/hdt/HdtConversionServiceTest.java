@@ -0,0 +1,113 @@
+package org.dice_research.squirrel.sink.impl.hdt;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.dice_research.squirrel.configurator.HdtConversionConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+
+public class HdtConversionServiceTest {
+
+    private File tempDirectory;
+    private File outputDirectory;
+    private File jobDirectory;
+
+    @Before
+    public void createTempDir() throws IOException {
+        tempDirectory = File.createTempFile("HdtConversionServiceTest", ".tmp");
+        Assert.assertTrue(tempDirectory.delete());
+        Assert.assertTrue(tempDirectory.mkdir());
+        outputDirectory = new File(tempDirectory, "hdt");
+        jobDirectory = new File(tempDirectory, "jobs");
+    }
+
+    @After
+    public void deleteTempDir() throws IOException {
+        FileUtils.deleteDirectory(tempDirectory);
+    }
+
+    @Test
+    public void testConversion() throws Exception {
+        HdtConversionService service = new HdtConversionService(outputDirectory, jobDirectory,
+                new HdtConversionConfiguration(1, 1, 0));
+        File input = createNTriplesFile("a", 3);
+        File output = new File(outputDirectory, "a.hdt");
+        service.submit(input, "http://example.org/a", output);
+        // a graph without triples does not have a file
+        service.submit(new File(tempDirectory, "empty.nt"), "http://example.org/empty",
+                new File(outputDirectory, "empty.hdt"));
+        service.close();
+
+        Assert.assertEquals(3, countTriples(output));
+        Assert.assertFalse(input.exists());
+        Assert.assertFalse(new File(outputDirectory, "empty.hdt").exists());
+        Assert.assertEquals(0, jobDirectory.list().length);
+        Assert.assertEquals(1, service.getMetrics().getCreatedHdtFiles());
+        Assert.assertEquals(0, service.getMetrics().getBacklog());
+    }
+
+    @Test
+    public void testMerging() throws Exception {
+        HdtConversionService service = new HdtConversionService(outputDirectory, jobDirectory,
+                new HdtConversionConfiguration(1, 10, 1L << 20));
+        for (int i = 0; i < 3; ++i) {
+            service.submit(createNTriplesFile("g" + i, 2), "http://example.org/g" + i,
+                    new File(outputDirectory, "g" + i + ".hdt"));
+        }
+        // the small files are waiting to be merged
+        Assert.assertEquals(3, service.getMetrics().getBacklog());
+        Assert.assertEquals(3, jobDirectory.list().length);
+        service.close();
+
+        File[] hdtFiles = outputDirectory.listFiles();
+        Assert.assertEquals(1, hdtFiles.length);
+        Assert.assertTrue(hdtFiles[0].getName().startsWith(HdtConversionService.MERGED_FILE_PREFIX));
+        Assert.assertEquals(6, countTriples(hdtFiles[0]));
+        Assert.assertEquals(3, service.getMetrics().getConvertedFiles());
+        Assert.assertEquals(0, service.getMetrics().getBacklog());
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        Assert.assertTrue(jobDirectory.mkdirs());
+        File output = new File(outputDirectory, "a.hdt");
+        // a job left behind by a previous run
+        new HdtConversionJob(new File(jobDirectory, "1-1-1" + HdtConversionService.JOB_FILE_ENDING), output,
+                "http://example.org/a", Collections.singletonList(createNTriplesFile("a", 4))).store();
+
+        HdtConversionService service = new HdtConversionService(outputDirectory, jobDirectory,
+                new HdtConversionConfiguration(1, 1, 0));
+        service.awaitRunningJobs();
+        Assert.assertEquals(4, countTriples(output));
+        Assert.assertEquals(0, jobDirectory.list().length);
+        service.close();
+    }
+
+    private File createNTriplesFile(String name, int triples) throws IOException {
+        File file = new File(tempDirectory, name + ".nt");
+        try (Writer writer = new FileWriter(file)) {
+            for (int i = 0; i < triples; ++i) {
+                writer.write("<http://example.org/" + name + "/s" + i + "> <http://example.org/p> \"" + i + "\" .\n");
+            }
+        }
+        return file;
+    }
+
+    private static long countTriples(File hdtFile) throws IOException {
+        HDT hdt = HDTManager.loadHDT(hdtFile.getAbsolutePath(), null);
+        try {
+            return hdt.getTriples().getNumberOfElements();
+        } finally {
+            hdt.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.dice_research.squirrel.sink.impl.sparql;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.atlas.web.HttpException;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AbstractBufferingTripleBasedSinkTest {
+
+    @Test
+    public void testSizeBasedFlush() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        sink.setBufferSize(10);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/a"));
+        sink.openSinkForUri(uri);
+        addTriples(sink, uri, 25);
+        sink.closeSinkForUri(uri);
+        // closing waits for all batches of the URI
+        Assert.assertEquals(3, sink.batches.size());
+        Assert.assertEquals(25, sink.metrics.getSentTriples());
+        Assert.assertEquals(10, sink.metrics.getMaxBatchSize());
+        sink.close();
+    }
+
+    @Test
+    public void testAgeBasedFlush() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        sink.setMaxBufferAge(100);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/a"));
+        sink.openSinkForUri(uri);
+        addTriples(sink, uri, 1);
+        long end = System.currentTimeMillis() + 5000;
+        while (sink.batches.isEmpty() && (System.currentTimeMillis() < end)) {
+            Thread.sleep(20);
+        }
+        // the triple has been sent without closing the sink
+        Assert.assertEquals(1, sink.batches.size());
+        sink.close();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            protected void sendTriples(CrawleableUri uri, Collection<Triple> buffer) throws Exception {
+                release.await();
+                super.sendTriples(uri, buffer);
+            }
+        };
+        sink.setBufferSize(10);
+        sink.setMaxParallelUpdates(1);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/a"));
+        sink.openSinkForUri(uri);
+        AtomicInteger added = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 50; ++i) {
+                sink.addTriple(uri, createTriple(i));
+                added.incrementAndGet();
+            }
+        });
+        producer.start();
+        producer.join(500);
+        // the first batch is in flight, the producer is blocked while handing over
+        // the second one
+        Assert.assertTrue(producer.isAlive());
+        Assert.assertEquals(19, added.get());
+        release.countDown();
+        producer.join();
+        sink.closeSinkForUri(uri);
+        Assert.assertEquals(50, sink.metrics.getSentTriples());
+        sink.close();
+    }
+
+    @Test
+    public void testRetries() throws Exception {
+        AtomicInteger failures = new AtomicInteger(2);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            protected void sendTriples(CrawleableUri uri, Collection<Triple> buffer) throws Exception {
+                if (failures.getAndDecrement() > 0) {
+                    throw new HttpException(503, "Service Unavailable", null);
+                }
+                super.sendTriples(uri, buffer);
+            }
+        };
+        sink.setRetryDelay(1);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/a"));
+        sink.openSinkForUri(uri);
+        addTriples(sink, uri, 5);
+        sink.closeSinkForUri(uri);
+        Assert.assertEquals(1, sink.batches.size());
+        Assert.assertEquals(2, sink.metrics.getRetries());
+        Assert.assertEquals(0, sink.metrics.getFailedBatches());
+        sink.close();
+    }
+
+    @Test
+    public void testNoRetryOnClientError() throws Exception {
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            protected void sendTriples(CrawleableUri uri, Collection<Triple> buffer) throws Exception {
+                throw new HttpException(400, "Bad Request", null);
+            }
+        };
+        sink.setRetryDelay(1);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/a"));
+        sink.openSinkForUri(uri);
+        addTriples(sink, uri, 5);
+        sink.closeSinkForUri(uri);
+        Assert.assertEquals(0, sink.metrics.getRetries());
+        Assert.assertEquals(1, sink.metrics.getFailedBatches());
+        Assert.assertEquals(5, sink.metrics.getFailedTriples());
+        sink.close();
+    }
+
+    private static void addTriples(RecordingSink sink, CrawleableUri uri, int count) {
+        for (int i = 0; i < count; ++i) {
+            sink.addTriple(uri, createTriple(i));
+        }
+    }
+
+    private static Triple createTriple(int i) {
+        return new Triple(NodeFactory.createURI("http://example.org/s" + i),
+                NodeFactory.createURI("http://example.org/p"), NodeFactory.createLiteral(Integer.toString(i)));
+    }
+
+    private static class RecordingSink extends AbstractBufferingTripleBasedSink {
+
+        protected List<List<Triple>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        protected void sendTriples(CrawleableUri uri, Collection<Triple> buffer) throws Exception {
+            batches.add(new ArrayList<>(buffer));
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package org.dice_research.squirrel.worker.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.analyzer.Analyzer;
+import org.dice_research.squirrel.collect.SimpleUriCollector;
+import org.dice_research.squirrel.collect.SqlBasedUriCollector;
+import org.dice_research.squirrel.collect.UriCollector;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.CrawleableUriFactory4Tests;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.fetcher.Fetcher;
+import org.dice_research.squirrel.frontier.Frontier;
+import org.dice_research.squirrel.robots.RobotsManager;
+import org.dice_research.squirrel.sink.Sink;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PipelinedWorkerImplTest {
+
+    private static final int NUMBER_OF_CHUNKS = 6;
+    private static final int URIS_PER_CHUNK = 4;
+
+    private ChunkFrontier frontier = new ChunkFrontier();
+    private PoliteFetcher fetcher = new PoliteFetcher();
+    private CountingSink sink = new CountingSink();
+    private UriCollector collector = new SimpleUriCollector(new GzipJavaUriSerializer());
+
+    @Test
+    public void testCrawl() throws Exception {
+        PipelinedWorkerImpl worker = createWorker(new SimpleRobotsManager("/forbidden"));
+        List<CrawleableUri> chunk = createChunks(1).get(0);
+        chunk.add(new CrawleableUriFactory4Tests().create(new URI("http://example0.org/forbidden"),
+                chunk.get(0).getIpAddress(), UriType.DEREFERENCEABLE));
+        worker.crawl(chunk);
+        worker.close();
+
+        Assert.assertEquals(1, frontier.doneChunks.size());
+        Assert.assertSame(chunk, frontier.doneChunks.peek());
+        // The forbidden URI must not have been fetched
+        Assert.assertEquals(URIS_PER_CHUNK, fetcher.fetchedUris.size());
+        Assert.assertEquals(URIS_PER_CHUNK, sink.openedUris.size());
+        Assert.assertEquals(sink.openedUris, sink.closedUris);
+        // Every crawled URI leads to a single new URI
+        Assert.assertEquals(URIS_PER_CHUNK, frontier.newUris.size());
+        for (CrawleableUri uri : chunk) {
+            Assert.assertFalse(uri.getData().containsKey(Constants.URI_CRAWLING_ACTIVITY));
+        }
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        PipelinedWorkerImpl worker = createWorker(new SimpleRobotsManager(null));
+        frontier.pendingChunks.addAll(createChunks(NUMBER_OF_CHUNKS));
+        Thread workerThread = new Thread(worker);
+        workerThread.start();
+        Assert.assertTrue("The worker did not crawl all chunks in time.",
+                frontier.allChunksDone.await(30, TimeUnit.SECONDS));
+        worker.setTerminateFlag(true);
+        workerThread.join(TimeUnit.SECONDS.toMillis(30));
+        Assert.assertFalse(workerThread.isAlive());
+
+        Assert.assertNull("Two URIs of the same IP have been fetched in parallel.", fetcher.error);
+        Assert.assertEquals(NUMBER_OF_CHUNKS, frontier.doneChunks.size());
+        Set<List<CrawleableUri>> uniqueChunks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        uniqueChunks.addAll(frontier.doneChunks);
+        Assert.assertEquals("A chunk has been reported twice.", NUMBER_OF_CHUNKS, uniqueChunks.size());
+        Assert.assertEquals(NUMBER_OF_CHUNKS * URIS_PER_CHUNK, fetcher.fetchedUris.size());
+        Assert.assertEquals(NUMBER_OF_CHUNKS * URIS_PER_CHUNK, sink.closedUris.size());
+        Assert.assertEquals(NUMBER_OF_CHUNKS * URIS_PER_CHUNK, frontier.newUris.size());
+        // Several chunks should have been in the pipeline at the same time
+        Assert.assertTrue(fetcher.maxParallelFetches > 1);
+    }
+
+    @Test
+    public void testRejectsSqlBasedUriCollector() throws Exception {
+        SqlBasedUriCollector sqlCollector = new SqlBasedUriCollector(new GzipJavaUriSerializer(), "pipelinedTest");
+        try {
+            new PipelinedWorkerImpl(frontier, fetcher, sink, new NewUriAnalyzer(sqlCollector),
+                    new SimpleRobotsManager(null), new GzipJavaUriSerializer(), sqlCollector, 10, null, false);
+            Assert.fail("The worker accepted a collector that is not thread-safe.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        } finally {
+            sqlCollector.close();
+        }
+    }
+
+    private PipelinedWorkerImpl createWorker(RobotsManager manager) {
+        return new PipelinedWorkerImpl(frontier, fetcher, sink, new NewUriAnalyzer(collector), manager,
+                new GzipJavaUriSerializer(), collector, 10, null, false, 3, 3, 1, 2, 1, 2);
+    }
+
+    private List<List<CrawleableUri>> createChunks(int numberOfChunks) throws Exception {
+        CrawleableUriFactory4Tests factory = new CrawleableUriFactory4Tests();
+        List<List<CrawleableUri>> chunks = new ArrayList<>();
+        for (int i = 0; i < numberOfChunks; ++i) {
+            InetAddress ip = InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) i });
+            List<CrawleableUri> chunk = new ArrayList<>();
+            for (int j = 0; j < URIS_PER_CHUNK; ++j) {
+                chunk.add(factory.create(new URI("http://example" + i + ".org/" + j), ip,
+                        UriType.DEREFERENCEABLE));
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static class ChunkFrontier implements Frontier {
+        private Queue<List<CrawleableUri>> pendingChunks = new ConcurrentLinkedQueue<>();
+        private Queue<List<CrawleableUri>> doneChunks = new ConcurrentLinkedQueue<>();
+        private Queue<CrawleableUri> newUris = new ConcurrentLinkedQueue<>();
+        private CountDownLatch allChunksDone = new CountDownLatch(NUMBER_OF_CHUNKS);
+
+        @Override
+        public List<CrawleableUri> getNextUris() {
+            return pendingChunks.poll();
+        }
+
+        @Override
+        public void addNewUri(CrawleableUri uri) {
+            newUris.add(uri);
+        }
+
+        @Override
+        public void addNewUris(List<CrawleableUri> uris) {
+            newUris.addAll(uris);
+        }
+
+        @Override
+        public void crawlingDone(List<CrawleableUri> uris) {
+            doneChunks.add(uris);
+            allChunksDone.countDown();
+        }
+
+        @Override
+        public int getNumberOfPendingUris() {
+            return pendingChunks.size();
+        }
+
+        @Override
+        public boolean doesRecrawling() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    /**
+     * Fetcher that checks that there are never two parallel requests to the same
+     * IP.
+     */
+    private static class PoliteFetcher implements Fetcher {
+        private Set<InetAddress> activeIps = ConcurrentHashMap.newKeySet();
+        private Queue<CrawleableUri> fetchedUris = new ConcurrentLinkedQueue<>();
+        private volatile String error = null;
+        private volatile int maxParallelFetches = 0;
+
+        @Override
+        public File fetch(CrawleableUri uri) {
+            if (!activeIps.add(uri.getIpAddress())) {
+                error = "Parallel requests to " + uri.getIpAddress();
+            }
+            synchronized (this) {
+                maxParallelFetches = Math.max(maxParallelFetches, activeIps.size());
+            }
+            try {
+                Thread.sleep(20);
+                File file = File.createTempFile("fetched_", ".txt");
+                file.deleteOnExit();
+                FileUtils.write(file, uri.getUri().toString(), StandardCharsets.UTF_8);
+                fetchedUris.add(uri);
+                return file;
+            } catch (Exception e) {
+                return null;
+            } finally {
+                activeIps.remove(uri.getIpAddress());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    /**
+     * Analyzer that adds a single triple and a single new URI for every file.
+     */
+    private static class NewUriAnalyzer implements Analyzer {
+        private UriCollector collector;
+
+        public NewUriAnalyzer(UriCollector collector) {
+            this.collector = collector;
+        }
+
+        @Override
+        public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
+            String newUri = curi.getUri().toString() + "/new";
+            sink.addTriple(curi, new Triple(NodeFactory.createURI(curi.getUri().toString()),
+                    NodeFactory.createURI("http://example.org/p"), NodeFactory.createURI(newUri)));
+            collector.addNewUri(curi, newUri);
+            return collector.getUris(curi);
+        }
+
+        @Override
+        public boolean isElegible(CrawleableUri curi, File data) {
+            return true;
+        }
+    }
+
+    private static class CountingSink implements Sink {
+        private Set<String> openedUris = ConcurrentHashMap.newKeySet();
+        private Set<String> closedUris = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void addTriple(CrawleableUri uri, Triple triple) {
+        }
+
+        @Override
+        public void addData(CrawleableUri uri, InputStream stream) {
+        }
+
+        @Override
+        public void openSinkForUri(CrawleableUri uri) {
+            openedUris.add(uri.getUri().toString());
+        }
+
+        @Override
+        public void closeSinkForUri(CrawleableUri uri) {
+            closedUris.add(uri.getUri().toString());
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class SimpleRobotsManager implements RobotsManager {
+        private String forbiddenPath;
+
+        public SimpleRobotsManager(String forbiddenPath) {
+            this.forbiddenPath = forbiddenPath;
+        }
+
+        @Override
+        public boolean isUriCrawlable(URI uri) {
+            return (forbiddenPath == null) || !forbiddenPath.equals(uri.getPath());
+        }
+
+        @Override
+        public long getMinWaitingTime(URI uri) {
+            return 5;
+        }
+    }
+}